@@ -766,11 +766,32 @@ public abstract class View {
      * transparent windows in order to update them.
      */
     public void uploadPixels(Pixels pixels) {
+        uploadPixels(pixels, null);
+    }
+
+    /**
+     * Uploads only the given regions of the pixels to the view; the
+     * default implementation uploads all the pixels.
+     *
+     * @param dirtyRects rectangles (x, y, width, height) that changed since
+     *        the last upload or null to upload all the pixels
+     */
+    protected void _uploadPixels(long ptr, Pixels pixels, int[] dirtyRects) {
+        _uploadPixels(ptr, pixels);
+    }
+
+    /**
+     * This method dumps the changed regions of the pixels on to the view.
+     *
+     * @param dirtyRects rectangles (x, y, width, height) that changed since
+     *        the last upload or null if all the pixels changed
+     */
+    public void uploadPixels(Pixels pixels, int[] dirtyRects) {
         Application.checkEventThread();
         checkNotClosed();
         lock();
         try {
-            _uploadPixels(this.ptr, pixels);
+            _uploadPixels(this.ptr, pixels, dirtyRects);
         } finally {
             unlock();
         }
@@ -109,6 +109,9 @@ import java.util.Arrays;
     float prevX, prevY;
     float currX, currY;
 
+    // incremented by every change of the geometry (see getModCount()):
+    int modCount;
+
     /**
      * Constructs a new empty single precision {@code Path2D} object
      * with a default winding rule of {@link #WIND_NON_ZERO}.
@@ -339,6 +342,7 @@ import java.util.Arrays;
             throw new IllegalPathStateException("missing initial moveto "+
                                                 "in path definition");
         }
+        modCount++;
         int size = pointTypes.length;
         if (size == 0) {
             pointTypes = new byte[2];
@@ -433,6 +437,7 @@ import java.util.Arrays;
      */
     public final void moveTo(float x, float y) {
         if (numTypes > 0 && pointTypes[numTypes - 1] == SEG_MOVETO) {
+            modCount++;
             floatCoords[numCoords-2] = moveX = prevX = currX = x;
             floatCoords[numCoords-1] = moveY = prevY = currY = y;
         } else {
@@ -453,6 +458,7 @@ import java.util.Arrays;
      */
     public final void moveToRel(float relx, float rely) {
         if (numTypes > 0 && pointTypes[numTypes - 1] == SEG_MOVETO) {
+            modCount++;
             floatCoords[numCoords-2] = moveX = prevX = (currX += relx);
             floatCoords[numCoords-1] = moveY = prevY = (currY += rely);
         } else {
@@ -1934,6 +1940,17 @@ import java.util.Arrays;
         windingRule = rule;
     }
 
+    /**
+     * Returns a counter incremented by every change of the geometry of this
+     * path, so that caches keyed on the path instance can detect changes
+     * without comparing the coordinates.
+     *
+     * @return the modification counter of this path
+     */
+    public final int getModCount() {
+        return modCount;
+    }
+
     /**
      * Returns the coordinates most recently added to the end of the path
      * as a {@link Point2D} object.
@@ -1968,6 +1985,7 @@ import java.util.Arrays;
      * forgotten.
      */
     public final void reset() {
+        modCount++;
         numTypes = numCoords = 0;
         moveX = moveY = prevX = prevY = currX = currY = 0;
     }
@@ -2350,6 +2368,7 @@ import java.util.Arrays;
     }
 
     public void setTo(Path2D otherPath) {
+        modCount++;
         numTypes = otherPath.numTypes;
         numCoords = otherPath.numCoords;
         if (numTypes > pointTypes.length) {
@@ -25,18 +25,80 @@
 
 package com.sun.javafx.sg.prism;
 
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import com.sun.glass.ui.Screen;
 import com.sun.javafx.geom.BaseBounds;
+import com.sun.javafx.geom.DirtyRegionContainer;
+import com.sun.javafx.geom.RectBounds;
+import com.sun.javafx.geom.Rectangle;
+import com.sun.javafx.geom.transform.Affine2D;
 import com.sun.javafx.geom.transform.BaseTransform;
 import com.sun.prism.Graphics;
+import com.sun.prism.RenderTarget;
+import com.sun.prism.Texture;
+import com.sun.prism.impl.PrismSettings;
 import com.sun.scenario.effect.Effect;
+import com.sun.scenario.effect.FilterContext;
+import com.sun.scenario.effect.Filterable;
+import com.sun.scenario.effect.ImageData;
+import com.sun.scenario.effect.impl.prism.PrDrawable;
 import com.sun.scenario.effect.impl.prism.PrEffectHelper;
+import com.sun.scenario.effect.impl.prism.PrFilterContext;
+import com.sun.scenario.effect.impl.prism.PrTexture;
 
 /**
+ * The effect applied to a node.
+ *
+ * When -Dprism.effectcache.size=<long>[kKmMgG] is set, the filter keeps the
+ * last filtered output of a node that did not change since the previous
+ * frame, and renders it again as long as the node content and the effect
+ * are not invalidated (see {@link NGNode#invalidateCache()}) and the render
+ * transform only differs by an integer translation. The outputs of all the
+ * filters are released in least recently used order to stay in that budget;
+ * the filters are only weakly referenced by the budget, so the output of a
+ * node removed from the scene graph is released once the node is collected.
+ *
+ * When only descendants of the node changed, the output is kept and the
+ * dirty regions of the effect computed for the node during the dirty region
+ * accumulation (which include the kernel footprint) are filtered again into
+ * it, so a small change in a large blurred group does not filter the whole
+ * group again.
  */
 public class EffectFilter {
+    private static final long MAX_BYTES = PrismSettings.effectCacheSize;
+
+    // outputs of the filters, least recently used first
+    private static final LinkedHashSet<OutputRef> outputs = new LinkedHashSet<>();
+    // outputs of the filters collected by the garbage collector
+    private static final ReferenceQueue<EffectFilter> collected = new ReferenceQueue<>();
+    private static long usedBytes;
+
     private Effect effect;
     private NodeEffectInput nodeInput;
 
+    // last filtered output, produced under outputTx for the outputClip area
+    private ImageData output;
+    private BaseTransform outputTx;
+    private FilterContext outputFctx;
+    private Rectangle outputClip;
+    private long outputBytes;
+    private OutputRef outputRef;
+
+    // regions of the output (in local coordinates) to filter again, and
+    // whether a change of a descendant was not located yet
+    private final ArrayList<RectBounds> dirtyRegions = new ArrayList<>();
+    private boolean regionsPending;
+
+    // transform of the last render, and whether the filter was not
+    // invalidated since then
+    private BaseTransform lastTx;
+    private boolean unchanged;
+
     EffectFilter(Effect effect, NGNode node) {
         this.effect = effect;
         this.nodeInput = new NodeEffectInput(node);
@@ -44,21 +106,346 @@ public class EffectFilter {
 
     Effect getEffect() { return effect; }
     NodeEffectInput getNodeInput() { return nodeInput; }
+    boolean hasOutput() { return output != null; }
 
     void dispose() {
+        releaseOutput();
+        lastTx = null;
         effect = null;
         nodeInput.setNode(null);
         nodeInput = null;
     }
 
+    /**
+     * Called when the node content or the effect changed: the last
+     * filtered output, if any, is released.
+     */
+    void invalidate() {
+        unchanged = false;
+        releaseOutput();
+    }
+
+    /**
+     * Called when a descendant of the node changed: the last filtered
+     * output is kept until the dirty regions of the change are known.
+     */
+    void invalidateRegions() {
+        unchanged = false;
+        if (output != null) {
+            regionsPending = true;
+        }
+    }
+
+    /**
+     * Records the dirty regions of the effect output (in the local
+     * coordinates of the node) computed for the changes of its descendants.
+     */
+    void addDirtyRegions(DirtyRegionContainer drc) {
+        if (output == null) {
+            return;
+        }
+        for (int i = 0; i < drc.size(); i++) {
+            dirtyRegions.add(new RectBounds(drc.getDirtyRegion(i)));
+        }
+        regionsPending = false;
+    }
+
+    /**
+     * Called when the dirty flags of the node are cleared: the output is
+     * released if the dirty regions of a change were not recorded.
+     */
+    void checkDirtyRegions() {
+        if (regionsPending) {
+            releaseOutput();
+        }
+    }
+
     BaseBounds getBounds(BaseBounds bounds, BaseTransform xform) {
         BaseBounds r = getEffect().getBounds(xform, nodeInput);
         return bounds.deriveWithNewBounds(r);
     }
 
     void render(Graphics g) {
+        if (MAX_BYTES > 0L && renderOutput(g)) {
+            return;
+        }
         NodeEffectInput nodeInput = getNodeInput();
         PrEffectHelper.render(getEffect(), g, 0, 0, nodeInput);
         nodeInput.flush();
     }
+
+    /**
+     * Renders the last filtered output or, if the node did not change since
+     * the previous frame, filters the part of the effect visible in the
+     * render target once and keeps it.
+     * @return false if the effect must be rendered normally
+     */
+    private boolean renderOutput(Graphics g) {
+        final BaseTransform tx = g.getTransformNoClone();
+        final Screen screen = g.getAssociatedScreen();
+        if (!tx.is2D() || screen == null) {
+            releaseOutput();
+            lastTx = null;
+            return false;
+        }
+        final FilterContext fctx = PrFilterContext.getInstance(screen);
+        final boolean stable = unchanged && (lastTx != null) && sameLinear(lastTx, tx);
+        lastTx = tx.copy();
+        unchanged = true;
+
+        if (output != null) {
+            final double dx = tx.getMxt() - outputTx.getMxt();
+            final double dy = tx.getMyt() - outputTx.getMyt();
+            if (fctx == outputFctx && sameLinear(outputTx, tx)
+                && dx == Math.rint(dx) && dy == Math.rint(dy))
+            {
+                final Rectangle clip = new Rectangle(PrEffectHelper.getGraphicsClipNoClone(g));
+                clip.translate(-(int) dx, -(int) dy);
+                if (outputClip.contains(clip) && output.validate(fctx) &&
+                    (dirtyRegions.isEmpty() || updateOutput(fctx, tx, (int) dx, (int) dy)))
+                {
+                    drawOutput(g, (int) dx, (int) dy);
+                    touch(outputRef);
+                    return true;
+                }
+            }
+            releaseOutput();
+        }
+        if (!stable) {
+            // the node is changing: avoid filtering more than the clip
+            return false;
+        }
+
+        final RenderTarget rt = g.getRenderTarget();
+        final Rectangle clip = new Rectangle(rt.getContentWidth(), rt.getContentHeight());
+        final BaseTransform transform = tx.isIdentity()
+            ? BaseTransform.IDENTITY_TRANSFORM : new Affine2D(tx);
+        // no direct rendering: the whole output is needed as an image
+        final ImageData res = getEffect().filter(fctx, transform, clip, null, nodeInput);
+        nodeInput.flush();
+        if (res == null) {
+            return false;
+        }
+        if (!res.validate(fctx)) {
+            res.unref();
+            return false;
+        }
+        final Filterable img = res.getUntransformedImage();
+        output = res;
+        outputTx = tx.copy();
+        outputFctx = fctx;
+        outputClip = clip;
+        outputBytes = 4L * img.getPhysicalWidth() * img.getPhysicalHeight();
+
+        drawOutput(g, 0, 0);
+        if (!store(this)) {
+            releaseOutput();
+        }
+        return true;
+    }
+
+    /**
+     * Filters the dirty regions again into the output.
+     * @return false if the whole output must be filtered again
+     */
+    private boolean updateOutput(FilterContext fctx, BaseTransform tx, int dx, int dy) {
+        if (!output.getTransform().isIdentity() || output.getReferenceCount() != 1) {
+            return false;
+        }
+        final Rectangle bounds = output.getUntransformedBounds();
+        final ArrayList<Rectangle> rects =
+            getRefilterRects(dirtyRegions, tx, dx, dy, outputClip, bounds);
+        if (rects == null) {
+            return false;
+        }
+        dirtyRegions.clear();
+        if (rects.isEmpty()) {
+            return true;
+        }
+
+        final BaseTransform transform = outputTx.isIdentity()
+            ? BaseTransform.IDENTITY_TRANSFORM : new Affine2D(outputTx);
+        final Graphics g = ((PrDrawable) output.getUntransformedImage()).createGraphics();
+        boolean valid = true;
+        for (Rectangle r : rects) {
+            final ImageData res = getEffect().filter(fctx, transform, r, null, nodeInput);
+            if (res != null && !res.validate(fctx)) {
+                res.unref();
+                valid = false;
+                break;
+            }
+            g.setTransform(null);
+            g.setClipRect(new Rectangle(r.x - bounds.x, r.y - bounds.y, r.width, r.height));
+            g.translate(-bounds.x, -bounds.y);
+            g.clearQuad(r.x, r.y, r.x + r.width, r.y + r.height);
+            if (res != null) {
+                final Rectangle rb = res.getUntransformedBounds();
+                final Texture tex = ((PrTexture) res.getUntransformedImage()).getTextureObject();
+                g.transform(res.getTransform());
+                g.drawTexture(tex, rb.x, rb.y, rb.width, rb.height);
+                res.unref();
+            }
+        }
+        nodeInput.flush();
+        return valid;
+    }
+
+    /**
+     * Computes the areas of the output to filter again for the given dirty
+     * regions of the effect, rendered under tx translated by dx, dy from
+     * the transform of the output.
+     * @return the areas, in the device space of the output, or null if the
+     *         whole output must be filtered again
+     */
+    static ArrayList<Rectangle> getRefilterRects(List<RectBounds> regions,
+                                                 BaseTransform tx, int dx, int dy,
+                                                 Rectangle outputClip,
+                                                 Rectangle bounds)
+    {
+        final ArrayList<Rectangle> rects = new ArrayList<>(regions.size());
+        long area = 0L;
+        RectBounds tmp = new RectBounds();
+        for (RectBounds region : regions) {
+            final Rectangle r = new Rectangle(tx.transform(region, tmp));
+            r.translate(-dx, -dy);
+            r.intersectWith(outputClip);
+            if (r.isEmpty()) {
+                continue;
+            }
+            if (!bounds.contains(r)) {
+                // the effect output grew
+                return null;
+            }
+            area += (long) r.width * r.height;
+            rects.add(r);
+        }
+        if (2L * area > (long) bounds.width * bounds.height) {
+            // cheaper to filter the whole output
+            return null;
+        }
+        return rects;
+    }
+
+    private void drawOutput(Graphics g, int dx, int dy) {
+        final BaseTransform savetx = g.getTransformNoClone().copy();
+        final Rectangle r = output.getUntransformedBounds();
+        final Texture tex = ((PrTexture) output.getUntransformedImage()).getTextureObject();
+        g.setTransform(null);
+        g.translate(dx, dy);
+        g.transform(output.getTransform());
+        g.drawTexture(tex, r.x, r.y, r.width, r.height);
+        g.setTransform(savetx);
+    }
+
+    private static boolean sameLinear(BaseTransform a, BaseTransform b) {
+        return a.getMxx() == b.getMxx() && a.getMxy() == b.getMxy()
+            && a.getMyx() == b.getMyx() && a.getMyy() == b.getMyy();
+    }
+
+    private void releaseOutput() {
+        if (output != null) {
+            if (outputRef != null) {
+                synchronized (outputs) {
+                    if (outputs.remove(outputRef)) {
+                        usedBytes -= outputRef.bytes;
+                    }
+                }
+            }
+            clearOutput();
+        }
+    }
+
+    private void clearOutput() {
+        output.unref();
+        output = null;
+        outputRef = null;
+        outputTx = null;
+        outputFctx = null;
+        outputClip = null;
+        outputBytes = 0L;
+        dirtyRegions.clear();
+        regionsPending = false;
+    }
+
+    private static void touch(OutputRef ref) {
+        synchronized (outputs) {
+            expungeCollected();
+            if (outputs.remove(ref)) {
+                outputs.add(ref);
+            }
+        }
+    }
+
+    /**
+     * Accounts the output of the given filter, releasing the least recently
+     * used outputs of other filters to stay in the budget.
+     * @return false if the output does not fit in the budget
+     */
+    private static boolean store(EffectFilter filter) {
+        if (filter.outputBytes > MAX_BYTES) {
+            return false;
+        }
+        final OutputRef ref = new OutputRef(filter);
+        filter.outputRef = ref;
+        synchronized (outputs) {
+            expungeCollected();
+            outputs.add(ref);
+            usedBytes += ref.bytes;
+            final Iterator<OutputRef> it = outputs.iterator();
+            while (usedBytes > MAX_BYTES && it.hasNext()) {
+                final OutputRef eldest = it.next();
+                if (eldest != ref) {
+                    it.remove();
+                    usedBytes -= eldest.bytes;
+                    final EffectFilter f = eldest.get();
+                    if (f != null) {
+                        f.clearOutput();
+                    } else {
+                        eldest.output.unref();
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the bytes of the outputs kept in the budget, once the outputs
+     * of the collected filters are released.
+     */
+    static long getUsedBytes() {
+        synchronized (outputs) {
+            expungeCollected();
+            return usedBytes;
+        }
+    }
+
+    /**
+     * Releases the outputs of the filters collected by the garbage collector
+     * (nodes removed from the scene graph or disposed scenes).
+     */
+    private static void expungeCollected() {
+        OutputRef ref;
+        while ((ref = (OutputRef) collected.poll()) != null) {
+            if (outputs.remove(ref)) {
+                usedBytes -= ref.bytes;
+                ref.output.unref();
+            }
+        }
+    }
+
+    /**
+     * A weak reference to a filter holding an output, with that output so
+     * it can be released once the filter is collected
+     */
+    private static final class OutputRef extends WeakReference<EffectFilter> {
+        final ImageData output;
+        final long bytes;
+
+        OutputRef(EffectFilter filter) {
+            super(filter, collected);
+            this.output = filter.output;
+            this.bytes = filter.outputBytes;
+        }
+    }
 }
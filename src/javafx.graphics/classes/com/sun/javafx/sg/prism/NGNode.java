@@ -869,7 +869,7 @@ public abstract class NGNode {
                 p.childDirty = true;
                 p.dirtyChildrenAccumulated++;
             }
-            p.invalidateCache();
+            p.invalidateCacheByDescendant(atClip);
             atClip = p.isClip;
             byTranslation = p.dirty == DirtyFlag.DIRTY_BY_TRANSLATION;
             p = p.parent;
@@ -884,7 +884,7 @@ public abstract class NGNode {
         // already be marked dirty (for example, its opacity may have
         // changed) but its cache has not been made invalid. This call
         // will make sure it is invalidated in that case
-        if (p != null) p.invalidateCache();
+        if (p != null) p.invalidateCacheByDescendant(atClip);
     }
 
     /**
@@ -903,6 +903,9 @@ public abstract class NGNode {
         childDirty = false;
         dirtyBounds.makeEmpty();
         dirtyChildrenAccumulated = 0;
+        if (effectFilter != null) {
+            effectFilter.checkDirtyRegions();
+        }
     }
 
     /**
@@ -939,12 +942,35 @@ public abstract class NGNode {
      * Invalidates the cache, if it is in use. There are several operations
      * which need to cause the cached raster to become invalid so that a
      * subsequent render operation will result in the cached image being
-     * reconstructed.
+     * reconstructed. The last output kept by the effect filter, if any, is
+     * released as well.
      */
     protected final void invalidateCache() {
         if (cacheFilter != null) {
             cacheFilter.invalidate();
         }
+        if (effectFilter != null) {
+            effectFilter.invalidate();
+        }
+    }
+
+    /**
+     * Invalidates the cache because a descendant changed. Unless that
+     * descendant is the clip of this node, the effect filter only filters
+     * again the dirty regions of its last output, see
+     * {@link #applyEffect}.
+     */
+    private void invalidateCacheByDescendant(boolean clip) {
+        if (cacheFilter != null) {
+            cacheFilter.invalidate();
+        }
+        if (effectFilter != null) {
+            if (clip) {
+                effectFilter.invalidate();
+            } else {
+                effectFilter.invalidateRegions();
+            }
+        }
     }
 
     /**
@@ -2505,6 +2531,7 @@ public abstract class NGNode {
         final DirtyRegionContainer effectDrc = effect.getDirtyRegions(helper, regionPool);
         drc.deriveWithNewContainer(effectDrc);
         regionPool.checkIn(effectDrc);
+        effectFilter.addDirtyRegions(drc);
     }
 
     private static class EffectDirtyBoundsHelper extends Effect {
@@ -1548,6 +1548,8 @@ public final class QuantumToolkit extends Toolkit {
                 draw(g, x, y, w, h);
                 int[] pixels = rt.getPixels();
                 if (pixels != null) {
+                    // the image keeps the pixels of the render target:
+                    rt.keepPixels();
                     pImage.setImage(com.sun.prism.Image.fromIntArgbPreData(pixels, w, h));
                 } else {
                     IntBuffer ib = IntBuffer.allocate(w * h);
@@ -148,10 +148,14 @@ final class UploadingPainter extends ViewPainter implements Runnable {
             float outScaleX = sceneState.getOutputScaleX();
             float outScaleY = sceneState.getOutputScaleY();
             RTTexture rtt;
+            // device space rectangles painted by this pulse (null for all):
+            int[] dirtyRects;
             if (rttexture.isMSAA() || outWidth != bufWidth || outHeight != bufHeight) {
                 rtt = resolveRenderTarget(g, outWidth, outHeight);
+                dirtyRects = null;
             } else {
                 rtt = rttexture;
+                dirtyRects = sceneState.getDirtyRects();
             }
 
             Pixels pix = pixelSource.getUnusedPixels(outWidth, outHeight, outScaleX, outScaleY);
@@ -160,8 +164,13 @@ final class UploadingPainter extends ViewPainter implements Runnable {
             int rawbits[] = rtt.getPixels();
 
             if (rawbits != null) {
-                bits.put(rawbits, 0, outWidth * outHeight);
+                // only copy the regions painted since the pixels were last used:
+                int[] stale = pixelSource.getStaleRegions(pix, dirtyRects);
+                QueuedPixelSource.copyRegions(rawbits, bits, outWidth, outHeight, stale);
             } else {
+                // the whole texture is read back:
+                dirtyRects = null;
+                pixelSource.getStaleRegions(pix, null);
                 if (!rtt.readPixels(bits)) {
                     /* device lost */
                     sceneState.getScene().entireSceneNeedsRepaint();
@@ -178,7 +187,7 @@ final class UploadingPainter extends ViewPainter implements Runnable {
                 /* transparent pixels created and ready for upload */
                 // Copy references, which are volatile, used by upload. Thus
                 // ensure they still exist once event queue is consumed.
-                pixelSource.enqueuePixels(pix);
+                pixelSource.enqueuePixels(pix, dirtyRects);
                 sceneState.uploadPixels(pixelSource);
             }
 
@@ -26,6 +26,7 @@
 package com.sun.javafx.tk.quantum;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.locks.ReentrantLock;
 import com.sun.javafx.geom.DirtyRegionContainer;
@@ -163,6 +164,10 @@ abstract class ViewPainter implements Runnable {
     }
 
     protected void paintImpl(final Graphics backBufferGraphics) {
+        // Assume the whole scene is painted unless only dirty regions are
+        // painted below (see PresentableState.getDirtyRects())
+        sceneState.setDirtyRects(null);
+
         // We should not be painting anything with a width / height
         // that is <= 0, so we might as well bail right off.
         if (width <= 0 || height <= 0 || backBufferGraphics == null) {
@@ -304,6 +309,8 @@ abstract class ViewPainter implements Runnable {
             }
 
             // Paint each dirty region
+            final int[] dirtyRects = new int[4 * dirtyRegionSize];
+            int n = 0;
             for (int i = 0; i < dirtyRegionSize; ++i) {
                 final RectBounds dirtyRegion = dirtyRegionContainer.getDirtyRegion(i);
                 // TODO it should be impossible to have ever created a dirty region that was empty...
@@ -320,8 +327,19 @@ abstract class ViewPainter implements Runnable {
                     g.setClipRectIndex(i);
                     doPaint(g, getRootPath(i));
                     getRootPath(i).clear();
+
+                    dirtyRects[n++] = dirtyRect.x;
+                    dirtyRects[n++] = dirtyRect.y;
+                    dirtyRects[n++] = dirtyRect.width;
+                    dirtyRects[n++] = dirtyRect.height;
                 }
             }
+            // Everything painted below uses the last dirty region clip so only
+            // these rectangles of the back buffer changed (unless the scene is
+            // drawn by the showDirtyOpts code below)
+            if (!showDirtyOpts) {
+                sceneState.setDirtyRects(Arrays.copyOf(dirtyRects, n));
+            }
         } else {
             // There are no dirty regions, so just paint everything
             g.setHasPreCullingBits(false);
@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package com.sun.javafx.util;
+
+import java.security.AccessController;
+import java.security.PrivilegedAction;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * A lazily created ForkJoin pool of named daemon workers, shared by the
+ * parallel renderers (Marlin bands, Pisces tiles and Decora SW filters) to
+ * split a range of rows in sub-ranges processed concurrently. The calling
+ * thread always waits for all the sub-ranges.
+ */
+public final class ForkJoinExecutor {
+
+    /**
+     * Processes the rows [start, end[ of a range
+     */
+    @FunctionalInterface
+    public interface RangeTask {
+        void run(int start, int end);
+    }
+
+    private final String threadName;
+    private final int threads;
+    private ForkJoinPool pool = null;
+
+    /**
+     * @param threadName prefix of the worker names
+     * @param threads parallelism of the pool
+     */
+    public ForkJoinExecutor(final String threadName, final int threads) {
+        this.threadName = threadName;
+        this.threads = threads;
+    }
+
+    /**
+     * Returns the parallelism of the pool
+     */
+    public int getThreads() {
+        return threads;
+    }
+
+    private synchronized ForkJoinPool getPool() {
+        if (pool == null) {
+            @SuppressWarnings("removal")
+            final ForkJoinPool fjp = AccessController.doPrivileged(
+                (PrivilegedAction<ForkJoinPool>) () -> new ForkJoinPool(threads,
+                    fjPool -> {
+                        final ForkJoinWorkerThread t
+                            = ForkJoinPool.defaultForkJoinWorkerThreadFactory
+                                          .newThread(fjPool);
+                        t.setName(threadName + "-" + t.getPoolIndex());
+                        t.setDaemon(true);
+                        return t;
+                    }, null, false));
+            pool = fjp;
+        }
+        return pool;
+    }
+
+    /**
+     * Invokes the given tasks on the pool and waits for completion
+     */
+    public void invokeAll(final ForkJoinTask<?>[] tasks) {
+        getPool().invoke(new RecursiveAction() {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected void compute() {
+                ForkJoinTask.invokeAll(tasks);
+            }
+        });
+    }
+
+    /**
+     * Splits the rows [start, end[ in at most maxRanges ranges of at least
+     * minRows rows, processes them on the pool and waits for completion
+     */
+    public void invokeRanges(final int start, final int end, final int minRows,
+                            final int maxRanges, final RangeTask task)
+    {
+        final int rows = end - start;
+        final int ranges = Math.max(1, Math.min(rows / minRows, maxRanges));
+        // range size in rows (ceil):
+        final int rangeRows = (rows + ranges - 1) / ranges;
+
+        final SubRange[] tasks = new SubRange[ranges];
+        for (int i = 0, y = start; i < ranges; i++, y += rangeRows) {
+            tasks[i] = new SubRange(task, y, Math.min(y + rangeRows, end));
+        }
+        invokeAll(tasks);
+    }
+
+    static final class SubRange extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final transient RangeTask task;
+        private final int start;
+        private final int end;
+
+        SubRange(final RangeTask task, final int start, final int end) {
+            this.task = task;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            if (start < end) {
+                task.run(start, end);
+            }
+        }
+    }
+}
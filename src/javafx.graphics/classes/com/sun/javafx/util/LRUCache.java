@@ -0,0 +1,176 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package com.sun.javafx.util;
+
+import java.security.AccessController;
+import java.security.PrivilegedAction;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * A thread-safe LRU cache bounded by the approximate size in bytes of its
+ * values, shared by the optional Prism and Marlin caches (masks, stroke
+ * outlines, dash lengths and gradient tables).
+ *
+ * The hit, miss and eviction counters of all the caches are printed at
+ * exit when -Dprism.poolstats=true is set.
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the cached values (never modified once stored)
+ */
+public final class LRUCache<K, V> {
+
+    @SuppressWarnings("removal")
+    private static final boolean printStats = AccessController.doPrivileged(
+            (PrivilegedAction<Boolean>) () -> Boolean.getBoolean("prism.poolstats"));
+
+    private static final List<LRUCache<?, ?>> caches = new ArrayList<>();
+
+    private static void register(LRUCache<?, ?> cache) {
+        synchronized (caches) {
+            if (caches.isEmpty() && printStats) {
+                @SuppressWarnings("removal")
+                final Void dummy = AccessController.doPrivileged((PrivilegedAction<Void>) () -> {
+                    Runtime.getRuntime().addShutdownHook(new Thread(LRUCache::printSummary));
+                    return null;
+                });
+            }
+            caches.add(cache);
+        }
+    }
+
+    /**
+     * Prints the summary of all the caches created so far.
+     */
+    public static void printSummary() {
+        synchronized (caches) {
+            for (LRUCache<?, ?> cache : caches) {
+                System.err.println(cache);
+            }
+        }
+    }
+
+    private final String name;
+    private final long maxBytes;
+
+    private final LinkedHashMap<K, Entry<V>> map = new LinkedHashMap<>(64, 0.75f, true);
+    private long usedBytes;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * @param name name of the cache in the summary
+     * @param maxBytes maximum total size of the cached values in bytes
+     */
+    public LRUCache(String name, long maxBytes) {
+        this.name = name;
+        this.maxBytes = maxBytes;
+        register(this);
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * Returns the cached value for the given key or null.
+     */
+    public synchronized V get(K key) {
+        final Entry<V> e = map.get(key);
+        if (e != null) {
+            hits++;
+            return e.value;
+        }
+        misses++;
+        return null;
+    }
+
+    /**
+     * Stores the given value, evicting the least recently used values to
+     * stay within the budget. Values larger than the budget are ignored.
+     * @param size approximate size of the value in bytes
+     */
+    public synchronized void put(K key, V value, long size) {
+        if (size > maxBytes) {
+            return;
+        }
+        final Entry<V> old = map.put(key, new Entry<>(value, size));
+        if (old != null) {
+            usedBytes -= old.size;
+        }
+        usedBytes += size;
+
+        final Iterator<Entry<V>> it = map.values().iterator();
+        while (usedBytes > maxBytes && it.hasNext()) {
+            final Entry<V> eldest = it.next();
+            it.remove();
+            usedBytes -= eldest.size;
+            evictions++;
+        }
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    public synchronized long getUsedBytes() {
+        return usedBytes;
+    }
+
+    public synchronized int size() {
+        return map.size();
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("%s: %,d entries, %,d used, %,d max, "
+                             + "%,d hits, %,d misses, %,d evictions",
+                             name, map.size(), usedBytes, maxBytes,
+                             hits, misses, evictions);
+    }
+
+    private static final class Entry<V> {
+        final V value;
+        final long size;
+
+        Entry(V value, long size) {
+            this.value = value;
+            this.size = size;
+        }
+    }
+}
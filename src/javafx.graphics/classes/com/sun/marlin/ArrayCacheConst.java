@@ -96,6 +96,16 @@ public final class ArrayCacheConst implements MarlinConst {
         return -1;
     }
 
+    static int getByteFactor(final String name) {
+        int factor = 1;
+        if (name.contains("Int") || name.contains("Float")) {
+            factor = 4;
+        } else if (name.contains("Double")) {
+            factor = 8;
+        }
+        return factor;
+    }
+
     /**
      * Return the new array size (~ x2)
      * @param curSize current used size
@@ -239,13 +249,7 @@ public final class ArrayCacheConst implements MarlinConst {
         }
 
         private int getByteFactor() {
-            int factor = 1;
-            if (name.contains("Int") || name.contains("Float")) {
-                factor = 4;
-            } else if (name.contains("Double")) {
-                factor = 8;
-            }
-            return factor;
+            return ArrayCacheConst.getByteFactor(name);
         }
 
         long getTotalInitialBytes() {
@@ -49,6 +49,12 @@ import com.sun.marlin.ArrayCacheConst.CacheStats;
 
 public final class ByteArrayCache implements MarlinConst {
 
+    // array caches shared by all renderer contexts (optional):
+    private static final SharedArrayCache SHARED_CLEAN = (USE_SHARED_ARRAY_CACHE) ?
+        new SharedArrayCache(getLogPrefix(true) + "ByteArrayCache") : null;
+    private static final SharedArrayCache SHARED_DIRTY = (USE_SHARED_ARRAY_CACHE) ?
+        new SharedArrayCache(getLogPrefix(false) + "ByteArrayCache") : null;
+
     final boolean clean;
     private final int bucketCapacity;
     private WeakReference<Bucket[]> refBuckets = null;
@@ -74,9 +80,13 @@ public final class ByteArrayCache implements MarlinConst {
         if (buckets == null) {
             buckets = new Bucket[BUCKETS];
 
+            final SharedArrayCache shared = (clean) ? SHARED_CLEAN : SHARED_DIRTY;
+
             for (int i = 0; i < BUCKETS; i++) {
-                buckets[i] = new Bucket(clean, ARRAY_SIZES[i], bucketCapacity,
-                        (DO_STATS) ? stats.bucketStats[i] : null);
+                // large arrays are only kept in the shared cache (if enabled):
+                buckets[i] = new Bucket(clean, i, ARRAY_SIZES[i],
+                        (shared != null && i != 0) ? 0 : bucketCapacity,
+                        (DO_STATS) ? stats.bucketStats[i] : null, shared);
             }
 
             // update weak reference:
@@ -129,6 +139,9 @@ public final class ByteArrayCache implements MarlinConst {
             if (DO_STATS) {
                 cache.stats.resize++;
             }
+            if (USE_METRICS) {
+                RendererMetrics.arrayResized();
+            }
 
             // maybe change bucket:
             // ensure getNewSize() > newSize:
@@ -175,18 +188,23 @@ public final class ByteArrayCache implements MarlinConst {
     static final class Bucket {
 
         private int tail = 0;
+        private final int bucket;
         private final int arraySize;
         private final boolean clean;
         private final byte[][] arrays;
         private final BucketStats stats;
+        private final SharedArrayCache shared;
 
-        Bucket(final boolean clean, final int arraySize,
-               final int capacity, final BucketStats stats)
+        Bucket(final boolean clean, final int bucket, final int arraySize,
+               final int capacity, final BucketStats stats,
+               final SharedArrayCache shared)
         {
+            this.bucket = bucket;
             this.arraySize = arraySize;
             this.clean = clean;
             this.stats = stats;
             this.arrays = new byte[capacity][];
+            this.shared = shared;
         }
 
         byte[] getArray() {
@@ -199,6 +217,13 @@ public final class ByteArrayCache implements MarlinConst {
                 arrays[tail] = null;
                 return array;
             }
+            // use shared cache:
+            if (shared != null) {
+                final byte[] array = (byte[]) shared.getArray(bucket);
+                if (array != null) {
+                    return array;
+                }
+            }
             if (DO_STATS) {
                 stats.createOp++;
             }
@@ -222,6 +247,8 @@ public final class ByteArrayCache implements MarlinConst {
                 if (DO_STATS) {
                     stats.updateMaxSize(tail);
                 }
+            } else if (shared != null) {
+                shared.putArray(bucket, array);
             } else if (DO_CHECKS) {
                 logInfo(getLogPrefix(clean) + "ByteArrayCache: "
                         + "array capacity exceeded !");
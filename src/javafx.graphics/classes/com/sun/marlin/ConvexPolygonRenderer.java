@@ -0,0 +1,636 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package com.sun.marlin;
+
+/**
+ * Antialiased scan converter dedicated to filled polygons having a single
+ * subpath of at most MAX_EDGES lines (enabled by -Dprism.marlin.convexFastPath).
+ *
+ * Once the path is done, the polygon is accepted if it is y-monotone (its
+ * edges change their vertical direction twice at most), as any convex
+ * polygon: every subpixel scanline then crosses exactly one edge of the
+ * downward chain and one edge of the upward chain, so both chains are walked
+ * in parallel and the coverage is the span between the two crossings (for
+ * both winding rules), without any active edge list nor crossing sort.
+ *
+ * Edges use the same subpixel sampling and fixed point arithmetic as
+ * Renderer.addLine() and the same coverage accumulation as
+ * Renderer._endRendering(), so the produced alphas are exactly the same.
+ * Polygons not contained in the clip bounds are rejected as the general
+ * pipeline clips them before rendering.
+ */
+public final class ConvexPolygonRenderer implements MarlinRenderer, MarlinConst {
+
+    // max number of lines (polygon vertices)
+    public static final int MAX_EDGES = 64;
+
+    private static final int ALL_BUT_LSB = 0xFFFFFFFE;
+    private static final int ERR_STEP_MAX = 0x7FFFFFFF; // = 2^31 - 1
+
+    private static final double POWER_2_TO_32 = 0x1.0p32d;
+
+    // use double to make tosubpix methods faster (no int to double conversion)
+    private static final double SUBPIXEL_SCALE_X = SUBPIXEL_POSITIONS_X;
+    private static final double SUBPIXEL_SCALE_Y = SUBPIXEL_POSITIONS_Y;
+    private static final int SUBPIXEL_MASK_X = SUBPIXEL_POSITIONS_X - 1;
+    private static final int SUBPIXEL_MASK_Y = SUBPIXEL_POSITIONS_Y - 1;
+
+    private static final double RDR_OFFSET_X = 0.5d / SUBPIXEL_SCALE_X;
+    private static final double RDR_OFFSET_Y = 0.5d / SUBPIXEL_SCALE_Y;
+
+    // polygon vertices in subpixel coordinates (y biased by -0.5):
+    private final double[] xs = new double[MAX_EDGES];
+    private final double[] ys = new double[MAX_EDGES];
+    private int numPoints;
+    // false if the path is not a single polygon within bounds:
+    private boolean valid;
+
+    // edges (same fixed point representation as Renderer):
+    private final int[] edgeCurX    = new int[MAX_EDGES];
+    private final int[] edgeError   = new int[MAX_EDGES];
+    private final int[] edgeBumpX   = new int[MAX_EDGES];
+    private final int[] edgeBumpErr = new int[MAX_EDGES];
+    private final int[] edgeYMin    = new int[MAX_EDGES];
+    private final int[] edgeYMax    = new int[MAX_EDGES];
+
+    // downward / upward chains (edge indices sorted by yMin):
+    private final int[] down = new int[MAX_EDGES];
+    private final int[] up   = new int[MAX_EDGES];
+    private int numDown, numUp;
+
+    // Bounds of the drawing region, at subpixel precision.
+    private int boundsMinX, boundsMinY, boundsMaxX, boundsMaxY;
+    // Bounds of the drawing region, at pixel precision.
+    private double pixMinX, pixMinY, pixMaxX, pixMaxY;
+
+    private double edgeMinX, edgeMaxX;
+    private int edgeMinY, edgeMaxY;
+
+    private int bbox_spminX, bbox_spmaxX, bbox_spminY, bbox_spmaxY;
+
+    // output pixel bounding box:
+    private int bboxX0, bboxX1, bboxY0, bboxY1;
+
+    // alphaLine ref (clean) shared with the other renderers
+    private final IntArrayCache.Reference alphaLine_ref;
+    private int[] alphaLine;
+
+    // per-thread renderer context
+    private final RendererContext rdrCtx;
+
+    ConvexPolygonRenderer(final RendererContext rdrCtx) {
+        this.rdrCtx = rdrCtx;
+
+        alphaLine_ref = rdrCtx.rdrMem.alphaLine_ref;
+        alphaLine     = alphaLine_ref.initial;
+    }
+
+    @Override
+    public ConvexPolygonRenderer init(final int pix_boundsX, final int pix_boundsY,
+                                      final int pix_boundsWidth, final int pix_boundsHeight,
+                                      final int windingRule)
+    {
+        // both winding rules give the same coverage (2 crossings per scanline)
+        if (USE_METRICS) {
+            rdrCtx.metrics.startShape();
+        }
+        this.boundsMinX =  pix_boundsX << SUBPIXEL_LG_POSITIONS_X;
+        this.boundsMaxX =
+            (pix_boundsX + pix_boundsWidth) << SUBPIXEL_LG_POSITIONS_X;
+        this.boundsMinY =  pix_boundsY << SUBPIXEL_LG_POSITIONS_Y;
+        this.boundsMaxY =
+            (pix_boundsY + pix_boundsHeight) << SUBPIXEL_LG_POSITIONS_Y;
+
+        this.pixMinX = pix_boundsX;
+        this.pixMinY = pix_boundsY;
+        this.pixMaxX = pix_boundsX + pix_boundsWidth;
+        this.pixMaxY = pix_boundsY + pix_boundsHeight;
+
+        numPoints = 0;
+        numDown = 0;
+        numUp = 0;
+        valid = true;
+
+        edgeMinY = Integer.MAX_VALUE;
+        edgeMaxY = Integer.MIN_VALUE;
+        edgeMinX = Double.POSITIVE_INFINITY;
+        edgeMaxX = Double.NEGATIVE_INFINITY;
+
+        bboxX0 = 0;
+        bboxX1 = 0;
+        bboxY0 = 0;
+        bboxY1 = 0;
+
+        return this; // fluent API
+    }
+
+    /**
+     * Return true if the polygon given to this renderer was accepted, false
+     * if it must be rendered by the general Renderer (call after pathDone())
+     * @return true if the polygon was accepted
+     */
+    public boolean isAccepted() {
+        return valid;
+    }
+
+    /**
+     * Disposes this renderer and recycle it clean up before reusing this instance
+     */
+    @Override
+    public void dispose() {
+        if (USE_METRICS && valid) {
+            rdrCtx.metrics.shapeDone(false);
+        }
+        alphaLine = alphaLine_ref.putArray(alphaLine, 0, 0); // already zero filled
+    }
+
+    private static double tosubpixx(final double pix_x) {
+        return SUBPIXEL_SCALE_X * pix_x;
+    }
+
+    private static double tosubpixy(final double pix_y) {
+        // shift y by -0.5 for fast ceil(y - 0.5):
+        return SUBPIXEL_SCALE_Y * pix_y - 0.5d;
+    }
+
+    private void addPoint(final double pix_x, final double pix_y) {
+        // reject points outside bounds (clipped by the general pipeline):
+        if ((numPoints == MAX_EDGES)
+                || !(pix_x >= pixMinX && pix_x <= pixMaxX
+                     && pix_y >= pixMinY && pix_y <= pixMaxY))
+        {
+            valid = false;
+            return;
+        }
+        xs[numPoints] = tosubpixx(pix_x);
+        ys[numPoints] = tosubpixy(pix_y);
+        numPoints++;
+    }
+
+    @Override
+    public void moveTo(final double pix_x0, final double pix_y0) {
+        if (numPoints != 0) {
+            // multiple subpaths:
+            valid = false;
+        }
+        if (valid) {
+            addPoint(pix_x0, pix_y0);
+        }
+    }
+
+    @Override
+    public void lineTo(final double pix_x1, final double pix_y1) {
+        if (valid) {
+            addPoint(pix_x1, pix_y1);
+        }
+    }
+
+    @Override
+    public void quadTo(final double pix_x1, final double pix_y1,
+                       final double pix_x2, final double pix_y2)
+    {
+        valid = false;
+    }
+
+    @Override
+    public void curveTo(final double pix_x1, final double pix_y1,
+                        final double pix_x2, final double pix_y2,
+                        final double pix_x3, final double pix_y3)
+    {
+        valid = false;
+    }
+
+    @Override
+    public void closePath() {
+        // the polygon is always closed in pathDone()
+    }
+
+    @Override
+    public void pathDone() {
+        if (!valid) {
+            return;
+        }
+        final int n = numPoints;
+        if (n == 0) {
+            return; // empty
+        }
+        final double[] _xs = xs;
+        final double[] _ys = ys;
+
+        // y-monotone test: count the vertical direction changes
+        // (horizontal lines ignored):
+        int firstDir = 0, lastDir = 0, changes = 0;
+
+        for (int i = 0; i < n; i++) {
+            final double dy = _ys[(i + 1 == n) ? 0 : i + 1] - _ys[i];
+            final int dir = (dy > 0.0d) ? 1 : (dy < 0.0d) ? -1 : 0;
+
+            if (dir != 0) {
+                if (firstDir == 0) {
+                    firstDir = dir;
+                } else if (dir != lastDir) {
+                    changes++;
+                }
+                lastDir = dir;
+            } else if (dy != dy) {
+                // NaN:
+                valid = false;
+                return;
+            }
+        }
+        if (lastDir != firstDir) {
+            changes++;
+        }
+        if (changes > 2) {
+            valid = false;
+            return;
+        }
+
+        for (int i = 0; i < n; i++) {
+            final int j = (i + 1 == n) ? 0 : i + 1;
+            addLine(_xs[i], _ys[i], _xs[j], _ys[j]);
+        }
+
+        if (USE_METRICS) {
+            rdrCtx.metrics.pathDone(numDown + numUp);
+        }
+        if (numDown == 0 && numUp == 0) {
+            return; // empty
+        }
+        sortChain(down, numDown);
+        sortChain(up,   numUp);
+
+        // both chains must cover the same scanlines (closed polygon):
+        if ((numDown == 0) || (numUp == 0)
+            || (edgeYMin[down[0]] != edgeYMin[up[0]])
+            || (edgeYMax[down[numDown - 1]] != edgeYMax[up[numUp - 1]]))
+        {
+            valid = false;
+            return;
+        }
+        endRendering();
+    }
+
+    private void sortChain(final int[] chain, final int len) {
+        final int[] _edgeYMin = edgeYMin;
+        // insertion sort on yMin (few edges):
+        for (int i = 1, j; i < len; i++) {
+            final int e = chain[i];
+            final int ymin = _edgeYMin[e];
+            for (j = i - 1; (j >= 0) && (_edgeYMin[chain[j]] > ymin); j--) {
+                chain[j + 1] = chain[j];
+            }
+            chain[j + 1] = e;
+        }
+    }
+
+    // see Renderer.addLine()
+    private void addLine(double x1, double y1, double x2, double y2) {
+        boolean downward = true;
+        if (y2 < y1) {
+            downward = false;
+            double tmp = y2;
+            y2 = y1;
+            y1 = tmp;
+            tmp = x2;
+            x2 = x1;
+            x1 = tmp;
+        }
+
+        // upper integer (inclusive)
+        final int firstCrossing = FloatMath.max(FloatMath.ceil_int(y1), boundsMinY);
+
+        // upper integer (exclusive)
+        final int lastCrossing  = FloatMath.min(FloatMath.ceil_int(y2), boundsMaxY);
+
+        /* skip horizontal lines in pixel space and clip edges
+           out of y range [boundsMinY; boundsMaxY] */
+        if (firstCrossing >= lastCrossing) {
+            return;
+        }
+
+        if (firstCrossing < edgeMinY) {
+            edgeMinY = firstCrossing;
+        }
+        if (lastCrossing > edgeMaxY) {
+            edgeMaxY = lastCrossing;
+        }
+
+        final double slope = (x1 - x2) / (y1 - y2);
+
+        if (slope >= 0.0d) { // <==> x1 < x2
+            if (x1 < edgeMinX) {
+                edgeMinX = x1;
+            }
+            if (x2 > edgeMaxX) {
+                edgeMaxX = x2;
+            }
+        } else {
+            if (x2 < edgeMinX) {
+                edgeMinX = x2;
+            }
+            if (x1 > edgeMaxX) {
+                edgeMaxX = x1;
+            }
+        }
+
+        final int e = numDown + numUp;
+
+        final double x1_intercept = x1 + (firstCrossing - y1) * slope;
+
+        // inlined scalb(x1_intercept, 32):
+        final long x1_fixed_biased = ((long) (POWER_2_TO_32 * x1_intercept))
+                                     + 0x7FFFFFFFL;
+        // curx (no orientation bit):
+        edgeCurX[e]  = ((int) (x1_fixed_biased >> 31L)) & ALL_BUT_LSB;
+        edgeError[e] = ((int)  x1_fixed_biased) >>> 1;
+
+        // inlined scalb(slope, 32):
+        final long slope_fixed = (long) (POWER_2_TO_32 * slope);
+
+        edgeBumpX[e]   = ((int) (slope_fixed >> 31L)) & ALL_BUT_LSB;
+        edgeBumpErr[e] = ((int)  slope_fixed) >>> 1;
+
+        edgeYMin[e] = firstCrossing;
+        edgeYMax[e] = lastCrossing;
+
+        if (downward) {
+            down[numDown++] = e;
+        } else {
+            up[numUp++] = e;
+        }
+    }
+
+    // see Renderer.endRendering()
+    private void endRendering() {
+        if (edgeMinY == Integer.MAX_VALUE) {
+            return; // undefined edges bounds
+        }
+
+        // bounds as half-open intervals
+        final int spminX = FloatMath.max(FloatMath.ceil_int(edgeMinX - 0.5d), boundsMinX);
+        final int spmaxX = FloatMath.min(FloatMath.ceil_int(edgeMaxX - 0.5d), boundsMaxX);
+
+        // edge Min/Max Y are already rounded to subpixels within bounds:
+        final int spminY = edgeMinY;
+        final int spmaxY = edgeMaxY;
+
+        // test clipping for shapes out of bounds
+        if ((spminX >= spmaxX) || (spminY >= spmaxY)) {
+            return;
+        }
+
+        // half open intervals
+        // inclusive:
+        final int pminX =  spminX                    >> SUBPIXEL_LG_POSITIONS_X;
+        // exclusive:
+        final int pmaxX = (spmaxX + SUBPIXEL_MASK_X) >> SUBPIXEL_LG_POSITIONS_X;
+        // inclusive:
+        final int pminY =  spminY                    >> SUBPIXEL_LG_POSITIONS_Y;
+        // exclusive:
+        final int pmaxY = (spmaxY + SUBPIXEL_MASK_Y) >> SUBPIXEL_LG_POSITIONS_Y;
+
+        bboxX0 = pminX;
+        bboxX1 = pmaxX;
+        bboxY0 = pminY;
+        bboxY1 = pmaxY;
+
+        // memorize the rendering bounding box:
+        bbox_spminX = pminX << SUBPIXEL_LG_POSITIONS_X;
+        bbox_spmaxX = pmaxX << SUBPIXEL_LG_POSITIONS_X;
+        bbox_spminY = spminY;
+        bbox_spmaxY = spmaxY;
+
+        // Prepare alpha line:
+        // add 2 to better deal with the last pixel in a pixel row.
+        final int width = (pmaxX - pminX) + 2;
+
+        if (width > INITIAL_AA_ARRAY) {
+            alphaLine = alphaLine_ref.getArray(width);
+        }
+    }
+
+    @Override
+    public void produceAlphas(final MarlinAlphaConsumer ac) {
+        ac.setMaxAlpha(MAX_AA_ALPHA);
+
+        if (USE_METRICS) {
+            rdrCtx.metrics.startRaster();
+        }
+
+        // Process all scan lines:
+        _endRendering(bbox_spminY, bbox_spmaxY, ac);
+
+        if (USE_METRICS) {
+            rdrCtx.metrics.rasterDone(bboxY1 - bboxY0);
+        }
+    }
+
+    // see Renderer._endRendering() (2 crossings per scanline)
+    private void _endRendering(final int ymin, final int ymax,
+                               final MarlinAlphaConsumer ac)
+    {
+        if (ymin >= ymax) {
+            return;
+        }
+
+        // Get X bounds as true pixel boundaries to compute correct pixel coverage:
+        final int bboxx0 = bbox_spminX;
+        final int bboxx1 = bbox_spmaxX;
+
+        final int[] _alpha = alphaLine;
+
+        final int[] _edgeCurX    = edgeCurX;
+        final int[] _edgeError   = edgeError;
+        final int[] _edgeBumpX   = edgeBumpX;
+        final int[] _edgeBumpErr = edgeBumpErr;
+        final int[] _edgeYMax    = edgeYMax;
+
+        final int[] _down = down;
+        final int[] _up   = up;
+
+        final int _ALL_BUT_LSB   = ALL_BUT_LSB;
+        final int _ERR_STEP_MAX  = ERR_STEP_MAX;
+
+        final int _SUBPIXEL_LG_POSITIONS_X = SUBPIXEL_LG_POSITIONS_X;
+        final int _SUBPIXEL_LG_POSITIONS_Y = SUBPIXEL_LG_POSITIONS_Y;
+        final int _SUBPIXEL_MASK_X = SUBPIXEL_MASK_X;
+        final int _SUBPIXEL_MASK_Y = SUBPIXEL_MASK_Y;
+        final int _SUBPIXEL_POSITIONS_X = SUBPIXEL_POSITIONS_X;
+
+        final int _MIN_VALUE = Integer.MIN_VALUE;
+        final int _MAX_VALUE = Integer.MAX_VALUE;
+
+        int minX = _MAX_VALUE;
+        int maxX = _MIN_VALUE;
+
+        // current edge in both chains:
+        int id = 0, iu = 0;
+        int ed = _down[0], eu = _up[0];
+
+        int x0, x1, tmp, err, cd, cu;
+        int pix_x, pix_xmaxm1, pix_xmax;
+
+        int lastY = -1; // last emited row
+
+        int y = ymin;
+
+        // Iteration on scanlines
+        for (; y < ymax; y++) {
+            // next edges (contiguous chains):
+            if (_edgeYMax[ed] <= y) {
+                ed = _down[++id];
+            }
+            if (_edgeYMax[eu] <= y) {
+                eu = _up[++iu];
+            }
+
+            // get current crossings and increment x using DDA (fixed point):
+            cd = _edgeCurX[ed];
+            err = _edgeError[ed] + _edgeBumpErr[ed];
+            _edgeCurX[ed]  = cd + _edgeBumpX[ed] - ((err >> 30) & _ALL_BUT_LSB);
+            _edgeError[ed] = err & _ERR_STEP_MAX;
+
+            cu = _edgeCurX[eu];
+            err = _edgeError[eu] + _edgeBumpErr[eu];
+            _edgeCurX[eu]  = cu + _edgeBumpX[eu] - ((err >> 30) & _ALL_BUT_LSB);
+            _edgeError[eu] = err & _ERR_STEP_MAX;
+
+            // right shift on crossings to get the x-coordinate:
+            if (cd <= cu) {
+                x0 = cd >> 1;
+                x1 = cu >> 1;
+            } else {
+                x0 = cu >> 1;
+                x1 = cd >> 1;
+            }
+            if (x0 < minX) {
+                minX = x0; // subpixel coordinate
+            }
+            if (x1 > maxX) {
+                maxX = x1; // subpixel coordinate
+            }
+
+            if (x0 < bboxx0) {
+                x0 = bboxx0;
+            }
+            if (x1 > bboxx1) {
+                x1 = bboxx1;
+            }
+
+            if (x0 < x1) {
+                x0 -= bboxx0; // turn x0, x1 from coords to indices
+                x1 -= bboxx0; // in the alpha array.
+
+                pix_x      =  x0      >> _SUBPIXEL_LG_POSITIONS_X;
+                pix_xmaxm1 = (x1 - 1) >> _SUBPIXEL_LG_POSITIONS_X;
+
+                if (pix_x == pix_xmaxm1) {
+                    // Start and end in same pixel
+                    tmp = (x1 - x0); // number of subpixels
+                    _alpha[pix_x    ] += tmp;
+                    _alpha[pix_x + 1] -= tmp;
+                } else {
+                    tmp = (x0 & _SUBPIXEL_MASK_X);
+                    _alpha[pix_x    ] += (_SUBPIXEL_POSITIONS_X - tmp);
+                    _alpha[pix_x + 1] += tmp;
+
+                    pix_xmax = x1 >> _SUBPIXEL_LG_POSITIONS_X;
+
+                    tmp = (x1 & _SUBPIXEL_MASK_X);
+                    _alpha[pix_xmax    ] -= (_SUBPIXEL_POSITIONS_X - tmp);
+                    _alpha[pix_xmax + 1] -= tmp;
+                }
+            }
+
+            if ((y & _SUBPIXEL_MASK_Y) == _SUBPIXEL_MASK_Y) {
+                lastY = y >> _SUBPIXEL_LG_POSITIONS_Y;
+
+                // convert subpixel to pixel coordinate within boundaries:
+                minX = FloatMath.max(minX, bboxx0) >> _SUBPIXEL_LG_POSITIONS_X;
+                maxX = FloatMath.min(maxX, bboxx1) >> _SUBPIXEL_LG_POSITIONS_X;
+
+                if (maxX >= minX) {
+                    // note: alpha array will be zeroed by setAndClearRelativeAlphas()
+                    // +1 because alpha [pix_minX; pix_maxX[
+                    ac.setAndClearRelativeAlphas(_alpha, lastY, minX, maxX + 1);
+                } else {
+                    ac.clearAlphas(lastY);
+                }
+                minX = _MAX_VALUE;
+                maxX = _MIN_VALUE;
+            }
+        } // scan line iterator
+
+        // Emit final row
+        y--;
+        y >>= _SUBPIXEL_LG_POSITIONS_Y;
+
+        // convert subpixel to pixel coordinate within boundaries:
+        minX = FloatMath.max(minX, bboxx0) >> _SUBPIXEL_LG_POSITIONS_X;
+        maxX = FloatMath.min(maxX, bboxx1) >> _SUBPIXEL_LG_POSITIONS_X;
+
+        if (maxX >= minX) {
+            ac.setAndClearRelativeAlphas(_alpha, y, minX, maxX + 1);
+        } else if (y != lastY) {
+            ac.clearAlphas(y);
+        }
+
+        if (USE_METRICS) {
+            rdrCtx.metrics.addScanlines(2L * (ymax - ymin), 0);
+        }
+    }
+
+    @Override
+    public int getOutpixMinX() {
+        return bboxX0;
+    }
+
+    @Override
+    public int getOutpixMaxX() {
+        return bboxX1;
+    }
+
+    @Override
+    public int getOutpixMinY() {
+        return bboxY0;
+    }
+
+    @Override
+    public int getOutpixMaxY() {
+        return bboxY1;
+    }
+
+    @Override
+    public double getOffsetX() {
+        return RDR_OFFSET_X;
+    }
+
+    @Override
+    public double getOffsetY() {
+        return RDR_OFFSET_Y;
+    }
+}
@@ -190,6 +190,23 @@ public final class DMarlinRenderingEngine implements MarlinConst
         logInfo("prism.marlin.pathSimplifier.pixTol = "
                 + MarlinProperties.getPathSimplifierPixelTolerance());
 
+        logInfo("prism.marlin.convexFastPath  = "
+                + MarlinConst.USE_CONVEX_FAST_PATH);
+        logInfo("prism.marlin.parallel         = "
+                + MarlinConst.USE_PARALLEL);
+        logInfo("prism.marlin.parallel.threads = "
+                + MarlinProperties.getParallelThreads());
+        logInfo("prism.marlin.parallel.minEdges = "
+                + MarlinProperties.getParallelMinEdges());
+        logInfo("prism.marlin.parallel.bandHeight = "
+                + MarlinProperties.getParallelMinBandHeight());
+        logInfo("prism.marlin.sharedArrayCache.size = "
+                + MarlinProperties.getSharedArrayCacheSize());
+        logInfo("prism.marlin.dashLengthCache.size = "
+                + MarlinProperties.getDashLengthCacheSize());
+        logInfo("prism.marlin.metrics          = "
+                + MarlinConst.USE_METRICS);
+
         logInfo("prism.marlin.clip             = "
                 + MarlinProperties.isDoClip());
         logInfo("prism.marlin.clip.runtime.enable = "
@@ -227,6 +244,8 @@ public final class DMarlinRenderingEngine implements MarlinConst
                 + MarlinProperties.getCubicIncD1());
         logInfo("prism.marlin.quad_dec_d2      = "
                 + MarlinProperties.getQuadDecD2());
+        logInfo("prism.marlin.analyticFlattening = "
+                + MarlinConst.USE_ANALYTIC_FLATTENING);
 
         logInfo("Renderer settings:");
         logInfo("CUB_DEC_BND  = " + Renderer.CUB_DEC_BND);
@@ -0,0 +1,489 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package com.sun.marlin;
+
+import com.sun.javafx.geom.Path2D;
+import com.sun.javafx.geom.PathIterator;
+import com.sun.javafx.geom.transform.BaseTransform;
+import com.sun.javafx.util.LRUCache;
+import java.lang.ref.WeakReference;
+
+/**
+ * A bounded LRU cache of the arc-length tables of dashed paths
+ * (enabled by -Dprism.marlin.dashLengthCache.size=<long>[kKmMgG]).
+ *
+ * A table splits the path in leaves of a few consecutive segments and
+ * stores the cumulative arc length (prefix sums) at the start of each leaf
+ * and a binary tree of the leaf bounds. Feeding a dashed path then finds the
+ * next leaf intersecting the clip by descending the tree and skips all the
+ * invisible leaves before it at once: the skipped length is the difference
+ * of two prefix sums and the Dasher finds the dash phase by a binary search
+ * of its dash array, so animating the dash phase (marching ants) of a large
+ * path costs in proportion to its visible part only.
+ *
+ * Tables are keyed on the path instance (held weakly) and its modification
+ * counter, and on the linear part of the transform: lengths and bounds are
+ * computed without the translation so panning reuses the same table. The
+ * skipped lengths are computed in double precision from the untranslated
+ * coordinates, so the dashes may differ from the uncached ones by a rounding
+ * error.
+ */
+public final class DashLengthCache implements MarlinConst {
+
+    // only larger paths are worth a table:
+    static final int MIN_COMMANDS = 64;
+
+    // max number of drawing commands per leaf:
+    static final int LEAF_SIZE = 16;
+
+    // max coordinate (untranslated) to keep the float bounds precise enough:
+    static final double MAX_COORD = 1e6d;
+
+    // margin around the clip (pixels) covering float rounding errors:
+    static final double CLIP_MARGIN = 1.0d;
+
+    // shared by all the renderer contexts:
+    static final LRUCache<Key, Table> CACHE =
+        (DASH_LENGTH_CACHE_SIZE > 0L) ? new LRUCache<>("DashLengthCache", DASH_LENGTH_CACHE_SIZE) : null;
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private DashLengthCache() {
+    }
+
+    /**
+     * Returns the length table of the given path or null if the cache is
+     * disabled or the table can not be used: the given pipeline must start
+     * with the Dasher receiving the transformed coordinates (uniform scale)
+     * and clipping must be enabled.
+     *
+     * @param rdrCtx renderer context
+     * @param pc2d head of the pipeline fed with the path
+     * @param p2d dashed path
+     * @param tf transform applied to the path (may be null)
+     * @return length table or null
+     */
+    public static Table getTable(final RendererContext rdrCtx,
+                                 final DPathConsumer2D pc2d,
+                                 final Path2D p2d, final BaseTransform tf)
+    {
+        final LRUCache<Key, Table> _cache = rdrCtx.dashLengthCache;
+        if ((_cache == null) || !rdrCtx.doClip || USE_PATH_SIMPLIFIER
+                || (p2d.getNumCommands() < MIN_COMMANDS)
+                || !isDasher(rdrCtx, pc2d))
+        {
+            return null;
+        }
+        if ((tf != null) && !(Math.abs(tf.getMxt()) <= MAX_COORD
+                              && Math.abs(tf.getMyt()) <= MAX_COORD))
+        {
+            return null;
+        }
+        final Key key = new Key(p2d, tf);
+
+        Table table = _cache.get(key);
+        if (table == null) {
+            table = new Table(p2d, key);
+            _cache.put(key.weakCopy(), table, table.getSize());
+        }
+        return (table.isUsable()) ? table : null;
+    }
+
+    /**
+     * Sets the cache used by the given renderer context (tests).
+     * @param cache cache or null to disable the tables
+     */
+    static void setCache(final RendererContext rdrCtx,
+                         final LRUCache<Key, Table> cache)
+    {
+        rdrCtx.dashLengthCache = cache;
+    }
+
+    private static boolean isDasher(final RendererContext rdrCtx,
+                                    DPathConsumer2D pc2d)
+    {
+        if (pc2d instanceof TransformingPathConsumer2D.PathTimer) {
+            pc2d = ((TransformingPathConsumer2D.PathTimer) pc2d).out;
+        }
+        return (pc2d == rdrCtx.dasher);
+    }
+
+    /**
+     * Arc lengths and bounds of the leaves of one path, immutable once built
+     * (shared by all threads).
+     */
+    public static final class Table {
+        // number of leaves:
+        private final int nLeaves;
+        // number of leaves rounded to the next power of 2:
+        private final int nNodes;
+        // first command of each leaf (nLeaves + 1):
+        private final int[] leafStart;
+        // first coordinate of each leaf (nLeaves + 1):
+        private final int[] leafCoff;
+        // arc length at the start of each leaf (nLeaves + 1):
+        private final double[] cum;
+        // bounds (minX, minY, maxX, maxY) of the nodes of the implicit binary
+        // tree: root = 1, children of n = 2n and 2n + 1, leaves from nNodes:
+        private final float[] bounds;
+        // false if the path has invalid or too large coordinates:
+        private final boolean usable;
+
+        Table(final Path2D p2d, final Key key) {
+            final byte[] pTypes = p2d.getCommandsNoClone();
+            final float[] pCoords = p2d.getFloatCoordsNoClone();
+            final int nsegs = p2d.getNumCommands();
+
+            // count leaves:
+            int n = 0;
+            for (int i = 0, run = 0; i < nsegs; i++) {
+                switch (pTypes[i]) {
+                case PathIterator.SEG_MOVETO:
+                case PathIterator.SEG_CLOSE:
+                    n++;
+                    run = 0;
+                    break;
+                default:
+                    if (run == 0) {
+                        n++;
+                    }
+                    if (++run == LEAF_SIZE) {
+                        run = 0;
+                    }
+                }
+            }
+            int nn = 1;
+            while (nn < n) {
+                nn <<= 1;
+            }
+            this.nLeaves = n;
+            this.nNodes = nn;
+            this.leafStart = new int[n + 1];
+            this.leafCoff = new int[n + 1];
+            this.cum = new double[n + 1];
+            this.bounds = new float[8 * nn];
+
+            final double mxx = key.mxx, mxy = key.mxy;
+            final double myx = key.myx, myy = key.myy;
+
+            final Dasher.LengthIterator li = new Dasher.LengthIterator();
+            final double[] pts = new double[8];
+
+            boolean valid = true;
+            double len = 0.0d;
+            double mx = 0.0d, my = 0.0d; // subpath start
+            double cx = 0.0d, cy = 0.0d; // current point
+            double minX = 0.0d, minY = 0.0d, maxX = 0.0d, maxY = 0.0d;
+            int leaf = -1;
+            boolean inLeaf = false;
+            int run = 0;
+            int coff = 0;
+
+            for (int i = 0; i < nsegs; i++) {
+                final int type = pTypes[i];
+                if ((type == PathIterator.SEG_MOVETO) || (type == PathIterator.SEG_CLOSE)
+                        || (run == 0))
+                {
+                    if (inLeaf) {
+                        setLeafBounds(leaf, minX, minY, maxX, maxY);
+                    }
+                    leaf++;
+                    leafStart[leaf] = i;
+                    leafCoff[leaf] = coff;
+                    cum[leaf] = len;
+                    // start point:
+                    minX = maxX = cx;
+                    minY = maxY = cy;
+                    inLeaf = true;
+                }
+                switch (type) {
+                case PathIterator.SEG_MOVETO:
+                case PathIterator.SEG_CLOSE:
+                    if (type == PathIterator.SEG_MOVETO) {
+                        mx = cx = mxx * pCoords[coff] + mxy * pCoords[coff + 1];
+                        my = cy = myx * pCoords[coff] + myy * pCoords[coff + 1];
+                        coff += 2;
+                        if (!(Math.abs(mx) <= MAX_COORD && Math.abs(my) <= MAX_COORD)) {
+                            valid = false;
+                        }
+                    } else {
+                        cx = mx;
+                        cy = my;
+                    }
+                    // never skipped:
+                    setLeafBounds(leaf, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY,
+                                  Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY);
+                    inLeaf = false;
+                    run = 0;
+                    break;
+                default:
+                    final int np = (type == PathIterator.SEG_LINETO) ? 1
+                                 : (type == PathIterator.SEG_QUADTO) ? 2 : 3;
+                    pts[0] = cx;
+                    pts[1] = cy;
+                    for (int k = 0; k < np; k++) {
+                        final double x = mxx * pCoords[coff] + mxy * pCoords[coff + 1];
+                        final double y = myx * pCoords[coff] + myy * pCoords[coff + 1];
+                        coff += 2;
+                        if (!(Math.abs(x) <= MAX_COORD && Math.abs(y) <= MAX_COORD)) {
+                            // also NaN:
+                            valid = false;
+                        }
+                        pts[2 * k + 2] = x;
+                        pts[2 * k + 3] = y;
+                        if (x < minX) { minX = x; }
+                        if (x > maxX) { maxX = x; }
+                        if (y < minY) { minY = y; }
+                        if (y > maxY) { maxY = y; }
+                    }
+                    if (np == 1) {
+                        final double dx = pts[2] - cx;
+                        final double dy = pts[3] - cy;
+                        len += Math.sqrt(dx * dx + dy * dy);
+                    } else if (valid) {
+                        li.initializeIterationOnCurve(pts, 2 * np + 2);
+                        len += li.totalLength();
+                    }
+                    cx = pts[2 * np];
+                    cy = pts[2 * np + 1];
+
+                    if (++run == LEAF_SIZE) {
+                        run = 0;
+                    }
+                }
+            }
+            if (inLeaf) {
+                setLeafBounds(leaf, minX, minY, maxX, maxY);
+            }
+            leafStart[n] = nsegs;
+            leafCoff[n] = coff;
+            cum[n] = len;
+
+            this.usable = valid;
+
+            // padding leaves are never skipped:
+            for (int i = n; i < nn; i++) {
+                setLeafBounds(i, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY,
+                              Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY);
+            }
+            // internal nodes:
+            final float[] b = bounds;
+            for (int node = nn - 1; node >= 1; node--) {
+                final int o = 4 * node;
+                final int l = 8 * node;
+                final int r = l + 4;
+                b[o    ] = Math.min(b[l    ], b[r    ]);
+                b[o + 1] = Math.min(b[l + 1], b[r + 1]);
+                b[o + 2] = Math.max(b[l + 2], b[r + 2]);
+                b[o + 3] = Math.max(b[l + 3], b[r + 3]);
+            }
+        }
+
+        private void setLeafBounds(final int leaf,
+                                   final double minX, final double minY,
+                                   final double maxX, final double maxY)
+        {
+            final int o = 4 * (nNodes + leaf);
+            bounds[o    ] = (float) minX;
+            bounds[o + 1] = (float) minY;
+            bounds[o + 2] = (float) maxX;
+            bounds[o + 3] = (float) maxY;
+        }
+
+        boolean isUsable() {
+            return usable;
+        }
+
+        long getSize() {
+            return 24L * (nLeaves + 1) + 16L * 2 * nNodes + 64L;
+        }
+
+        /**
+         * Return the first command of the given leaf
+         * (the number of commands if leaf = number of leaves)
+         */
+        public int getLeafStart(final int leaf) {
+            return leafStart[leaf];
+        }
+
+        /**
+         * Return the offset of the first coordinate of the given leaf
+         */
+        public int getLeafCoordOffset(final int leaf) {
+            return leafCoff[leaf];
+        }
+
+        /**
+         * Skips the invisible leaves starting at the given leaf: gives their
+         * total length and end point to the Dasher.
+         *
+         * @param rdrCtx renderer context (clip, dasher)
+         * @param leaf first leaf to test (the current point is its start)
+         * @param pCoords path coordinates
+         * @param xform transform applied to the path (may be null)
+         * @return the first visible leaf (or the number of leaves)
+         */
+        public int skipLeaves(final RendererContext rdrCtx, final int leaf,
+                              final float[] pCoords, final BaseTransform xform)
+        {
+            final int next = nextVisibleLeaf(rdrCtx.clipRect, xform, leaf);
+            if (next != leaf) {
+                // end point of the last skipped segment:
+                final float[] coords = rdrCtx.float6;
+                final int coff = leafCoff[next] - 2;
+                if (xform == null) {
+                    coords[0] = pCoords[coff];
+                    coords[1] = pCoords[coff + 1];
+                } else {
+                    xform.transform(pCoords, coff, coords, 0, 1);
+                }
+                rdrCtx.dasher.skipSegments(cum[next] - cum[leaf],
+                                           coords[0], coords[1]);
+            }
+            return next;
+        }
+
+        private int nextVisibleLeaf(final double[] clipRect,
+                                    final BaseTransform xform, final int leaf)
+        {
+            // clip in the untranslated space:
+            final double tx = (xform != null) ? xform.getMxt() : 0.0d;
+            final double ty = (xform != null) ? xform.getMyt() : 0.0d;
+            final double cy0 = clipRect[0] - ty - CLIP_MARGIN;
+            final double cy1 = clipRect[1] - ty + CLIP_MARGIN;
+            final double cx0 = clipRect[2] - tx - CLIP_MARGIN;
+            final double cx1 = clipRect[3] - tx + CLIP_MARGIN;
+
+            final float[] b = bounds;
+            final int _nNodes = nNodes;
+            int node = _nNodes + leaf;
+
+            while (true) {
+                final int o = 4 * node;
+                if ((b[o + 2] >= cx0) && (b[o] <= cx1)
+                        && (b[o + 3] >= cy0) && (b[o + 1] <= cy1))
+                {
+                    // visible:
+                    if (node >= _nNodes) {
+                        return Math.min(node - _nNodes, nLeaves);
+                    }
+                    node <<= 1;
+                } else {
+                    // go to the next subtree on the right:
+                    while ((node & 1) != 0) {
+                        node >>= 1;
+                    }
+                    if (node == 0) {
+                        return nLeaves;
+                    }
+                    node++;
+                }
+            }
+        }
+    }
+
+    static final class Key {
+        // strong reference for lookups, weak one once stored:
+        private final Path2D path;
+        private final WeakReference<Path2D> pathRef;
+        final int modCount;
+        final double mxx, mxy, myx, myy;
+        private final int hash;
+
+        Key(final Path2D p2d, final BaseTransform tf) {
+            this.path = p2d;
+            this.pathRef = null;
+            this.modCount = p2d.getModCount();
+            if (tf != null) {
+                this.mxx = tf.getMxx();
+                this.mxy = tf.getMxy();
+                this.myx = tf.getMyx();
+                this.myy = tf.getMyy();
+            } else {
+                this.mxx = 1.0;
+                this.mxy = 0.0;
+                this.myx = 0.0;
+                this.myy = 1.0;
+            }
+
+            int h = System.identityHashCode(p2d);
+            h = 31 * h + modCount;
+            h = 31 * h + Double.hashCode(mxx);
+            h = 31 * h + Double.hashCode(mxy);
+            h = 31 * h + Double.hashCode(myx);
+            h = 31 * h + Double.hashCode(myy);
+            this.hash = h;
+        }
+
+        private Key(final Key other) {
+            this.path = null;
+            this.pathRef = new WeakReference<>(other.path);
+            this.modCount = other.modCount;
+            this.mxx = other.mxx;
+            this.mxy = other.mxy;
+            this.myx = other.myx;
+            this.myy = other.myy;
+            this.hash = other.hash;
+        }
+
+        /**
+         * Return a copy of this key not retaining the path
+         */
+        Key weakCopy() {
+            return new Key(this);
+        }
+
+        private Path2D getPath() {
+            return (path != null) ? path : pathRef.get();
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == this) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            final Key k = (Key) obj;
+            if ((hash != k.hash) || (modCount != k.modCount)
+                    || (mxx != k.mxx) || (mxy != k.mxy)
+                    || (myx != k.myx) || (myy != k.myy))
+            {
+                return false;
+            }
+            // collected paths never match:
+            final Path2D p = getPath();
+            return (p != null) && (p == k.getPath());
+        }
+    }
+}
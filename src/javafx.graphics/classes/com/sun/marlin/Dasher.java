@@ -91,6 +91,8 @@ public final class Dasher implements DPathConsumer2D, MarlinConst {
 
     // dashes ref (dirty)
     final DoubleArrayCache.Reference dashes_ref;
+    // dashSum ref (dirty)
+    final DoubleArrayCache.Reference dashSum_ref;
     // firstSegmentsBuffer ref (dirty)
     final DoubleArrayCache.Reference firstSegmentsBuffer_ref;
 
@@ -107,6 +109,8 @@ public final class Dasher implements DPathConsumer2D, MarlinConst {
     private final CurveClipSplitter curveSplitter;
 
     private double cycleLen;
+    // prefix sums of the dash array: dashSum[i] = dash[0] + ... + dash[i-1]
+    private double[] dashSum; // dynamic array
     private boolean outside;
     private double totalSkipLen;
 
@@ -118,6 +122,8 @@ public final class Dasher implements DPathConsumer2D, MarlinConst {
         this.rdrCtx = rdrCtx;
 
         dashes_ref = rdrCtx.newDirtyDoubleArrayRef(INITIAL_ARRAY); // 1K
+        dashSum_ref = rdrCtx.newDirtyDoubleArrayRef(INITIAL_ARRAY); // 1K
+        dashSum     = dashSum_ref.initial;
 
         firstSegmentsBuffer_ref = rdrCtx.newDirtyDoubleArrayRef(INITIAL_ARRAY); // 1K
         firstSegmentsBuffer     = firstSegmentsBuffer_ref.initial;
@@ -142,17 +148,30 @@ public final class Dasher implements DPathConsumer2D, MarlinConst {
     public Dasher init(final DPathConsumer2D out, final double[] dash, final int dashLen,
                         double phase, final boolean recycleDashes)
     {
+        if (USE_METRICS) {
+            rdrCtx.metrics.dashed = true;
+        }
         this.out = out;
 
         // Normalize so 0 <= phase < dash[0]
         int sidx = 0;
         dashOn = true;
 
+        if (dashLen + 1 > dashSum.length) {
+            if (DO_STATS) {
+                rdrCtx.stats.stat_array_dasher_dasher.add(dashLen + 1);
+            }
+            dashSum = dashSum_ref.getArray(dashLen + 1);
+        }
+        final double[] _dashSum = dashSum;
+
         // note: BasicStroke constructor checks dash elements and sum > 0
         double sum = 0.0d;
         for (int i = 0; i < dashLen; i++) {
+            _dashSum[i] = sum;
             sum += dash[i];
         }
+        _dashSum[dashLen] = sum;
         this.cycleLen = sum;
 
         double cycles = phase / sum;
@@ -226,6 +245,7 @@ public final class Dasher implements DPathConsumer2D, MarlinConst {
             dash = dashes_ref.putArray(dash);
         }
         firstSegmentsBuffer = firstSegmentsBuffer_ref.putArray(firstSegmentsBuffer);
+        dashSum = dashSum_ref.putArray(dashSum);
     }
 
     public double[] copyDashArray(final float[] dashes) {
@@ -480,57 +500,81 @@ public final class Dasher implements DPathConsumer2D, MarlinConst {
         this.cy0 = y1;
     }
 
+    /**
+     * Skips several invisible segments at once (their total length is known
+     * by the caller) ending at the given point.
+     *
+     * @param len total length of the skipped segments
+     * @param x1 x coordinate of the end point
+     * @param y1 y coordinate of the end point
+     */
+    public void skipSegments(final double len, final double x1, final double y1) {
+        // the caller only skips segments when clipping is enabled:
+        this.cOutCode = Helpers.outcode(x1, y1, clipRect);
+
+        // Accumulate skipped length:
+        this.outside = true;
+        this.totalSkipLen += len;
+
+        // Fix initial move:
+        this.needsMoveTo = true;
+        this.starting = false;
+
+        this.cx0 = x1;
+        this.cy0 = y1;
+    }
+
     public void skipLen() {
-        double len = this.totalSkipLen;
+        final double len = this.totalSkipLen;
         this.totalSkipLen = 0.0d;
 
-        final double[] _dash = dash;
+        final double[] _dashSum = dashSum;
         final int _dashLen = this.dashLen;
+        final double _cycleLen = this.cycleLen;
 
         int _idx = idx;
-        boolean _dashOn = dashOn;
-        double _phase = phase;
-
-        // -2 to ensure having 2 iterations of the post-loop
-        // to compensate the remaining phase
-        final long fullcycles = (long)Math.floor(len / cycleLen) - 2L;
 
-        if (fullcycles > 0L) {
-            len -= cycleLen * fullcycles;
-
-            final long iterations = fullcycles * _dashLen;
-            _idx = (int) (iterations + _idx) % _dashLen;
-            _dashOn = (iterations + (_dashOn ? 1L : 0L) & 1L) == 1L;
+        // position of the end of the skipped length within the dash cycle:
+        double pos = _dashSum[_idx] + phase + len;
+        // number of dash segments advanced:
+        long steps = 0L;
+
+        if (pos >= _cycleLen) {
+            final long cycles = (long)Math.floor(pos / _cycleLen);
+            steps = cycles * _dashLen;
+            pos -= _cycleLen * cycles;
+            if (pos < 0.0d) {
+                pos = 0.0d;
+            }
         }
 
-        double leftInThisDashSegment, rem;
-
-        while (true) {
-            leftInThisDashSegment = _dash[_idx] - _phase;
-            rem = len - leftInThisDashSegment;
-
-            if (rem <= EPS) {
-                // Advance phase within current dash segment
-                _phase += len;
-
-                // compare values using epsilon:
-                if (Math.abs(rem) <= EPS) {
-                    _phase = 0.0d;
-                    _idx = (_idx + 1) % _dashLen;
-                    _dashOn = !_dashOn;
-                }
-                break;
+        // binary search of the last dash segment starting before pos:
+        int lo = 0;
+        int hi = _dashLen - 1;
+        while (lo < hi) {
+            final int mid = (lo + hi + 1) >>> 1;
+            if (_dashSum[mid] <= pos) {
+                lo = mid;
+            } else {
+                hi = mid - 1;
             }
+        }
+        steps += lo - _idx;
+        _idx = lo;
 
-            len = rem;
-            // Advance to next dash segment
-            _idx = (_idx + 1) % _dashLen;
-            _dashOn = !_dashOn;
+        double _phase = pos - _dashSum[_idx];
+
+        // compare values using epsilon:
+        if (dash[_idx] - _phase <= EPS) {
             _phase = 0.0d;
+            _idx = (_idx + 1) % _dashLen;
+            steps++;
         }
         // Save local state:
         idx = _idx;
-        dashOn = _dashOn;
+        if ((steps & 1L) != 0L) {
+            dashOn = !dashOn;
+        }
         phase = _phase;
     }
 
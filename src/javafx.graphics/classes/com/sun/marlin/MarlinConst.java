@@ -80,8 +80,28 @@ public interface MarlinConst {
     // flag to use path simplifier
     static final boolean USE_PATH_SIMPLIFIER = MarlinProperties.isUsePathSimplifier();
 
+    // flag to render filled y-monotone polygons without crossing sort
+    static final boolean USE_CONVEX_FAST_PATH = MarlinProperties.isUseConvexFastPath();
+
+    // flag to flatten curves with an analytic (error bounded) line count
+    static final boolean USE_ANALYTIC_FLATTENING = MarlinProperties.isUseAnalyticFlattening();
+
     static final boolean DO_CLIP_SUBDIVIDER = MarlinProperties.isDoClipSubdivider();
 
+    // flag to render large shapes in horizontal bands in parallel
+    static final boolean USE_PARALLEL = MarlinProperties.isUseParallel();
+
+    // byte budget of the array caches shared by all renderer contexts (0 = disabled)
+    static final long SHARED_ARRAY_CACHE_SIZE = MarlinProperties.getSharedArrayCacheSize();
+
+    static final boolean USE_SHARED_ARRAY_CACHE = (SHARED_ARRAY_CACHE_SIZE > 0L);
+
+    // byte budget of the cached dash segment length tables (0 = disabled)
+    static final long DASH_LENGTH_CACHE_SIZE = MarlinProperties.getDashLengthCacheSize();
+
+    // flag to publish live rendering metrics (JFR events and MBean)
+    static final boolean USE_METRICS = MarlinProperties.isUseMetrics();
+
     // flag to enable logs related to bounds checks
     static final boolean DO_LOG_BOUNDS = ENABLE_LOGS && false;
 
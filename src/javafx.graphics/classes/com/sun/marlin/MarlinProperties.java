@@ -161,6 +161,17 @@ public final class MarlinProperties {
         return getBoolean("prism.marlin.usePathSimplifier", "false");
     }
 
+    /**
+     * Return true to render filled y-monotone polygons (convex polygons,
+     * transformed rectangles) with ConvexPolygonRenderer (no edge list and no
+     * crossing sort)
+     *
+     * @return true by default
+     */
+    public static boolean isUseConvexFastPath() {
+        return getBoolean("prism.marlin.convexFastPath", "true");
+    }
+
     public static float getPathSimplifierPixelTolerance() {
         // default: MIN_PEN_SIZE or less ?
         return getFloat("prism.marlin.pathSimplifier.pixTol",
@@ -189,6 +200,66 @@ public final class MarlinProperties {
         return getFloat("prism.marlin.clip.subdivider.minLength", 100.0f, Float.NEGATIVE_INFINITY, Float.POSITIVE_INFINITY);
     }
 
+    // parallel (band) rendering parameters
+
+    public static boolean isUseParallel() {
+        return getBoolean("prism.marlin.parallel", "false");
+    }
+
+    /**
+     * Return the number of threads used to render bands in parallel
+     *
+     * @return 1 < threads < 256 (available processors by default)
+     */
+    public static int getParallelThreads() {
+        final int def = Math.max(2, Math.min(256, Runtime.getRuntime().availableProcessors()));
+        return getInteger("prism.marlin.parallel.threads", def, 2, 256);
+    }
+
+    /**
+     * Return the minimum edge count to render a shape in parallel
+     *
+     * @return 256 < min edges < 2^30 (16384 by default)
+     */
+    public static int getParallelMinEdges() {
+        return getInteger("prism.marlin.parallel.minEdges", 16 * 1024, 256, 1 << 30);
+    }
+
+    /**
+     * Return the minimum band height in pixels
+     *
+     * @return 8 < min band height < 32768 (64 by default)
+     */
+    public static int getParallelMinBandHeight() {
+        return getInteger("prism.marlin.parallel.bandHeight", 64, 8, 32 * 1024);
+    }
+
+    /**
+     * Return the size (bytes) of the array caches shared by all renderer
+     * contexts (-Dprism.marlin.sharedArrayCache.size=<long>[kKmMgG])
+     *
+     * @return 0 < size < 4G (0 = disabled by default)
+     */
+    public static long getSharedArrayCacheSize() {
+        return getSize("prism.marlin.sharedArrayCache.size", 0L, 0L, 4L << 30);
+    }
+
+    /**
+     * Return the size (bytes) of the cache of dash segment length tables
+     * (-Dprism.marlin.dashLengthCache.size=<long>[kKmMgG])
+     *
+     * @return 0 < size < 4G (0 = disabled by default)
+     */
+    public static long getDashLengthCacheSize() {
+        return getSize("prism.marlin.dashLengthCache.size", 0L, 0L, 4L << 30);
+    }
+
+    // monitoring parameters
+
+    public static boolean isUseMetrics() {
+        return getBoolean("prism.marlin.metrics", "false");
+    }
+
     // debugging parameters
 
     public static boolean isDoStats() {
@@ -241,6 +312,17 @@ public final class MarlinProperties {
         return getFloat("prism.marlin.quad_dec_d2", def, 1e-5f, 4.0f);
     }
 
+    /**
+     * Return true to flatten curves using a line count given by the error
+     * bound (cubic_dec_d2 / quad_dec_d2) instead of the adaptive forward
+     * differencing (AFD) loop
+     *
+     * @return false by default
+     */
+    public static boolean isUseAnalyticFlattening() {
+        return getBoolean("prism.marlin.analyticFlattening", "false");
+    }
+
     // system property utilities
     @SuppressWarnings("removal")
     static String getString(final String key, final String def) {
@@ -285,6 +367,56 @@ public final class MarlinProperties {
         return value;
     }
 
+    /**
+     * Return the size in bytes given as <long>[kKmMgG] (same syntax as the
+     * size properties of PrismSettings)
+     */
+    static long getSize(final String key, final long def,
+                        final long min, final long max)
+    {
+        @SuppressWarnings("removal")
+        final String property = AccessController.doPrivileged(
+                    (PrivilegedAction<String>) () -> System.getProperty(key));
+
+        long value = def;
+        if ((property != null) && !property.isEmpty()) {
+            String digits = property;
+            long mult = 1L;
+            switch (property.charAt(property.length() - 1)) {
+                case 'k':
+                case 'K':
+                    mult = 1L << 10;
+                    break;
+                case 'm':
+                case 'M':
+                    mult = 1L << 20;
+                    break;
+                case 'g':
+                case 'G':
+                    mult = 1L << 30;
+                    break;
+                default:
+            }
+            if (mult > 1L) {
+                digits = property.substring(0, property.length() - 1);
+            }
+            try {
+                value = Long.parseLong(digits) * mult;
+            } catch (NumberFormatException e) {
+                logInfo("Invalid size value for " + key + " = " + property
+                        + "; try -D" + key + "=<long>[kKmMgG]");
+            }
+        }
+
+        // check for invalid values
+        if ((value < min) || (value > max)) {
+            logInfo("Invalid value for " + key + " = " + value
+                    + "; expected value in range[" + min + ", " + max + "] !");
+            value = def;
+        }
+        return value;
+    }
+
     static int align(final int val, final int norm) {
         final int ceil = FloatMath.ceil_int( ((float) val) / norm);
         return ceil * norm;
@@ -101,6 +101,9 @@ public final class MaskMarlinAlphaConsumer implements MarlinAlphaConsumer {
     static final byte[] ALPHA_MAP_NO_AA;
     static final OffHeapArray ALPHA_MAP_UNSAFE_NO_AA;
 
+    // chunk size (pixels) used to detect spans of constant alpha:
+    static final int FILL_CHUNK = 16;
+
     static {
         final Unsafe _unsafe = OffHeapArray.UNSAFE;
 
@@ -163,7 +166,6 @@ public final class MaskMarlinAlphaConsumer implements MarlinAlphaConsumer {
         final int w = width;
         final int off = (pix_y - y) * w;
 
-        final Unsafe _unsafe = OffHeapArray.UNSAFE;
         final long addr_alpha = ALPHA_MAP_USED.address;
 
         final int from = pix_from - x;
@@ -179,36 +181,17 @@ public final class MaskMarlinAlphaConsumer implements MarlinAlphaConsumer {
             // Zero-fill complete row:
             Arrays.fill(out, off, off + w, (byte) 0);
 
-            int i = from;
-            int curAlpha = 0;
-
-            while (i < ato) {
-                curAlpha += alphaDeltas[i];
-
-                out[off + i] = _unsafe.getByte(addr_alpha + curAlpha); // [0..255]
-                i++;
-            }
+            accumulateAlphas(out, off, alphaDeltas, from, ato, addr_alpha, true);
 
         } else {
-            int i = 0;
-
-            while (i < from) {
-                out[off + i] = 0;
-                i++;
-            }
+            // Zero-fill left margin:
+            Arrays.fill(out, off, off + from, (byte) 0);
 
-            int curAlpha = 0;
+            accumulateAlphas(out, off, alphaDeltas, from, ato, addr_alpha, false);
 
-            while (i < ato) {
-                curAlpha += alphaDeltas[i];
-
-                out[off + i] = _unsafe.getByte(addr_alpha + curAlpha); // [0..255]
-                i++;
-            }
-
-            while (i < w) {
-                out[off + i] = 0;
-                i++;
+            // Zero-fill right margin:
+            if (ato < w) {
+                Arrays.fill(out, off + FloatMath.max(ato, from), off + w, (byte) 0);
             }
         }
 
@@ -288,10 +271,8 @@ public final class MaskMarlinAlphaConsumer implements MarlinAlphaConsumer {
                                     i = cx;
                                 } else {
                                     val = _unsafe.getByte(addr_alpha + curAlpha);
-                                    do {
-                                        out[off + i] = val;
-                                        i++;
-                                    } while (i < cx);
+                                    fill(out, off + i, off + cx, val);
+                                    i = cx;
                                 }
                             }
 
@@ -305,19 +286,17 @@ public final class MaskMarlinAlphaConsumer implements MarlinAlphaConsumer {
             // Process remaining span:
             if (curAlpha != 0) {
                 val = _unsafe.getByte(addr_alpha + curAlpha);
-                while (i < ato) {
-                    out[off + i] = val;
-                    i++;
+                if (i < ato) {
+                    fill(out, off + i, off + ato, val);
+                    i = ato;
                 }
             }
 
         } else {
-            int i = 0;
+            // Zero-fill left margin:
+            Arrays.fill(out, off, off + from, (byte) 0);
 
-            while (i < from) {
-                out[off + i] = 0;
-                i++;
-            }
+            int i = from;
 
             for (int t = blkW, blk_x0, blk_x1, cx, delta; t <= blkE; t++) {
                 if (blkFlags[t] != 0) {
@@ -343,10 +322,8 @@ public final class MaskMarlinAlphaConsumer implements MarlinAlphaConsumer {
                             // fill span:
                             if (cx != i) {
                                 val = _unsafe.getByte(addr_alpha + curAlpha);
-                                do {
-                                    out[off + i] = val;
-                                    i++;
-                                } while (i < cx);
+                                fill(out, off + i, off + cx, val);
+                                i = cx;
                             }
 
                             // alpha value = running sum of coverage delta:
@@ -359,15 +336,14 @@ public final class MaskMarlinAlphaConsumer implements MarlinAlphaConsumer {
             // Process remaining span:
             if (curAlpha != 0) {
                 val = _unsafe.getByte(addr_alpha + curAlpha);
-                while (i < ato) {
-                    out[off + i] = val;
-                    i++;
+                if (i < ato) {
+                    fill(out, off + i, off + ato, val);
+                    i = ato;
                 }
             }
 
-            while (i < w) {
-                out[off + i] = 0;
-                i++;
+            if (i < w) {
+                Arrays.fill(out, off + i, off + w, (byte) 0);
             }
         }
 
@@ -379,4 +355,75 @@ public final class MaskMarlinAlphaConsumer implements MarlinAlphaConsumer {
             IntArrayCache.check(alphaDeltas, from, to + 1, 0);
         }
     }
+
+    /**
+     * Convert the coverage deltas in [from, ato) into alpha values by chunks
+     * of FILL_CHUNK pixels: once a chunk without any coverage delta is found,
+     * the following empty chunks (span of constant alpha) are detected by a
+     * reduction loop and filled by Arrays.fill(), both vectorized by the JIT
+     * compiler (SuperWord), instead of the scalar running sum.
+     * @param skipZero true to skip spans of alpha = 0 (already cleared)
+     */
+    private static void accumulateAlphas(final byte[] out, final int off,
+                                         final int[] alphaDeltas,
+                                         final int from, final int ato,
+                                         final long addr_alpha,
+                                         final boolean skipZero)
+    {
+        final Unsafe _unsafe = OffHeapArray.UNSAFE;
+        final int _FILL_CHUNK = FILL_CHUNK;
+
+        int curAlpha = 0;
+        int delta, or;
+        byte val = 0;
+
+        for (int i = from, end, start, j; i < ato; ) {
+            end = FloatMath.min(i + _FILL_CHUNK, ato);
+
+            // scalar chunk:
+            or = 0;
+            for (; i < end; i++) {
+                // alpha value = running sum of coverage delta:
+                delta = alphaDeltas[i];
+                curAlpha += delta;
+                or |= delta;
+
+                out[off + i] = val = _unsafe.getByte(addr_alpha + curAlpha); // [0..255]
+            }
+
+            if (or == 0) {
+                // constant span: find the next chunk having coverage deltas
+                start = i;
+                while ((end = i + _FILL_CHUNK) <= ato) {
+                    or = 0;
+                    for (j = i; j < end; j++) {
+                        or |= alphaDeltas[j];
+                    }
+                    if (or != 0) {
+                        break;
+                    }
+                    i = end;
+                }
+                if ((i != start) && ((curAlpha != 0) || !skipZero)) {
+                    fill(out, off + start, off + i, val);
+                }
+            }
+        }
+    }
+
+    /**
+     * Fill the given span: short spans use a scalar loop to avoid the
+     * Arrays.fill() call overhead
+     */
+    private static void fill(final byte[] out, final int from, final int to,
+                             final byte val)
+    {
+        if ((to - from) > FILL_CHUNK) {
+            Arrays.fill(out, from, to, val);
+        } else {
+            for (int i = from; i < to; i++) {
+                out[i] = val;
+            }
+        }
+    }
 }
@@ -0,0 +1,181 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package com.sun.marlin;
+
+import com.sun.javafx.util.ForkJoinExecutor;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Renders the edges of a large shape (Renderer only, not RendererNoAA) in
+ * horizontal bands on a ForkJoin pool (opt-in: prism.marlin.parallel=true).
+ *
+ * Every band is processed by the Renderer of its own RendererContext, working
+ * on a copy of the edges of the source Renderer: the active edge list is
+ * initialized at the first subpixel row of the band using the same fixed
+ * point arithmetic as the sequential scanline loop, so the produced alphas
+ * are exactly the same as Renderer.produceAlphas().
+ *
+ * The alpha consumer must accept concurrent writes of distinct pixel rows
+ * (like MaskMarlinAlphaConsumer).
+ */
+public final class ParallelRenderer implements MarlinConst {
+
+    private static final int THREADS = MarlinProperties.getParallelThreads();
+    private static final int MIN_EDGES = MarlinProperties.getParallelMinEdges();
+    private static final int MIN_BAND_HEIGHT = MarlinProperties.getParallelMinBandHeight();
+    // max bands per thread to balance the load:
+    private static final int BANDS_PER_THREAD = 4;
+
+    private static final ForkJoinExecutor EXECUTOR
+        = new ForkJoinExecutor("Marlin Band Renderer", THREADS);
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private ParallelRenderer() {
+    }
+
+    /**
+     * Return true if the given renderer should render its edges in parallel
+     * @param renderer renderer after pathDone()
+     * @return true if parallel rendering is enabled and the shape is large
+     */
+    public static boolean isEligible(final MarlinRenderer renderer) {
+        if (USE_PARALLEL && (renderer instanceof Renderer)) {
+            final Renderer r = (Renderer) renderer;
+            return (r.getEdgeCount() >= MIN_EDGES)
+                && ((r.getOutpixMaxY() - r.getOutpixMinY()) >= 2 * MIN_BAND_HEIGHT);
+        }
+        return false;
+    }
+
+    /**
+     * Return true if the given renderer has many edges or covers a large
+     * area and may render its edges in parallel (whatever USE_PARALLEL)
+     * @param renderer renderer after pathDone()
+     * @param minArea minimum area (pixels) of the shape bounds
+     * @return true if the shape is large
+     */
+    public static boolean isEligible(final MarlinRenderer renderer, final long minArea) {
+        if (renderer instanceof Renderer) {
+            final Renderer r = (Renderer) renderer;
+            final int h = r.getOutpixMaxY() - r.getOutpixMinY();
+            final int w = r.getOutpixMaxX() - r.getOutpixMinX();
+            return (h >= 2 * MIN_BAND_HEIGHT)
+                && ((r.getEdgeCount() >= MIN_EDGES) || ((long) w * h >= minArea));
+        }
+        return false;
+    }
+
+    /**
+     * Produce alphas in parallel (see isEligible)
+     * @param renderer renderer after pathDone()
+     * @param ac alpha consumer supporting concurrent writes of distinct rows
+     */
+    public static void produceAlphas(final MarlinRenderer renderer,
+                                     final MarlinAlphaConsumer ac)
+    {
+        final Renderer src = (Renderer) renderer;
+
+        final int pminY = src.getOutpixMinY();
+        final int pmaxY = src.getOutpixMaxY();
+        final int h = pmaxY - pminY;
+
+        final int bands = FloatMath.max(1, FloatMath.min(h / MIN_BAND_HEIGHT,
+                                                         THREADS * BANDS_PER_THREAD));
+        // band height in pixels (ceil):
+        final int bandHeight = (h + bands - 1) / bands;
+
+        final BandTask[] tasks = new BandTask[bands];
+
+        // bands start and end on pixel rows except the first and last ones:
+        int spY0 = src.getBBoxMinSubpixY();
+        for (int i = 0; i < bands; i++) {
+            final int spY1 = (i == bands - 1) ? src.getBBoxMaxSubpixY()
+                : FloatMath.min(src.getBBoxMaxSubpixY(),
+                                (pminY + (i + 1) * bandHeight) << SUBPIXEL_LG_POSITIONS_Y);
+            tasks[i] = new BandTask(src, spY0, spY1, ac);
+            spY0 = spY1;
+        }
+
+        ac.setMaxAlpha(MAX_AA_ALPHA);
+
+        if (USE_METRICS) {
+            src.rdrCtx.metrics.startRaster();
+        }
+
+        EXECUTOR.invokeAll(tasks);
+
+        if (USE_METRICS) {
+            for (BandTask task : tasks) {
+                src.rdrCtx.metrics.addScanlines(task.crossings, task.blkFlagRows);
+            }
+            src.rdrCtx.metrics.rasterDone(h);
+        }
+    }
+
+    static final class BandTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final transient Renderer src;
+        private final int spminY;
+        private final int spmaxY;
+        private final transient MarlinAlphaConsumer ac;
+        // band metrics (see RendererMetrics):
+        long crossings = 0L;
+        int blkFlagRows = 0;
+
+        BandTask(final Renderer src, final int spminY, final int spmaxY,
+                 final MarlinAlphaConsumer ac)
+        {
+            this.src = src;
+            this.spminY = spminY;
+            this.spmaxY = spmaxY;
+            this.ac = ac;
+        }
+
+        @Override
+        protected void compute() {
+            if (spminY >= spmaxY) {
+                return;
+            }
+            final RendererContext rdrCtx = DMarlinRenderingEngine.getRendererContext();
+            final Renderer r = rdrCtx.renderer;
+            try {
+                r.produceBandAlphas(src, spminY, spmaxY, ac);
+
+                if (USE_METRICS) {
+                    crossings = rdrCtx.metrics.getCrossings();
+                    blkFlagRows = rdrCtx.metrics.getBlockFlagRows();
+                }
+            } finally {
+                r.dispose();
+                // recycle the RendererContext instance
+                DMarlinRenderingEngine.returnRendererContext(rdrCtx);
+            }
+        }
+    }
+}
@@ -110,6 +110,14 @@ public final class Renderer implements MarlinRenderer, MarlinConst {
     public static final double QUAD_DEC_BND
         = 8.0d * QUAD_DEC_ERR_SUBPIX;
 
+    // analytic flattening (see curveFlattenAndAdd)
+    // inverse of the cubic chordal error bound (8 x error):
+    private static final double CUB_INV_ERR_BND = 1.0d / CUB_DEC_BND;
+    // inverse of the quadratic chordal error bound (8 x error):
+    private static final double QUAD_INV_ERR_BND = 1.0d / QUAD_DEC_BND;
+    // maximum line count per curve:
+    private static final int MAX_FLAT_COUNT = 1 << 16;
+
 //////////////////////////////////////////////////////////////////////////////
 //  SCAN LINE
 //////////////////////////////////////////////////////////////////////////////
@@ -302,6 +310,105 @@ public final class Renderer implements MarlinRenderer, MarlinConst {
         }
     }
 
+    // Flattens using an uniform step whose line count is given by the chordal
+    // error bound (Wang's formula): the distance between the curve and the
+    // chord of a step dt is at most dt^2 / 8 * max|B''(t)| so the line count
+    // n = ceil(sqrt(max|B''(t)| / (8 x error))) is the smallest one ensuring
+    // the same error bound as the AFD loop (CUB_DEC_BND / QUAD_DEC_BND)
+    // without any step adjustment: large curves are not oversubdivided to
+    // the next power of 2 and small curves are emitted as a single line.
+    private void quadFlattenAndAdd(double x0, double y0,
+                                   final Curve c,
+                                   final double x2, final double y2)
+    {
+        // B''(t) = 2 B = dB is constant:
+        final int count = getFlatCount(
+            (Math.abs(c.dbx) + Math.abs(c.dby) * SCALE_DY) * QUAD_INV_ERR_BND);
+
+        if (count > 1) {
+            final double icount = 1.0d / count; // dt
+            final double icount2 = icount * icount; // dt^2
+
+            final double ddx = c.dbx * icount2;
+            final double ddy = c.dby * icount2;
+            double dx = c.bx * icount2 + c.cx * icount;
+            double dy = c.by * icount2 + c.cy * icount;
+
+            // we use x0, y0 to walk the line
+            for (int n = count - 1; n > 0; n--, dx += ddx, dy += ddy) {
+                final double x1 = x0 + dx;
+                final double y1 = y0 + dy;
+
+                addLine(x0, y0, x1, y1);
+                x0 = x1;
+                y0 = y1;
+            }
+        }
+        addLine(x0, y0, x2, y2);
+
+        if (DO_STATS) {
+            rdrCtx.stats.stat_rdr_quadBreak.add(count);
+        }
+    }
+
+    // see quadFlattenAndAdd()
+    private void curveFlattenAndAdd(double x0, double y0,
+                                    final Curve c,
+                                    final double x3, final double y3)
+    {
+        final double _SCALE_DY = SCALE_DY;
+
+        // B''(t) = 6 A t + 2 B is linear so each component is maximal at t = 0 or 1:
+        final double maxDDx = Math.max(Math.abs(c.dbx), Math.abs(2.0d * c.dax + c.dbx));
+        final double maxDDy = Math.max(Math.abs(c.dby), Math.abs(2.0d * c.day + c.dby));
+
+        final int count = getFlatCount((maxDDx + maxDDy * _SCALE_DY) * CUB_INV_ERR_BND);
+
+        if (count > 1) {
+            final double icount  = 1.0d / count;      // dt
+            final double icount2 = icount * icount;   // dt^2
+            final double icount3 = icount2 * icount;  // dt^3
+
+            // forward differencing variables:
+            final double dddx = 2.0d * c.dax * icount3;
+            final double dddy = 2.0d * c.day * icount3;
+            double ddx = dddx + c.dbx * icount2;
+            double ddy = dddy + c.dby * icount2;
+            double dx = c.ax * icount3 + c.bx * icount2 + c.cx * icount;
+            double dy = c.ay * icount3 + c.by * icount2 + c.cy * icount;
+
+            // we use x0, y0 to walk the line
+            for (int n = count - 1; n > 0; n--) {
+                final double x1 = x0 + dx;
+                final double y1 = y0 + dy;
+                dx += ddx;
+                dy += ddy;
+                ddx += dddx;
+                ddy += dddy;
+
+                addLine(x0, y0, x1, y1);
+                x0 = x1;
+                y0 = y1;
+            }
+        }
+        addLine(x0, y0, x3, y3);
+
+        if (DO_STATS) {
+            rdrCtx.stats.stat_rdr_curveBreak.add(count);
+        }
+    }
+
+    private static int getFlatCount(final double n2) {
+        // n2 = n^2 (NaN or negative values give 1):
+        if (n2 <= 1.0d || Double.isNaN(n2)) {
+            return 1;
+        }
+        if (n2 >= ((double) MAX_FLAT_COUNT) * MAX_FLAT_COUNT) {
+            return MAX_FLAT_COUNT;
+        }
+        return (int) Math.ceil(Math.sqrt(n2));
+    }
+
     private void addLine(double x1, double y1, double x2, double y2) {
         if (DO_MONITORS) {
             rdrCtx.stats.mon_rdr_addLine.start();
@@ -392,6 +499,9 @@ public final class Renderer implements MarlinRenderer, MarlinConst {
             if (DO_STATS) {
                 rdrCtx.stats.stat_rdr_edges_resizes.add(edgeNewSize);
             }
+            if (USE_METRICS) {
+                rdrCtx.metrics.edgesResized();
+            }
             _edges.resize(edgeNewSize);
         }
 
@@ -540,6 +650,9 @@ public final class Renderer implements MarlinRenderer, MarlinConst {
                   final int pix_boundsWidth, final int pix_boundsHeight,
                   final int windingRule)
     {
+        if (USE_METRICS) {
+            rdrCtx.metrics.startShape();
+        }
         this.windingRule = windingRule;
 
         // bounds as half-open intervals: minX <= x < maxX and minY <= y < maxY
@@ -592,6 +705,9 @@ public final class Renderer implements MarlinRenderer, MarlinConst {
      * Disposes this renderer and recycle it clean up before reusing this instance
      */
     public void dispose() {
+        if (USE_METRICS) {
+            rdrCtx.metrics.shapeDone(rdrCtx.stroking != 0);
+        }
         if (DO_STATS) {
             rdrCtx.stats.stat_rdr_activeEdges.add(activeEdgeMaxUsed);
             rdrCtx.stats.stat_rdr_edges.add(edges.used);
@@ -683,7 +799,11 @@ public final class Renderer implements MarlinRenderer, MarlinConst {
                 tosubpixx(pix_x1), tosubpixy(pix_y1),
                 tosubpixx(pix_x2), tosubpixy(pix_y2),
                 xe, ye);
-        curveBreakIntoLinesAndAdd(x0, y0, curve, xe, ye);
+        if (USE_ANALYTIC_FLATTENING) {
+            curveFlattenAndAdd(x0, y0, curve, xe, ye);
+        } else {
+            curveBreakIntoLinesAndAdd(x0, y0, curve, xe, ye);
+        }
         x0 = xe;
         y0 = ye;
     }
@@ -697,7 +817,11 @@ public final class Renderer implements MarlinRenderer, MarlinConst {
         curve.set(x0, y0,
                 tosubpixx(pix_x1), tosubpixy(pix_y1),
                 xe, ye);
-        quadBreakIntoLinesAndAdd(x0, y0, curve, xe, ye);
+        if (USE_ANALYTIC_FLATTENING) {
+            quadFlattenAndAdd(x0, y0, curve, xe, ye);
+        } else {
+            quadBreakIntoLinesAndAdd(x0, y0, curve, xe, ye);
+        }
         x0 = xe;
         y0 = ye;
     }
@@ -811,6 +935,10 @@ public final class Renderer implements MarlinRenderer, MarlinConst {
 
         int lastY = -1; // last emited row
 
+        // metrics (sum of crossings, pixel rows using block flags):
+        long sumCrossings = 0L;
+        int blkFlagRows = 0;
+
 
         // Iteration on scanlines
         for (; y < ymax; y++, bucket++) {
@@ -924,6 +1052,10 @@ public final class Renderer implements MarlinRenderer, MarlinConst {
             } // bucketCount != 0
 
 
+            if (USE_METRICS) {
+                sumCrossings += numCrossings;
+            }
+
             if (numCrossings != 0) {
                 /*
                  * thresholds to switch to optimized merge sort
@@ -1308,6 +1440,9 @@ public final class Renderer implements MarlinRenderer, MarlinConst {
                     // note: if x1=bboxx1, then alpha is written up to bboxx1+1
                     // inclusive: alpha[bboxx1] ignored, alpha[bboxx1+1] == 0
                     // (normally so never cleared below)
+                    if (USE_METRICS && useBlkFlags) {
+                        blkFlagRows++;
+                    }
                     copyAARow(_alpha, lastY, minX, maxX + 1, useBlkFlags, ac);
 
                     // speculative for next pixel row (scanline coherence):
@@ -1355,6 +1490,9 @@ public final class Renderer implements MarlinRenderer, MarlinConst {
             // note: if x1=bboxx1, then alpha is written up to bboxx1+1
             // inclusive: alpha[bboxx1] ignored then cleared and
             // alpha[bboxx1+1] == 0 (normally so never cleared after)
+            if (USE_METRICS && useBlkFlags) {
+                blkFlagRows++;
+            }
             copyAARow(_alpha, y, minX, maxX + 1, useBlkFlags, ac);
         } else if (y != lastY) {
             ac.clearAlphas(y);
@@ -1364,6 +1502,10 @@ public final class Renderer implements MarlinRenderer, MarlinConst {
         edgeCount = numCrossings;
         prevUseBlkFlags = useBlkFlags;
 
+        if (USE_METRICS) {
+            rdrCtx.metrics.addScanlines(sumCrossings, blkFlagRows);
+        }
+
         if (DO_STATS) {
             // update max used mark
             activeEdgeMaxUsed = _arrayMaxUsed;
@@ -1374,6 +1516,9 @@ public final class Renderer implements MarlinRenderer, MarlinConst {
         if (DO_MONITORS) {
             rdrCtx.stats.mon_rdr_endRendering.start();
         }
+        if (USE_METRICS) {
+            rdrCtx.metrics.pathDone(edges.used / SIZEOF_EDGE_BYTES);
+        }
         if (edgeMinY == Integer.MAX_VALUE) {
             return; // undefined edges bounds
         }
@@ -1500,14 +1645,192 @@ public final class Renderer implements MarlinRenderer, MarlinConst {
             rdrCtx.stats.mon_rdr_endRendering_Y.start();
         }
 
+        if (USE_METRICS) {
+            rdrCtx.metrics.startRaster();
+        }
+
         // Process all scan lines:
         _endRendering(bbox_spminY, bbox_spmaxY, ac);
 
+        if (USE_METRICS) {
+            rdrCtx.metrics.rasterDone(getOutpixMaxY() - getOutpixMinY());
+        }
+
         if (DO_MONITORS) {
             rdrCtx.stats.mon_rdr_endRendering_Y.stop();
         }
     }
 
+    // --- band rendering (see ParallelRenderer) ---
+
+    int getEdgeCount() {
+        return edges.used / SIZEOF_EDGE_BYTES;
+    }
+
+    int getBBoxMinSubpixY() {
+        return bbox_spminY;
+    }
+
+    int getBBoxMaxSubpixY() {
+        return bbox_spmaxY;
+    }
+
+    /**
+     * Produces alphas for the subpixel rows [spminY; spmaxY[ only, using the
+     * edges built by the given source renderer (after its endRendering()).
+     * The source renderer is only read so several band renderers (in other
+     * renderer contexts) can share it concurrently.
+     * Bands must start and end on pixel row boundaries (except the first and
+     * last ones) to produce exactly the same alphas as produceAlphas().
+     *
+     * @param src source renderer holding the edges
+     * @param spminY first subpixel row (inclusive)
+     * @param spmaxY last subpixel row (exclusive)
+     * @param ac alpha consumer (must support concurrent writes of distinct rows)
+     */
+    void produceBandAlphas(final Renderer src, final int spminY, final int spmaxY,
+                           final MarlinAlphaConsumer ac)
+    {
+        // copy state from the source renderer:
+        windingRule = src.windingRule;
+        boundsMinX = src.boundsMinX;
+        boundsMinY = src.boundsMinY;
+        boundsMaxX = src.boundsMaxX;
+        boundsMaxY = src.boundsMaxY;
+
+        bbox_spminX = src.bbox_spminX;
+        bbox_spmaxX = src.bbox_spmaxX;
+        bbox_spminY = src.bbox_spminY;
+        bbox_spmaxY = src.bbox_spmaxY;
+
+        bboxX0 = src.bboxX0;
+        bboxX1 = src.bboxX1;
+        bboxY0 = src.bboxY0;
+        bboxY1 = src.bboxY1;
+
+        useRLE = src.useRLE;
+        enableBlkFlags = src.enableBlkFlags;
+        prevUseBlkFlags = src.prevUseBlkFlags;
+        rdrCtx.stroking = src.rdrCtx.stroking;
+
+        // edge buckets are not used by this renderer (see dispose):
+        edgeMinY = Integer.MAX_VALUE;
+        edgeMaxY = Integer.MIN_VALUE;
+        edgeCount = 0;
+        activeEdgeMaxUsed = 0;
+
+        final int pminX = bbox_spminX >> SUBPIXEL_LG_POSITIONS_X;
+        final int pmaxX = bbox_spmaxX >> SUBPIXEL_LG_POSITIONS_X;
+
+        if (enableBlkFlags) {
+            final int blkLen = ((pmaxX - pminX) >> BLOCK_SIZE_LG) + 2;
+            if (blkLen > INITIAL_ARRAY) {
+                blkFlags = blkFlags_ref.getArray(blkLen);
+            }
+        }
+        final int width = (pmaxX - pminX) + 2;
+        if (width > INITIAL_AA_ARRAY) {
+            alphaLine = alphaLine_ref.getArray(width);
+        }
+
+        // copy edges as the scanline processing updates them in place:
+        final int used = src.edges.used;
+        if (edges.length < used) {
+            edges.resize(ArrayCacheConst.getNewLargeSize(edges.length, used));
+        }
+        OffHeapArray.UNSAFE.copyMemory(src.edges.address, edges.address, used);
+        edges.used = used;
+
+        // share the (read-only) edge buckets of the source renderer:
+        final int[] _edgeBuckets = edgeBuckets;
+        final int[] _edgeBucketCounts = edgeBucketCounts;
+        edgeBuckets = src.edgeBuckets;
+        edgeBucketCounts = src.edgeBucketCounts;
+        try {
+            initActiveEdges(src.buckets_minY, spminY);
+
+            if (enableBlkFlags && !ac.supportBlockFlags()) {
+                enableBlkFlags = false;
+                prevUseBlkFlags = false;
+            }
+            _endRendering(spminY, spmaxY, ac);
+        } finally {
+            edgeBuckets = _edgeBuckets;
+            edgeBucketCounts = _edgeBucketCounts;
+        }
+    }
+
+    /**
+     * Fills the active edge list with the edges crossing the given subpixel
+     * row and moves their crossings to that row exactly as the DDA loop in
+     * _endRendering() would do (fixed point arithmetic).
+     */
+    private void initActiveEdges(final int bucketMin, final int y) {
+        final Unsafe _unsafe = OffHeapArray.UNSAFE;
+        final long addr0 = edges.address;
+        final int bucketMax = y - boundsMinY;
+
+        // count active edges first:
+        int count = 0;
+        for (int bucket = bucketMin; bucket < bucketMax; bucket++) {
+            int ecur = edgeBuckets[bucket];
+            for (int n = edgeBucketCounts[bucket] >> 1; n > 0; n--) {
+                if (_unsafe.getInt(addr0 + ecur + OFF_YMAX) > y) {
+                    count++;
+                }
+                ecur = _unsafe.getInt(addr0 + ecur + OFF_NEXT);
+            }
+        }
+        if (count == 0) {
+            return;
+        }
+
+        // ensure arrays are large enough:
+        if (edgePtrs.length < count) {
+            edgePtrs_ref.putArray(edgePtrs);
+            edgePtrs = edgePtrs_ref.getArray(count);
+            aux_edgePtrs_ref.putArray(aux_edgePtrs);
+            aux_edgePtrs = aux_edgePtrs_ref.getArray(count);
+        }
+        if (crossings.length < count) {
+            crossings_ref.putArray(crossings);
+            crossings = crossings_ref.getArray(count);
+            aux_crossings_ref.putArray(aux_crossings);
+            aux_crossings = aux_crossings_ref.getArray(count);
+        }
+
+        final int[] _edgePtrs = edgePtrs;
+        int numCrossings = 0;
+
+        for (int bucket = bucketMin; bucket < bucketMax; bucket++) {
+            // number of steps from the edge's first crossing to y:
+            final long steps = bucketMax - bucket;
+
+            int ecur = edgeBuckets[bucket];
+            for (int n = edgeBucketCounts[bucket] >> 1; n > 0; n--) {
+                final long addr = addr0 + ecur;
+
+                if (_unsafe.getInt(addr + OFF_YMAX) > y) {
+                    // curx = (x << 1) | orientation, error = 31-bits fraction:
+                    final int curx = _unsafe.getInt(addr);
+                    final long x = (((long) (curx >> 1)) << 31L)
+                                   + _unsafe.getInt(addr + OFF_ERROR);
+                    final long bump = (((long) (_unsafe.getInt(addr + OFF_BUMP_X) >> 1)) << 31L)
+                                   + _unsafe.getInt(addr + OFF_BUMP_ERR);
+
+                    final long xn = x + steps * bump;
+
+                    _unsafe.putInt(addr, (((int) (xn >> 31L)) << 1) | (curx & 0x1));
+                    _unsafe.putInt(addr + OFF_ERROR, ((int) xn) & ERR_STEP_MAX);
+
+                    _edgePtrs[numCrossings++] = ecur;
+                }
+                ecur = _unsafe.getInt(addr + OFF_NEXT);
+            }
+        }
+        edgeCount = numCrossings;
+    }
+
     void copyAARow(final int[] alphaRow,
                    final int pix_y, final int pix_from, final int pix_to,
                    final boolean useBlockFlags,
@@ -29,6 +29,7 @@ import java.lang.ref.WeakReference;
 import java.util.concurrent.atomic.AtomicInteger;
 import com.sun.javafx.geom.Path2D;
 import com.sun.javafx.geom.Rectangle;
+import com.sun.javafx.util.LRUCache;
 import com.sun.marlin.ArrayCacheConst.CacheStats;
 import com.sun.marlin.TransformingPathConsumer2D.CurveBasicMonotonizer;
 import com.sun.marlin.TransformingPathConsumer2D.CurveClipSplitter;
@@ -71,6 +72,8 @@ public final class RendererContext extends ReentrantContext implements MarlinCon
     // Simplifies path
     public final PathSimplifier pathSimplifier = new PathSimplifier();
     public final Dasher dasher;
+    // dash length tables (see DashLengthCache), null if disabled:
+    LRUCache<DashLengthCache.Key, DashLengthCache.Table> dashLengthCache = DashLengthCache.CACHE;
     // flag indicating the shape is stroked (1) or filled (0)
     int stroking = 0;
     // flag indicating to clip the shape
@@ -90,6 +93,7 @@ public final class RendererContext extends ReentrantContext implements MarlinCon
     // shared memory between renderer instances:
     final RendererSharedMemory rdrMem;
     private RendererNoAA rendererNoAA = null;
+    private ConvexPolygonRenderer convexRenderer = null;
     // dirty bbox rectangle
     public final Rectangle clip = new Rectangle();
     // dirty MaskMarlinAlphaConsumer
@@ -107,6 +111,8 @@ public final class RendererContext extends ReentrantContext implements MarlinCon
 
     // RendererContext statistics
     final RendererStats stats;
+    // RendererContext live metrics (optional)
+    final RendererMetrics metrics = (USE_METRICS) ? new RendererMetrics() : null;
 
     /**
      * Constructor
@@ -201,6 +207,13 @@ public final class RendererContext extends ReentrantContext implements MarlinCon
         return rendererNoAA;
     }
 
+    public ConvexPolygonRenderer getConvexPolygonRenderer() {
+        if (convexRenderer == null) {
+            convexRenderer = new ConvexPolygonRenderer(this);
+        }
+        return convexRenderer;
+    }
+
     OffHeapArray newOffHeapArray(final long initialSize) {
         if (DO_STATS) {
             stats.totalOffHeapInitial += initialSize;
@@ -0,0 +1,296 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package com.sun.marlin;
+
+import static com.sun.marlin.MarlinUtils.logInfo;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Live rendering metrics (enabled by -Dprism.marlin.metrics=true), unlike
+ * RendererStats that is only meant for debugging (logs dumped at shutdown).
+ *
+ * Every RendererContext owns one instance gathering the metrics of the
+ * current shape (thread confined) that are published when the renderer is
+ * disposed: as a JFR event (com.sun.marlin.Rendering) if jdk.jfr is
+ * available and the event is enabled in the recording, and into the global
+ * counters exposed by the com.sun.marlin:type=RendererMetrics MBean if
+ * java.management is available.
+ *
+ * The path time covers the pipeline feeding the renderer (transform,
+ * Stroker, Dasher and edge creation) and is split per stage by PathTimer
+ * consumers inserted before the Dasher, the Stroker and the Renderer: each
+ * measures the time spent in its stage and the following ones, so the time
+ * of a stage is the difference with the next timer. The Stroker time
+ * includes the delta transform and the collinear simplifier that follow it,
+ * the remaining path time is spent in the path iteration and transform.
+ * The raster time covers the scanline processing (Renderer.endRendering /
+ * produceAlphas).
+ *
+ * When disabled (default), the USE_METRICS guards are constant folded so
+ * there is no cost.
+ */
+public final class RendererMetrics implements MarlinConst {
+
+    // global counters (all renderer contexts):
+    static final LongAdder SHAPES = new LongAdder();
+    static final LongAdder STROKED_SHAPES = new LongAdder();
+    static final LongAdder DASHED_SHAPES = new LongAdder();
+    static final LongAdder EDGES = new LongAdder();
+    static final LongAdder CROSSINGS = new LongAdder();
+    static final LongAdder ROWS = new LongAdder();
+    static final LongAdder BLOCK_FLAG_ROWS = new LongAdder();
+    static final LongAdder PATH_NANOS = new LongAdder();
+    static final LongAdder RASTER_NANOS = new LongAdder();
+    static final LongAdder DASHER_NANOS = new LongAdder();
+    static final LongAdder STROKER_NANOS = new LongAdder();
+    static final LongAdder EDGE_NANOS = new LongAdder();
+    static final LongAdder EDGE_RESIZES = new LongAdder();
+    static final LongAdder ARRAY_RESIZES = new LongAdder();
+
+    // true if the JFR event may be emitted:
+    private static final boolean USE_JFR;
+
+    static {
+        boolean useJfr = false;
+        if (USE_METRICS) {
+            useJfr = isModulePresent("jdk.jfr");
+
+            if (isModulePresent("java.management")) {
+                try {
+                    RendererMetricsBean.register();
+                } catch (LinkageError | RuntimeException e) {
+                    logInfo("RendererMetrics: unable to register the MBean: " + e);
+                }
+            }
+        }
+        USE_JFR = useJfr;
+    }
+
+    private static boolean isModulePresent(final String name) {
+        final Module module = RendererMetrics.class.getModule();
+        return ModuleLayer.boot().findModule(name)
+                   .map(m -> !module.isNamed() || module.canRead(m))
+                   .orElse(false);
+    }
+
+    // path pipeline stages timed by PathTimer (inclusive times):
+    static final int STAGE_DASHER = 0;
+    static final int STAGE_STROKER = 1;
+    static final int STAGE_EDGES = 2;
+
+    // current shape:
+    final long[] stageNanos = new long[3];
+    private long startNanos = 0L;
+    private long pathNanos = 0L;
+    private long rasterStartNanos = 0L;
+    private long rasterNanos = 0L;
+    private int edges = 0;
+    private int rows = 0;
+    private int blkFlagRows = 0;
+    private long crossings = 0L;
+    private int edgeResizes = 0;
+    // set by Dasher.init():
+    boolean dashed = false;
+
+    RendererMetrics() {
+        // only created by RendererContext
+    }
+
+    void startShape() {
+        reset();
+        startNanos = System.nanoTime();
+    }
+
+    void pathDone(final int edgeCount) {
+        if (startNanos != 0L) {
+            pathNanos = System.nanoTime() - startNanos;
+        }
+        edges = edgeCount;
+    }
+
+    void edgesResized() {
+        edgeResizes++;
+    }
+
+    void startRaster() {
+        rasterStartNanos = System.nanoTime();
+    }
+
+    void rasterDone(final int pixelRows) {
+        rasterNanos += System.nanoTime() - rasterStartNanos;
+        rows += pixelRows;
+    }
+
+    void addScanlines(final long sumCrossings, final int blockFlagRows) {
+        crossings += sumCrossings;
+        blkFlagRows += blockFlagRows;
+    }
+
+    long getCrossings() {
+        return crossings;
+    }
+
+    int getBlockFlagRows() {
+        return blkFlagRows;
+    }
+
+    /**
+     * Publish the metrics of the current shape (called by Renderer.dispose())
+     * @param stroked true if the shape was stroked
+     */
+    void shapeDone(final boolean stroked) {
+        if (startNanos == 0L) {
+            // no shape started (band renderer):
+            reset();
+            return;
+        }
+        SHAPES.increment();
+        if (stroked) {
+            STROKED_SHAPES.increment();
+        }
+        if (dashed) {
+            DASHED_SHAPES.increment();
+        }
+        EDGES.add(edges);
+        CROSSINGS.add(crossings);
+        ROWS.add(rows);
+        BLOCK_FLAG_ROWS.add(blkFlagRows);
+        PATH_NANOS.add(pathNanos);
+        RASTER_NANOS.add(rasterNanos);
+        EDGE_RESIZES.add(edgeResizes);
+
+        // exclusive stage times:
+        final long edgeNanos = stageNanos[STAGE_EDGES];
+        final long strokerNanos = (stroked)
+            ? Math.max(0L, stageNanos[STAGE_STROKER] - edgeNanos) : 0L;
+        final long dasherNanos = (dashed)
+            ? Math.max(0L, stageNanos[STAGE_DASHER] - stageNanos[STAGE_STROKER]) : 0L;
+        DASHER_NANOS.add(dasherNanos);
+        STROKER_NANOS.add(strokerNanos);
+        EDGE_NANOS.add(edgeNanos);
+
+        if (USE_JFR) {
+            RenderingEvent.emit(stroked, dashed, edges, crossings, rows,
+                                blkFlagRows, edgeResizes, pathNanos,
+                                dasherNanos, strokerNanos, edgeNanos,
+                                rasterNanos);
+        }
+        reset();
+    }
+
+    private void reset() {
+        startNanos = 0L;
+        pathNanos = 0L;
+        rasterNanos = 0L;
+        edges = 0;
+        rows = 0;
+        blkFlagRows = 0;
+        crossings = 0L;
+        edgeResizes = 0;
+        dashed = false;
+        stageNanos[STAGE_DASHER] = 0L;
+        stageNanos[STAGE_STROKER] = 0L;
+        stageNanos[STAGE_EDGES] = 0L;
+    }
+
+    static void arrayResized() {
+        ARRAY_RESIZES.increment();
+    }
+
+    public static long getShapeCount() {
+        return SHAPES.sum();
+    }
+
+    public static long getStrokedShapeCount() {
+        return STROKED_SHAPES.sum();
+    }
+
+    public static long getDashedShapeCount() {
+        return DASHED_SHAPES.sum();
+    }
+
+    public static long getEdgeCount() {
+        return EDGES.sum();
+    }
+
+    public static long getCrossingCount() {
+        return CROSSINGS.sum();
+    }
+
+    public static long getRowCount() {
+        return ROWS.sum();
+    }
+
+    public static long getBlockFlagRowCount() {
+        return BLOCK_FLAG_ROWS.sum();
+    }
+
+    public static long getPathTimeNanos() {
+        return PATH_NANOS.sum();
+    }
+
+    public static long getDasherTimeNanos() {
+        return DASHER_NANOS.sum();
+    }
+
+    public static long getStrokerTimeNanos() {
+        return STROKER_NANOS.sum();
+    }
+
+    public static long getEdgeTimeNanos() {
+        return EDGE_NANOS.sum();
+    }
+
+    public static long getRasterTimeNanos() {
+        return RASTER_NANOS.sum();
+    }
+
+    public static long getEdgeResizeCount() {
+        return EDGE_RESIZES.sum();
+    }
+
+    public static long getArrayResizeCount() {
+        return ARRAY_RESIZES.sum();
+    }
+
+    public static void resetCounters() {
+        SHAPES.reset();
+        STROKED_SHAPES.reset();
+        DASHED_SHAPES.reset();
+        EDGES.reset();
+        CROSSINGS.reset();
+        ROWS.reset();
+        BLOCK_FLAG_ROWS.reset();
+        PATH_NANOS.reset();
+        RASTER_NANOS.reset();
+        DASHER_NANOS.reset();
+        STROKER_NANOS.reset();
+        EDGE_NANOS.reset();
+        EDGE_RESIZES.reset();
+        ARRAY_RESIZES.reset();
+    }
+}
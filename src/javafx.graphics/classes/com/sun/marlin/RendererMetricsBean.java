@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package com.sun.marlin;
+
+import java.lang.management.ManagementFactory;
+import java.security.AccessController;
+import java.security.PrivilegedAction;
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.JMException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanOperationInfo;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.ReflectionException;
+import static com.sun.marlin.MarlinUtils.logInfo;
+
+/**
+ * MBean (com.sun.marlin:type=RendererMetrics) exposing the RendererMetrics
+ * counters (only loaded if java.management is available).
+ *
+ * A DynamicMBean is used so that no MBean interface has to be exported.
+ */
+final class RendererMetricsBean implements DynamicMBean {
+
+    static final String OBJECT_NAME = "com.sun.marlin:type=RendererMetrics";
+
+    private static final String[] ATTRIBUTES = {
+        "ShapeCount", "StrokedShapeCount", "DashedShapeCount", "EdgeCount",
+        "CrossingCount", "RowCount", "BlockFlagRowCount", "PathTimeNanos",
+        "DasherTimeNanos", "StrokerTimeNanos", "EdgeTimeNanos",
+        "RasterTimeNanos", "EdgeResizeCount", "ArrayResizeCount"
+    };
+
+    private static final String OP_RESET = "resetCounters";
+
+    @SuppressWarnings("removal")
+    static void register() {
+        AccessController.doPrivileged(
+            (PrivilegedAction<Void>) () -> {
+                try {
+                    final MBeanServer mbs = ManagementFactory.getPlatformMBeanServer();
+                    final ObjectName name = new ObjectName(OBJECT_NAME);
+                    if (!mbs.isRegistered(name)) {
+                        mbs.registerMBean(new RendererMetricsBean(), name);
+                    }
+                } catch (JMException e) {
+                    logInfo("RendererMetrics: unable to register the MBean: " + e);
+                }
+                return null;
+            });
+    }
+
+    private RendererMetricsBean() {
+    }
+
+    @Override
+    public Object getAttribute(final String attribute)
+        throws AttributeNotFoundException
+    {
+        switch (attribute) {
+            case "ShapeCount":
+                return RendererMetrics.getShapeCount();
+            case "StrokedShapeCount":
+                return RendererMetrics.getStrokedShapeCount();
+            case "DashedShapeCount":
+                return RendererMetrics.getDashedShapeCount();
+            case "EdgeCount":
+                return RendererMetrics.getEdgeCount();
+            case "CrossingCount":
+                return RendererMetrics.getCrossingCount();
+            case "RowCount":
+                return RendererMetrics.getRowCount();
+            case "BlockFlagRowCount":
+                return RendererMetrics.getBlockFlagRowCount();
+            case "PathTimeNanos":
+                return RendererMetrics.getPathTimeNanos();
+            case "DasherTimeNanos":
+                return RendererMetrics.getDasherTimeNanos();
+            case "StrokerTimeNanos":
+                return RendererMetrics.getStrokerTimeNanos();
+            case "EdgeTimeNanos":
+                return RendererMetrics.getEdgeTimeNanos();
+            case "RasterTimeNanos":
+                return RendererMetrics.getRasterTimeNanos();
+            case "EdgeResizeCount":
+                return RendererMetrics.getEdgeResizeCount();
+            case "ArrayResizeCount":
+                return RendererMetrics.getArrayResizeCount();
+            default:
+                throw new AttributeNotFoundException(attribute);
+        }
+    }
+
+    @Override
+    public void setAttribute(final Attribute attribute)
+        throws AttributeNotFoundException
+    {
+        throw new AttributeNotFoundException("Read-only attribute: "
+                                             + attribute.getName());
+    }
+
+    @Override
+    public AttributeList getAttributes(final String[] attributes) {
+        final AttributeList list = new AttributeList();
+        for (String name : attributes) {
+            try {
+                list.add(new Attribute(name, getAttribute(name)));
+            } catch (AttributeNotFoundException e) {
+                // skip unknown attribute
+            }
+        }
+        return list;
+    }
+
+    @Override
+    public AttributeList setAttributes(final AttributeList attributes) {
+        return new AttributeList();
+    }
+
+    @Override
+    public Object invoke(final String actionName, final Object[] params,
+                         final String[] signature)
+        throws ReflectionException
+    {
+        if (OP_RESET.equals(actionName)) {
+            RendererMetrics.resetCounters();
+            return null;
+        }
+        throw new ReflectionException(
+            new NoSuchMethodException(actionName), "Unknown operation");
+    }
+
+    @Override
+    public MBeanInfo getMBeanInfo() {
+        final MBeanAttributeInfo[] attrs = new MBeanAttributeInfo[ATTRIBUTES.length];
+        for (int i = 0; i < ATTRIBUTES.length; i++) {
+            attrs[i] = new MBeanAttributeInfo(ATTRIBUTES[i], "long",
+                                              ATTRIBUTES[i], true, false, false);
+        }
+        final MBeanOperationInfo[] ops = {
+            new MBeanOperationInfo(OP_RESET, "Reset all counters", null,
+                                   "void", MBeanOperationInfo.ACTION)
+        };
+        return new MBeanInfo(RendererMetricsBean.class.getName(),
+                             "Marlin renderer metrics", attrs, null, ops, null);
+    }
+}
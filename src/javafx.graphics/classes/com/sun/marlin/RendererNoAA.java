@@ -102,6 +102,14 @@ public final class RendererNoAA implements MarlinRenderer, MarlinConst {
     public static final double QUAD_DEC_BND
         = 8.0d * QUAD_DEC_ERR_SUBPIX;
 
+    // analytic flattening (see curveFlattenAndAdd)
+    // inverse of the cubic chordal error bound (8 x error):
+    private static final double CUB_INV_ERR_BND = 1.0d / CUB_DEC_BND;
+    // inverse of the quadratic chordal error bound (8 x error):
+    private static final double QUAD_INV_ERR_BND = 1.0d / QUAD_DEC_BND;
+    // maximum line count per curve:
+    private static final int MAX_FLAT_COUNT = 1 << 16;
+
 //////////////////////////////////////////////////////////////////////////////
 //  SCAN LINE
 //////////////////////////////////////////////////////////////////////////////
@@ -293,6 +301,103 @@ public final class RendererNoAA implements MarlinRenderer, MarlinConst {
         }
     }
 
+    // Flattens using an uniform step whose line count is given by the chordal
+    // error bound (Wang's formula): the distance between the curve and the
+    // chord of a step dt is at most dt^2 / 8 * max|B''(t)| so the line count
+    // n = ceil(sqrt(max|B''(t)| / (8 x error))) is the smallest one ensuring
+    // the same error bound as the AFD loop (CUB_DEC_BND / QUAD_DEC_BND)
+    // without any step adjustment: large curves are not oversubdivided to
+    // the next power of 2 and small curves are emitted as a single line.
+    private void quadFlattenAndAdd(double x0, double y0,
+                                   final Curve c,
+                                   final double x2, final double y2)
+    {
+        // B''(t) = 2 B = dB is constant:
+        final int count = getFlatCount(
+            (Math.abs(c.dbx) + Math.abs(c.dby)) * QUAD_INV_ERR_BND);
+
+        if (count > 1) {
+            final double icount = 1.0d / count; // dt
+            final double icount2 = icount * icount; // dt^2
+
+            final double ddx = c.dbx * icount2;
+            final double ddy = c.dby * icount2;
+            double dx = c.bx * icount2 + c.cx * icount;
+            double dy = c.by * icount2 + c.cy * icount;
+
+            // we use x0, y0 to walk the line
+            for (int n = count - 1; n > 0; n--, dx += ddx, dy += ddy) {
+                final double x1 = x0 + dx;
+                final double y1 = y0 + dy;
+
+                addLine(x0, y0, x1, y1);
+                x0 = x1;
+                y0 = y1;
+            }
+        }
+        addLine(x0, y0, x2, y2);
+
+        if (DO_STATS) {
+            rdrCtx.stats.stat_rdr_quadBreak.add(count);
+        }
+    }
+
+    // see quadFlattenAndAdd()
+    private void curveFlattenAndAdd(double x0, double y0,
+                                    final Curve c,
+                                    final double x3, final double y3)
+    {
+        // B''(t) = 6 A t + 2 B is linear so each component is maximal at t = 0 or 1:
+        final double maxDDx = Math.max(Math.abs(c.dbx), Math.abs(2.0d * c.dax + c.dbx));
+        final double maxDDy = Math.max(Math.abs(c.dby), Math.abs(2.0d * c.day + c.dby));
+
+        final int count = getFlatCount((maxDDx + maxDDy) * CUB_INV_ERR_BND);
+
+        if (count > 1) {
+            final double icount  = 1.0d / count;      // dt
+            final double icount2 = icount * icount;   // dt^2
+            final double icount3 = icount2 * icount;  // dt^3
+
+            // forward differencing variables:
+            final double dddx = 2.0d * c.dax * icount3;
+            final double dddy = 2.0d * c.day * icount3;
+            double ddx = dddx + c.dbx * icount2;
+            double ddy = dddy + c.dby * icount2;
+            double dx = c.ax * icount3 + c.bx * icount2 + c.cx * icount;
+            double dy = c.ay * icount3 + c.by * icount2 + c.cy * icount;
+
+            // we use x0, y0 to walk the line
+            for (int n = count - 1; n > 0; n--) {
+                final double x1 = x0 + dx;
+                final double y1 = y0 + dy;
+                dx += ddx;
+                dy += ddy;
+                ddx += dddx;
+                ddy += dddy;
+
+                addLine(x0, y0, x1, y1);
+                x0 = x1;
+                y0 = y1;
+            }
+        }
+        addLine(x0, y0, x3, y3);
+
+        if (DO_STATS) {
+            rdrCtx.stats.stat_rdr_curveBreak.add(count);
+        }
+    }
+
+    private static int getFlatCount(final double n2) {
+        // n2 = n^2 (NaN or negative values give 1):
+        if (n2 <= 1.0d || Double.isNaN(n2)) {
+            return 1;
+        }
+        if (n2 >= ((double) MAX_FLAT_COUNT) * MAX_FLAT_COUNT) {
+            return MAX_FLAT_COUNT;
+        }
+        return (int) Math.ceil(Math.sqrt(n2));
+    }
+
     private void addLine(double x1, double y1, double x2, double y2) {
         if (DO_MONITORS) {
             rdrCtx.stats.mon_rdr_addLine.start();
@@ -383,6 +488,9 @@ public final class RendererNoAA implements MarlinRenderer, MarlinConst {
             if (DO_STATS) {
                 rdrCtx.stats.stat_rdr_edges_resizes.add(edgeNewSize);
             }
+            if (USE_METRICS) {
+                rdrCtx.metrics.edgesResized();
+            }
             _edges.resize(edgeNewSize);
         }
 
@@ -531,6 +639,9 @@ public final class RendererNoAA implements MarlinRenderer, MarlinConst {
                   final int pix_boundsWidth, final int pix_boundsHeight,
                   final int windingRule)
     {
+        if (USE_METRICS) {
+            rdrCtx.metrics.startShape();
+        }
         this.windingRule = windingRule;
 
         // bounds as half-open intervals: minX <= x < maxX and minY <= y < maxY
@@ -581,6 +692,9 @@ public final class RendererNoAA implements MarlinRenderer, MarlinConst {
      * Disposes this renderer and recycle it clean up before reusing this instance
      */
     public void dispose() {
+        if (USE_METRICS) {
+            rdrCtx.metrics.shapeDone(rdrCtx.stroking != 0);
+        }
         if (DO_STATS) {
             rdrCtx.stats.stat_rdr_activeEdges.add(activeEdgeMaxUsed);
             rdrCtx.stats.stat_rdr_edges.add(edges.used);
@@ -672,7 +786,11 @@ public final class RendererNoAA implements MarlinRenderer, MarlinConst {
                 tosubpixx(pix_x1), tosubpixy(pix_y1),
                 tosubpixx(pix_x2), tosubpixy(pix_y2),
                 xe, ye);
-        curveBreakIntoLinesAndAdd(x0, y0, curve, xe, ye);
+        if (USE_ANALYTIC_FLATTENING) {
+            curveFlattenAndAdd(x0, y0, curve, xe, ye);
+        } else {
+            curveBreakIntoLinesAndAdd(x0, y0, curve, xe, ye);
+        }
         x0 = xe;
         y0 = ye;
     }
@@ -686,7 +804,11 @@ public final class RendererNoAA implements MarlinRenderer, MarlinConst {
         curve.set(x0, y0,
                 tosubpixx(pix_x1), tosubpixy(pix_y1),
                 xe, ye);
-        quadBreakIntoLinesAndAdd(x0, y0, curve, xe, ye);
+        if (USE_ANALYTIC_FLATTENING) {
+            quadFlattenAndAdd(x0, y0, curve, xe, ye);
+        } else {
+            quadBreakIntoLinesAndAdd(x0, y0, curve, xe, ye);
+        }
         x0 = xe;
         y0 = ye;
     }
@@ -794,6 +916,10 @@ public final class RendererNoAA implements MarlinRenderer, MarlinConst {
 
         int lastY = -1; // last emited row
 
+        // metrics (sum of crossings, pixel rows using block flags):
+        long sumCrossings = 0L;
+        int blkFlagRows = 0;
+
 
         // Iteration on scanlines
         for (; y < ymax; y++, bucket++) {
@@ -907,6 +1033,10 @@ public final class RendererNoAA implements MarlinRenderer, MarlinConst {
             } // bucketCount != 0
 
 
+            if (USE_METRICS) {
+                sumCrossings += numCrossings;
+            }
+
             if (numCrossings != 0) {
                 /*
                  * thresholds to switch to optimized merge sort
@@ -1237,6 +1367,9 @@ public final class RendererNoAA implements MarlinRenderer, MarlinConst {
                     // note: if x1=bboxx1, then alpha is written up to bboxx1+1
                     // inclusive: alpha[bboxx1] ignored, alpha[bboxx1+1] == 0
                     // (normally so never cleared below)
+                    if (USE_METRICS && useBlkFlags) {
+                        blkFlagRows++;
+                    }
                     copyAARow(_alpha, lastY, minX, maxX + 1, useBlkFlags, ac);
 
                     // speculative for next pixel row (scanline coherence):
@@ -1283,6 +1416,9 @@ public final class RendererNoAA implements MarlinRenderer, MarlinConst {
             // note: if x1=bboxx1, then alpha is written up to bboxx1+1
             // inclusive: alpha[bboxx1] ignored then cleared and
             // alpha[bboxx1+1] == 0 (normally so never cleared after)
+            if (USE_METRICS && useBlkFlags) {
+                blkFlagRows++;
+            }
             copyAARow(_alpha, y, minX, maxX + 1, useBlkFlags, ac);
         } else if (y != lastY) {
             ac.clearAlphas(y);
@@ -1292,6 +1428,10 @@ public final class RendererNoAA implements MarlinRenderer, MarlinConst {
         edgeCount = numCrossings;
         prevUseBlkFlags = useBlkFlags;
 
+        if (USE_METRICS) {
+            rdrCtx.metrics.addScanlines(sumCrossings, blkFlagRows);
+        }
+
         if (DO_STATS) {
             // update max used mark
             activeEdgeMaxUsed = _arrayMaxUsed;
@@ -1302,6 +1442,9 @@ public final class RendererNoAA implements MarlinRenderer, MarlinConst {
         if (DO_MONITORS) {
             rdrCtx.stats.mon_rdr_endRendering.start();
         }
+        if (USE_METRICS) {
+            rdrCtx.metrics.pathDone(edges.used / SIZEOF_EDGE_BYTES);
+        }
         if (edgeMinY == Integer.MAX_VALUE) {
             return; // undefined edges bounds
         }
@@ -1428,9 +1571,17 @@ public final class RendererNoAA implements MarlinRenderer, MarlinConst {
             rdrCtx.stats.mon_rdr_endRendering_Y.start();
         }
 
+        if (USE_METRICS) {
+            rdrCtx.metrics.startRaster();
+        }
+
         // Process all scan lines:
         _endRendering(bbox_spminY, bbox_spmaxY, ac);
 
+        if (USE_METRICS) {
+            rdrCtx.metrics.rasterDone(getOutpixMaxY() - getOutpixMinY());
+        }
+
         if (DO_MONITORS) {
             rdrCtx.stats.mon_rdr_endRendering_Y.stop();
         }
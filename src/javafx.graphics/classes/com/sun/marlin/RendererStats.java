@@ -400,6 +400,7 @@ public final class RendererStats implements MarlinConst {
             for (RendererStats stats : allStats) {
                 stats.dump();
             }
+            SharedArrayCache.dumpStats();
         }
     }
 }
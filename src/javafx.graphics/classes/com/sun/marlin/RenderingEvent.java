@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package com.sun.marlin;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * JFR event emitted for every shape rendered by Marlin
+ * (see RendererMetrics, only loaded if jdk.jfr is available)
+ */
+@Name("com.sun.marlin.Rendering")
+@Label("Marlin Rendering")
+@Category({"JavaFX", "Marlin"})
+@Description("Shape rasterized by the Marlin renderer")
+@StackTrace(false)
+public final class RenderingEvent extends Event {
+
+    @Label("Stroked")
+    boolean stroked;
+
+    @Label("Dashed")
+    boolean dashed;
+
+    @Label("Edges")
+    int edges;
+
+    @Label("Crossings")
+    @Description("Sum of the active edges over all subpixel scanlines")
+    long crossings;
+
+    @Label("Pixel Rows")
+    int rows;
+
+    @Label("Block Flag Rows")
+    @Description("Pixel rows using the block flags (tile) optimization")
+    int blockFlagRows;
+
+    @Label("Edge Array Resizes")
+    int edgeResizes;
+
+    @Label("Path Time")
+    @Description("Time spent in the path pipeline (transform, stroker, dasher, edges)")
+    @Timespan(Timespan.NANOSECONDS)
+    long pathTime;
+
+    @Label("Dasher Time")
+    @Description("Time spent in the Dasher")
+    @Timespan(Timespan.NANOSECONDS)
+    long dasherTime;
+
+    @Label("Stroker Time")
+    @Description("Time spent in the Stroker")
+    @Timespan(Timespan.NANOSECONDS)
+    long strokerTime;
+
+    @Label("Edge Time")
+    @Description("Time spent in the edge creation (Renderer path methods)")
+    @Timespan(Timespan.NANOSECONDS)
+    long edgeTime;
+
+    @Label("Raster Time")
+    @Description("Time spent in the scanline processing (endRendering)")
+    @Timespan(Timespan.NANOSECONDS)
+    long rasterTime;
+
+    static void emit(final boolean stroked, final boolean dashed,
+                     final int edges, final long crossings, final int rows,
+                     final int blockFlagRows, final int edgeResizes,
+                     final long pathTime, final long dasherTime,
+                     final long strokerTime, final long edgeTime,
+                     final long rasterTime)
+    {
+        final RenderingEvent event = new RenderingEvent();
+        if (event.shouldCommit()) {
+            event.stroked = stroked;
+            event.dashed = dashed;
+            event.edges = edges;
+            event.crossings = crossings;
+            event.rows = rows;
+            event.blockFlagRows = blockFlagRows;
+            event.edgeResizes = edgeResizes;
+            event.pathTime = pathTime;
+            event.dasherTime = dasherTime;
+            event.strokerTime = strokerTime;
+            event.edgeTime = edgeTime;
+            event.rasterTime = rasterTime;
+            event.commit();
+        }
+    }
+}
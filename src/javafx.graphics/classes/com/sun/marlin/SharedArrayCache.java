@@ -0,0 +1,212 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package com.sun.marlin;
+
+import static com.sun.marlin.ArrayCacheConst.ARRAY_SIZES;
+import static com.sun.marlin.ArrayCacheConst.BUCKETS;
+import static com.sun.marlin.MarlinUtils.logInfo;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Lock-free array cache shared by all RendererContext instances
+ * (enabled by -Dprism.marlin.sharedArrayCache.size=<long>[kKmMgG]).
+ *
+ * Arrays returned by the per-context [Byte/Int/Float/Double]ArrayCache buckets
+ * are kept here when the local bucket is full (or never kept locally for the
+ * large buckets), so that large arrays grown by one context are reused by
+ * the other ones instead of being reallocated per thread.
+ *
+ * Every bucket is a fixed number of slots updated by CAS only. The total size
+ * of the arrays stored in all shared caches is bounded by a single byte budget:
+ * when it is exceeded, arrays larger (in bytes) than the returned one are
+ * evicted from any of the shared caches, the larger buckets first, else the
+ * returned array is dropped (left to the GC).
+ */
+final class SharedArrayCache implements MarlinConst {
+
+    // slots per bucket
+    static final int SLOTS = 8;
+
+    // total size (bytes) of the arrays stored in all shared caches:
+    private static final AtomicLong USED_BYTES = new AtomicLong();
+
+    // all shared caches (eviction and stats):
+    private static final ConcurrentLinkedQueue<SharedArrayCache> ALL_CACHES
+        = new ConcurrentLinkedQueue<SharedArrayCache>();
+
+    private final String name;
+    private final int byteFactor;
+    private final AtomicReferenceArray<Object> slots
+        = new AtomicReferenceArray<Object>(BUCKETS * SLOTS);
+
+    // statistics:
+    private final AtomicLong getOp = new AtomicLong();
+    private final AtomicLong hitOp = new AtomicLong();
+    private final AtomicLong putOp = new AtomicLong();
+    private final AtomicLong dropOp = new AtomicLong();
+    private final AtomicLong evictOp = new AtomicLong();
+
+    SharedArrayCache(final String name) {
+        this.name = name;
+        this.byteFactor = ArrayCacheConst.getByteFactor(name);
+        ALL_CACHES.add(this);
+    }
+
+    private long getBucketBytes(final int bucket) {
+        return ((long) byteFactor) * ARRAY_SIZES[bucket];
+    }
+
+    /**
+     * Return a cached array of the given bucket or null if none is available
+     * @param bucket bucket index
+     * @return array or null
+     */
+    Object getArray(final int bucket) {
+        if (DO_STATS) {
+            getOp.incrementAndGet();
+        }
+        final AtomicReferenceArray<Object> _slots = slots;
+        final int off = bucket * SLOTS;
+
+        for (int i = off + SLOTS - 1; i >= off; i--) {
+            final Object array = _slots.get(i);
+
+            if ((array != null) && _slots.compareAndSet(i, array, null)) {
+                USED_BYTES.addAndGet(-getBucketBytes(bucket));
+                if (DO_STATS) {
+                    hitOp.incrementAndGet();
+                }
+                return array;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Store the given array (of the given bucket size) if the budget allows it
+     * @param bucket bucket index
+     * @param array array to store
+     */
+    void putArray(final int bucket, final Object array) {
+        if (DO_STATS) {
+            putOp.incrementAndGet();
+        }
+        final long size = getBucketBytes(bucket);
+
+        if (reserve(size)) {
+            final AtomicReferenceArray<Object> _slots = slots;
+            final int off = bucket * SLOTS;
+
+            for (int i = off, end = off + SLOTS; i < end; i++) {
+                if ((_slots.get(i) == null) && _slots.compareAndSet(i, null, array)) {
+                    return;
+                }
+            }
+            // bucket is full:
+            USED_BYTES.addAndGet(-size);
+        }
+        if (DO_STATS) {
+            dropOp.incrementAndGet();
+        }
+    }
+
+    private static boolean reserve(final long size) {
+        final AtomicLong _usedBytes = USED_BYTES;
+
+        for (;;) {
+            final long used = _usedBytes.get();
+
+            if (used + size <= SHARED_ARRAY_CACHE_SIZE) {
+                if (_usedBytes.compareAndSet(used, used + size)) {
+                    return true;
+                }
+            } else if (!evictLarger(size)) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Evict one array larger than the given size from any shared cache
+     * @param size size (bytes) of the array to store
+     * @return false if no such array is stored
+     */
+    static boolean evictLarger(final long size) {
+        // evict the arrays of the largest buckets first:
+        for (int b = BUCKETS - 1; b >= 0; b--) {
+            for (SharedArrayCache cache : ALL_CACHES) {
+                if ((cache.getBucketBytes(b) > size) && cache.evict(b)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private boolean evict(final int bucket) {
+        final AtomicReferenceArray<Object> _slots = slots;
+
+        for (int i = bucket * SLOTS, end = i + SLOTS; i < end; i++) {
+            final Object array = _slots.get(i);
+
+            if ((array != null) && _slots.compareAndSet(i, array, null)) {
+                USED_BYTES.addAndGet(-getBucketBytes(bucket));
+                if (DO_STATS) {
+                    evictOp.incrementAndGet();
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Return the total size (bytes) of the arrays stored in all shared caches
+     */
+    static long getUsedBytes() {
+        return USED_BYTES.get();
+    }
+
+    static void dumpStats() {
+        if (DO_STATS && USE_SHARED_ARRAY_CACHE) {
+            logInfo("Shared array caches: used: " + USED_BYTES.get()
+                    + " bytes - max: " + SHARED_ARRAY_CACHE_SIZE + " bytes");
+
+            for (SharedArrayCache cache : ALL_CACHES) {
+                if (cache.getOp.get() != 0L || cache.putOp.get() != 0L) {
+                    logInfo("  " + cache.name + ": get: " + cache.getOp.get()
+                            + " - hit: " + cache.hitOp.get()
+                            + " - put: " + cache.putOp.get()
+                            + " - drop: " + cache.dropOp.get()
+                            + " - evict: " + cache.evictOp.get());
+                }
+            }
+        }
+    }
+}
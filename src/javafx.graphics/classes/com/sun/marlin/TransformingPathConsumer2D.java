@@ -62,11 +62,25 @@ public final class TransformingPathConsumer2D {
     private final PathTracer tracerStroker    = new PathTracer("Stroker");
     private final PathTracer tracerDasher     = new PathTracer("Dasher");
 
+    // recycled PathTimer instances from time...() methods (metrics)
+    private final PathTimer timerDasher;
+    private final PathTimer timerStroker;
+    private final PathTimer timerEdges;
+
     TransformingPathConsumer2D(final RendererContext rdrCtx) {
         // used by RendererContext
         this.rdrCtx = rdrCtx;
         this.cpDetector = new ClosedPathDetector(rdrCtx);
         this.pathClipper = new PathClipFilter(rdrCtx);
+        if (MarlinConst.USE_METRICS) {
+            this.timerDasher  = new PathTimer(rdrCtx, RendererMetrics.STAGE_DASHER);
+            this.timerStroker = new PathTimer(rdrCtx, RendererMetrics.STAGE_STROKER);
+            this.timerEdges   = new PathTimer(rdrCtx, RendererMetrics.STAGE_EDGES);
+        } else {
+            this.timerDasher  = null;
+            this.timerStroker = null;
+            this.timerEdges   = null;
+        }
     }
 
     public DPathConsumer2D wrapPath2D(Path2D p2d) {
@@ -93,6 +107,18 @@ public final class TransformingPathConsumer2D {
         return tracerDasher.init(out);
     }
 
+    public DPathConsumer2D timeDasher(DPathConsumer2D out) {
+        return timerDasher.init(out);
+    }
+
+    public DPathConsumer2D timeStroker(DPathConsumer2D out) {
+        return timerStroker.init(out);
+    }
+
+    public DPathConsumer2D timeEdges(DPathConsumer2D out) {
+        return timerEdges.init(out);
+    }
+
     public DPathConsumer2D detectClosedPath(DPathConsumer2D out) {
         return cpDetector.init(out);
     }
@@ -1184,4 +1210,74 @@ public final class TransformingPathConsumer2D {
             MarlinUtils.logInfo(prefix + message);
         }
     }
+
+    /**
+     * Measures the time spent in the given consumer (and the following ones)
+     * into the RendererMetrics stage times (see RendererMetrics).
+     */
+    static final class PathTimer implements DPathConsumer2D {
+        private final RendererContext rdrCtx;
+        private final int stage;
+        DPathConsumer2D out;
+
+        PathTimer(final RendererContext rdrCtx, final int stage) {
+            this.rdrCtx = rdrCtx;
+            this.stage = stage;
+        }
+
+        PathTimer init(DPathConsumer2D out) {
+            this.out = out;
+            return this; // fluent API
+        }
+
+        @Override
+        public void moveTo(double x0, double y0) {
+            final long start = System.nanoTime();
+            out.moveTo(x0, y0);
+            done(start);
+        }
+
+        @Override
+        public void lineTo(double x1, double y1) {
+            final long start = System.nanoTime();
+            out.lineTo(x1, y1);
+            done(start);
+        }
+
+        @Override
+        public void curveTo(double x1, double y1,
+                            double x2, double y2,
+                            double x3, double y3)
+        {
+            final long start = System.nanoTime();
+            out.curveTo(x1, y1, x2, y2, x3, y3);
+            done(start);
+        }
+
+        @Override
+        public void quadTo(double x1, double y1,
+                           double x2, double y2) {
+            final long start = System.nanoTime();
+            out.quadTo(x1, y1, x2, y2);
+            done(start);
+        }
+
+        @Override
+        public void closePath() {
+            final long start = System.nanoTime();
+            out.closePath();
+            done(start);
+        }
+
+        @Override
+        public void pathDone() {
+            final long start = System.nanoTime();
+            out.pathDone();
+            done(start);
+        }
+
+        private void done(final long start) {
+            rdrCtx.metrics.stageNanos[stage] += System.nanoTime() - start;
+        }
+    }
 }
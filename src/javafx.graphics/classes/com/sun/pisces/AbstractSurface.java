@@ -26,6 +26,7 @@
 package com.sun.pisces;
 
 import com.sun.prism.impl.Disposer;
+import java.nio.IntBuffer;
 
 public abstract class AbstractSurface implements Surface {
 
@@ -54,6 +55,23 @@ public abstract class AbstractSurface implements Surface {
 
     public final void getRGB(int[] argb, int offset, int scanLength, int x, int y, int width, int height) {
         this.rgbCheck(argb.length, offset, scanLength, x, y, width, height);
+        if (JavaRenderer.ENABLED) {
+            final JavaSurface surface = (JavaSurface) this;
+            final int[] data = surface.getDataNoClone();
+            if (data == null) {
+                // off-heap surface:
+                final IntBuffer buf = surface.getDataIntBuffer().duplicate();
+                for (int j = 0; j < height; j++) {
+                    buf.position((y + j) * this.width + x);
+                    buf.get(argb, offset + j * scanLength, width);
+                }
+                return;
+            }
+            for (int j = 0; j < height; j++) {
+                System.arraycopy(data, (y + j) * this.width + x, argb, offset + j * scanLength, width);
+            }
+            return;
+        }
         this.getRGBImpl(argb, offset, scanLength, x, y, width, height);
     }
 
@@ -61,6 +79,23 @@ public abstract class AbstractSurface implements Surface {
 
     public final void setRGB(int[] argb, int offset, int scanLength, int x, int y, int width, int height) {
         this.rgbCheck(argb.length, offset, scanLength, x, y, width, height);
+        if (JavaRenderer.ENABLED) {
+            final JavaSurface surface = (JavaSurface) this;
+            final int[] data = surface.getDataNoClone();
+            if (data == null) {
+                // off-heap surface:
+                final IntBuffer buf = surface.getDataIntBuffer().duplicate();
+                for (int j = 0; j < height; j++) {
+                    buf.position((y + j) * this.width + x);
+                    buf.put(argb, offset + j * scanLength, width);
+                }
+                return;
+            }
+            for (int j = 0; j < height; j++) {
+                System.arraycopy(argb, offset + j * scanLength, data, (y + j) * this.width + x, width);
+            }
+            return;
+        }
         this.setRGBImpl(argb, offset, scanLength, x, y, width, height);
     }
 
@@ -25,6 +25,9 @@
 
 package com.sun.pisces;
 
+import com.sun.javafx.util.LRUCache;
+import com.sun.prism.impl.paint.GradientCache;
+
 public final class GradientColorMap {
         /**
          * @defgroup CycleMethods Gradient cycle methods
@@ -92,7 +95,22 @@ public final class GradientColorMap {
         this.rgba = new int[rgba.length];
         System.arraycopy(rgba, 0, this.rgba, 0, rgba.length);
 
-        createRamp();
+        final LRUCache<GradientCache.Key, Object> cache = GradientCache.getInstance();
+        if (cache == null) {
+            createRamp();
+        } else {
+            // share the ramp of identical gradient stops:
+            final GradientCache.Key key = new GradientCache.Key(
+                GradientCache.PISCES_RAMP, this.fractions, this.rgba, cycleMethod);
+
+            final int[] ramp = (int[]) cache.get(key);
+            if (ramp != null) {
+                this.colors = ramp;
+            } else {
+                createRamp();
+                cache.put(key, this.colors, 4L * RAMP_SIZE);
+            }
+        }
     }
 
     private int pad(int frac) {
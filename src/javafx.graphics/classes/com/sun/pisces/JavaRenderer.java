@@ -0,0 +1,1020 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package com.sun.pisces;
+
+import com.sun.prism.impl.PrismSettings;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+/**
+ * All-Java implementation of the PiscesRenderer operations
+ * (enabled by -Dprism.pisces.java=true).
+ *
+ * It draws into the int[] buffer of a JavaSurface (8/8/8/8 ARGB premultiplied,
+ * scanline stride = surface width) without any JNI transition: every
+ * primitive is converted into spans of coverage values (0..255) that are
+ * composited with the current paint one row at a time. Surfaces stored
+ * off-heap (direct or memory-mapped IntBuffer) are supported by compositing
+ * each span in a row buffer copied from and back to the surface.
+ *
+ * Paint modes (flat color, linear and radial gradients, textures), composite
+ * rules (CLEAR, SRC, SRC_OVER), alpha and LCD masks and images (normal or
+ * multiplied by the current paint) use the compositing equations of the
+ * native implementation with rounded 8 bits products; gradient and texture
+ * lookups are done at pixel centers in double precision, so they are not
+ * bit-exact with the fixed point lookups of the native library.
+ *
+ * The inner loops work on primitive arrays with two color channels packed
+ * per int multiplication so the JIT can inline and unroll them. Each
+ * primitive renders its rows with a RowTask so large primitives may be split
+ * in row tiles rendered concurrently (see TileExecutor).
+ */
+final class JavaRenderer {
+
+    /** true to use this renderer instead of the native Pisces library */
+    static final boolean ENABLED = PrismSettings.javaPisces;
+
+    private static final int PAINT_FLAT_COLOR = 0;
+    private static final int PAINT_LINEAR_GRADIENT = 1;
+    private static final int PAINT_RADIAL_GRADIENT = 2;
+    private static final int PAINT_TEXTURE = 3;
+
+    private static final int FULL = 0x10000;
+
+    // minimum length of the fully covered runs composited as solid spans:
+    private static final int MIN_SOLID_RUN = 16;
+
+    // int[] buffer or null if the surface is stored off-heap:
+    private final int[] data;
+    private final IntBuffer buffer;
+    private final int width;
+    private final int height;
+
+    // clip (max exclusive):
+    private int clipMinX, clipMinY, clipMaxX, clipMaxY;
+
+    private int compositeRule = RendererBase.COMPOSITE_SRC_OVER;
+
+    // current paint:
+    private int paintMode = PAINT_FLAT_COLOR;
+    // flat color (non premultiplied components and premultiplied ARGB):
+    private int cred, cgreen, cblue, calpha;
+    private int color;
+
+    // gradient ramp (premultiplied ARGB) and cycle method:
+    private int[] ramp;
+    private int cycleMethod;
+    // linear gradient: frac = lgA * x + lgB * y + lgC (pixel centers)
+    private double lgA, lgB, lgC;
+    // radial gradient: inverse paint transform and geometry in paint space
+    private double rgM00, rgM01, rgM02, rgM10, rgM11, rgM12;
+    private double rgFx, rgFy, rgDx, rgDy, rgC;
+
+    // texture paint:
+    private final Texture paintTexture = new Texture();
+    // drawImage() source:
+    private final Texture imageTexture = new Texture();
+
+    // LCD gamma tables:
+    private final int[] gammaLUT = new int[256];
+    private final int[] invGammaLUT = new int[256];
+    private float lcdGamma = 0.0f;
+
+    // row buffers of the thread owning this renderer:
+    private final Scratch scratch = new Scratch();
+    private final Thread owner = Thread.currentThread();
+
+    // true to render large primitives in row tiles (see TileExecutor):
+    private final boolean tiled;
+
+    JavaRenderer(final JavaSurface surface) {
+        this(surface.getDataNoClone(), surface.getDataIntBuffer(),
+             surface.getWidth(), surface.getHeight(), TileExecutor.ENABLED);
+    }
+
+    JavaRenderer(final int[] data, final IntBuffer buffer,
+                 final int width, final int height, final boolean tiled)
+    {
+        this.data = data;
+        this.buffer = buffer;
+        this.width = width;
+        this.height = height;
+        this.tiled = tiled;
+        resetClip();
+        setColor(0, 0, 0, 255);
+        setLCDGammaCorrection(1.0f);
+    }
+
+    void setColor(final int red, final int green, final int blue, final int alpha) {
+        this.cred = red;
+        this.cgreen = green;
+        this.cblue = blue;
+        this.calpha = alpha;
+        this.color = (alpha << 24)
+                   | (div255(red * alpha) << 16)
+                   | (div255(green * alpha) << 8)
+                   | div255(blue * alpha);
+        this.paintMode = PAINT_FLAT_COLOR;
+    }
+
+    void setCompositeRule(final int compositeRule) {
+        this.compositeRule = compositeRule;
+    }
+
+    void setLinearGradient(final int x0, final int y0, final int x1, final int y1,
+                           final int[] colors, final int cycleMethod,
+                           final Transform6 gradientTransform)
+    {
+        final double[] inv = inverse(gradientTransform);
+        final double gx0 = x0 / 65536.0, gy0 = y0 / 65536.0;
+        final double dx = x1 / 65536.0 - gx0;
+        final double dy = y1 / 65536.0 - gy0;
+        double len2 = dx * dx + dy * dy;
+        if (len2 == 0.0) {
+            len2 = 1.0;
+        }
+        // frac(u, v) = ((u - x0) * dx + (v - y0) * dy) / len2 * 65536
+        // with (u, v) the paint space position of the device position (x, y)
+        final double ku = FULL * dx / len2;
+        final double kv = FULL * dy / len2;
+        this.lgA = ku * inv[0] + kv * inv[3];
+        this.lgB = ku * inv[1] + kv * inv[4];
+        this.lgC = ku * (inv[2] - gx0) + kv * (inv[5] - gy0);
+
+        this.ramp = colors;
+        this.cycleMethod = cycleMethod;
+        this.paintMode = PAINT_LINEAR_GRADIENT;
+    }
+
+    void setRadialGradient(final int cx, final int cy, final int fx, final int fy,
+                           final int radius, final int[] colors,
+                           final int cycleMethod, final Transform6 gradientTransform)
+    {
+        final double[] inv = inverse(gradientTransform);
+        this.rgM00 = inv[0]; this.rgM01 = inv[1]; this.rgM02 = inv[2];
+        this.rgM10 = inv[3]; this.rgM11 = inv[4]; this.rgM12 = inv[5];
+
+        final double r = Math.max(radius / 65536.0, 1e-6);
+        double dx = (fx - cx) / 65536.0;
+        double dy = (fy - cy) / 65536.0;
+        // keep the focus point inside the circle:
+        final double d = Math.sqrt(dx * dx + dy * dy);
+        if (d > 0.99 * r) {
+            final double s = 0.99 * r / d;
+            dx *= s;
+            dy *= s;
+        }
+        this.rgFx = cx / 65536.0 + dx;
+        this.rgFy = cy / 65536.0 + dy;
+        // focus relative to the center:
+        this.rgDx = dx;
+        this.rgDy = dy;
+        this.rgC = dx * dx + dy * dy - r * r;
+
+        this.ramp = colors;
+        this.cycleMethod = cycleMethod;
+        this.paintMode = PAINT_RADIAL_GRADIENT;
+    }
+
+    void setTexture(final int[] data, final int width, final int height,
+                    final int stride, final Transform6 textureTransform,
+                    final boolean repeat, final boolean linearFiltering,
+                    final boolean hasAlpha)
+    {
+        paintTexture.set(data, null, width, height, 0, stride, textureTransform,
+                         repeat, linearFiltering, hasAlpha,
+                         0, 0, width - 1, height - 1);
+        this.paintMode = PAINT_TEXTURE;
+    }
+
+    void setClip(final int minX, final int minY, final int width, final int height) {
+        this.clipMinX = minX;
+        this.clipMinY = minY;
+        this.clipMaxX = minX + Math.max(width, 0);
+        this.clipMaxY = minY + Math.max(height, 0);
+    }
+
+    void resetClip() {
+        setClip(0, 0, width, height);
+    }
+
+    void setLCDGammaCorrection(final float gamma) {
+        if (gamma != lcdGamma) {
+            lcdGamma = gamma;
+            for (int i = 0; i < 256; i++) {
+                final double v = i / 255.0;
+                gammaLUT[i] = (int) (Math.pow(v, gamma) * 255.0 + 0.5);
+                invGammaLUT[i] = (int) (Math.pow(v, 1.0 / gamma) * 255.0 + 0.5);
+            }
+        }
+    }
+
+    /**
+     * Fill the given rectangle (pixels) with the current color (SRC) within
+     * the clip.
+     */
+    void clearRect(final int x, final int y, final int w, final int h) {
+        final int minX = Math.max(x, clipMinX);
+        final int maxX = Math.min(x + w, clipMaxX);
+        final int minY = Math.max(y, clipMinY);
+        final int maxY = Math.min(y + h, clipMaxY);
+        if (minX >= maxX || minY >= maxY) {
+            return;
+        }
+        final int[] _data = data;
+        final IntBuffer _buffer = buffer;
+        final int _width = width;
+        final int _color = (paintMode == PAINT_FLAT_COLOR) ? color : 0;
+
+        renderTiles(minY, maxY, maxX - minX, (y0, y1, s) -> {
+            for (int j = y0, off = y0 * _width; j < y1; j++, off += _width) {
+                if (_data != null) {
+                    Arrays.fill(_data, off + minX, off + maxX, _color);
+                } else {
+                    for (int i = off + minX, end = off + maxX; i < end; i++) {
+                        _buffer.put(i, _color);
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Fill the given rectangle (15.16 coordinates) with the current paint,
+     * anti-aliasing its fractional edges.
+     */
+    void fillRect(final int x, final int y, final int w, final int h) {
+        fillRectCoverage(x, y, x + w, y + h, null);
+    }
+
+    void emitAndClearAlphaRow(final byte[] alphaMap, final int[] alphaDeltas,
+                              final int pix_y, final int pix_x_from, final int pix_x_to,
+                              final int pix_x_off)
+    {
+        final int n = pix_x_to - pix_x_from;
+        if (n <= 0) {
+            return;
+        }
+        // may be called concurrently for distinct rows (see isTiled):
+        final Scratch s = getScratch();
+        final int[] _coverage = s.getCoverage(n);
+        int aval = 0;
+        for (int i = 0, j = pix_x_off; i < n; i++, j++) {
+            aval += alphaDeltas[j];
+            alphaDeltas[j] = 0;
+            _coverage[i] = alphaMap[aval] & 0xFF;
+        }
+        if (pix_y < clipMinY || pix_y >= clipMaxY) {
+            return;
+        }
+        final int minX = Math.max(pix_x_from, clipMinX);
+        final int maxX = Math.min(pix_x_to, clipMaxX);
+        if (minX < maxX) {
+            emitCoverageRow(pix_y, minX, maxX, _coverage, minX - pix_x_from, s);
+        }
+    }
+
+    void fillAlphaMask(final byte[] mask, final int x, final int y,
+                       final int w, final int h, final int offset, final int stride)
+    {
+        final int minX = Math.max(x, clipMinX);
+        final int maxX = Math.min(x + w, clipMaxX);
+        final int minY = Math.max(y, clipMinY);
+        final int maxY = Math.min(y + h, clipMaxY);
+        final int n = maxX - minX;
+        if (n <= 0 || minY >= maxY) {
+            return;
+        }
+        renderTiles(minY, maxY, n, (y0, y1, s) -> {
+            final int[] _coverage = s.getCoverage(n);
+            for (int j = y0; j < y1; j++) {
+                final int moff = offset + (j - y) * stride + (minX - x);
+                for (int i = 0; i < n; i++) {
+                    _coverage[i] = mask[moff + i] & 0xFF;
+                }
+                emitCoverageRow(j, minX, maxX, _coverage, 0, s);
+            }
+        });
+    }
+
+    /**
+     * Fill a LCD (sub-pixel RGB) mask with the current color: the mask width
+     * is given in sub-pixels (3 per pixel) and the destination is opaque.
+     */
+    void fillLCDAlphaMask(final byte[] mask, final int x, final int y,
+                          final int w, final int h, final int offset, final int stride)
+    {
+        final int pw = w / 3;
+        if (paintMode != PAINT_FLAT_COLOR || compositeRule != RendererBase.COMPOSITE_SRC_OVER) {
+            // no sub-pixel blending: use the average coverage
+            final byte[] gray = new byte[pw * h];
+            for (int j = 0; j < h; j++) {
+                for (int i = 0, m = offset + j * stride; i < pw; i++, m += 3) {
+                    gray[j * pw + i] = (byte) (((mask[m] & 0xFF) + (mask[m + 1] & 0xFF)
+                                               + (mask[m + 2] & 0xFF)) / 3);
+                }
+            }
+            fillAlphaMask(gray, x, y, pw, h, 0, pw);
+            return;
+        }
+        final int minX = Math.max(x, clipMinX);
+        final int maxX = Math.min(x + pw, clipMaxX);
+        final int minY = Math.max(y, clipMinY);
+        final int maxY = Math.min(y + h, clipMaxY);
+        if (minX >= maxX || minY >= maxY) {
+            return;
+        }
+        renderTiles(minY, maxY, maxX - minX, (y0, y1, s) ->
+            fillLCDRows(mask, x, y, offset, stride, minX, maxX, y0, y1, s));
+    }
+
+    private void fillLCDRows(final byte[] mask, final int x, final int y,
+                             final int offset, final int stride,
+                             final int minX, final int maxX,
+                             final int minY, final int maxY, final Scratch s)
+    {
+        final int n = maxX - minX;
+        final int[] _gamma = gammaLUT;
+        final int[] _invGamma = invGammaLUT;
+        final int _calpha = calpha;
+        // source color in linear space:
+        final int lred = _invGamma[cred];
+        final int lgreen = _invGamma[cgreen];
+        final int lblue = _invGamma[cblue];
+
+        for (int j = minY; j < maxY; j++) {
+            final int rowOff = j * width + minX;
+            final int[] _data = (data != null) ? data : readRow(rowOff, n, s);
+            final int dOff = (data != null) ? rowOff : 0;
+
+            int m = offset + (j - y) * stride + 3 * (minX - x);
+            for (int i = minX, off = dOff; i < maxX; i++, off++, m += 3) {
+                int ar = mask[m] & 0xFF;
+                int ag = mask[m + 1] & 0xFF;
+                int ab = mask[m + 2] & 0xFF;
+                if ((ar | ag | ab) == 0) {
+                    continue;
+                }
+                if (_calpha < 255) {
+                    ar = div255(ar * _calpha);
+                    ag = div255(ag * _calpha);
+                    ab = div255(ab * _calpha);
+                }
+                final int d = _data[off];
+                final int dr = _invGamma[(d >> 16) & 0xFF];
+                final int dg = _invGamma[(d >> 8) & 0xFF];
+                final int db = _invGamma[d & 0xFF];
+
+                _data[off] = 0xFF000000
+                    | (_gamma[div255(lred * ar + dr * (255 - ar))] << 16)
+                    | (_gamma[div255(lgreen * ag + dg * (255 - ag))] << 8)
+                    |  _gamma[div255(lblue * ab + db * (255 - ab))];
+            }
+            if (data == null) {
+                writeRow(rowOff, n, _data);
+            }
+        }
+    }
+
+    void drawImage(final int imageMode, final int[] data,
+                   final int width, final int height, final int offset, final int stride,
+                   final Transform6 textureTransform, final boolean repeat,
+                   final boolean linearFiltering,
+                   final int bboxX, final int bboxY, final int bboxW, final int bboxH,
+                   final int lEdge, final int rEdge, final int tEdge, final int bEdge,
+                   final int txMin, final int tyMin, final int txMax, final int tyMax,
+                   final boolean hasAlpha)
+    {
+        imageTexture.set(data, null, width, height, offset, stride, textureTransform,
+                         repeat, linearFiltering, hasAlpha,
+                         txMin, tyMin, txMax, tyMax);
+        drawImageTexture(imageMode, bboxX, bboxY, bboxW, bboxH,
+                         lEdge, rEdge, tEdge, bEdge);
+    }
+
+    void drawImage(final int imageMode, final IntBuffer data,
+                   final int width, final int height, final int offset, final int stride,
+                   final Transform6 textureTransform, final boolean repeat,
+                   final boolean linearFiltering,
+                   final int bboxX, final int bboxY, final int bboxW, final int bboxH,
+                   final int lEdge, final int rEdge, final int tEdge, final int bEdge,
+                   final int txMin, final int tyMin, final int txMax, final int tyMax,
+                   final boolean hasAlpha)
+    {
+        imageTexture.set(null, data, width, height, offset, stride, textureTransform,
+                         repeat, linearFiltering, hasAlpha,
+                         txMin, tyMin, txMax, tyMax);
+        drawImageTexture(imageMode, bboxX, bboxY, bboxW, bboxH,
+                         lEdge, rEdge, tEdge, bEdge);
+    }
+
+    private void drawImageTexture(final int imageMode,
+                                  final int bboxX, final int bboxY, final int bboxW, final int bboxH,
+                                  final int lEdge, final int rEdge, final int tEdge, final int bEdge)
+    {
+        final int x0 = adjustMinEdge(bboxX, lEdge);
+        final int y0 = adjustMinEdge(bboxY, tEdge);
+        final int x1 = adjustMaxEdge(bboxX + bboxW, rEdge);
+        final int y1 = adjustMaxEdge(bboxY + bboxH, bEdge);
+
+        fillRectCoverage(x0, y0, x1, y1,
+            (imageMode == RendererBase.IMAGE_MODE_MULTIPLY) ? Boolean.TRUE : Boolean.FALSE);
+    }
+
+    private static int adjustMinEdge(final int v, final int edge) {
+        switch (edge) {
+            case RendererBase.IMAGE_FRAC_EDGE_PAD:
+                return v & ~0xFFFF;
+            case RendererBase.IMAGE_FRAC_EDGE_TRIM:
+                return (v + 0xFFFF) & ~0xFFFF;
+            default:
+                return v;
+        }
+    }
+
+    private static int adjustMaxEdge(final int v, final int edge) {
+        switch (edge) {
+            case RendererBase.IMAGE_FRAC_EDGE_PAD:
+                return (v + 0xFFFF) & ~0xFFFF;
+            case RendererBase.IMAGE_FRAC_EDGE_TRIM:
+                return v & ~0xFFFF;
+            default:
+                return v;
+        }
+    }
+
+    /**
+     * Fill the rectangle [x0, x1[ x [y0, y1[ (15.16 coordinates) with the
+     * current paint (image == null) or the image texture (optionally
+     * multiplied by the current paint).
+     */
+    private void fillRectCoverage(final int x0, final int y0, final int x1, final int y1,
+                                  final Boolean image)
+    {
+        if (x0 >= x1 || y0 >= y1) {
+            return;
+        }
+        final int minX = Math.max(x0 >> 16, clipMinX);
+        final int maxX = Math.min((x1 + 0xFFFF) >> 16, clipMaxX);
+        final int minY = Math.max(y0 >> 16, clipMinY);
+        final int maxY = Math.min((y1 + 0xFFFF) >> 16, clipMaxY);
+        if (minX >= maxX || minY >= maxY) {
+            return;
+        }
+        renderTiles(minY, maxY, maxX - minX, (t0, t1, s) ->
+            fillRectRows(x0, y0, x1, y1, image, minX, maxX, t0, t1, s));
+    }
+
+    private void fillRectRows(final int x0, final int y0, final int x1, final int y1,
+                              final Boolean image, final int minX, final int maxX,
+                              final int minY, final int maxY, final Scratch s)
+    {
+        final int n = maxX - minX;
+        // horizontal coverage (0..FULL) of the first and last columns:
+        final int hcovFirst = colCoverage(minX, x0, x1);
+        final int hcovLast = colCoverage(maxX - 1, x0, x1);
+        final boolean fullRows = (hcovFirst == FULL) && (hcovLast == FULL);
+
+        final int[] _coverage = s.getCoverage(n);
+
+        for (int j = minY; j < maxY; j++) {
+            final int vcov = colCoverage(j, y0, y1);
+            int[] cov = null;
+            if (!fullRows || vcov != FULL) {
+                cov = _coverage;
+                final int inner = (vcov == FULL) ? 255 : toCoverage(vcov, FULL);
+                Arrays.fill(cov, 0, n, inner);
+                cov[0] = toCoverage(hcovFirst, vcov);
+                cov[n - 1] = toCoverage(hcovLast, vcov);
+            }
+            if (image == null) {
+                emitRow(j, minX, maxX, cov, 0, null, s);
+            } else {
+                final int[] src = s.getPaintRow(n);
+                imageTexture.sample(src, minX, j, n);
+                if (image) {
+                    // IMAGE_MODE_MULTIPLY: multiply by the current paint
+                    final int[] p = s.getPaintRow2(n);
+                    genPaint(p, minX, j, n);
+                    for (int i = 0; i < n; i++) {
+                        src[i] = mulARGB(src[i], p[i]);
+                    }
+                }
+                emitRow(j, minX, maxX, cov, 0, src, s);
+            }
+        }
+    }
+
+    // coverage of the pixel column (or row) p by [v0, v1[ in 1/65536 units
+    private static int colCoverage(final int p, final int v0, final int v1) {
+        final long pmin = ((long) p) << 16;
+        final long cov = Math.min((long) v1, pmin + FULL) - Math.max((long) v0, pmin);
+        return (cov <= 0L) ? 0 : (int) cov;
+    }
+
+    private static int toCoverage(final int c1, final int c2) {
+        return (int) (((long) c1 * c2 * 255L + (1L << 31)) >>> 32);
+    }
+
+    /**
+     * Composite the span [minX, maxX[ of the row y with the given coverage
+     * values and the current paint: long fully covered runs are composited
+     * as solid spans (without per-pixel coverage).
+     */
+    private void emitCoverageRow(final int y, final int minX, final int maxX,
+                                 final int[] cov, final int covOff, final Scratch s)
+    {
+        // start of the pending span with coverage:
+        int start = minX;
+        for (int x = minX; x < maxX; ) {
+            if (cov[covOff + x - minX] != 255) {
+                x++;
+                continue;
+            }
+            int e = x + 1;
+            while (e < maxX && cov[covOff + e - minX] == 255) {
+                e++;
+            }
+            if (e - x >= MIN_SOLID_RUN) {
+                if (start < x) {
+                    emitRow(y, start, x, cov, covOff + start - minX, null, s);
+                }
+                emitRow(y, x, e, null, 0, null, s);
+                start = e;
+            }
+            x = e;
+        }
+        if (start < maxX) {
+            emitRow(y, start, maxX, cov, covOff + start - minX, null, s);
+        }
+    }
+
+    /**
+     * Composite the span [minX, maxX[ of the row y with the given coverage
+     * (null means fully covered) and source pixels (null means the current
+     * paint).
+     */
+    private void emitRow(final int y, final int minX, final int maxX,
+                         final int[] cov, final int covOff, int[] src,
+                         final Scratch s)
+    {
+        final int n = maxX - minX;
+        final int off = y * width + minX;
+
+        if (src == null && paintMode != PAINT_FLAT_COLOR) {
+            src = s.getPaintRow(n);
+            genPaint(src, minX, y, n);
+        }
+        if (data != null) {
+            blit(data, off, n, cov, covOff, src);
+        } else {
+            // off-heap surface: composite a copy of the span
+            final int[] row = readRow(off, n, s);
+            blit(row, 0, n, cov, covOff, src);
+            writeRow(off, n, row);
+        }
+    }
+
+    private void blit(final int[] _data, final int off, final int n,
+                      final int[] cov, final int covOff, final int[] src)
+    {
+        if (src == null) {
+            blitColor(_data, off, n, cov, covOff, color);
+        } else {
+            blitPaint(_data, off, n, cov, covOff, src);
+        }
+    }
+
+    // copy n pixels of the off-heap surface into the row buffer
+    private int[] readRow(final int off, final int n, final Scratch s) {
+        final int[] row = s.getSurfaceRow(n);
+        final IntBuffer _buffer = buffer;
+        for (int i = 0; i < n; i++) {
+            row[i] = _buffer.get(off + i);
+        }
+        return row;
+    }
+
+    // copy n pixels of the row buffer back into the off-heap surface
+    private void writeRow(final int off, final int n, final int[] row) {
+        final IntBuffer _buffer = buffer;
+        for (int i = 0; i < n; i++) {
+            _buffer.put(off + i, row[i]);
+        }
+    }
+
+    private void blitColor(final int[] _data, final int off, final int n,
+                           final int[] cov, final int covOff, final int c)
+    {
+        final int end = off + n;
+
+        switch (compositeRule) {
+            case RendererBase.COMPOSITE_CLEAR:
+                if (cov == null) {
+                    Arrays.fill(_data, off, end, 0);
+                } else {
+                    for (int i = off, k = covOff; i < end; i++, k++) {
+                        final int a = cov[k];
+                        if (a != 0) {
+                            _data[i] = mul(_data[i], 255 - a);
+                        }
+                    }
+                }
+                return;
+
+            case RendererBase.COMPOSITE_SRC:
+                if (cov == null) {
+                    Arrays.fill(_data, off, end, c);
+                } else {
+                    for (int i = off, k = covOff; i < end; i++, k++) {
+                        final int a = cov[k];
+                        if (a == 255) {
+                            _data[i] = c;
+                        } else if (a != 0) {
+                            _data[i] = mul(c, a) + mul(_data[i], 255 - a);
+                        }
+                    }
+                }
+                return;
+
+            default:
+                final int ca = c >>> 24;
+                if (ca == 0) {
+                    return;
+                }
+                if (cov == null) {
+                    if (ca == 255) {
+                        Arrays.fill(_data, off, end, c);
+                    } else {
+                        final int ica = 255 - ca;
+                        for (int i = off; i < end; i++) {
+                            _data[i] = c + mul(_data[i], ica);
+                        }
+                    }
+                } else {
+                    for (int i = off, k = covOff; i < end; i++, k++) {
+                        final int a = cov[k];
+                        if (a == 255) {
+                            _data[i] = (ca == 255) ? c : c + mul(_data[i], 255 - ca);
+                        } else if (a != 0) {
+                            final int s = mul(c, a);
+                            _data[i] = s + mul(_data[i], 255 - (s >>> 24));
+                        }
+                    }
+                }
+        }
+    }
+
+    private void blitPaint(final int[] _data, final int off, final int n,
+                           final int[] cov, final int covOff, final int[] src)
+    {
+
+        switch (compositeRule) {
+            case RendererBase.COMPOSITE_CLEAR:
+                blitColor(_data, off, n, cov, covOff, 0);
+                return;
+
+            case RendererBase.COMPOSITE_SRC:
+                for (int i = 0, d = off, k = covOff; i < n; i++, d++, k++) {
+                    final int a = (cov == null) ? 255 : cov[k];
+                    if (a == 255) {
+                        _data[d] = src[i];
+                    } else if (a != 0) {
+                        _data[d] = mul(src[i], a) + mul(_data[d], 255 - a);
+                    }
+                }
+                return;
+
+            default:
+                for (int i = 0, d = off, k = covOff; i < n; i++, d++, k++) {
+                    final int a = (cov == null) ? 255 : cov[k];
+                    if (a == 0) {
+                        continue;
+                    }
+                    final int s = (a == 255) ? src[i] : mul(src[i], a);
+                    final int sa = s >>> 24;
+                    if (sa == 255) {
+                        _data[d] = s;
+                    } else if (sa != 0) {
+                        _data[d] = s + mul(_data[d], 255 - sa);
+                    }
+                }
+        }
+    }
+
+    /**
+     * Generate the current paint (premultiplied ARGB) for the n pixels
+     * starting at (x, y)
+     */
+    private void genPaint(final int[] dst, final int x, final int y, final int n) {
+        switch (paintMode) {
+            case PAINT_LINEAR_GRADIENT:
+                genLinearGradient(dst, x, y, n);
+                return;
+            case PAINT_RADIAL_GRADIENT:
+                genRadialGradient(dst, x, y, n);
+                return;
+            case PAINT_TEXTURE:
+                paintTexture.sample(dst, x, y, n);
+                return;
+            default:
+                Arrays.fill(dst, 0, n, color);
+        }
+    }
+
+    private void genLinearGradient(final int[] dst, final int x, final int y, final int n) {
+        final int[] _ramp = ramp;
+        final int _cycle = cycleMethod;
+        final double a = lgA;
+        double frac = a * (x + 0.5) + lgB * (y + 0.5) + lgC;
+
+        for (int i = 0; i < n; i++, frac += a) {
+            dst[i] = _ramp[pad(toFrac(frac), _cycle) >> 8];
+        }
+    }
+
+    private void genRadialGradient(final int[] dst, final int x, final int y, final int n) {
+        final int[] _ramp = ramp;
+        final int _cycle = cycleMethod;
+        final double fx = rgFx, fy = rgFy;
+        final double fdx = rgDx, fdy = rgDy, c = rgC;
+
+        final double py = y + 0.5;
+        double u = rgM00 * (x + 0.5) + rgM01 * py + rgM02;
+        double v = rgM10 * (x + 0.5) + rgM11 * py + rgM12;
+
+        for (int i = 0; i < n; i++, u += rgM00, v += rgM10) {
+            // solve |F + s * D - C| = r with D = P - F and t = 1 / s
+            final double dx = u - fx;
+            final double dy = v - fy;
+            final double a = dx * dx + dy * dy;
+            final double t;
+            if (a == 0.0) {
+                t = 0.0;
+            } else {
+                final double b = dx * fdx + dy * fdy;
+                final double s = (-b + Math.sqrt(b * b - a * c)) / a;
+                t = 1.0 / s;
+            }
+            dst[i] = _ramp[pad(toFrac(FULL * t), _cycle) >> 8];
+        }
+    }
+
+    private static int toFrac(final double frac) {
+        // avoid overflows (clamped values are equivalent for all cycles):
+        if (frac >= 0x3FFFFFFF) {
+            return 0x3FFFFFFF;
+        }
+        if (frac <= -0x3FFFFFFF) {
+            return -0x3FFFFFFF;
+        }
+        return (int) Math.floor(frac);
+    }
+
+    // same as GradientColorMap.pad(): returns 0..0xFFFF
+    private static int pad(int frac, final int cycleMethod) {
+        switch (cycleMethod) {
+            case GradientColorMap.CYCLE_REPEAT:
+                return frac & 0xFFFF;
+            case GradientColorMap.CYCLE_REFLECT:
+                if (frac < 0) {
+                    frac = -frac;
+                }
+                frac = frac & 0x1FFFF;
+                if (frac > 0xFFFF) {
+                    frac = 0x1FFFF - frac;
+                }
+                return frac;
+            default:
+                return (frac < 0) ? 0 : (frac > 0xFFFF) ? 0xFFFF : frac;
+        }
+    }
+
+    private Scratch getScratch() {
+        return (Thread.currentThread() == owner) ? scratch : Scratch.LOCAL.get();
+    }
+
+    /**
+     * Render the rows [minY, maxY[ of a primitive: large primitives are split
+     * in row tiles rendered concurrently (see TileExecutor).
+     */
+    private void renderTiles(final int minY, final int maxY, final int spanWidth,
+                             final RowTask task)
+    {
+        if (tiled && TileExecutor.isTiled(maxY - minY, spanWidth)) {
+            TileExecutor.render(minY, maxY, task);
+        } else {
+            task.render(minY, maxY, getScratch());
+        }
+    }
+
+    private static double[] inverse(final Transform6 t) {
+        final double m00 = t.m00 / 65536.0, m01 = t.m01 / 65536.0, m02 = t.m02 / 65536.0;
+        final double m10 = t.m10 / 65536.0, m11 = t.m11 / 65536.0, m12 = t.m12 / 65536.0;
+        double det = m00 * m11 - m01 * m10;
+        if (det == 0.0) {
+            det = Double.MIN_NORMAL;
+        }
+        return new double[] {
+             m11 / det, -m01 / det, (m01 * m12 - m11 * m02) / det,
+            -m10 / det,  m00 / det, (m10 * m02 - m00 * m12) / det
+        };
+    }
+
+    // (v * a) / 255 rounded for a value 0..65025
+    private static int div255(final int v) {
+        final int t = v + 128;
+        return (t + (t >> 8)) >> 8;
+    }
+
+    // multiply the 4 components of the given pixel by a / 255 (rounded)
+    private static int mul(final int p, final int a) {
+        int rb = (p & 0x00FF00FF) * a + 0x00800080;
+        rb = ((rb + ((rb >>> 8) & 0x00FF00FF)) >>> 8) & 0x00FF00FF;
+        int ag = ((p >>> 8) & 0x00FF00FF) * a + 0x00800080;
+        ag = (ag + ((ag >>> 8) & 0x00FF00FF)) & 0xFF00FF00;
+        return ag | rb;
+    }
+
+    // multiply two premultiplied pixels component-wise
+    private static int mulARGB(final int p, final int q) {
+        return (div255((p >>> 24) * (q >>> 24)) << 24)
+             | (div255(((p >> 16) & 0xFF) * ((q >> 16) & 0xFF)) << 16)
+             | (div255(((p >> 8) & 0xFF) * ((q >> 8) & 0xFF)) << 8)
+             |  div255((p & 0xFF) * (q & 0xFF));
+    }
+
+    /**
+     * Renders the rows [minY, maxY[ of a primitive with the given row buffers
+     */
+    interface RowTask {
+        void render(int minY, int maxY, Scratch s);
+    }
+
+    /**
+     * Row buffers (grown on demand) used by a single thread
+     */
+    static final class Scratch {
+        static final ThreadLocal<Scratch> LOCAL = ThreadLocal.withInitial(Scratch::new);
+
+        private int[] coverage = new int[64];
+        private int[] paintRow = new int[64];
+        private int[] paintRow2 = new int[64];
+        private int[] surfaceRow = new int[64];
+
+        int[] getCoverage(final int n) {
+            if (coverage.length < n) {
+                coverage = new int[n + (n >> 1)];
+            }
+            return coverage;
+        }
+
+        int[] getPaintRow(final int n) {
+            if (paintRow.length < n) {
+                paintRow = new int[n + (n >> 1)];
+            }
+            return paintRow;
+        }
+
+        int[] getPaintRow2(final int n) {
+            if (paintRow2.length < n) {
+                paintRow2 = new int[n + (n >> 1)];
+            }
+            return paintRow2;
+        }
+
+        int[] getSurfaceRow(final int n) {
+            if (surfaceRow.length < n) {
+                surfaceRow = new int[n + (n >> 1)];
+            }
+            return surfaceRow;
+        }
+    }
+
+    /**
+     * Texture sampling state (texture paint or drawImage() source)
+     */
+    private static final class Texture {
+        // int[] or off-heap pixels:
+        private int[] data;
+        private IntBuffer buffer;
+        private int offset, stride;
+        private int width, height;
+        private int txMin, tyMin, txMax, tyMax;
+        private boolean repeat, linear, hasAlpha;
+        // inverse transform (device to texture space):
+        private double m00, m01, m02, m10, m11, m12;
+
+        void set(final int[] data, final IntBuffer buffer, final int width, final int height,
+                 final int offset, final int stride, final Transform6 transform,
+                 final boolean repeat, final boolean linear, final boolean hasAlpha,
+                 final int txMin, final int tyMin, final int txMax, final int tyMax)
+        {
+            this.data = data;
+            this.buffer = buffer;
+            this.width = Math.max(width, 1);
+            this.height = Math.max(height, 1);
+            this.offset = offset;
+            this.stride = stride;
+            this.repeat = repeat;
+            this.linear = linear;
+            this.hasAlpha = hasAlpha;
+            this.txMin = Math.max(0, txMin);
+            this.tyMin = Math.max(0, tyMin);
+            this.txMax = Math.max(this.txMin, Math.min(txMax, width - 1));
+            this.tyMax = Math.max(this.tyMin, Math.min(tyMax, height - 1));
+
+            final double[] inv = inverse(transform);
+            this.m00 = inv[0]; this.m01 = inv[1]; this.m02 = inv[2];
+            this.m10 = inv[3]; this.m11 = inv[4]; this.m12 = inv[5];
+        }
+
+        void sample(final int[] dst, final int x, final int y, final int n) {
+            final double py = y + 0.5;
+            double u = m00 * (x + 0.5) + m01 * py + m02;
+            double v = m10 * (x + 0.5) + m11 * py + m12;
+            final double du = m00, dv = m10;
+            final int opaque = hasAlpha ? 0 : 0xFF000000;
+
+            if (!linear) {
+                for (int i = 0; i < n; i++, u += du, v += dv) {
+                    dst[i] = texel(fastFloor(u), fastFloor(v)) | opaque;
+                }
+                return;
+            }
+            for (int i = 0; i < n; i++, u += du, v += dv) {
+                final double su = u - 0.5;
+                final double sv = v - 0.5;
+                final int iu = fastFloor(su);
+                final int iv = fastFloor(sv);
+                // 8 bits weights:
+                final int fu = (int) ((su - iu) * 256.0);
+                final int fv = (int) ((sv - iv) * 256.0);
+
+                final int p00 = texel(iu, iv);
+                final int p10 = texel(iu + 1, iv);
+                final int p01 = texel(iu, iv + 1);
+                final int p11 = texel(iu + 1, iv + 1);
+
+                dst[i] = lerp(lerp(p00, p10, fu), lerp(p01, p11, fu), fv) | opaque;
+            }
+        }
+
+        private int texel(int tx, int ty) {
+            if (repeat) {
+                tx = Math.floorMod(tx, width);
+                ty = Math.floorMod(ty, height);
+            } else {
+                tx = (tx < txMin) ? txMin : (tx > txMax) ? txMax : tx;
+                ty = (ty < tyMin) ? tyMin : (ty > tyMax) ? tyMax : ty;
+            }
+            final int i = offset + ty * stride + tx;
+            return (data != null) ? data[i] : buffer.get(i);
+        }
+
+        private static int fastFloor(final double d) {
+            if (d >= Integer.MAX_VALUE) {
+                return Integer.MAX_VALUE;
+            }
+            if (d <= Integer.MIN_VALUE) {
+                return Integer.MIN_VALUE;
+            }
+            final int i = (int) d;
+            return (d < i) ? i - 1 : i;
+        }
+
+        // interpolate 2 pixels with the weight f (0..256) of q
+        private static int lerp(final int p, final int q, final int f) {
+            if (f == 0 || p == q) {
+                return p;
+            }
+            final int g = 256 - f;
+            final int rb = (((p & 0x00FF00FF) * g + (q & 0x00FF00FF) * f) >>> 8) & 0x00FF00FF;
+            final int ag = (((p >>> 8) & 0x00FF00FF) * g + ((q >>> 8) & 0x00FF00FF) * f) & 0xFF00FF00;
+            return ag | rb;
+        }
+    }
+}
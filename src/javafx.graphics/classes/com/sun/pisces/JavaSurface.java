@@ -42,6 +42,10 @@ public final class JavaSurface extends AbstractSurface {
         this.dataInt = dataInt;
         this.dataBuffer = IntBuffer.wrap(this.dataInt);
 
+        if (JavaRenderer.ENABLED) {
+            // no native surface:
+            return;
+        }
         initialize(dataType, width, height);
         // The native method initialize() creates the native object of
         // struct JavaSurface and saves it's reference in the super class
@@ -51,9 +55,33 @@ public final class JavaSurface extends AbstractSurface {
         addDisposerRecord();
     }
 
+    /**
+     * Creates a surface backed by the given off-heap (direct or memory-mapped)
+     * buffer: only the all-Java renderer supports such surfaces.
+     */
+    public JavaSurface(IntBuffer dataBuffer, int dataType, int width, int height) {
+        super(width, height);
+        if (!JavaRenderer.ENABLED) {
+            throw new IllegalStateException("off-heap surfaces require the Java Pisces renderer");
+        }
+        if (dataBuffer.capacity() / width < height) {
+            throw new IllegalArgumentException("width(=" + width + ") * height(="
+                    + height + ") is greater than dataBuffer.capacity(=" + dataBuffer.capacity() + ")");
+        }
+        this.dataInt = null;
+        this.dataBuffer = dataBuffer;
+    }
+
     public IntBuffer getDataIntBuffer() {
         return this.dataBuffer;
     }
 
+    /**
+     * Returns the int[] buffer or null if this surface is stored off-heap
+     */
+    int[] getDataNoClone() {
+        return this.dataInt;
+    }
+
     private native void initialize(int dataType, int width, int height);
 }
@@ -26,6 +26,7 @@
 package com.sun.pisces;
 
 import com.sun.prism.impl.Disposer;
+import java.nio.IntBuffer;
 
 /**
  * PiscesRenderer class is basic public API accessing Pisces library capabilities.
@@ -79,6 +80,8 @@ public final class PiscesRenderer {
 
     private long nativePtr = 0L;
     private AbstractSurface surface;
+    // all-Java renderer (null if using the native renderer):
+    private final JavaRenderer javaRdr;
 
     /**
      * Creates a renderer that will write into a given surface.
@@ -87,12 +90,26 @@ public final class PiscesRenderer {
      */
     public PiscesRenderer(AbstractSurface surface) {
         this.surface = surface;
+        if (JavaRenderer.ENABLED) {
+            this.javaRdr = new JavaRenderer((JavaSurface) surface);
+            return;
+        }
+        this.javaRdr = null;
         initialize();
         Disposer.addRecord(this, new PiscesRendererDisposerRecord(nativePtr));
     }
 
     private native void initialize();
 
+    /**
+     * Returns true if large primitives are rendered in tiles by several
+     * threads (see TileExecutor): then emitAndClearAlphaRow() may be called
+     * concurrently for distinct rows.
+     */
+    public boolean isTiled() {
+        return (javaRdr != null) && TileExecutor.ENABLED;
+    }
+
     /**
      * Sets the current paint color.
      *
@@ -106,6 +123,10 @@ public final class PiscesRenderer {
         checkColorRange(green, "GREEN");
         checkColorRange(blue, "BLUE");
         checkColorRange(alpha, "ALPHA");
+        if (javaRdr != null) {
+            javaRdr.setColor(red, green, blue, alpha);
+            return;
+        }
         this.setColorImpl(red, green, blue, alpha);
     }
 
@@ -143,11 +164,27 @@ public final class PiscesRenderer {
         {
             throw new IllegalArgumentException("Invalid value for Composite-Rule");
         }
+        if (javaRdr != null) {
+            javaRdr.setCompositeRule(compositeRule);
+            return;
+        }
         this.setCompositeRuleImpl(compositeRule);
     }
 
     private native void setCompositeRuleImpl(int compositeRule);
 
+    private void setLinearGradient0(int x0, int y0, int x1, int y1,
+                                    int[] colors,
+                                    int cycleMethod,
+                                    Transform6 gradientTransform)
+    {
+        if (javaRdr != null) {
+            javaRdr.setLinearGradient(x0, y0, x1, y1, colors, cycleMethod, gradientTransform);
+            return;
+        }
+        setLinearGradientImpl(x0, y0, x1, y1, colors, cycleMethod, gradientTransform);
+    }
+
     private native void setLinearGradientImpl(int x0, int y0, int x1, int y1,
                                               int[] colors,
                                               int cycleMethod,
@@ -173,7 +210,7 @@ public final class PiscesRenderer {
                                   Transform6 gradientTransform)
     {
         final GradientColorMap gradientColorMap = new GradientColorMap(fractions, rgba, cycleMethod);
-        setLinearGradientImpl(x0, y0, x1, y1,
+        setLinearGradient0(x0, y0, x1, y1,
                               gradientColorMap.colors, cycleMethod,
                               gradientTransform == null ? new Transform6(1 << 16, 0, 0, 1 << 16, 0, 0) : gradientTransform);
     }
@@ -194,7 +231,7 @@ public final class PiscesRenderer {
                                   GradientColorMap gradientColorMap,
                                   Transform6 gradientTransform)
     {
-        setLinearGradientImpl(x0, y0, x1, y1,
+        setLinearGradient0(x0, y0, x1, y1,
                               gradientColorMap.colors,
                               gradientColorMap.cycleMethod,
                               gradientTransform == null ? new Transform6(1 << 16, 0, 0, 1 << 16, 0, 0) : gradientTransform);
@@ -225,6 +262,19 @@ public final class PiscesRenderer {
       setLinearGradient(x0, y0, x1, y1, fractions, rgba, cycleMethod, ident);
     }
 
+    private void setRadialGradient0(int cx, int cy, int fx, int fy,
+                                    int radius,
+                                    int[] colors,
+                                    int cycleMethod,
+                                    Transform6 gradientTransform)
+    {
+        if (javaRdr != null) {
+            javaRdr.setRadialGradient(cx, cy, fx, fy, radius, colors, cycleMethod, gradientTransform);
+            return;
+        }
+        setRadialGradientImpl(cx, cy, fx, fy, radius, colors, cycleMethod, gradientTransform);
+    }
+
     private native void setRadialGradientImpl(int cx, int cy, int fx, int fy,
                                               int radius,
                                               int[] colors,
@@ -254,7 +304,7 @@ public final class PiscesRenderer {
                                   Transform6 gradientTransform)
     {
         final GradientColorMap gradientColorMap = new GradientColorMap(fractions, rgba, cycleMethod);
-        setRadialGradientImpl(cx, cy, fx, fy, radius,
+        setRadialGradient0(cx, cy, fx, fy, radius,
                               gradientColorMap.colors, cycleMethod,
                               gradientTransform == null ? new Transform6(1 << 16, 0, 0, 1 << 16, 0, 0) : gradientTransform);
     }
@@ -277,7 +327,7 @@ public final class PiscesRenderer {
                                   int radius,
                                   GradientColorMap gradientColorMap,
                                   Transform6 gradientTransform) {
-        setRadialGradientImpl(cx, cy, fx, fy, radius,
+        setRadialGradient0(cx, cy, fx, fy, radius,
                               gradientColorMap.colors,
                               gradientColorMap.cycleMethod,
                               gradientTransform == null ? new Transform6(1 << 16, 0, 0, 1 << 16, 0, 0) : gradientTransform);
@@ -287,6 +337,10 @@ public final class PiscesRenderer {
         Transform6 textureTransform, boolean repeat, boolean linearFiltering, boolean hasAlpha)
     {
         this.inputImageCheck(width, height, 0, stride, data.length);
+        if (javaRdr != null) {
+            javaRdr.setTexture(data, width, height, stride, textureTransform, repeat, linearFiltering, hasAlpha);
+            return;
+        }
         this.setTextureImpl(imageType, data, width, height, stride, textureTransform, repeat, linearFiltering, hasAlpha);
     }
 
@@ -303,6 +357,10 @@ public final class PiscesRenderer {
         final int y1 = Math.max(minY, 0);
         final int x2 = Math.min(minX + width, surface.getWidth());
         final int y2 = Math.min(minY + height, surface.getHeight());
+        if (javaRdr != null) {
+            javaRdr.setClip(x1, y1, x2 - x1, y2 - y1);
+            return;
+        }
         this.setClipImpl(x1, y1, x2 - x1, y2 - y1);
     }
 
@@ -313,6 +371,10 @@ public final class PiscesRenderer {
      * to the destination image bounds.
      */
     public void resetClip() {
+        if (javaRdr != null) {
+            javaRdr.resetClip();
+            return;
+        }
         this.setClipImpl(0, 0, surface.getWidth(), surface.getHeight());
     }
 
@@ -324,6 +386,10 @@ public final class PiscesRenderer {
         final int y1 = Math.max(y, 0);
         final int x2 = Math.min(x + w, surface.getWidth());
         final int y2 = Math.min(y + h, surface.getHeight());
+        if (javaRdr != null) {
+            javaRdr.clearRect(x1, y1, x2 - x1, y2 - y1);
+            return;
+        }
         this.clearRectImpl(x1, y1, x2 - x1, y2 - y1);
     }
 
@@ -337,6 +403,10 @@ public final class PiscesRenderer {
         final int w2 = x2 - x1;
         final int h2 = y2 - y1;
         if (w2 > 0 && h2 > 0) {
+            if (javaRdr != null) {
+                javaRdr.fillRect(x1, y1, w2, h2);
+                return;
+            }
             this.fillRectImpl(x1, y1, w2, h2);
         }
     }
@@ -355,6 +425,10 @@ public final class PiscesRenderer {
         if (pix_x_off < 0 || (pix_x_off + (pix_x_to - pix_x_from)) > alphaDeltas.length) {
             throw new IllegalArgumentException("rendering range exceeds length of data");
         }
+        if (javaRdr != null) {
+            javaRdr.emitAndClearAlphaRow(alphaMap, alphaDeltas, pix_y, pix_x_from, pix_x_to, pix_x_off);
+            return;
+        }
         this.emitAndClearAlphaRowImpl(alphaMap, alphaDeltas, pix_y, pix_x_from, pix_x_to, pix_x_off, rowNum);
     }
 
@@ -366,6 +440,10 @@ public final class PiscesRenderer {
             throw new NullPointerException("Mask is NULL");
         }
         this.inputImageCheck(width, height, offset, stride, mask.length);
+        if (javaRdr != null) {
+            javaRdr.fillAlphaMask(mask, x, y, width, height, offset, stride);
+            return;
+        }
         this.fillAlphaMaskImpl(mask, x, y, width, height, offset, stride);
     }
 
@@ -375,6 +453,10 @@ public final class PiscesRenderer {
         if (gamma <= 0) {
             throw new IllegalArgumentException("Gamma must be greater than zero");
         }
+        if (javaRdr != null) {
+            javaRdr.setLCDGammaCorrection(gamma);
+            return;
+        }
         this.setLCDGammaCorrectionImpl(gamma);
     }
 
@@ -386,6 +468,10 @@ public final class PiscesRenderer {
             throw new NullPointerException("Mask is NULL");
         }
         this.inputImageCheck(width, height, offset, stride, mask.length);
+        if (javaRdr != null) {
+            javaRdr.fillLCDAlphaMask(mask, x, y, width, height, offset, stride);
+            return;
+        }
         this.fillLCDAlphaMaskImpl(mask, x, y, width, height, offset, stride);
     }
 
@@ -399,6 +485,15 @@ public final class PiscesRenderer {
         boolean hasAlpha)
     {
         this.inputImageCheck(width, height, offset, stride, data.length);
+        if (javaRdr != null) {
+            javaRdr.drawImage(imageMode, data, width, height, offset, stride,
+                textureTransform, repeat, linearFiltering,
+                bboxX, bboxY, bboxW, bboxH,
+                lEdge, rEdge, tEdge, bEdge,
+                txMin, tyMin, txMax, tyMax,
+                hasAlpha);
+            return;
+        }
         this.drawImageImpl(imageType, imageMode, data, width, height, offset, stride,
             textureTransform, repeat, linearFiltering,
             bboxX, bboxY, bboxW, bboxH,
@@ -407,6 +502,29 @@ public final class PiscesRenderer {
             hasAlpha);
     }
 
+    /**
+     * Draws an image stored off-heap (see JavaSurface(IntBuffer, ...)): only
+     * supported by the all-Java renderer.
+     */
+    public void drawImage(int imageType, int imageMode, IntBuffer data,  int width, int height, int offset, int stride,
+        Transform6 textureTransform, boolean repeat, boolean linearFiltering,
+        int bboxX, int bboxY, int bboxW, int bboxH,
+        int lEdge, int rEdge, int tEdge, int bEdge,
+        int txMin, int tyMin, int txMax, int tyMax,
+        boolean hasAlpha)
+    {
+        this.inputImageCheck(width, height, offset, stride, data.capacity());
+        if (javaRdr == null) {
+            throw new UnsupportedOperationException("off-heap images require the Java Pisces renderer");
+        }
+        javaRdr.drawImage(imageMode, data, width, height, offset, stride,
+            textureTransform, repeat, linearFiltering,
+            bboxX, bboxY, bboxW, bboxH,
+            lEdge, rEdge, tEdge, bEdge,
+            txMin, tyMin, txMax, tyMax,
+            hasAlpha);
+    }
+
     private native void drawImageImpl(int imageType, int imageMode, int data[], int width, int height, int offset, int stride,
         Transform6 textureTransform, boolean repeat, boolean linearFiltering,
         int bboxX, int bboxY, int bboxW, int bboxH,
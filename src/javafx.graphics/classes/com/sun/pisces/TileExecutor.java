@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package com.sun.pisces;
+
+import com.sun.javafx.util.ForkJoinExecutor;
+import com.sun.prism.impl.PrismSettings;
+
+/**
+ * Tiled rendering of the JavaRenderer primitives (enabled by
+ * -Dprism.sw.tiles=true).
+ *
+ * A primitive covering at least prism.sw.tiles.minArea pixels (after
+ * clipping) is split in horizontal tiles rendered concurrently by a pool of
+ * prism.sw.tiles.threads workers, each one with its own row buffers and the
+ * rows of its tile as clip. The calling thread waits for all tiles so the
+ * primitives are still drawn in order; every pixel is computed by the same
+ * code as the single-threaded renderer so the output is exactly the same.
+ */
+final class TileExecutor {
+
+    static final boolean ENABLED = PrismSettings.swTiles;
+
+    private static final int THREADS = PrismSettings.swTileThreads;
+    private static final long MIN_AREA = PrismSettings.swTileMinArea;
+    // minimum tile height (pixels):
+    private static final int MIN_TILE_HEIGHT = 16;
+    // max tiles per thread to balance the load:
+    private static final int TILES_PER_THREAD = 2;
+
+    private static final ForkJoinExecutor EXECUTOR
+        = new ForkJoinExecutor("Prism SW Tile Renderer", THREADS);
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private TileExecutor() {
+    }
+
+    /**
+     * Return true if the given area (clipped) is large enough to be rendered
+     * in tiles (by a renderer created with tiled rendering enabled)
+     * @param height number of rows
+     * @param width number of pixels per row
+     * @return true if the area is large
+     */
+    static boolean isTiled(final int height, final int width) {
+        return (height >= 2 * MIN_TILE_HEIGHT)
+            && ((long) height * width >= MIN_AREA);
+    }
+
+    /**
+     * Render the rows [minY, maxY[ in tiles and wait for completion
+     */
+    static void render(final int minY, final int maxY, final JavaRenderer.RowTask task) {
+        EXECUTOR.invokeRanges(minY, maxY, MIN_TILE_HEIGHT, THREADS * TILES_PER_THREAD,
+                              (y0, y1) -> task.render(y0, y1, JavaRenderer.Scratch.LOCAL.get()));
+    }
+}
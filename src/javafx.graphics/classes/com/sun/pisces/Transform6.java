@@ -38,7 +38,9 @@ public final class Transform6 {
                       int m10, int m11,
                       int m02, int m12)
     {
-        initialize();
+        if (!JavaRenderer.ENABLED) {
+            initialize();
+        }
 
         this.m00 = m00;
         this.m01 = m01;
@@ -47,6 +47,16 @@ public interface PixelSource {
      */
     public Pixels getLatestPixels();
 
+    /**
+     * Gets the regions of the {@code Pixels} object returned by the last
+     * call to {@link #getLatestPixels()} that changed since the previous
+     * {@code Pixels} object delivered to the consumer.
+     *
+     * @return rectangles (x, y, width, height) or null if the whole
+     *         {@code Pixels} object must be processed
+     */
+    public int[] getLatestDirtyRects();
+
     /**
      * Indicates that the specified non-null {@code Pixels} object which was
      * obtained from {@link #getLatestPixels()} is done being processed and
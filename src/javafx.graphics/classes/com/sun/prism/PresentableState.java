@@ -65,6 +65,9 @@ public abstract class PresentableState {
     // to shortcut the queued *Painter task.
     protected boolean isClosed;
     protected final int pixelFormat = Pixels.getNativeFormat();
+    // Device space rectangles (x, y, width, height) painted by the last
+    // pulse or null if the whole scene was painted
+    protected int[] dirtyRects;
 
     /** Create a PresentableState based on a View.
      *
@@ -296,6 +299,28 @@ public abstract class PresentableState {
         if (view != null) view.unlock();
     }
 
+    /**
+     * @return the device space rectangles (x, y, width, height) painted by
+     * the last pulse, or null if the whole scene was painted
+     *
+     * Must be called on the renderer thread.
+     */
+    public int[] getDirtyRects() {
+        return dirtyRects;
+    }
+
+    /**
+     * Sets the device space rectangles painted by the current pulse.
+     *
+     * @param dirtyRects rectangles (x, y, width, height) or null if the
+     * whole scene was painted
+     *
+     * Must be called on the renderer thread.
+     */
+    public void setDirtyRects(int[] dirtyRects) {
+        this.dirtyRects = dirtyRects;
+    }
+
     /**
      * Put the pixels on the screen.
      *
@@ -305,7 +330,7 @@ public abstract class PresentableState {
         Pixels pixels = source.getLatestPixels();
         if (pixels != null) {
             try {
-                view.uploadPixels(pixels);
+                view.uploadPixels(pixels, source.getLatestDirtyRects());
             } finally {
                 source.doneWithPixels(pixels);
             }
@@ -28,7 +28,21 @@ package com.sun.prism;
 import java.nio.Buffer;
 
 public interface RTTexture extends Texture, RenderTarget {
+    /**
+     * Returns the pixels of this render target, if they are stored in an
+     * int[], or null. The array is only valid until this render target is
+     * disposed, unless {@link #keepPixels()} is called.
+     */
     public int[] getPixels();
+
+    /**
+     * Tells the render target that the array returned by
+     * {@link #getPixels()} is referenced after it is disposed (snapshot
+     * images): it is not reused by another texture.
+     */
+    public default void keepPixels() {
+    }
+
     public boolean readPixels(Buffer pixels);
     public boolean readPixels(Buffer pixels, int x, int y, int width, int height);
     public boolean isVolatile();
@@ -85,6 +85,21 @@ public final class PrismSettings {
     public static final boolean forceUploadingPainter;
     public static final boolean forceAlphaTestShader;
     public static final boolean forceNonAntialiasedShape;
+    public static final long maskCacheSize;
+    public static final int maskCacheMaxDim;
+    public static final long strokeCacheSize;
+    public static final long gradientCacheSize;
+    public static final long effectCacheSize;
+    public static final boolean javaPisces;
+    public static final boolean swTiles;
+    public static final int swTileThreads;
+    public static final long swTileMinArea;
+    public static final long swOffHeapMinSize;
+    public static final long swOffHeapMaxSize;
+    public static final boolean swOffHeapMapped;
+    public static final boolean swRecycleTextures;
+    public static final int swBandHeight;
+    public static final boolean swFastPaths;
 
     public static enum RasterizerType {
         DoubleMarlin("Double Precision Marlin Rasterizer");
@@ -354,6 +369,110 @@ public final class PrismSettings {
         // Force non anti-aliasing (not smooth) shape rendering
         forceNonAntialiasedShape = getBoolean(systemProperties, "prism.forceNonAntialiasedShape", false);
 
+        /*
+         * Size (bytes) of the cache of rasterized shape masks used by the
+         * Marlin rasterizer; 0 (default) disables the cache.
+         */
+        maskCacheSize = getLong(systemProperties, "prism.maskcache.size", 0L,
+                                "Try -Dprism.maskcache.size=<long>[kKmMgG]");
+        /* Maximum width or height of a cached shape mask */
+        maskCacheMaxDim = getInt(systemProperties, "prism.maskcache.maxdim", 256,
+                                 "Try -Dprism.maskcache.maxdim=<number>");
+
+        /*
+         * Size (bytes) of the cache of stroke outlines used by the Marlin
+         * rasterizer; 0 (default) disables the cache.
+         */
+        strokeCacheSize = getLong(systemProperties, "prism.strokecache.size", 0L,
+                                  "Try -Dprism.strokecache.size=<long>[kKmMgG]");
+
+        /*
+         * Size (bytes) of the cache of gradient color lookup tables shared by
+         * the SW and MultipleGradientContext paints; 0 (default) disables
+         * the cache.
+         */
+        gradientCacheSize = getLong(systemProperties, "prism.gradientcache.size", 0L,
+                                    "Try -Dprism.gradientcache.size=<long>[kKmMgG]");
+
+        /*
+         * Size (bytes) of the filtered effect outputs kept by the effect
+         * filters of unchanged nodes; 0 (default) disables the cache.
+         */
+        effectCacheSize = getLong(systemProperties, "prism.effectcache.size", 0L,
+                                  "Try -Dprism.effectcache.size=<long>[kKmMgG]");
+
+        /*
+         * Render large primitives of the SW pipeline in row tiles on a pool
+         * of worker threads; it requires the Java Pisces renderer (below).
+         */
+        swTiles = getBoolean(systemProperties, "prism.sw.tiles", false);
+        swTileThreads = Utils.clamp(1,
+                getInt(systemProperties, "prism.sw.tiles.threads",
+                       Runtime.getRuntime().availableProcessors(),
+                       "Try -Dprism.sw.tiles.threads=<number>"), 256);
+        /*
+         * Minimum area (pixels) of a primitive rendered in tiles
+         */
+        swTileMinArea = getLong(systemProperties, "prism.sw.tiles.minArea", 64L * 1024L,
+                                "Try -Dprism.sw.tiles.minArea=<long>[kKmMgG]");
+
+        /*
+         * Minimum size (bytes) of the SW render targets stored off-heap
+         * (direct or memory-mapped buffers) instead of an int[] on the Java
+         * heap; 0 (default) keeps all the render targets on the heap.
+         * Render targets larger than 2 GiB (Integer.MAX_VALUE bytes) always
+         * stay on the heap as byte buffers are int-indexed.
+         */
+        swOffHeapMinSize = getLong(systemProperties, "prism.sw.offheap.minSize", 0L,
+                                   "Try -Dprism.sw.offheap.minSize=<long>[kKmMgG]");
+        /*
+         * Maximum total size (bytes) of the off-heap SW render targets;
+         * larger allocations fail like the heap texture pool does.
+         */
+        swOffHeapMaxSize = getLong(systemProperties, "prism.sw.offheap.maxSize",
+                                   Runtime.getRuntime().maxMemory(),
+                                   "Try -Dprism.sw.offheap.maxSize=<long>[kKmMgG]");
+        /*
+         * Map the off-heap SW render targets on temporary files instead of
+         * allocating direct buffers (limited by -XX:MaxDirectMemorySize).
+         */
+        swOffHeapMapped = getBoolean(systemProperties, "prism.sw.offheap.mapped", false);
+
+        /*
+         * Number of rows of the anti-aliased shapes collected by the SW
+         * pipeline before compositing them in a single call (alpha mask);
+         * 0 (default) composites every row as soon as it is rasterized.
+         */
+        swBandHeight = Utils.clamp(0,
+                getInt(systemProperties, "prism.sw.bandHeight", 0,
+                       "Try -Dprism.sw.bandHeight=<number>"), 256);
+
+        /*
+         * Fill or copy the rows of the SW render target directly for the
+         * opaque, pixel-aligned rectangles and images (solid color or
+         * untransformed texture drawn in SRC or SRC_OVER mode) instead of
+         * compositing them with Pisces; false (default) always uses Pisces.
+         */
+        swFastPaths = getBoolean(systemProperties, "prism.sw.fastpaths", false);
+
+        /*
+         * Recycle the pixel buffers of the disposed (or collected) SW
+         * textures and account for them in the SW texture pool (against
+         * prism.maxvram and prism.targetvram); false (default) allocates a
+         * new buffer for every texture.
+         */
+        swRecycleTextures = getBoolean(systemProperties, "prism.sw.recycle", false);
+
+        /*
+         * Use the all-Java Pisces renderer in the SW pipeline instead of the
+         * native prism_sw library; false (default) uses the native renderer
+         * unless tiled rendering or off-heap render targets are enabled (the
+         * native surfaces can not be shared by several threads and only
+         * support int[] buffers).
+         */
+        javaPisces = getBoolean(systemProperties, "prism.pisces.java", false)
+                         || swTiles || (swOffHeapMinSize > 0L);
+
     }
 
     private static int parseInt(String s, int dflt, int trueDflt,
@@ -377,6 +496,15 @@ public final class PrismSettings {
         return dflt;
     }
 
+    /**
+     * Parses a size in bytes given as <long>[kKmMgG], as used by the size
+     * properties of the Prism, Marlin and Decora caches.
+     * @return the size in bytes or dflt if s is null or invalid
+     */
+    public static long parseSize(String s, long dflt, String errMsg) {
+        return parseLong(s, dflt, 0, errMsg);
+    }
+
     private static long parseLong(String s, long dflt, long rel, String errMsg) {
         if (s != null && s.length() > 0) {
             long mult = 1;
@@ -57,14 +57,41 @@ import java.util.List;
  * get really bad with multiple deliveries enqueued during the processing
  * of a single earlier delivery will we end up with three sets of
  * {@code Pixels} objects in play.
+ * <p>
+ * Producers may also give the dirty rectangles of each frame: then the
+ * regions of every saved {@code Pixels} object that are out of date are
+ * tracked so only those regions need to be copied when it is reused (see
+ * {@link #getStaleRegions(Pixels, int[]) getStaleRegions()}), and the
+ * dirty rectangles of the delivered frames (merged if a frame was replaced
+ * in the queue) are given to the consumer.
  */
 public class QueuedPixelSource implements PixelSource {
+    // max number of rectangles in a region before using its bounds:
+    private static final int MAX_RECTS = 16;
+
     private volatile Pixels beingConsumed;
     private volatile Pixels enqueued;
-    private final List<WeakReference<Pixels>> saved =
-         new ArrayList<WeakReference<Pixels>>(3);
+    // dirty rectangles of the above Pixels (null means all):
+    private int[] beingConsumedDirty;
+    private int[] enqueuedDirty;
+    // true if a frame was skipped so the next one must be processed entirely:
+    private boolean skipped;
+    private final List<SavedPixels> saved =
+         new ArrayList<SavedPixels>(3);
     private final boolean useDirectBuffers;
 
+    /**
+     * A saved {@code Pixels} object and its regions that are out of date.
+     */
+    private static final class SavedPixels extends WeakReference<Pixels> {
+        // stale rectangles (x, y, width, height) or null if all are stale:
+        int[] stale = null;
+
+        SavedPixels(Pixels p) {
+            super(p);
+        }
+    }
+
     public QueuedPixelSource(boolean useDirectBuffers) {
         this.useDirectBuffers = useDirectBuffers;
     }
@@ -76,17 +103,25 @@ public class QueuedPixelSource implements PixelSource {
         }
         if (enqueued != null) {
             beingConsumed = enqueued;
+            beingConsumedDirty = enqueuedDirty;
             enqueued = null;
+            enqueuedDirty = null;
         }
         return beingConsumed;
     }
 
+    @Override
+    public synchronized int[] getLatestDirtyRects() {
+        return beingConsumedDirty;
+    }
+
     @Override
     public synchronized void doneWithPixels(Pixels used) {
         if (beingConsumed != used) {
             throw new IllegalStateException("wrong pixels buffer: "+used+" != "+beingConsumed);
         }
         beingConsumed = null;
+        beingConsumedDirty = null;
     }
 
     @Override
@@ -95,6 +130,8 @@ public class QueuedPixelSource implements PixelSource {
             throw new IllegalStateException("cannot skip while processing: "+beingConsumed);
         }
         enqueued = null;
+        enqueuedDirty = null;
+        skipped = true;
     }
 
     private boolean usesSameBuffer(Pixels p1, Pixels p2) {
@@ -121,7 +158,7 @@ public class QueuedPixelSource implements PixelSource {
         int i = 0;
         IntBuffer reuseBuffer = null;
         while (i < saved.size()) {
-            WeakReference<Pixels> ref = saved.get(i);
+            SavedPixels ref = saved.get(i);
             Pixels p = ref.get();
             if (p == null) {
                 saved.remove(i);
@@ -157,11 +194,119 @@ public class QueuedPixelSource implements PixelSource {
                 reuseBuffer = IntBuffer.allocate(bufsize);
             }
         }
-        Pixels p = Application.GetApplication().createPixels(w, h, reuseBuffer, scalex, scaley);
-        saved.add(new WeakReference<>(p));
+        Pixels p = createPixels(w, h, reuseBuffer, scalex, scaley);
+        saved.add(new SavedPixels(p));
         return p;
     }
 
+    /**
+     * Creates a {@code Pixels} object wrapping the given buffer.
+     *
+     * @param w the width of the Pixels object
+     * @param h the height of the Pixels object
+     * @param buffer the pixels buffer
+     * @param scalex the horizontal scale of the Pixels object
+     * @param scaley the vertical scale of the Pixels object
+     * @return a new {@code Pixels} object
+     */
+    protected Pixels createPixels(int w, int h, IntBuffer buffer, float scalex, float scaley) {
+        return Application.GetApplication().createPixels(w, h, buffer, scalex, scaley);
+    }
+
+    /**
+     * Returns the regions of the indicated unused {@code Pixels} object
+     * (from {@link #getUnusedPixels(int, int, float, float) getUnusedPixels()})
+     * that must be updated to hold a new frame, knowing the dirty rectangles
+     * of that frame: the regions not updated since the {@code Pixels} object
+     * was last filled plus the dirty rectangles. The {@code Pixels} object is
+     * then considered up to date, and the dirty rectangles out of date in all
+     * other saved {@code Pixels} objects.
+     *
+     * @param pixels the {@code Pixels} object that will hold the new frame
+     * @param dirtyRects the dirty rectangles (x, y, width, height) of the
+     *                   new frame or null if it is entirely new
+     * @return the rectangles (x, y, width, height) to update or null if the
+     *         whole {@code Pixels} object must be updated
+     */
+    public synchronized int[] getStaleRegions(Pixels pixels, int[] dirtyRects) {
+        int[] stale = null;
+        for (int i = 0; i < saved.size(); i++) {
+            SavedPixels ref = saved.get(i);
+            Pixels p = ref.get();
+            if (p == pixels) {
+                stale = mergeRects(ref.stale, dirtyRects);
+                ref.stale = new int[0];
+            } else if (p != null) {
+                ref.stale = mergeRects(ref.stale, dirtyRects);
+            }
+        }
+        return stale;
+    }
+
+    /**
+     * Copies the given regions of an image into the buffer of a
+     * {@code Pixels} object of the same size.
+     *
+     * @param src the image pixels (scanline stride = width)
+     * @param dst the pixels buffer (scanline stride = width)
+     * @param width the image width
+     * @param height the image height
+     * @param regions the rectangles (x, y, width, height) to copy or null to
+     *                copy the whole image
+     */
+    public static void copyRegions(int[] src, IntBuffer dst, int width, int height,
+                                   int[] regions)
+    {
+        if (regions == null) {
+            dst.rewind();
+            dst.put(src, 0, width * height);
+        } else {
+            for (int i = 0; i < regions.length; i += 4) {
+                int x0 = Math.max(regions[i], 0);
+                int y0 = Math.max(regions[i + 1], 0);
+                int x1 = Math.min(regions[i] + regions[i + 2], width);
+                int y1 = Math.min(regions[i + 1] + regions[i + 3], height);
+                for (int y = y0; y < y1 && x0 < x1; y++) {
+                    int off = y * width + x0;
+                    dst.position(off);
+                    dst.put(src, off, x1 - x0);
+                }
+            }
+        }
+        dst.rewind();
+    }
+
+    /**
+     * Returns the union of two lists of rectangles (null means everything),
+     * replaced by their bounds if there are too many rectangles.
+     */
+    private static int[] mergeRects(int[] r1, int[] r2) {
+        if (r1 == null || r2 == null) {
+            return null;
+        }
+        if (r1.length == 0) {
+            return r2;
+        }
+        if (r2.length == 0) {
+            return r1;
+        }
+        int[] rects = new int[r1.length + r2.length];
+        System.arraycopy(r1, 0, rects, 0, r1.length);
+        System.arraycopy(r2, 0, rects, r1.length, r2.length);
+        if (rects.length <= 4 * MAX_RECTS) {
+            return rects;
+        }
+        int x0 = Integer.MAX_VALUE, y0 = Integer.MAX_VALUE;
+        int x1 = Integer.MIN_VALUE, y1 = Integer.MIN_VALUE;
+        for (int i = 0; i < rects.length; i += 4) {
+            x0 = Math.min(x0, rects[i]);
+            y0 = Math.min(y0, rects[i + 1]);
+            x1 = Math.max(x1, rects[i] + rects[i + 2]);
+            y1 = Math.max(y1, rects[i + 1] + rects[i + 3]);
+        }
+        return new int[] { x0, y0, x1 - x0, y1 - y0 };
+    }
+
     /**
      * Place the indicated {@code Pixels} object into the enqueued state,
      * replacing any other objects that are currently enqueued but not yet
@@ -170,6 +315,28 @@ public class QueuedPixelSource implements PixelSource {
      * @param pixels the {@code Pixels} object to be enqueued
      */
     public synchronized void enqueuePixels(Pixels pixels) {
+        enqueuePixels(pixels, null);
+    }
+
+    /**
+     * Place the indicated {@code Pixels} object into the enqueued state
+     * with the rectangles that changed since the previous frame. If another
+     * object is still enqueued, its dirty rectangles are merged as the
+     * consumer will not see it.
+     *
+     * @param pixels the {@code Pixels} object to be enqueued
+     * @param dirtyRects the dirty rectangles (x, y, width, height) of the
+     *                   frame or null if it is entirely new
+     */
+    public synchronized void enqueuePixels(Pixels pixels, int[] dirtyRects) {
+        if (skipped) {
+            // the consumer missed a frame:
+            dirtyRects = null;
+            skipped = false;
+        } else if (enqueued != null) {
+            dirtyRects = mergeRects(enqueuedDirty, dirtyRects);
+        }
         enqueued = pixels;
+        enqueuedDirty = dirtyRects;
     }
 }
@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package com.sun.prism.impl.paint;
+
+import com.sun.javafx.util.LRUCache;
+import com.sun.prism.impl.PrismSettings;
+import java.util.Arrays;
+
+/**
+ * The bounded LRU cache (see LRUCache) of gradient color lookup tables shared by the SW
+ * (Pisces GradientColorMap) and MultipleGradientContext paint contexts
+ * (enabled by -Dprism.gradientcache.size=<long>[kKmMgG]).
+ *
+ * Tables are keyed on their kind (ramp layout), the stop fractions, the
+ * premultiplied stop colors and the cycle method. The cached tables are
+ * never modified once stored so they are shared by all the paint contexts
+ * using the same gradient stops.
+ */
+public final class GradientCache {
+
+    /** 256 entries ramp of com.sun.pisces.GradientColorMap */
+    public static final int PISCES_RAMP = 0;
+    /** lookup data of MultipleGradientContext */
+    public static final int GRADIENT_CONTEXT = 1;
+
+    private static final LRUCache<Key, Object> instance =
+        (PrismSettings.gradientCacheSize > 0L)
+            ? new LRUCache<>("GradientCache", PrismSettings.gradientCacheSize) : null;
+
+    /**
+     * Returns the shared cache or null if it is disabled. The cached tables
+     * must not be modified once stored.
+     */
+    public static LRUCache<Key, Object> getInstance() {
+        return instance;
+    }
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private GradientCache() {
+    }
+
+    public static final class Key {
+        final int kind;
+        final int[] fractions;
+        final int[] colors;
+        final int cycleMethod;
+        private final int hash;
+
+        /**
+         * @param kind PISCES_RAMP or GRADIENT_CONTEXT
+         * @param fractions stop fractions (15.16 or float bits), not copied
+         * @param colors premultiplied ARGB stop colors, not copied
+         * @param cycleMethod cycle method
+         */
+        public Key(int kind, int[] fractions, int[] colors, int cycleMethod) {
+            this.kind = kind;
+            this.fractions = fractions;
+            this.colors = colors;
+            this.cycleMethod = cycleMethod;
+
+            int h = kind;
+            h = 31 * h + Arrays.hashCode(fractions);
+            h = 31 * h + Arrays.hashCode(colors);
+            h = 31 * h + cycleMethod;
+            this.hash = h;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == this) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            final Key k = (Key) obj;
+            return (hash == k.hash)
+                && (kind == k.kind)
+                && (cycleMethod == k.cycleMethod)
+                && Arrays.equals(fractions, k.fractions)
+                && Arrays.equals(colors, k.colors);
+        }
+    }
+}
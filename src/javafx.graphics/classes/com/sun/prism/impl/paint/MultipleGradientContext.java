@@ -27,6 +27,7 @@ package com.sun.prism.impl.paint;
 
 import com.sun.javafx.geom.transform.BaseTransform;
 import com.sun.javafx.geom.transform.NoninvertibleTransformException;
+import com.sun.javafx.util.LRUCache;
 import com.sun.prism.paint.Color;
 import com.sun.prism.paint.Gradient;
 
@@ -134,7 +135,31 @@ abstract class MultipleGradientContext {
         // we can avoid copying this array since we do not modify its values
         this.fractions = fractions;
 
-        calculateLookupData(colors);
+        final LRUCache<GradientCache.Key, Object> cache = GradientCache.getInstance();
+        if (cache == null) {
+            calculateLookupData(colors);
+        } else {
+            // share the lookup data of identical gradient stops:
+            final int[] fractionBits = new int[fractions.length];
+            final int[] argb = new int[colors.length];
+            for (int i = 0; i < fractions.length; i++) {
+                fractionBits[i] = Float.floatToIntBits(fractions[i]);
+            }
+            for (int i = 0; i < colors.length; i++) {
+                argb[i] = colors[i].getIntArgbPre();
+            }
+            final GradientCache.Key key = new GradientCache.Key(
+                GradientCache.GRADIENT_CONTEXT, fractionBits, argb, cycleMethod);
+
+            final LookupData data = (LookupData) cache.get(key);
+            if (data != null) {
+                data.copyTo(this);
+            } else {
+                calculateLookupData(colors);
+                final LookupData newData = new LookupData(this);
+                cache.put(key, newData, newData.getSize());
+            }
+        }
 
 //        // note that only one of these values can ever be non-null (we either
 //        // store the fast gradient array or the slow one, but never both
@@ -172,6 +197,49 @@ abstract class MultipleGradientContext {
 //        }
     }
 
+    /**
+     * Lookup data computed by calculateLookupData() shared by the contexts
+     * using the same gradient stops (see GradientCache): the arrays are never
+     * modified once computed.
+     */
+    private static final class LookupData {
+        private final boolean isSimpleLookup;
+        private final int fastGradientArraySize;
+        private final int[] gradient;
+        private final int[][] gradients;
+        private final float[] normalizedIntervals;
+        private final int transparencyTest;
+
+        LookupData(MultipleGradientContext ctx) {
+            this.isSimpleLookup = ctx.isSimpleLookup;
+            this.fastGradientArraySize = ctx.fastGradientArraySize;
+            this.gradient = ctx.gradient;
+            this.gradients = ctx.gradients;
+            this.normalizedIntervals = ctx.normalizedIntervals;
+            this.transparencyTest = ctx.transparencyTest;
+        }
+
+        void copyTo(MultipleGradientContext ctx) {
+            ctx.isSimpleLookup = isSimpleLookup;
+            ctx.fastGradientArraySize = fastGradientArraySize;
+            ctx.gradient = gradient;
+            ctx.gradients = gradients;
+            ctx.normalizedIntervals = normalizedIntervals;
+            ctx.transparencyTest = transparencyTest;
+        }
+
+        long getSize() {
+            long size = 4L * normalizedIntervals.length;
+            if (gradient != null) {
+                size += 4L * gradient.length;
+            }
+            for (int[] g : gradients) {
+                size += 4L * g.length;
+            }
+            return size;
+        }
+    }
+
     /**
      * This function is the meat of this class.  It calculates an array of
      * gradient colors based on an array of fractions and color values at
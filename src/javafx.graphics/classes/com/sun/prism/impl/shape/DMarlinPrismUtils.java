@@ -31,10 +31,12 @@ import com.sun.javafx.geom.Path2D;
 import com.sun.javafx.geom.Rectangle;
 import com.sun.javafx.geom.Shape;
 import com.sun.javafx.geom.transform.BaseTransform;
+import com.sun.marlin.ConvexPolygonRenderer;
 import com.sun.marlin.MarlinConst;
 import com.sun.marlin.MarlinProperties;
 import com.sun.marlin.MarlinRenderer;
 import com.sun.marlin.DPathConsumer2D;
+import com.sun.marlin.DashLengthCache;
 import com.sun.marlin.RendererContext;
 import com.sun.marlin.Stroker;
 import com.sun.marlin.TransformingPathConsumer2D;
@@ -153,6 +155,11 @@ public final class DMarlinPrismUtils {
 
         final TransformingPathConsumer2D transformerPC2D = rdrCtx.transformerPC2D;
 
+        if (MarlinConst.USE_METRICS) {
+            // time the edge creation:
+            pc = transformerPC2D.timeEdges(pc);
+        }
+
         if (DO_TRACE_PATH) {
             // trace Stroker:
             pc = transformerPC2D.traceStroker(pc);
@@ -172,6 +179,10 @@ public final class DMarlinPrismUtils {
                 stroke.getLineJoin(), stroke.getMiterLimit(),
                 (dashesD == null));
 
+        if (MarlinConst.USE_METRICS) {
+            pc = transformerPC2D.timeStroker(pc);
+        }
+
         // Curve Monotizer:
         rdrCtx.monotonizer.init(width);
 
@@ -182,6 +193,10 @@ public final class DMarlinPrismUtils {
             pc = rdrCtx.dasher.init(pc, dashesD, dashLen, dashphase,
                                     recycleDashes);
 
+            if (MarlinConst.USE_METRICS) {
+                pc = transformerPC2D.timeDasher(pc);
+            }
+
             if (DISABLE_2ND_STROKER_CLIPPING) {
                 // disable stoker clipping:
                 rdrCtx.stroker.disableClipping();
@@ -274,6 +289,11 @@ public final class DMarlinPrismUtils {
 
             final TransformingPathConsumer2D transformerPC2D = rdrCtx.transformerPC2D;
 
+            if (MarlinConst.USE_METRICS) {
+                // time the edge creation:
+                pc = transformerPC2D.timeEdges(pc);
+            }
+
             if (DO_CLIP_FILL && rdrCtx.doClip) {
                 if (DO_TRACE_PATH) {
                     // trace Filler:
@@ -307,7 +327,12 @@ public final class DMarlinPrismUtils {
         if (shape instanceof Path2D) {
             final Path2D p2d = (Path2D)shape;
             final DPathConsumer2D pc2d = initRenderer(rdrCtx, stroke, tf, rclip, p2d.getWindingRule(), r);
-            feedConsumer(rdrCtx, p2d, tf, pc2d);
+
+            // skip the invisible parts of dashed paths (animated dash phase):
+            final DashLengthCache.Table lengths = ((stroke != null)
+                    && (stroke.getDashArray() != null)) ? DashLengthCache.getTable(rdrCtx, pc2d, p2d, tf) : null;
+
+            feedConsumer(rdrCtx, p2d, tf, pc2d, lengths);
         } else {
             final PathIterator pi = shape.getPathIterator(tf);
             final DPathConsumer2D pc2d = initRenderer(rdrCtx, stroke, tf, rclip, pi.getWindingRule(), r);
@@ -316,19 +341,101 @@ public final class DMarlinPrismUtils {
         return r;
     }
 
+    /**
+     * Setup the ConvexPolygonRenderer if the given shape is a filled and
+     * antialiased polygon (single subpath of lines) accepted by it
+     * @return the renderer after pathDone() or null to use setupRenderer()
+     */
+    public static MarlinRenderer setupConvexRenderer(
+            final RendererContext rdrCtx,
+            final Shape shape,
+            final BasicStroke stroke,
+            final BaseTransform xform,
+            final Rectangle rclip,
+            final boolean antialiasedShape)
+    {
+        if (!MarlinConst.USE_CONVEX_FAST_PATH || (stroke != null)
+                || FORCE_NO_AA || !antialiasedShape
+                || !(shape instanceof Path2D) || !isPolygon((Path2D)shape))
+        {
+            return null;
+        }
+        final Path2D p2d = (Path2D)shape;
+
+        // Test if transform is identity:
+        final BaseTransform tf = ((xform != null) && !xform.isIdentity()) ? xform : null;
+
+        final ConvexPolygonRenderer r = rdrCtx.getConvexPolygonRenderer();
+        r.init(rclip.x, rclip.y, rclip.width, rclip.height,
+               (p2d.getWindingRule() == PathIterator.WIND_EVEN_ODD) ?
+                   MarlinConst.WIND_EVEN_ODD : MarlinConst.WIND_NON_ZERO);
+
+        feedConsumer(rdrCtx, p2d, tf, r, null);
+
+        if (r.isAccepted()) {
+            return r;
+        }
+        r.dispose();
+        return null;
+    }
+
+    private static boolean isPolygon(final Path2D p2d) {
+        final int nsegs = p2d.getNumCommands();
+        if ((nsegs < 3) || (nsegs > ConvexPolygonRenderer.MAX_EDGES + 1)) {
+            return false;
+        }
+        final byte[] pTypes = p2d.getCommandsNoClone();
+        if (pTypes[0] != PathIterator.SEG_MOVETO) {
+            return false;
+        }
+        for (int i = 1; i < nsegs; i++) {
+            switch (pTypes[i]) {
+            case PathIterator.SEG_LINETO:
+                break;
+            case PathIterator.SEG_CLOSE:
+                // last command only:
+                if (i != nsegs - 1) {
+                    return false;
+                }
+                break;
+            default:
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public static void strokeTo(
+            final RendererContext rdrCtx,
+            final Shape shape,
+            final BasicStroke stroke,
+            final float lineWidth,
+            final DPathConsumer2D out)
+    {
+        strokeTo(rdrCtx, shape, stroke, lineWidth, null, out);
+    }
+
+    /**
+     * Stroke the given shape transformed by the given transform (or null)
+     * into the given consumer (without clipping)
+     */
     public static void strokeTo(
             final RendererContext rdrCtx,
             final Shape shape,
             final BasicStroke stroke,
             final float lineWidth,
+            final BaseTransform xform,
             final DPathConsumer2D out)
     {
-        final DPathConsumer2D pc2d = initStroker(rdrCtx, stroke, lineWidth, null, out);
+        // Test if transform is identity:
+        final BaseTransform tf = ((xform != null) && !xform.isIdentity()) ? xform : null;
+
+        final DPathConsumer2D pc2d = initStroker(rdrCtx, stroke, lineWidth, tf, out);
 
         if (shape instanceof Path2D) {
-            feedConsumer(rdrCtx, (Path2D)shape, null, pc2d);
+            feedConsumer(rdrCtx, (Path2D)shape, tf, pc2d, null);
         } else {
-            feedConsumer(rdrCtx, shape.getPathIterator(null), pc2d);
+            feedConsumer(rdrCtx, shape.getPathIterator(tf), pc2d);
         }
     }
 
@@ -460,7 +567,8 @@ public final class DMarlinPrismUtils {
     private static void feedConsumer(final RendererContext rdrCtx,
                                      final Path2D p2d,
                                      final BaseTransform xform,
-                                     DPathConsumer2D pc2d)
+                                     DPathConsumer2D pc2d,
+                                     final DashLengthCache.Table lengths)
     {
         if (MarlinConst.USE_PATH_SIMPLIFIER) {
             // Use path simplifier at the first step
@@ -482,7 +590,22 @@ public final class DMarlinPrismUtils {
         final byte[] pTypes = p2d.getCommandsNoClone();
         final int nsegs = p2d.getNumCommands();
 
+        // leaves of invisible segments skipped at once (dashed paths):
+        int leaf = 0;
+        int nextLeafStart = (lengths != null) ? 0 : Integer.MAX_VALUE;
+
         for (int i = 0, coff = 0; i < nsegs; i++) {
+            if (i == nextLeafStart) {
+                if (subpathStarted) {
+                    leaf = lengths.skipLeaves(rdrCtx, leaf, pCoords, xform);
+                    i = lengths.getLeafStart(leaf);
+                    coff = lengths.getLeafCoordOffset(leaf);
+                    if (i >= nsegs) {
+                        break;
+                    }
+                }
+                nextLeafStart = lengths.getLeafStart(++leaf);
+            }
             switch (pTypes[i]) {
             case PathIterator.SEG_MOVETO:
                 if (xform == null) {
@@ -33,6 +33,7 @@ import com.sun.javafx.geom.transform.BaseTransform;
 import com.sun.marlin.DMarlinRenderingEngine;
 import com.sun.marlin.MarlinRenderer;
 import com.sun.marlin.MaskMarlinAlphaConsumer;
+import com.sun.marlin.ParallelRenderer;
 import com.sun.marlin.RendererContext;
 import com.sun.prism.BasicStroke;
 import com.sun.prism.impl.PrismSettings;
@@ -43,12 +44,41 @@ import com.sun.prism.impl.PrismSettings;
 public final class DMarlinRasterizer implements ShapeRasterizer {
     private static final MaskData EMPTY_MASK = MaskData.create(new byte[1], 0, 0, 1, 1);
 
+    // optional cache of masks (null if disabled):
+    private static final MaskCache MASK_CACHE = MaskCache.getInstance();
+
+    // optional cache of stroke outlines (null if disabled):
+    private static final StrokeCache STROKE_CACHE = StrokeCache.getInstance();
+
     @Override
     public MaskData getMaskData(Shape shape,
                                 BasicStroke stroke,
                                 RectBounds xformBounds,
                                 BaseTransform xform,
                                 boolean close, boolean antialiasedShape)
+    {
+        final MaskCache.Key key = ((MASK_CACHE != null) && (xformBounds != null))
+                ? MASK_CACHE.getKey(shape, stroke, xformBounds, xform, antialiasedShape)
+                : null;
+        if (key != null) {
+            MaskData maskData = MASK_CACHE.get(key);
+            if (maskData == null) {
+                maskData = rasterize(shape, stroke, xformBounds, xform,
+                                     antialiasedShape);
+                if (maskData != EMPTY_MASK) {
+                    MASK_CACHE.put(key, maskData);
+                }
+            }
+            return maskData;
+        }
+        return rasterize(shape, stroke, xformBounds, xform, antialiasedShape);
+    }
+
+    private MaskData rasterize(Shape shape,
+                               BasicStroke stroke,
+                               RectBounds xformBounds,
+                               BaseTransform xform,
+                               boolean antialiasedShape)
     {
         if (stroke != null && stroke.getType() != BasicStroke.TYPE_CENTERED) {
             // RT-27427
@@ -83,8 +113,23 @@ public final class DMarlinRasterizer implements ShapeRasterizer {
             final Rectangle rclip = rdrCtx.clip;
             rclip.setBounds(xformBounds);
 
-            renderer = DMarlinPrismUtils.setupRenderer(rdrCtx, shape, stroke, xform, rclip,
+            if ((stroke != null) && (STROKE_CACHE != null)
+                    && STROKE_CACHE.accept(shape, stroke))
+            {
+                // fill the cached outline with the translation only:
+                shape = STROKE_CACHE.getOutline(rdrCtx, shape, stroke, xform);
+                stroke = null;
+                xform = BaseTransform.getTranslateInstance(xform.getMxt(),
+                                                           xform.getMyt());
+            }
+
+            // filled polygons are scan converted without crossing sort:
+            renderer = DMarlinPrismUtils.setupConvexRenderer(rdrCtx, shape, stroke, xform, rclip,
                     antialiasedShape);
+            if (renderer == null) {
+                renderer = DMarlinPrismUtils.setupRenderer(rdrCtx, shape, stroke, xform, rclip,
+                        antialiasedShape);
+            }
 
             final int outpix_xmin = renderer.getOutpixMinX();
             final int outpix_xmax = renderer.getOutpixMaxX();
@@ -105,7 +150,13 @@ public final class DMarlinRasterizer implements ShapeRasterizer {
                 }
             }
             consumer.setBoundsNoClone(outpix_xmin, outpix_ymin, w, h);
-            renderer.produceAlphas(consumer);
+
+            if (ParallelRenderer.isEligible(renderer)) {
+                // render large shapes in horizontal bands (same alphas):
+                ParallelRenderer.produceAlphas(renderer, consumer);
+            } else {
+                renderer.produceAlphas(consumer);
+            }
 
             return consumer.getMaskData();
         } finally {
@@ -0,0 +1,295 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package com.sun.prism.impl.shape;
+
+import com.sun.javafx.geom.BaseBounds;
+import com.sun.javafx.geom.Path2D;
+import com.sun.javafx.geom.RectBounds;
+import com.sun.javafx.geom.Rectangle;
+import com.sun.javafx.geom.Shape;
+import com.sun.javafx.geom.transform.BaseTransform;
+import com.sun.javafx.util.LRUCache;
+import com.sun.prism.BasicStroke;
+import com.sun.prism.impl.PrismSettings;
+import java.nio.ByteBuffer;
+
+/**
+ * A bounded LRU cache of rasterized coverage masks used by DMarlinRasterizer
+ * (enabled by -Dprism.maskcache.size=<long>[kKmMgG]).
+ *
+ * Masks are keyed on the geometry of a Path2D (copied), the stroke, the
+ * antialiasing mode, the non-translation part of the transform and the
+ * fractional part of its translation, and the part of the clip covering the
+ * shape relative to the integer part of the translation (none if the shape
+ * lies inside the clip), so a mask is reused when the same path is drawn
+ * again at an integer offset.
+ *
+ * Only shapes whose transformed bounds (including the stroke) fit in
+ * prism.maskcache.maxDim are cached.
+ */
+public final class MaskCache {
+
+    private static final MaskCache instance =
+        (PrismSettings.maskCacheSize > 0L) ? new MaskCache(PrismSettings.maskCacheSize,
+                                                            PrismSettings.maskCacheMaxDim) : null;
+
+    /**
+     * Returns the shared cache instance or null if it is disabled.
+     */
+    static MaskCache getInstance() {
+        return instance;
+    }
+
+    private final int maxDim;
+    private final LRUCache<Key, Entry> cache;
+
+    MaskCache(long maxBytes, int maxDim) {
+        this.maxDim = maxDim;
+        this.cache = new LRUCache<>("MaskCache", maxBytes);
+    }
+
+    /**
+     * Returns the key of the given shape drawn with the given clip and
+     * transform or null if its mask may not be cached.
+     */
+    Key getKey(Shape shape, BasicStroke stroke, RectBounds clip,
+               BaseTransform xform, boolean antialiased)
+    {
+        if (!(shape instanceof Path2D)) {
+            return null;
+        }
+        final RectBounds bounds = getDeviceBounds(shape, stroke, xform);
+        if (bounds.isEmpty()
+                || (bounds.getWidth() > maxDim)
+                || (bounds.getHeight() > maxDim))
+        {
+            return null;
+        }
+        return new Key(shape, stroke, bounds, clip, xform, antialiased);
+    }
+
+    /**
+     * Returns conservative bounds of the pixels covered by the given shape
+     * in device space, padding its bounds by the stroke extent.
+     */
+    static RectBounds getDeviceBounds(Shape shape, BasicStroke stroke,
+                                      BaseTransform xform)
+    {
+        final RectBounds bounds = shape.getBounds();
+        if (stroke != null) {
+            float pad = (stroke.getType() == BasicStroke.TYPE_CENTERED)
+                            ? 0.5f * stroke.getLineWidth() : stroke.getLineWidth();
+            float scale = 1f;
+            if (stroke.getLineJoin() == BasicStroke.JOIN_MITER) {
+                scale = Math.max(scale, stroke.getMiterLimit());
+            }
+            if (stroke.getEndCap() == BasicStroke.CAP_SQUARE) {
+                scale = Math.max(scale, (float) Math.sqrt(2.0));
+            }
+            pad *= scale;
+            bounds.setBounds(bounds.getMinX() - pad, bounds.getMinY() - pad,
+                             bounds.getMaxX() + pad, bounds.getMaxY() + pad);
+        }
+        final BaseBounds xformBounds = xform.transform(bounds, new RectBounds());
+        // 1 pixel margin for antialiasing and rounding:
+        return new RectBounds(xformBounds.getMinX() - 1f, xformBounds.getMinY() - 1f,
+                              xformBounds.getMaxX() + 1f, xformBounds.getMaxY() + 1f);
+    }
+
+    MaskData get(Key key) {
+        final Entry e = cache.get(key);
+        if (e == null) {
+            return null;
+        }
+        final MaskData maskData = new MaskData();
+        maskData.update(ByteBuffer.wrap(e.pixels),
+                        e.originX + key.tx, e.originY + key.ty,
+                        e.width, e.height);
+        return maskData;
+    }
+
+    void put(Key key, MaskData maskData) {
+        final int w = maskData.getWidth();
+        final int h = maskData.getHeight();
+        final int size = w * h;
+        if (size <= 0 || size > cache.getMaxBytes()) {
+            return;
+        }
+        // copy the mask (the buffer is reused by the rasterizer):
+        final byte[] pixels = new byte[size];
+        final ByteBuffer buf = maskData.getMaskBuffer().duplicate();
+        buf.rewind();
+        buf.get(pixels, 0, size);
+
+        final Entry e = new Entry(pixels, maskData.getOriginX() - key.tx,
+                                  maskData.getOriginY() - key.ty, w, h);
+        // copy the mutable geometry (NGPath reuses its Path2D):
+        cache.put(key.copy(), e, size);
+    }
+
+    LRUCache<Key, Entry> getCache() {
+        return cache;
+    }
+
+    private static final class Entry {
+        final byte[] pixels;
+        final int originX;
+        final int originY;
+        final int width;
+        final int height;
+
+        Entry(byte[] pixels, int originX, int originY, int width, int height) {
+            this.pixels = pixels;
+            this.originX = originX;
+            this.originY = originY;
+            this.width = width;
+            this.height = height;
+        }
+    }
+
+    static final class Key {
+        final Shape shape;
+        final BasicStroke stroke;
+        final int strokeType;
+        final boolean antialiased;
+        final double mxx, mxy, myx, myy;
+        // fractional part of the translation:
+        final double fx, fy;
+        // integer part of the translation (not part of the key):
+        final int tx, ty;
+        // part of the clip covering the shape relative to the integer
+        // translation (if clipped):
+        final boolean clipped;
+        final int clipX0, clipY0, clipX1, clipY1;
+        private final int hash;
+
+        Key(Shape shape, BasicStroke stroke, RectBounds bounds, RectBounds clip,
+            BaseTransform xform, boolean antialiased)
+        {
+            this.shape = shape;
+            this.stroke = stroke;
+            this.strokeType = (stroke != null) ? stroke.getType() : -1;
+            this.antialiased = antialiased;
+            this.mxx = xform.getMxx();
+            this.mxy = xform.getMxy();
+            this.myx = xform.getMyx();
+            this.myy = xform.getMyy();
+            final double mxt = Math.floor(xform.getMxt());
+            final double myt = Math.floor(xform.getMyt());
+            this.tx = (int) mxt;
+            this.ty = (int) myt;
+            this.fx = xform.getMxt() - mxt;
+            this.fy = xform.getMyt() - myt;
+            // same rounding as Rectangle.setBounds(BaseBounds):
+            final Rectangle rclip = new Rectangle(clip);
+            final Rectangle rshape = new Rectangle(bounds);
+            if (rclip.contains(rshape)) {
+                // the clip does not affect the mask:
+                this.clipped = false;
+                this.clipX0 = 0;
+                this.clipY0 = 0;
+                this.clipX1 = 0;
+                this.clipY1 = 0;
+            } else {
+                rclip.intersectWith(rshape);
+                this.clipped = true;
+                this.clipX0 = rclip.x - tx;
+                this.clipY0 = rclip.y - ty;
+                this.clipX1 = rclip.x + rclip.width - tx;
+                this.clipY1 = rclip.y + rclip.height - ty;
+            }
+
+            int h = shape.hashCode();
+            h = 31 * h + ((stroke != null) ? stroke.hashCode() : 0);
+            h = 31 * h + strokeType;
+            h = 31 * h + (antialiased ? 1 : 0);
+            h = 31 * h + Double.hashCode(mxx);
+            h = 31 * h + Double.hashCode(mxy);
+            h = 31 * h + Double.hashCode(myx);
+            h = 31 * h + Double.hashCode(myy);
+            h = 31 * h + Double.hashCode(fx);
+            h = 31 * h + Double.hashCode(fy);
+            h = 31 * h + (clipped ? 1 : 0);
+            h = 31 * h + clipX0;
+            h = 31 * h + clipY0;
+            h = 31 * h + clipX1;
+            h = 31 * h + clipY1;
+            this.hash = h;
+        }
+
+        private Key(Key other) {
+            this.shape = other.shape.copy();
+            this.stroke = (other.stroke != null) ? other.stroke.copy() : null;
+            this.strokeType = other.strokeType;
+            this.antialiased = other.antialiased;
+            this.mxx = other.mxx;
+            this.mxy = other.mxy;
+            this.myx = other.myx;
+            this.myy = other.myy;
+            this.fx = other.fx;
+            this.fy = other.fy;
+            this.tx = other.tx;
+            this.ty = other.ty;
+            this.clipped = other.clipped;
+            this.clipX0 = other.clipX0;
+            this.clipY0 = other.clipY0;
+            this.clipX1 = other.clipX1;
+            this.clipY1 = other.clipY1;
+            this.hash = other.hash;
+        }
+
+        Key copy() {
+            return new Key(this);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == this) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            final Key k = (Key) obj;
+            return (hash == k.hash)
+                && (antialiased == k.antialiased)
+                && (strokeType == k.strokeType)
+                && (mxx == k.mxx) && (mxy == k.mxy)
+                && (myx == k.myx) && (myy == k.myy)
+                && (fx == k.fx) && (fy == k.fy)
+                && (clipped == k.clipped)
+                && (clipX0 == k.clipX0) && (clipY0 == k.clipY0)
+                && (clipX1 == k.clipX1) && (clipY1 == k.clipY1)
+                && ((stroke == null) ? (k.stroke == null) : stroke.equals(k.stroke))
+                && shape.equals(k.shape);
+        }
+    }
+}
@@ -0,0 +1,192 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package com.sun.prism.impl.shape;
+
+import com.sun.javafx.geom.Path2D;
+import com.sun.javafx.geom.Shape;
+import com.sun.javafx.geom.transform.BaseTransform;
+import com.sun.javafx.util.LRUCache;
+import com.sun.marlin.RendererContext;
+import com.sun.prism.BasicStroke;
+import com.sun.prism.impl.PrismSettings;
+
+/**
+ * A bounded LRU cache of stroke outlines (widened and dashed by the Marlin
+ * Stroker and Dasher) used by DMarlinRasterizer
+ * (enabled by -Dprism.strokecache.size=<long>[kKmMgG]).
+ *
+ * Outlines are keyed on the geometry of a Path2D (copied), the stroke and the
+ * non-translation part of the transform. They are stored in device space
+ * without translation as trimmed Path2D instances (float coordinates and
+ * byte commands) and filled with the translation of the current transform,
+ * so a shape scrolled or moved by any offset is only stroked once.
+ *
+ * The outline is not clipped (the renderer clips it when it is filled) so it
+ * is stored only if it fits in the cache budget.
+ */
+public final class StrokeCache {
+
+    private static final StrokeCache instance =
+        (PrismSettings.strokeCacheSize > 0L) ? new StrokeCache(PrismSettings.strokeCacheSize) : null;
+
+    /**
+     * Returns the shared cache instance or null if it is disabled.
+     */
+    static StrokeCache getInstance() {
+        return instance;
+    }
+
+    private final LRUCache<Key, Path2D> cache;
+
+    private StrokeCache(long maxBytes) {
+        this.cache = new LRUCache<>("StrokeCache", maxBytes);
+    }
+
+    /**
+     * Returns true if the given shape stroked with the given centered
+     * stroke may be cached.
+     */
+    boolean accept(Shape shape, BasicStroke stroke) {
+        return (shape instanceof Path2D)
+            && (stroke.getType() == BasicStroke.TYPE_CENTERED);
+    }
+
+    /**
+     * Returns the stroke outline of the given shape in device space without
+     * the translation of the given transform, stroking it on a cache miss.
+     */
+    Path2D getOutline(RendererContext rdrCtx, Shape shape, BasicStroke stroke,
+                      BaseTransform xform)
+    {
+        final Key key = new Key(shape, stroke, xform);
+
+        Path2D outline = cache.get(key);
+        if (outline == null) {
+            outline = createOutline(rdrCtx, shape, stroke, key);
+
+            final long size = getSize(outline);
+            if (size <= cache.getMaxBytes()) {
+                // copy the mutable geometry (NGPath reuses its Path2D):
+                cache.put(key.copy(), outline, size);
+            }
+        }
+        return outline;
+    }
+
+    private static Path2D createOutline(RendererContext rdrCtx, Shape shape,
+                                        BasicStroke stroke, Key key)
+    {
+        final BaseTransform tx = (key.isLinearIdentity()) ? null
+            : BaseTransform.getInstance(key.mxx, key.myx, key.mxy, key.myy, 0.0, 0.0);
+
+        // initialize a large copyable Path2D to avoid a lot of array growing:
+        final Path2D p2d = rdrCtx.getPath2D();
+
+        DMarlinPrismUtils.strokeTo(rdrCtx, shape, stroke, stroke.getLineWidth(), tx,
+                 rdrCtx.transformerPC2D.wrapPath2D(p2d)
+        );
+        // clean up the context before filling the outline:
+        rdrCtx.dispose();
+
+        // Use Path2D copy constructor (trim)
+        return new Path2D(p2d);
+    }
+
+    private static long getSize(Path2D outline) {
+        return 4L * outline.getFloatCoordsNoClone().length
+                  + outline.getCommandsNoClone().length;
+    }
+
+    static final class Key {
+        final Shape shape;
+        final BasicStroke stroke;
+        final double mxx, mxy, myx, myy;
+        private final int hash;
+
+        Key(Shape shape, BasicStroke stroke, BaseTransform xform) {
+            this.shape = shape;
+            this.stroke = stroke;
+            if (xform != null) {
+                this.mxx = xform.getMxx();
+                this.mxy = xform.getMxy();
+                this.myx = xform.getMyx();
+                this.myy = xform.getMyy();
+            } else {
+                this.mxx = 1.0;
+                this.mxy = 0.0;
+                this.myx = 0.0;
+                this.myy = 1.0;
+            }
+
+            int h = shape.hashCode();
+            h = 31 * h + stroke.hashCode();
+            h = 31 * h + Double.hashCode(mxx);
+            h = 31 * h + Double.hashCode(mxy);
+            h = 31 * h + Double.hashCode(myx);
+            h = 31 * h + Double.hashCode(myy);
+            this.hash = h;
+        }
+
+        private Key(Key other) {
+            this.shape = other.shape.copy();
+            this.stroke = other.stroke.copy();
+            this.mxx = other.mxx;
+            this.mxy = other.mxy;
+            this.myx = other.myx;
+            this.myy = other.myy;
+            this.hash = other.hash;
+        }
+
+        Key copy() {
+            return new Key(this);
+        }
+
+        boolean isLinearIdentity() {
+            return (mxx == 1.0) && (mxy == 0.0) && (myx == 0.0) && (myy == 1.0);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == this) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            final Key k = (Key) obj;
+            return (hash == k.hash)
+                && (mxx == k.mxx) && (mxy == k.mxy)
+                && (myx == k.myx) && (myy == k.myy)
+                && stroke.equals(k.stroke)
+                && shape.equals(k.shape);
+        }
+    }
+}
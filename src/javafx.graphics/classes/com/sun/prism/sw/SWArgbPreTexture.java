@@ -41,6 +41,11 @@ import com.sun.prism.impl.PrismSettings;
 class SWArgbPreTexture extends SWTexture {
 
     private int data[];
+    // off-heap pixels (render targets only) instead of data:
+    private IntBuffer offHeapData;
+    // pool accounting of the data allocated by allocateBuffer() if the
+    // pixel buffers are recycled (prism.sw.recycle):
+    private SWTexturePool.PixelsRecord pixelsRecord;
     private int offset;
     private boolean hasAlpha = true;
 
@@ -51,7 +56,10 @@ class SWArgbPreTexture extends SWTexture {
 
     SWArgbPreTexture(SWArgbPreTexture sharedTex, WrapMode altMode) {
         super(sharedTex, altMode);
+        // the data can not be recycled when either texture is disposed:
+        sharedTex.keepPixels();
         this.data = sharedTex.data;
+        this.offHeapData = sharedTex.offHeapData;
         this.offset = sharedTex.offset;
         this.hasAlpha = sharedTex.hasAlpha;
     }
@@ -60,6 +68,33 @@ class SWArgbPreTexture extends SWTexture {
         return data;
     }
 
+    /**
+     * Returns the off-heap pixels or null if the pixels are stored in the
+     * int[] given by getDataNoClone()
+     */
+    IntBuffer getOffHeapData() {
+        return offHeapData;
+    }
+
+    boolean isOffHeap() {
+        return offHeapData != null;
+    }
+
+    /**
+     * Prevents the recycling of the data (shared or referenced outside of
+     * this texture)
+     */
+    void keepPixels() {
+        if (pixelsRecord != null) {
+            pixelsRecord.setNotRecyclable();
+        }
+    }
+
+    void setOffHeapData(IntBuffer offHeapData) {
+        this.offHeapData = offHeapData;
+        this.allocated = true;
+    }
+
     int getOffset() {
         return offset;
     }
@@ -114,7 +149,7 @@ class SWArgbPreTexture extends SWTexture {
         PixelConverter converter = PixelUtils.getConverter(getter, IntArgbPre.setter);
         buffer.position(0);
         converter.convert(buffer, (srcy * srcscan) + srcx, srcscan,
-                          IntBuffer.wrap(this.data), (dsty * physicalWidth) + dstx, physicalWidth, srcw, srch);
+                          (offHeapData != null) ? offHeapData : IntBuffer.wrap(this.data), (dsty * physicalWidth) + dstx, physicalWidth, srcw, srch);
     }
 
     @Override
@@ -135,6 +170,7 @@ class SWArgbPreTexture extends SWTexture {
 
         IntBuffer ib = frame.getBufferForPlane(0).asIntBuffer();
         if (ib.hasArray()) {
+            releasePixels();
             this.allocated = false;
             this.offset = 0;
             this.physicalWidth = stride;
@@ -179,7 +215,26 @@ class SWArgbPreTexture extends SWTexture {
     }
 
     void allocateBuffer() {
-        this.data = new int[physicalWidth * physicalHeight];
+        final SWTexturePool pool = SWTexturePool.instance;
+        if (pool.isRecycling()) {
+            this.pixelsRecord = pool.allocatePixels(this, physicalWidth * physicalHeight);
+            this.data = pixelsRecord.getData();
+        } else {
+            this.data = new int[physicalWidth * physicalHeight];
+        }
+    }
+
+    private void releasePixels() {
+        if (pixelsRecord != null) {
+            pixelsRecord.dispose();
+            pixelsRecord = null;
+        }
+    }
+
+    @Override
+    public void dispose() {
+        // give the data back to the pool (if recycled):
+        releasePixels();
     }
 
     Texture createSharedLockedTexture(WrapMode altMode) {
@@ -36,6 +36,7 @@ import com.sun.marlin.IntArrayCache;
 import com.sun.marlin.MarlinAlphaConsumer;
 import com.sun.marlin.MarlinConst;
 import com.sun.marlin.MarlinRenderer;
+import com.sun.marlin.ParallelRenderer;
 import com.sun.marlin.RendererContext;
 import com.sun.pisces.PiscesRenderer;
 import com.sun.prism.BasicStroke;
@@ -48,6 +49,7 @@ import com.sun.prism.impl.shape.MaskData;
 import com.sun.prism.impl.shape.ShapeUtil;
 
 import java.lang.ref.SoftReference;
+import java.util.Arrays;
 
 final class SWContext {
 
@@ -61,7 +63,16 @@ final class SWContext {
         void dispose();
     }
 
+    /**
+     * Emits the rasterized rows to Pisces either one row at a time or, with
+     * -Dprism.sw.bandHeight=n, by bands of n rows: the coverage of a band
+     * (span runs skipping the empty blocks flagged by Marlin) is collected
+     * into a reusable alpha mask composited in a single fillAlphaMask() call
+     * (one JNI transition per band with the native Pisces library).
+     */
     static final class DirectRTMarlinAlphaConsumer implements MarlinAlphaConsumer {
+        private final int bandHeight;
+
         private byte alpha_map[];
         private int x;
         private int y;
@@ -71,13 +82,66 @@ final class SWContext {
 
         private PiscesRenderer pr;
 
+        // band mode:
+        private boolean banded;
+        // alpha mask of the band (stride = w), zero outside of the dirty
+        // columns [bandMinX, bandMaxX[ of the rows [bandY, bandMaxY[:
+        private byte band[] = new byte[0];
+        private int bandY;
+        private int bandMaxY;
+        private int bandMinX = Integer.MAX_VALUE;
+        private int bandMaxX;
+
+        DirectRTMarlinAlphaConsumer() {
+            this(PrismSettings.swBandHeight);
+        }
+
+        /**
+         * @param bandHeight number of rows of a band (0 to emit every row)
+         */
+        DirectRTMarlinAlphaConsumer(int bandHeight) {
+            this.bandHeight = bandHeight;
+        }
+
         public void initConsumer(int x, int y, int w, int h, PiscesRenderer pr) {
+            initConsumer(x, y, w, h, pr, false);
+        }
+
+        /**
+         * @param banded true to collect the rows by bands (flush() must be
+         * called once all the rows are produced)
+         */
+        public void initConsumer(int x, int y, int w, int h, PiscesRenderer pr,
+                                 boolean banded)
+        {
+            // discard any band left by an aborted rendering:
+            clearBand();
             this.x = x;
             this.y = y;
             this.w = w;
             this.h = h;
             rowNum = 0;
             this.pr = pr;
+            this.banded = banded && (bandHeight > 0);
+            if (this.banded) {
+                final int size = w * Math.min(h, bandHeight);
+                if (band.length < size) {
+                    band = new byte[size];
+                }
+                bandY = y;
+            }
+        }
+
+        /**
+         * Releases the renderer once the shape is rendered: it must not keep
+         * the last render target (and its off-heap pixels) reachable
+         */
+        void releaseRenderer() {
+            this.pr = null;
+        }
+
+        boolean isBandingEnabled() {
+            return bandHeight > 0;
         }
 
         @Override
@@ -112,7 +176,7 @@ final class SWContext {
 
         @Override
         public boolean supportBlockFlags() {
-            return false;
+            return banded;
         }
 
         @Override
@@ -124,6 +188,10 @@ final class SWContext {
         public void setAndClearRelativeAlphas(final int[] alphaDeltas, final int pix_y,
                                               final int pix_from, final int pix_to)
         {
+            if (banded) {
+                setBandRow(null, alphaDeltas, pix_y, pix_from, pix_to);
+                return;
+            }
             // pix_from indicates the first alpha coverage != 0 within [x; pix_to[
             pr.emitAndClearAlphaRow(alpha_map, alphaDeltas, pix_y, pix_from, pix_to, (pix_from - x), rowNum);
             rowNum++;
@@ -141,6 +209,230 @@ final class SWContext {
             }
         }
 
+        @Override
+        public void setAndClearRelativeAlphas(final int[] blkFlags, final int[] alphaDeltas, final int pix_y,
+                                              final int pix_from, final int pix_to)
+        {
+            if (!banded) {
+                throw new UnsupportedOperationException();
+            }
+            setBandRow(blkFlags, alphaDeltas, pix_y, pix_from, pix_to);
+        }
+
+        /**
+         * Accumulates the coverage deltas of the given row into the band
+         * mask (only the blocks flagged if blkFlags is not null)
+         */
+        private void setBandRow(final int[] blkFlags, final int[] alphaDeltas, final int pix_y,
+                                final int pix_from, final int pix_to)
+        {
+            if (pix_y >= bandY + bandHeight) {
+                flush();
+                bandY = pix_y;
+            }
+            final byte[] out = band;
+            final byte[] map = alpha_map;
+            final int off = (pix_y - bandY) * w;
+
+            final int from = pix_from - x;
+            final int to = pix_to - x;
+            final int ato = Math.min(to, w);
+
+            int curAlpha = 0;
+            // start of the current span:
+            int i = from;
+
+            if (blkFlags != null) {
+                final int _BLK_SIZE_LG = MarlinConst.BLOCK_SIZE_LG;
+                final int blkW = (from >> _BLK_SIZE_LG);
+                final int blkE = (ato  >> _BLK_SIZE_LG) + 1;
+                // ensure last block flag = 0 to process final block:
+                blkFlags[blkE] = 0;
+
+                int last_t0 = Integer.MAX_VALUE;
+                for (int t = blkW; t <= blkE; t++) {
+                    if (blkFlags[t] != 0) {
+                        blkFlags[t] = 0;
+                        if (last_t0 == Integer.MAX_VALUE) {
+                            last_t0 = t;
+                        }
+                        continue;
+                    }
+                    if (last_t0 != Integer.MAX_VALUE) {
+                        // process the flagged blocks [last_t0, t[:
+                        final int blk_x0 = Math.max(last_t0 << _BLK_SIZE_LG, from);
+                        last_t0 = Integer.MAX_VALUE;
+                        // (last block pixel+1) inclusive => +1
+                        final int blk_x1 = Math.min((t << _BLK_SIZE_LG) + 1, ato);
+
+                        for (int cx = blk_x0, delta; cx < blk_x1; cx++) {
+                            if ((delta = alphaDeltas[cx]) != 0) {
+                                alphaDeltas[cx] = 0;
+                                if (curAlpha != 0) {
+                                    Arrays.fill(out, off + i, off + cx, map[curAlpha]);
+                                }
+                                i = cx;
+                                curAlpha += delta;
+                            }
+                        }
+                    }
+                }
+                if (MarlinConst.DO_CHECKS) {
+                    IntArrayCache.check(blkFlags, blkW, blkE, 0);
+                }
+            } else {
+                for (int cx = from, delta; cx < ato; cx++) {
+                    if ((delta = alphaDeltas[cx]) != 0) {
+                        alphaDeltas[cx] = 0;
+                        if (curAlpha != 0) {
+                            Arrays.fill(out, off + i, off + cx, map[curAlpha]);
+                        }
+                        i = cx;
+                        curAlpha += delta;
+                    }
+                }
+            }
+            // remaining span:
+            if (curAlpha != 0 && i < ato) {
+                Arrays.fill(out, off + i, off + ato, map[curAlpha]);
+            }
+
+            // clear properly the end of the alphaDeltas:
+            if (to <= w) {
+                alphaDeltas[to] = 0;
+            } else {
+                alphaDeltas[w]  = 0;
+            }
+            if (MarlinConst.DO_CHECKS) {
+                IntArrayCache.check(alphaDeltas, from, to + 1, 0);
+            }
+
+            if (from < ato) {
+                bandMinX = Math.min(bandMinX, from);
+                bandMaxX = Math.max(bandMaxX, ato);
+            }
+            bandMaxY = pix_y + 1;
+        }
+
+        /**
+         * Composites the pending band rows (band mode)
+         */
+        public void flush() {
+            if (banded && bandMinX < bandMaxX) {
+                pr.fillAlphaMask(band, x + bandMinX, bandY, bandMaxX - bandMinX,
+                                 bandMaxY - bandY, bandMinX, w);
+            }
+            clearBand();
+        }
+
+        private void clearBand() {
+            if (bandMinX < bandMaxX) {
+                for (int j = 0, rows = bandMaxY - bandY, off = 0; j < rows; j++, off += w) {
+                    Arrays.fill(band, off + bandMinX, off + bandMaxX, (byte) 0);
+                }
+            }
+            bandMinX = Integer.MAX_VALUE;
+            bandMaxX = 0;
+            bandMaxY = bandY;
+        }
+    }
+
+    /**
+     * Emits the rows produced concurrently by the ParallelRenderer bands to
+     * a tiled Java Pisces renderer (see PiscesRenderer.isTiled()). Unlike
+     * DirectRTMarlinAlphaConsumer, it has no state updated per row: the
+     * fields are set by initConsumer() before the bands are submitted and
+     * only read by the band threads, and the row number given to Pisces is
+     * derived from pix_y (the Java renderer ignores it).
+     */
+    static final class TiledRTMarlinAlphaConsumer implements MarlinAlphaConsumer {
+        private byte alpha_map[];
+        private int x;
+        private int y;
+        private int w;
+        private int h;
+
+        private PiscesRenderer pr;
+
+        public void initConsumer(int x, int y, int w, int h, PiscesRenderer pr) {
+            this.x = x;
+            this.y = y;
+            this.w = w;
+            this.h = h;
+            this.pr = pr;
+        }
+
+        /**
+         * Releases the renderer once the shape is rendered: it must not keep
+         * the last render target (and its off-heap pixels) reachable
+         */
+        void releaseRenderer() {
+            this.pr = null;
+        }
+
+        @Override
+        public int getOriginX() {
+            return x;
+        }
+
+        @Override
+        public int getOriginY() {
+            return y;
+        }
+
+        @Override
+        public int getWidth() {
+            return w;
+        }
+
+        @Override
+        public int getHeight() {
+            return h;
+        }
+
+        @Override
+        public void setMaxAlpha(int maxalpha) {
+            // called once before the bands are rendered:
+            if ((alpha_map == null) || (alpha_map.length != maxalpha+1)) {
+                final byte[] map = new byte[maxalpha+1];
+                for (int i = 0; i <= maxalpha; i++) {
+                    map[i] = (byte) ((i*255 + maxalpha/2)/maxalpha);
+                }
+                alpha_map = map;
+            }
+        }
+
+        @Override
+        public boolean supportBlockFlags() {
+            return false;
+        }
+
+        @Override
+        public void clearAlphas(final int pix_y) {
+            // noop
+        }
+
+        @Override
+        public void setAndClearRelativeAlphas(final int[] alphaDeltas, final int pix_y,
+                                              final int pix_from, final int pix_to)
+        {
+            // called concurrently for distinct rows:
+            pr.emitAndClearAlphaRow(alpha_map, alphaDeltas, pix_y, pix_from, pix_to,
+                                    (pix_from - x), (pix_y - y));
+
+            // clear properly the end of the alphaDeltas:
+            final int to = pix_to - x;
+            if (to <= w) {
+                alphaDeltas[to] = 0;
+            } else {
+                alphaDeltas[w]  = 0;
+            }
+
+            if (MarlinConst.DO_CHECKS) {
+                IntArrayCache.check(alphaDeltas, pix_from - x, to + 1, 0);
+            }
+        }
+
         @Override
         public void setAndClearRelativeAlphas(final int[] blkFlags, final int[] alphaDeltas, final int pix_y,
                                               final int pix_from, final int pix_to)
@@ -151,6 +443,7 @@ final class SWContext {
 
     static final class DMarlinShapeRenderer implements ShapeRenderer {
         private final DirectRTMarlinAlphaConsumer alphaConsumer = new DirectRTMarlinAlphaConsumer();
+        private final TiledRTMarlinAlphaConsumer tiledConsumer = new TiledRTMarlinAlphaConsumer();
 
         @Override
         public void renderShape(PiscesRenderer pr, Shape shape, BasicStroke stroke, BaseTransform tr, Rectangle clip, boolean antialiasedShape) {
@@ -184,12 +477,24 @@ final class SWContext {
                 if ((w <= 0) || (h <= 0)) {
                     return;
                 }
-                alphaConsumer.initConsumer(outpix_xmin, outpix_ymin, w, h, pr);
-                renderer.produceAlphas(alphaConsumer);
+                if (pr.isTiled()
+                        && ParallelRenderer.isEligible(renderer, PrismSettings.swTileMinArea))
+                {
+                    tiledConsumer.initConsumer(outpix_xmin, outpix_ymin, w, h, pr);
+                    // emit the rows of each band concurrently:
+                    ParallelRenderer.produceAlphas(renderer, tiledConsumer);
+                } else {
+                    alphaConsumer.initConsumer(outpix_xmin, outpix_ymin, w, h, pr,
+                                               alphaConsumer.isBandingEnabled());
+                    renderer.produceAlphas(alphaConsumer);
+                    alphaConsumer.flush();
+                }
             } finally {
                 if (renderer != null) {
                     renderer.dispose();
                 }
+                alphaConsumer.releaseRenderer();
+                tiledConsumer.releaseRenderer();
                 // recycle the RendererContext instance
                 DMarlinRenderingEngine.returnRendererContext(rdrCtx);
             }
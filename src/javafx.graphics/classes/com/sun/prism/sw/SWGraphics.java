@@ -63,6 +63,7 @@ import com.sun.prism.paint.Color;
 import com.sun.prism.paint.ImagePattern;
 import com.sun.prism.paint.Paint;
 import com.sun.javafx.font.CharToGlyphMapper;
+import java.util.Arrays;
 
 final class SWGraphics implements ReadbackGraphics {
 
@@ -93,6 +94,7 @@ final class SWGraphics implements ReadbackGraphics {
     private RoundRectangle2D rect2d;
 
     private boolean antialiasedShape = true;
+    private boolean fastPaths = PrismSettings.swFastPaths;
     private boolean hasPreCullingBits = false;
     private float pixelScaleX = 1.0f;
     private float pixelScaleY = 1.0f;
@@ -235,6 +237,14 @@ final class SWGraphics implements ReadbackGraphics {
         return antialiasedShape;
     }
 
+    /**
+     * Enables or disables the direct fills and copies of fillSolidRect and
+     * copyOpaqueTexture for this graphics (prism.sw.fastpaths by default).
+     */
+    void setFastPaths(boolean fastPaths) {
+        this.fastPaths = fastPaths;
+    }
+
     public Rectangle getClipRect() {
         return (clip == null) ? null : new Rectangle(clip);
     }
@@ -453,7 +463,8 @@ final class SWGraphics implements ReadbackGraphics {
                             0, 0, tex.getContentWidth()-1, tex.getContentHeight()-1,
                             tex.hasAlpha());
                 }
-            } else {
+            } else if (!this.fillSolidRect(Math.min(p1.x, p2.x), Math.min(p1.y, p2.y),
+                                           Math.max(p1.x, p2.x), Math.max(p1.y, p2.y))) {
                 swPaint.setPaintFromShape(this.paint, this.tx, null, this.nodeBounds, x, y, width, height);
                 this.pr.fillRect((int)(Math.min(p1.x, p2.x) * SWUtils.TO_PISCES), (int)(Math.min(p1.y, p2.y) * SWUtils.TO_PISCES),
                         (int)(Math.abs(p2.x - p1.x) * SWUtils.TO_PISCES), (int)(Math.abs(p2.y - p1.y) * SWUtils.TO_PISCES));
@@ -463,6 +474,131 @@ final class SWGraphics implements ReadbackGraphics {
         }
     }
 
+    /**
+     * Returns true if the current paint and composite mode replace the
+     * destination pixels by the source pixels (SRC or SRC_OVER mode with
+     * an opaque source and no extra alpha).
+     */
+    private boolean isOpaqueComposite(boolean opaqueSource) {
+        if (swPaint.getCompositeAlpha() != 1f) {
+            return false;
+        }
+        return (compositeMode == CompositeMode.SRC)
+                || (compositeMode == CompositeMode.SRC_OVER && opaqueSource);
+    }
+
+    private static boolean isPixelAligned(float v) {
+        return (v == (int) v);
+    }
+
+    /**
+     * Fills the device space rectangle [x0, x1[ x [y0, y1[ by filling the
+     * rows of the render target with Arrays.fill if the current paint is an
+     * opaque color and the rectangle is pixel aligned (prism.sw.fastpaths).
+     * The pixels are the same as the ones composited by Pisces.
+     *
+     * @return false if the rectangle must be filled by Pisces
+     */
+    private boolean fillSolidRect(float x0, float y0, float x1, float y1) {
+        if (!fastPaths
+                || this.paint.getType() != Paint.Type.COLOR
+                || !this.paint.isOpaque() || !isOpaqueComposite(true))
+        {
+            return false;
+        }
+        final int[] dst = target.getDataNoClone();
+        if (dst == null || !isPixelAligned(x0) || !isPixelAligned(y0)
+                || !isPixelAligned(x1) || !isPixelAligned(y1))
+        {
+            // off-heap target or anti-aliased edges:
+            return false;
+        }
+        final int minX = Math.max((int) x0, finalClip.x);
+        final int minY = Math.max((int) y0, finalClip.y);
+        final int maxX = Math.min((int) x1, finalClip.x + finalClip.width);
+        final int maxY = Math.min((int) y1, finalClip.y + finalClip.height);
+
+        if (minX < maxX) {
+            // same conversion as SWPaint.setColor() (alpha = 255):
+            final Color c = (Color) this.paint;
+            final int argb = 0xFF000000
+                    | ((int) (c.getRed() * 255) << 16)
+                    | ((int) (c.getGreen() * 255) << 8)
+                    |  (int) (c.getBlue() * 255);
+            final int stride = target.getPhysicalWidth();
+            for (int y = minY, off = target.getOffset() + minY * stride; y < maxY; y++, off += stride) {
+                Arrays.fill(dst, off + minX, off + maxX, argb);
+            }
+        }
+        if (PrismSettings.debug) {
+            System.out.println("* SWG.fillSolidRect, [" + minX + ", " + minY + "] - [" + maxX + ", " + maxY + "]");
+        }
+        return true;
+    }
+
+    /**
+     * Copies the texture rows [sx1, sx2[ x [sy1, sy2[ to [dx1, dx2[ x
+     * [dy1, dy2[ (user space) with System.arraycopy if the texture is drawn
+     * without scaling at pixel aligned positions and its pixels replace the
+     * destination pixels (prism.sw.fastpaths).
+     *
+     * @return false if the texture must be drawn by Pisces
+     */
+    private boolean copyOpaqueTexture(SWArgbPreTexture tex, int imageMode,
+                                      float dx1, float dy1, float dx2, float dy2,
+                                      float sx1, float sy1, float sx2, float sy2)
+    {
+        if (!fastPaths
+                || imageMode != RendererBase.IMAGE_MODE_NORMAL
+                || !isOpaqueComposite(!tex.hasAlpha())
+                || !tx.isTranslateOrIdentity())
+        {
+            return false;
+        }
+        final int[] src = tex.getDataNoClone();
+        final int[] dst = target.getDataNoClone();
+        if (src == null || dst == null || tex.isOffHeap()) {
+            return false;
+        }
+        // 1:1 mapping of the source rectangle (no flip) inside the content:
+        final float w = sx2 - sx1;
+        final float h = sy2 - sy1;
+        if (w <= 0f || h <= 0f || dx2 - dx1 != w || dy2 - dy1 != h
+                || sx1 < 0f || sy1 < 0f
+                || sx2 > tex.getContentWidth() || sy2 > tex.getContentHeight()
+                || !isPixelAligned(sx1) || !isPixelAligned(sy1)
+                || !isPixelAligned(w) || !isPixelAligned(h))
+        {
+            return false;
+        }
+        final float fx = (float) (dx1 + tx.getMxt());
+        final float fy = (float) (dy1 + tx.getMyt());
+        if (!isPixelAligned(fx) || !isPixelAligned(fy)) {
+            return false;
+        }
+        final int x0 = (int) fx;
+        final int y0 = (int) fy;
+        final int minX = Math.max(x0, finalClip.x);
+        final int minY = Math.max(y0, finalClip.y);
+        final int maxX = Math.min(x0 + (int) w, finalClip.x + finalClip.width);
+        final int maxY = Math.min(y0 + (int) h, finalClip.y + finalClip.height);
+
+        if (minX < maxX) {
+            final int srcStride = tex.getPhysicalWidth();
+            final int dstStride = target.getPhysicalWidth();
+            final int len = maxX - minX;
+            int srcOff = tex.getOffset() + ((int) sy1 + minY - y0) * srcStride + (int) sx1 + minX - x0;
+            int dstOff = target.getOffset() + minY * dstStride + minX;
+            for (int y = minY; y < maxY; y++, srcOff += srcStride, dstOff += dstStride) {
+                System.arraycopy(src, srcOff, dst, dstOff, len);
+            }
+        }
+        if (PrismSettings.debug) {
+            System.out.println("* SWG.copyOpaqueTexture, [" + minX + ", " + minY + "] - [" + maxX + ", " + maxY + "]");
+        }
+        return true;
+    }
+
     public void fillRoundRect(float x, float y, float width, float height,
                               float arcw, float arch) {
         if (PrismSettings.debug) {
@@ -714,6 +850,9 @@ final class SWGraphics implements ReadbackGraphics {
         }
 
         final SWArgbPreTexture swTex = (SWArgbPreTexture) tex;
+        if (this.copyOpaqueTexture(swTex, imageMode, dx1, dy1, dx2, dy2, sx1, sy1, sx2, sy2)) {
+            return;
+        }
         int data[] = swTex.getDataNoClone();
 
         final RectBounds srcBBox = new RectBounds(Math.min(dx1, dx2), Math.min(dy1, dy2),
@@ -738,17 +877,32 @@ final class SWGraphics implements ReadbackGraphics {
         final int txMax = Math.min(tex.getContentWidth() - 1, SWUtils.fastCeil(Math.max(sx1, sx2)) - 1);
         final int tyMax = Math.min(tex.getContentHeight() - 1, SWUtils.fastCeil(Math.max(sy1, sy2)) - 1);
 
-        this.pr.drawImage(RendererBase.TYPE_INT_ARGB_PRE, imageMode,
-                data, tex.getContentWidth(), tex.getContentHeight(),
-                swTex.getOffset(), tex.getPhysicalWidth(),
-                piscesTx,
-                tex.getWrapMode() == Texture.WrapMode.REPEAT,
-                tex.getLinearFiltering(),
-                (int)(SWUtils.TO_PISCES * dstBBox.getMinX()), (int)(SWUtils.TO_PISCES * dstBBox.getMinY()),
-                (int)(SWUtils.TO_PISCES * dstBBox.getWidth()), (int)(SWUtils.TO_PISCES * dstBBox.getHeight()),
-                lEdge, rEdge, tEdge, bEdge,
-                txMin, tyMin, txMax, tyMax,
-                swTex.hasAlpha());
+        if (swTex.isOffHeap()) {
+            // large render target stored off-heap:
+            this.pr.drawImage(RendererBase.TYPE_INT_ARGB_PRE, imageMode,
+                    swTex.getOffHeapData(), tex.getContentWidth(), tex.getContentHeight(),
+                    swTex.getOffset(), tex.getPhysicalWidth(),
+                    piscesTx,
+                    tex.getWrapMode() == Texture.WrapMode.REPEAT,
+                    tex.getLinearFiltering(),
+                    (int)(SWUtils.TO_PISCES * dstBBox.getMinX()), (int)(SWUtils.TO_PISCES * dstBBox.getMinY()),
+                    (int)(SWUtils.TO_PISCES * dstBBox.getWidth()), (int)(SWUtils.TO_PISCES * dstBBox.getHeight()),
+                    lEdge, rEdge, tEdge, bEdge,
+                    txMin, tyMin, txMax, tyMax,
+                    swTex.hasAlpha());
+        } else {
+            this.pr.drawImage(RendererBase.TYPE_INT_ARGB_PRE, imageMode,
+                    data, tex.getContentWidth(), tex.getContentHeight(),
+                    swTex.getOffset(), tex.getPhysicalWidth(),
+                    piscesTx,
+                    tex.getWrapMode() == Texture.WrapMode.REPEAT,
+                    tex.getLinearFiltering(),
+                    (int)(SWUtils.TO_PISCES * dstBBox.getMinX()), (int)(SWUtils.TO_PISCES * dstBBox.getMinY()),
+                    (int)(SWUtils.TO_PISCES * dstBBox.getWidth()), (int)(SWUtils.TO_PISCES * dstBBox.getHeight()),
+                    lEdge, rEdge, tEdge, bEdge,
+                    txMin, tyMin, txMax, tyMax,
+                    swTex.hasAlpha());
+        }
 
         if (PrismSettings.debug) {
             System.out.println("* drawTexture, DONE");
@@ -917,6 +1071,15 @@ final class SWGraphics implements ReadbackGraphics {
             return rbb;
         }
 
+        if (rbb.isOffHeap()) {
+            // copy the rows through a temporary buffer:
+            final int row[] = new int[w];
+            for (int j = 0; j < h; j++) {
+                this.target.getSurface().getRGB(row, 0, w, view.x, view.y + j, w, 1);
+                rbb.getSurface().setRGB(row, 0, w, 0, j, w, 1);
+            }
+            return rbb;
+        }
         final int pixels[] = rbb.getDataNoClone();
         this.target.getSurface().getRGB(pixels, 0, rbb.getPhysicalWidth(), view.x, view.y, w, h);
         return rbb;
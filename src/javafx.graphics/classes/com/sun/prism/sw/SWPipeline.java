@@ -29,6 +29,7 @@ import com.sun.glass.ui.Screen;
 import com.sun.glass.utils.NativeLibLoader;
 import com.sun.prism.GraphicsPipeline;
 import com.sun.prism.ResourceFactory;
+import com.sun.prism.impl.PrismSettings;
 
 import java.security.AccessController;
 import java.security.PrivilegedAction;
@@ -40,7 +41,13 @@ public final class SWPipeline extends GraphicsPipeline {
     static {
         @SuppressWarnings("removal")
         var dummy = AccessController.doPrivileged((PrivilegedAction<Object>) () -> {
-            NativeLibLoader.loadLibrary("prism_sw");
+            if (PrismSettings.javaPisces) {
+                if (PrismSettings.verbose) {
+                    System.out.println("Using the Java Pisces renderer");
+                }
+            } else {
+                NativeLibLoader.loadLibrary("prism_sw");
+            }
             return null;
         });
     }
@@ -36,6 +36,7 @@ final class SWPresentable extends SWRTTexture implements Presentable {
 
     private final PresentableState pState;
     private Pixels pixels;
+    private int[] dirtyRects;
     private QueuedPixelSource pixelSource = new QueuedPixelSource(false);
 
     public SWPresentable(PresentableState pState, SWResourceFactory factory) {
@@ -54,15 +55,20 @@ final class SWPresentable extends SWRTTexture implements Presentable {
             /*
              * RT-27374
              * TODO: make sure the imgrep matches the Pixels.getNativeFormat()
-             * TODO: dirty region support
              */
             int w = getPhysicalWidth();
             int h = getPhysicalHeight();
             pixels = pixelSource.getUnusedPixels(w, h, 1.0f, 1.0f);
+            // only copy the regions painted since the pixels were last used:
+            dirtyRects = (dirtyregion != null)
+                    ? new int[] { dirtyregion.x, dirtyregion.y,
+                                  dirtyregion.width, dirtyregion.height }
+                    : pState.getDirtyRects();
+            int[] stale = pixelSource.getStaleRegions(pixels, dirtyRects);
             IntBuffer pixBuf = (IntBuffer) pixels.getPixels();
             IntBuffer buf = getSurface().getDataIntBuffer();
             assert buf.hasArray();
-            System.arraycopy(buf.array(), 0, pixBuf.array(), 0, w*h);
+            QueuedPixelSource.copyRegions(buf.array(), pixBuf, w, h, stale);
             return true;
         } else {
             return false;
@@ -70,7 +76,7 @@ final class SWPresentable extends SWRTTexture implements Presentable {
     }
 
     public boolean present() {
-        pixelSource.enqueuePixels(pixels);
+        pixelSource.enqueuePixels(pixels, dirtyRects);
         pState.uploadPixels(pixelSource);
         return true;
     }
@@ -52,19 +52,35 @@ class SWRTTexture extends SWArgbPreTexture implements RTTexture {
         this.dimensions.setBounds(0, 0, w, h);
     }
 
+    /**
+     * Creates a render target storing its pixels in the given off-heap buffer
+     * (see SWTexturePool.allocateOffHeap())
+     */
+    SWRTTexture(SWResourceFactory factory, int w, int h, IntBuffer offHeapData) {
+        super(factory, WrapMode.CLAMP_TO_ZERO, w, h);
+        this.setOffHeapData(offHeapData);
+        this.surface = new JavaSurface(offHeapData, RendererBase.TYPE_INT_ARGB_PRE, w, h);
+        this.dimensions.setBounds(0, 0, w, h);
+    }
+
     JavaSurface getSurface() {
         return this.surface;
     }
 
     @Override
     public int[] getPixels() {
-        if (contentWidth == physicalWidth) {
+        if (contentWidth == physicalWidth && !isOffHeap()) {
             return getDataNoClone();
         } else {
             return null;
         }
     }
 
+    @Override
+    public void keepPixels() {
+        super.keepPixels();
+    }
+
     @Override
     public boolean readPixels(Buffer pixels, int x, int y, int width, int height) {
         if (x != getContentX() || y != getContentY()
@@ -82,18 +98,29 @@ class SWRTTexture extends SWArgbPreTexture implements RTTexture {
         }
 
         final int pixbuf[] = getDataNoClone();
+        final IntBuffer offHeap = getOffHeapData();
         pixels.clear();
         // REMIND: This assumes that the caller wants BGRA PRE data...?
         if (pixels instanceof IntBuffer) {
             final IntBuffer iPixels = (IntBuffer)pixels;
-            for (int i = 0; i < contentHeight; i++) {
-                iPixels.put(pixbuf, i*physicalWidth, contentWidth);
+            if (offHeap != null) {
+                final IntBuffer src = offHeap.duplicate();
+                for (int i = 0; i < contentHeight; i++) {
+                    src.limit(i*physicalWidth + contentWidth).position(i*physicalWidth);
+                    iPixels.put(src);
+                }
+            } else {
+                for (int i = 0; i < contentHeight; i++) {
+                    iPixels.put(pixbuf, i*physicalWidth, contentWidth);
+                }
             }
         } else if (pixels instanceof ByteBuffer) {
             final ByteBuffer bPixels = (ByteBuffer)pixels;
             for (int i = 0; i < contentHeight; i++) {
                 for (int j = 0; j < contentWidth; j++) {
-                    final int argb = pixbuf[i*physicalWidth + j];
+                    final int argb = (offHeap != null)
+                            ? offHeap.get(i*physicalWidth + j)
+                            : pixbuf[i*physicalWidth + j];
                     final byte a = (byte) (argb >> 24);
                     final byte r = (byte) (argb >> 16);
                     final byte g = (byte) (argb >>  8);
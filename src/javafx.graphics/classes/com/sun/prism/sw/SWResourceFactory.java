@@ -45,6 +45,7 @@ import com.sun.prism.impl.TextureResourcePool;
 import com.sun.prism.impl.shape.BasicRoundRectRep;
 import com.sun.prism.impl.shape.BasicShapeRep;
 import com.sun.prism.shape.ShapeRep;
+import java.nio.IntBuffer;
 import java.util.Map;
 import java.util.WeakHashMap;
 
@@ -129,7 +130,12 @@ final class SWResourceFactory
     {
         SWTexturePool pool = SWTexturePool.instance;
         long size = pool.estimateRTTextureSize(width, height, false);
-        if (!pool.prepareForAllocation(size)) {
+        if (pool.isOffHeapSize(size)) {
+            // large render targets (snapshots) are kept out of the java heap:
+            IntBuffer offHeapData = pool.allocateOffHeap(width, height);
+            return (offHeapData != null) ? new SWRTTexture(this, width, height, offHeapData) : null;
+        }
+        if (!pool.hasRecycledPixels(width, height) && !pool.prepareForAllocation(size)) {
             return null;
         }
         return new SWRTTexture(this, width, height);
@@ -171,7 +177,8 @@ final class SWResourceFactory
     {
         SWTexturePool pool = SWTexturePool.instance;
         long size = pool.estimateTextureSize(w, h, formatHint);
-        if (!pool.prepareForAllocation(size)) {
+        boolean recycled = (formatHint != PixelFormat.BYTE_ALPHA) && pool.hasRecycledPixels(w, h);
+        if (!recycled && !pool.prepareForAllocation(size)) {
             return null;
         }
         return SWTexture.create(this, formatHint, wrapMode, w, h);
@@ -27,13 +27,33 @@ package com.sun.prism.sw;
 
 import com.sun.prism.PixelFormat;
 import com.sun.prism.impl.BaseResourcePool;
+import com.sun.prism.impl.Disposer;
 import com.sun.prism.impl.PrismSettings;
 import com.sun.prism.impl.TextureResourcePool;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.AccessController;
+import java.security.PrivilegedAction;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashMap;
 
 class SWTexturePool extends BaseResourcePool<SWTexture>
     implements TextureResourcePool<SWTexture>
 {
-    static final SWTexturePool instance = new SWTexturePool();
+    static final SWTexturePool instance =
+        new SWTexturePool(PrismSettings.swOffHeapMaxSize, PrismSettings.swOffHeapMapped);
+
+    private static final boolean RECYCLE = PrismSettings.swRecycleTextures;
+    // Number of calls to freeDisposalRequestedAndCheckResources() a recycled
+    // pixel buffer may stay unused before it is dropped:
+    private static final int FREE_MAX_AGE = 100;
 
     private static long maxVram() {
         long heapmax = Runtime.getRuntime().maxMemory();
@@ -46,12 +66,258 @@ class SWTexturePool extends BaseResourcePool<SWTexture>
         return Math.min(max / 2, PrismSettings.targetVram);
     }
 
-    private SWTexturePool() {
+    // off-heap render targets (bytes), not part of the heap budget above:
+    private final long offHeapMaxSize;
+    private final boolean offHeapMapped;
+    private long offHeapUsed;
+    private int offHeapCount;
+
+    // int[] pixel buffers (bytes) of the textures alive and recycled
+    // (prism.sw.recycle):
+    private long liveBytes;
+    private long freeBytes;
+    // recycled pixel buffers by length and in LRU order:
+    private final HashMap<Integer, ArrayDeque<FreeBuffer>> buckets = new HashMap<>();
+    private final ArrayDeque<FreeBuffer> lru = new ArrayDeque<>();
+    private int frame;
+
+    private long hits;
+    private long misses;
+    private long recycled;
+    private long evictions;
+
+    /**
+     * @param offHeapMaxSize off-heap budget (bytes, prism.sw.offheap.maxSize)
+     * @param offHeapMapped true to allocate the off-heap render targets in
+     * memory-mapped files (prism.sw.offheap.mapped)
+     */
+    SWTexturePool(long offHeapMaxSize, boolean offHeapMapped) {
         super(null, targetVram(), maxVram());
+        this.offHeapMaxSize = offHeapMaxSize;
+        this.offHeapMapped = offHeapMapped;
+    }
+
+    boolean isRecycling() {
+        return RECYCLE;
+    }
+
+    /**
+     * Returns true if a recycled pixel buffer is available for a texture of
+     * the given size (no room is needed in the pool to allocate it)
+     */
+    synchronized boolean hasRecycledPixels(int width, int height) {
+        if (!RECYCLE) {
+            return false;
+        }
+        final ArrayDeque<FreeBuffer> bucket = buckets.get(width * height);
+        return (bucket != null) && !bucket.isEmpty();
+    }
+
+    /**
+     * Allocates the (cleared) pixel buffer of the given texture, recycled if
+     * possible. The buffer is accounted until the returned record is
+     * released (texture disposed) or the texture is garbage collected.
+     */
+    synchronized PixelsRecord allocatePixels(SWTexture texture, int length) {
+        int[] data = null;
+        final ArrayDeque<FreeBuffer> bucket = buckets.get(length);
+        if (bucket != null && !bucket.isEmpty()) {
+            // most recently recycled buffer:
+            final FreeBuffer fb = bucket.pollLast();
+            lru.removeLastOccurrence(fb);
+            freeBytes -= 4L * length;
+            data = fb.data;
+            Arrays.fill(data, 0);
+            hits++;
+        } else {
+            data = new int[length];
+            misses++;
+        }
+        liveBytes += 4L * length;
+
+        final PixelsRecord rec = new PixelsRecord(this, data);
+        Disposer.addRecord(texture, rec);
+        return rec;
+    }
+
+    private synchronized void releasePixels(int[] data, boolean recyclable) {
+        final long size = 4L * data.length;
+        liveBytes -= size;
+        if (recyclable) {
+            final FreeBuffer fb = new FreeBuffer(data, frame);
+            buckets.computeIfAbsent(data.length, (k) -> new ArrayDeque<>()).addLast(fb);
+            lru.addLast(fb);
+            freeBytes += size;
+            recycled++;
+            // keep the recycled buffers within the pool target:
+            while (liveBytes + freeBytes > target() && !lru.isEmpty()) {
+                evictEldest();
+            }
+        }
+    }
+
+    private void evictEldest() {
+        final FreeBuffer fb = lru.pollFirst();
+        buckets.get(fb.data.length).removeFirstOccurrence(fb);
+        freeBytes -= 4L * fb.data.length;
+        evictions++;
+    }
+
+    @Override
+    public boolean cleanup(long needed) {
+        if (RECYCLE) {
+            synchronized (this) {
+                // drop the recycled buffers before pruning anything else:
+                while (liveBytes + freeBytes + needed > target() && !lru.isEmpty()) {
+                    evictEldest();
+                }
+            }
+        }
+        return super.cleanup(needed);
+    }
+
+    @Override
+    public void freeDisposalRequestedAndCheckResources(boolean forgiveStaleLocks) {
+        if (RECYCLE) {
+            synchronized (this) {
+                frame++;
+                // drop the buffers not reused recently:
+                while (!lru.isEmpty() && frame - lru.peekFirst().frame > FREE_MAX_AGE) {
+                    evictEldest();
+                }
+            }
+        }
+        super.freeDisposalRequestedAndCheckResources(forgiveStaleLocks);
+    }
+
+    /**
+     * Maximum size (bytes) of an off-heap render target: direct and mapped
+     * byte buffers are int-indexed so larger render targets stay on the heap.
+     */
+    static final long MAX_OFF_HEAP_SIZE = Integer.MAX_VALUE;
+
+    /**
+     * Returns true if a render target of the given size (bytes) should be
+     * stored off-heap (see prism.sw.offheap.minSize and MAX_OFF_HEAP_SIZE)
+     */
+    boolean isOffHeapSize(long size) {
+        return (PrismSettings.swOffHeapMinSize > 0L)
+            && (size >= PrismSettings.swOffHeapMinSize)
+            && (size <= MAX_OFF_HEAP_SIZE);
+    }
+
+    /**
+     * Allocates the off-heap pixels of a render target (direct or
+     * memory-mapped buffer). The pool accounts for them separately until the
+     * buffer is garbage collected.
+     *
+     * @return the buffer or null if the render target is larger than
+     * MAX_OFF_HEAP_SIZE, the off-heap budget is exhausted or the memory-mapped
+     * file can not be created
+     */
+    IntBuffer allocateOffHeap(int width, int height) {
+        final long size = estimateRTTextureSize(width, height, false);
+        if (size > MAX_OFF_HEAP_SIZE) {
+            if (PrismSettings.verbose) {
+                System.err.printf("SWTexturePool: %,d bytes exceed the off-heap "
+                                  + "buffer limit (%,d)\n", size, MAX_OFF_HEAP_SIZE);
+            }
+            return null;
+        }
+        synchronized (this) {
+            if (offHeapUsed + size > offHeapMaxSize) {
+                // release the collected buffers first:
+                Disposer.cleanUp();
+                if (offHeapUsed + size > offHeapMaxSize) {
+                    if (PrismSettings.verbose) {
+                        System.err.printf("SWTexturePool: off-heap budget exhausted, "
+                                          + "%,d used, %,d requested\n", offHeapUsed, size);
+                    }
+                    return null;
+                }
+            }
+        }
+        final ByteBuffer bb = offHeapMapped
+                              ? mapTempFile((int) size)
+                              : ByteBuffer.allocateDirect((int) size);
+        if (bb == null) {
+            return null;
+        }
+        final IntBuffer buf = bb.order(ByteOrder.nativeOrder()).asIntBuffer();
+        synchronized (this) {
+            offHeapUsed += size;
+            offHeapCount++;
+        }
+        Disposer.addRecord(buf, new OffHeapRecord(this, size));
+        return buf;
+    }
+
+    private static ByteBuffer mapTempFile(final int size) {
+        @SuppressWarnings("removal")
+        final ByteBuffer bb = AccessController.doPrivileged((PrivilegedAction<ByteBuffer>) () -> {
+            Path file = null;
+            try {
+                file = Files.createTempFile("prism-sw", ".raw");
+                try (FileChannel fc = FileChannel.open(file,
+                        StandardOpenOption.READ, StandardOpenOption.WRITE))
+                {
+                    // the mapping remains valid once the channel is closed:
+                    return fc.map(FileChannel.MapMode.READ_WRITE, 0L, size);
+                }
+            } catch (IOException ioe) {
+                if (PrismSettings.verbose) {
+                    System.err.println("SWTexturePool: can not map a temporary file: " + ioe);
+                }
+                return null;
+            } finally {
+                if (file != null) {
+                    try {
+                        Files.delete(file);
+                    } catch (IOException ioe) {
+                        // still mapped (windows):
+                        file.toFile().deleteOnExit();
+                    }
+                }
+            }
+        });
+        return bb;
+    }
+
+    private synchronized void freeOffHeap(long size) {
+        offHeapUsed -= size;
+        offHeapCount--;
+    }
+
+    public synchronized long offHeapUsed() {
+        return offHeapUsed;
+    }
+
+    @Override
+    public void printSummary(boolean printlocksources) {
+        super.printSummary(printlocksources);
+        if (RECYCLE) {
+            synchronized (this) {
+                System.err.printf("%s: %,d live, %,d recycled in %,d buffers, "
+                                  + "%,d hits, %,d misses, %,d recycled, %,d evictions\n",
+                                  this, liveBytes, freeBytes, lru.size(),
+                                  hits, misses, recycled, evictions);
+            }
+        }
+        if (PrismSettings.swOffHeapMinSize > 0L) {
+            synchronized (this) {
+                System.err.printf("%s: off-heap %,d used by %,d textures, %,d max\n",
+                                  this, offHeapUsed, offHeapCount, offHeapMaxSize);
+            }
+        }
     }
 
     @Override
     public long used() {
+        if (RECYCLE) {
+            synchronized (this) {
+                return liveBytes + freeBytes;
+            }
+        }
 //        long heapfree = Runtime.getRuntime().freeMemory();
 //        long managedfree = max() - managed();
 //        return max() - Math.min(heapfree, managedfree);
@@ -60,6 +326,12 @@ class SWTexturePool extends BaseResourcePool<SWTexture>
 
     @Override
     public long size(SWTexture resource) {
+        if ((resource instanceof SWArgbPreTexture)
+                && ((SWArgbPreTexture) resource).isOffHeap())
+        {
+            // accounted by offHeapUsed()
+            return 0L;
+        }
         long size = resource.getPhysicalWidth();
         size *= resource.getPhysicalHeight();
         if (resource instanceof SWArgbPreTexture) {
@@ -82,4 +354,68 @@ class SWTexturePool extends BaseResourcePool<SWTexture>
     public long estimateRTTextureSize(int width, int height, boolean hasDepth) {
         return ((long) width) * ((long) height) * 4L;
     }
+
+    private static final class OffHeapRecord implements Disposer.Record {
+        private SWTexturePool pool;
+        private final long size;
+
+        OffHeapRecord(SWTexturePool pool, long size) {
+            this.pool = pool;
+            this.size = size;
+        }
+
+        @Override
+        public void dispose() {
+            if (pool != null) {
+                pool.freeOffHeap(size);
+                pool = null;
+            }
+        }
+    }
+
+    private static final class FreeBuffer {
+        final int[] data;
+        // frame of the release:
+        final int frame;
+
+        FreeBuffer(int[] data, int frame) {
+            this.data = data;
+            this.frame = frame;
+        }
+    }
+
+    /**
+     * Accounting of the pixel buffer of a texture: released explicitly by
+     * SWTexture.dispose() or by the Disposer once the texture is collected.
+     */
+    static final class PixelsRecord implements Disposer.Record {
+        private SWTexturePool pool;
+        private final int[] data;
+        private boolean recyclable = true;
+
+        PixelsRecord(SWTexturePool pool, int[] data) {
+            this.pool = pool;
+            this.data = data;
+        }
+
+        int[] getData() {
+            return data;
+        }
+
+        /**
+         * The buffer is shared or referenced outside of the texture: it
+         * can not be reused by another texture.
+         */
+        void setNotRecyclable() {
+            recyclable = false;
+        }
+
+        @Override
+        public void dispose() {
+            if (pool != null) {
+                pool.releasePixels(data, recyclable);
+                pool = null;
+            }
+        }
+    }
 }
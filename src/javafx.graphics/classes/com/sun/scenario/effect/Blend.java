@@ -28,6 +28,7 @@ package com.sun.scenario.effect;
 import com.sun.javafx.geom.Point2D;
 import com.sun.javafx.geom.Rectangle;
 import com.sun.javafx.geom.transform.BaseTransform;
+import com.sun.scenario.effect.impl.Renderer;
 import com.sun.scenario.effect.impl.state.RenderState;
 
 /**
@@ -574,6 +575,23 @@ public class Blend extends CoreEffect<RenderState> {
         return getDefaultedInput(1, defaultInput).untransform(p, defaultInput);
     }
 
+    @Override
+    public ImageData filter(FilterContext fctx,
+                            BaseTransform transform,
+                            Rectangle outputClip,
+                            Object renderHelper,
+                            Effect defaultInput)
+    {
+        if (Renderer.fusePointEffects) {
+            ImageData ret = Renderer.getRenderer(fctx)
+                .filterFused(fctx, this, transform, outputClip, defaultInput);
+            if (ret != null) {
+                return ret;
+            }
+        }
+        return super.filter(fctx, transform, outputClip, renderHelper, defaultInput);
+    }
+
     @Override
     public RenderState getRenderState(FilterContext fctx,
                                       BaseTransform transform,
@@ -25,12 +25,19 @@
 
 package com.sun.scenario.effect.impl;
 
+import java.lang.ref.ReferenceQueue;
 import java.lang.ref.SoftReference;
 import java.security.AccessController;
 import java.security.PrivilegedAction;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+import com.sun.prism.impl.PrismSettings;
 import com.sun.scenario.effect.Filterable;
 
 /**
@@ -38,18 +45,33 @@ import com.sun.scenario.effect.Filterable;
  * various {@code EffectPeer} implementations.  Image allocation can be
  * a fairly expensive operation (in terms of footprint and performance),
  * especially for the GPU backends, so image reuse is critical.
+ *
+ * The unlocked images are indexed by their (quantized) width and height so
+ * finding the closest image of sufficient size does not scan the pool.
+ * The images are only softly referenced; when a byte budget is given
+ * (-Ddecora.imagepool.maxBytes=<long>[kKmMgG]), the least recently used
+ * unlocked images are also flushed to keep the pool (locked and unlocked
+ * images) within that budget.
  */
 public class ImagePool {
 
-    public static long numEffects;
-    static long numCreated;
-    static long pixelsCreated;
-    static long numAccessed;
-    static long pixelsAccessed;
+    // statistics of all the pools (see the getters below, printed with
+    // -Ddecora.showstats):
+    public static final LongAdder numEffects = new LongAdder();
+    static final LongAdder numCreated = new LongAdder();
+    static final LongAdder pixelsCreated = new LongAdder();
+    static final LongAdder numAccessed = new LongAdder();
+    static final LongAdder pixelsAccessed = new LongAdder();
+    static final LongAdder numReused = new LongAdder();
+    static final LongAdder numEvicted = new LongAdder();
+    static final LongAdder pixelsEvicted = new LongAdder();
+
+    /** Max bytes of the pooled images (0 means no budget) */
+    private static final long maxBytes;
 
     static {
         @SuppressWarnings("removal")
-        var dummy = AccessController.doPrivileged((PrivilegedAction) () -> {
+        String budget = AccessController.doPrivileged((PrivilegedAction<String>) () -> {
             if (System.getProperty("decora.showstats") != null) {
                 Runtime.getRuntime().addShutdownHook(new Thread() {
                     @Override public void run() {
@@ -57,30 +79,99 @@ public class ImagePool {
                     }
                 });
             }
-            return null;
+            return System.getProperty("decora.imagepool.maxBytes");
         });
+        maxBytes = PrismSettings.parseSize(budget, 0L,
+                "Try -Ddecora.imagepool.maxBytes=<long>[kKmMgG]");
     }
 
     static void printStats() {
-        System.out.println("effects executed:  " + numEffects);
-        System.out.println("images created:    " + numCreated);
-        System.out.println("pixels created:    " + pixelsCreated);
-        System.out.println("images accessed:   " + numAccessed);
-        System.out.println("pixels accessed:   " + pixelsAccessed);
-        if (numEffects != 0) {
-            double avgImgs = ((double) numAccessed) / numEffects;
-            double avgPxls = ((double) pixelsAccessed) / numEffects;
+        final long effects = numEffects.sum();
+        final long accessed = numAccessed.sum();
+        final long pixels = pixelsAccessed.sum();
+        System.out.println("effects executed:  " + effects);
+        System.out.println("images created:    " + numCreated.sum());
+        System.out.println("pixels created:    " + pixelsCreated.sum());
+        System.out.println("images accessed:   " + accessed);
+        System.out.println("pixels accessed:   " + pixels);
+        System.out.println("images reused:     " + numReused.sum());
+        System.out.println("images evicted:    " + numEvicted.sum());
+        System.out.println("pixels evicted:    " + pixelsEvicted.sum());
+        if (effects != 0) {
+            double avgImgs = ((double) accessed) / effects;
+            double avgPxls = ((double) pixels) / effects;
             System.out.println("images per effect: " + avgImgs);
             System.out.println("pixels per effect: " + avgPxls);
         }
     }
 
+    /** Number of effects executed (all pools) */
+    public static long getNumEffects() {
+        return numEffects.sum();
+    }
+
+    /** Number of images created (all pools) */
+    public static long getNumCreated() {
+        return numCreated.sum();
+    }
+
+    /** Number of pixels of the images created (all pools) */
+    public static long getPixelsCreated() {
+        return pixelsCreated.sum();
+    }
+
+    /** Number of images checked out (all pools) */
+    public static long getNumAccessed() {
+        return numAccessed.sum();
+    }
+
+    /** Number of pixels of the images checked out (all pools) */
+    public static long getPixelsAccessed() {
+        return pixelsAccessed.sum();
+    }
+
+    /** Number of images checked out from the pooled images (all pools) */
+    public static long getNumReused() {
+        return numReused.sum();
+    }
+
+    /** Number of images flushed to stay within the budget (all pools) */
+    public static long getNumEvicted() {
+        return numEvicted.sum();
+    }
+
+    /** Number of pixels of the images flushed (all pools) */
+    public static long getPixelsEvicted() {
+        return pixelsEvicted.sum();
+    }
+
+    /** Max bytes of the images of a pool or 0 if there is no budget */
+    public static long getMaxBytes() {
+        return maxBytes;
+    }
+
     static final int QUANT = 32;
 
-    private final List<SoftReference<PoolFilterable>> unlocked =
-        new ArrayList<SoftReference<PoolFilterable>>();
-    private final List<SoftReference<PoolFilterable>> locked =
-        new ArrayList<SoftReference<PoolFilterable>>();
+    private static final int UNLOCKED = 0;
+    private static final int LOCKED = 1;
+    private static final int PURGATORY = 2;
+    private static final int REMOVED = 3;
+
+    // unlocked images by max content width, then height (most recent last):
+    private final TreeMap<Integer, TreeMap<Integer, ArrayDeque<PoolEntry>>> unlocked =
+        new TreeMap<Integer, TreeMap<Integer, ArrayDeque<PoolEntry>>>();
+    // unlocked images in least recently used order:
+    private final LinkedHashSet<PoolEntry> lru = new LinkedHashSet<PoolEntry>();
+    // locked images by identity hash code:
+    private final HashMap<Integer, List<PoolEntry>> locked =
+        new HashMap<Integer, List<PoolEntry>>();
+    // entries of the images cleared by the garbage collector:
+    private final ReferenceQueue<PoolFilterable> clearedEntries =
+        new ReferenceQueue<PoolFilterable>();
+
+    private long lockedBytes;
+    private long unlockedBytes;
+    private long purgatoryBytes;
 
     // On Canmore with the PowerVR SGX chip, there is a driver issue
     // that causes incorrect rendering if one tries to reuse an FBO
@@ -98,8 +189,7 @@ public class ImagePool {
     // (where there would normally be reuse).
     private final boolean usePurgatory = Boolean.getBoolean("decora.purgatory");
     private final List<Filterable> hardPurgatory = new ArrayList<Filterable>();
-    private final List<SoftReference<PoolFilterable>> softPurgatory =
-        new ArrayList<SoftReference<PoolFilterable>>();
+    private final List<PoolEntry> softPurgatory = new ArrayList<PoolEntry>();
 
     /**
      * Package-private constructor.
@@ -107,6 +197,26 @@ public class ImagePool {
     ImagePool() {
     }
 
+    /** Bytes of the locked images of this pool */
+    public synchronized long getLockedBytes() {
+        return lockedBytes;
+    }
+
+    /** Bytes of the unlocked (available) images of this pool */
+    public synchronized long getUnlockedBytes() {
+        return unlockedBytes;
+    }
+
+    /** Bytes of all the images of this pool (including purgatory) */
+    public synchronized long getUsedBytes() {
+        return lockedBytes + unlockedBytes + purgatoryBytes;
+    }
+
+    /** Number of unlocked (available) images of this pool */
+    public synchronized int getUnlockedCount() {
+        return lru.size();
+    }
+
     public synchronized PoolFilterable checkOut(Renderer renderer, int w, int h) {
         if (w <= 0 || h <= 0) {
             // if image is empty in any way, return a small non-empty image.
@@ -120,63 +230,39 @@ public class ImagePool {
         w = renderer.getCompatibleWidth(w);
         h = renderer.getCompatibleHeight(h);
 
-        numAccessed++;
-        pixelsAccessed += ((long) w) * h;
+        numAccessed.increment();
+        pixelsAccessed.add(((long) w) * h);
+
+        expungeClearedEntries();
+
         // first look for an already cached image of sufficient size,
         // choosing the one that is closest in size to the requested dimensions
-        SoftReference<PoolFilterable> chosenEntry = null;
-        PoolFilterable chosenImage = null;
-        int mindiff = Integer.MAX_VALUE;
-        Iterator<SoftReference<PoolFilterable>> entries = unlocked.iterator();
-        while (entries.hasNext()) {
-            SoftReference<PoolFilterable> entry = entries.next();
-            PoolFilterable eimg = entry.get();
+        ArrayDeque<PoolEntry> bucket;
+        while ((bucket = findBucket(w, h)) != null) {
+            final PoolEntry entry = bucket.peekLast();
+            final PoolFilterable eimg = entry.get();
+            removeUnlocked(entry);
             if (eimg == null) {
-                entries.remove();
                 continue;
             }
-            int ew = eimg.getMaxContentWidth();
-            int eh = eimg.getMaxContentHeight();
-            if (ew >= w && eh >= h && ew * eh / 2 <= w * h) {
-                int diff = (ew-w) * (eh-h);
-                if (chosenEntry == null || diff < mindiff) {
-                    eimg.lock();
-                    if (eimg.isLost()) {
-                        entries.remove();
-                        continue;
-                    }
-                    if (chosenImage != null) {
-                        chosenImage.unlock();
-                    }
-                    chosenEntry = entry;
-                    // The following calls to setContentWidth / setContentHeight
-                    // should be uncommented only after the rest of the imagepool
-                    // is fixed to handle a change in content size, and when both the
-                    // SW pipeline and J2D pipeline are able to handle the change.
-//                    eimg.setContentWidth(w);
-//                    eimg.setContentHeight(h);
-                    chosenImage = eimg;
-                    mindiff = diff;
-                }
+            eimg.lock();
+            if (eimg.isLost()) {
+                continue;
             }
+            // The following calls to setContentWidth / setContentHeight
+            // should be uncommented only after the rest of the imagepool
+            // is fixed to handle a change in content size, and when both the
+            // SW pipeline and J2D pipeline are able to handle the change.
+//            eimg.setContentWidth(w);
+//            eimg.setContentHeight(h);
+            addLocked(entry);
+            numReused.increment();
+            renderer.clearImage(eimg);
+            return eimg;
         }
 
-        if (chosenEntry != null) {
-            unlocked.remove(chosenEntry);
-            locked.add(chosenEntry);
-            renderer.clearImage(chosenImage);
-            return chosenImage;
-        }
-
-        // get rid of expired entries from locked list
-        entries = locked.iterator();
-        while (entries.hasNext()) {
-            SoftReference<PoolFilterable> entry = entries.next();
-            Filterable eimg = entry.get();
-            if (eimg == null) {
-                entries.remove();
-            }
-        }
+        // make room for the new image within the budget:
+        evict(4L * w * h);
 
         // if all else fails, just create a new one...
         PoolFilterable img = null;
@@ -193,66 +279,192 @@ public class ImagePool {
         }
         if (img != null) {
             img.setImagePool(this);
-            locked.add(new SoftReference<PoolFilterable>(img));
-            numCreated++;
-            pixelsCreated += ((long) w) * h;
+            addLocked(new PoolEntry(img, clearedEntries));
+            numCreated.increment();
+            pixelsCreated.add(((long) w) * h);
         }
         return img;
     }
 
     public synchronized void checkIn(PoolFilterable img) {
-        SoftReference<PoolFilterable> chosenEntry = null;
-        Filterable chosenImage = null;
-        Iterator<SoftReference<PoolFilterable>> entries = locked.iterator();
-        while (entries.hasNext()) {
-            SoftReference<PoolFilterable> entry = entries.next();
-            Filterable eimg = entry.get();
-            if (eimg == null) {
-                entries.remove();
-            } else if (eimg == img) {
-                chosenEntry = entry;
-                chosenImage = eimg;
-                img.unlock();
-                break;
-            }
-        }
+        expungeClearedEntries();
 
+        final PoolEntry chosenEntry = findLocked(img);
         if (chosenEntry != null) {
-            locked.remove(chosenEntry);
+            img.unlock();
+            removeLocked(chosenEntry);
             if (usePurgatory) {
                 // hold the entry in purgatory instead of releasing it back
                 // to the unlocked pool immediately; it will be released
                 // after the next call to releasePurgatory()...
-//                System.err.println("==> Adding image to purgatory: " +
-//                    chosenImage.getPhysicalWidth() + "x" +
-//                    chosenImage.getPhysicalHeight());
-                hardPurgatory.add(chosenImage);
+                hardPurgatory.add(img);
                 softPurgatory.add(chosenEntry);
+                chosenEntry.state = PURGATORY;
+                purgatoryBytes += chosenEntry.bytes;
             } else {
-                unlocked.add(chosenEntry);
+                addUnlocked(chosenEntry);
+                evict(0L);
             }
         }
     }
 
     public synchronized void releasePurgatory() {
         if (usePurgatory && !softPurgatory.isEmpty()) {
-//            System.err.println("==> Releasing " + softPurgatory.size() + " entries from purgatory!");
             // release images kept in purgatory back into the unlocked pool
-            unlocked.addAll(softPurgatory);
+            for (PoolEntry entry : softPurgatory) {
+                if (entry.state == PURGATORY) {
+                    purgatoryBytes -= entry.bytes;
+                    addUnlocked(entry);
+                }
+            }
             softPurgatory.clear();
             hardPurgatory.clear();
+            evict(0L);
         }
     }
 
+    /**
+     * Returns the bucket of the unlocked images of sufficient size closest
+     * to the requested dimensions (at most twice the requested area) or null
+     */
+    private ArrayDeque<PoolEntry> findBucket(int w, int h) {
+        ArrayDeque<PoolEntry> chosen = null;
+        long mindiff = Long.MAX_VALUE;
+        final long area = ((long) w) * h;
+        for (Map.Entry<Integer, TreeMap<Integer, ArrayDeque<PoolEntry>>> col
+                 : unlocked.tailMap(w, true).entrySet())
+        {
+            final int ew = col.getKey();
+            if (((long) ew) * h / 2 > area) {
+                // wider images are too large
+                break;
+            }
+            for (Map.Entry<Integer, ArrayDeque<PoolEntry>> row
+                     : col.getValue().tailMap(h, true).entrySet())
+            {
+                final int eh = row.getKey();
+                if (((long) ew) * eh / 2 > area) {
+                    break;
+                }
+                final long diff = ((long) (ew - w)) * (eh - h);
+                if (diff < mindiff) {
+                    chosen = row.getValue();
+                    mindiff = diff;
+                }
+            }
+        }
+        return chosen;
+    }
+
+    private void addUnlocked(PoolEntry entry) {
+        unlocked.computeIfAbsent(entry.width, k -> new TreeMap<Integer, ArrayDeque<PoolEntry>>())
+                .computeIfAbsent(entry.height, k -> new ArrayDeque<PoolEntry>())
+                .addLast(entry);
+        lru.add(entry);
+        entry.state = UNLOCKED;
+        unlockedBytes += entry.bytes;
+    }
+
+    private void removeUnlocked(PoolEntry entry) {
+        final TreeMap<Integer, ArrayDeque<PoolEntry>> col = unlocked.get(entry.width);
+        final ArrayDeque<PoolEntry> bucket = col.get(entry.height);
+        bucket.removeLastOccurrence(entry);
+        if (bucket.isEmpty()) {
+            col.remove(entry.height);
+            if (col.isEmpty()) {
+                unlocked.remove(entry.width);
+            }
+        }
+        lru.remove(entry);
+        entry.state = REMOVED;
+        unlockedBytes -= entry.bytes;
+    }
+
+    private void addLocked(PoolEntry entry) {
+        locked.computeIfAbsent(entry.hash, k -> new ArrayList<PoolEntry>(1)).add(entry);
+        entry.state = LOCKED;
+        lockedBytes += entry.bytes;
+    }
+
+    private void removeLocked(PoolEntry entry) {
+        final List<PoolEntry> entries = locked.get(entry.hash);
+        entries.remove(entry);
+        if (entries.isEmpty()) {
+            locked.remove(entry.hash);
+        }
+        entry.state = REMOVED;
+        lockedBytes -= entry.bytes;
+    }
+
+    private PoolEntry findLocked(PoolFilterable img) {
+        final List<PoolEntry> entries = locked.get(System.identityHashCode(img));
+        if (entries != null) {
+            for (PoolEntry entry : entries) {
+                if (entry.get() == img) {
+                    return entry;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Forgets the entries of the images cleared by the garbage collector
+     */
+    private void expungeClearedEntries() {
+        PoolEntry entry;
+        while ((entry = (PoolEntry) clearedEntries.poll()) != null) {
+            switch (entry.state) {
+                case UNLOCKED:
+                    removeUnlocked(entry);
+                    break;
+                case LOCKED:
+                    removeLocked(entry);
+                    break;
+                case PURGATORY:
+                    purgatoryBytes -= entry.bytes;
+                    entry.state = REMOVED;
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Flushes the least recently used unlocked images until the pool and
+     * the given extra bytes fit in the budget (if any)
+     */
+    private void evict(long extraBytes) {
+        if (maxBytes <= 0L) {
+            return;
+        }
+        while (!lru.isEmpty()
+               && lockedBytes + unlockedBytes + purgatoryBytes + extraBytes > maxBytes)
+        {
+            final PoolEntry entry = lru.iterator().next();
+            removeUnlocked(entry);
+            flush(entry);
+            numEvicted.increment();
+            pixelsEvicted.add(entry.bytes / 4L);
+        }
+    }
+
+    private static void flush(PoolEntry entry) {
+        final Filterable image = entry.get();
+        if (image != null) {
+            image.flush();
+        }
+        entry.clear();
+    }
+
     private void pruneCache() {
         // flush all unlocked images
-        for (SoftReference<PoolFilterable> r : unlocked) {
-            Filterable image = r.get();
-            if (image != null) {
-                image.flush();
-            }
+        while (!lru.isEmpty()) {
+            final PoolEntry entry = lru.iterator().next();
+            removeUnlocked(entry);
+            flush(entry);
         }
-        unlocked.clear();
         // this is to help to free up space held by those images that we no
         // longer have references to
         System.gc();
@@ -262,14 +474,37 @@ public class ImagePool {
     }
 
     public synchronized void dispose() {
-        for (SoftReference<PoolFilterable> r : unlocked) {
-            Filterable image = r.get();
-            if (image != null) {
-                image.flush();
-            }
+        while (!lru.isEmpty()) {
+            final PoolEntry entry = lru.iterator().next();
+            removeUnlocked(entry);
+            flush(entry);
         }
-        unlocked.clear();
         // not flushing the locked ones, just clearing references to them
+        for (List<PoolEntry> entries : locked.values()) {
+            for (PoolEntry entry : entries) {
+                entry.state = REMOVED;
+            }
+        }
         locked.clear();
+        lockedBytes = 0L;
+    }
+
+    /**
+     * A soft reference to a pooled image with its size and state
+     */
+    private static final class PoolEntry extends SoftReference<PoolFilterable> {
+        final int width;
+        final int height;
+        final long bytes;
+        final int hash;
+        int state = REMOVED;
+
+        PoolEntry(PoolFilterable img, ReferenceQueue<PoolFilterable> queue) {
+            super(img, queue);
+            this.width = img.getMaxContentWidth();
+            this.height = img.getMaxContentHeight();
+            this.bytes = 4L * img.getPhysicalWidth() * img.getPhysicalHeight();
+            this.hash = System.identityHashCode(img);
+        }
     }
 }
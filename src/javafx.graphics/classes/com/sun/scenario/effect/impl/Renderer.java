@@ -96,6 +96,14 @@ public abstract class Renderer {
     protected static final boolean verbose = AccessController.doPrivileged(
             (PrivilegedAction<Boolean>) () -> Boolean.getBoolean("decora.verbose"));
 
+    /**
+     * Lets the renderers filter chains of point-wise effects in a single
+     * pass (enabled by -Ddecora.fusePointEffects=true).
+     */
+    @SuppressWarnings("removal")
+    public static final boolean fusePointEffects = AccessController.doPrivileged(
+            (PrivilegedAction<Boolean>) () -> Boolean.getBoolean("decora.fusePointEffects"));
+
     protected Renderer() {
         this.imagePool = new ImagePool();
     }
@@ -413,6 +421,27 @@ public abstract class Renderer {
         return getRenderer(fctx).getRendererForSize(effect, approxW, approxH);
     }
 
+    /**
+     * Filters the chain of point-wise effects ending with the given effect
+     * in a single pass, without the intermediate images of its stages.
+     * The default implementation does not fuse any effect.
+     *
+     * @param fctx the filter context
+     * @param effect the last effect of the chain
+     * @param transform the transform for the output of the chain
+     * @param outputClip the clip rectangle of the output, or null
+     * @param defaultInput the default input {@code Effect}
+     * @return the result, or null if the effects must be filtered by
+     *         their own peers
+     */
+    public ImageData filterFused(FilterContext fctx, Effect effect,
+                                 BaseTransform transform,
+                                 Rectangle outputClip,
+                                 Effect defaultInput)
+    {
+        return null;
+    }
+
     /**
      * Determines whether the passed {@code ImageData} is compatible with this
      * renderer (that is, if it can be used as a input source for this
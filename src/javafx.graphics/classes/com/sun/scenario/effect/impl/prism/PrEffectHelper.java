@@ -160,7 +160,7 @@ public class PrEffectHelper {
             prinfo = new PrRenderInfo(g);
         }
         boolean valid;
-        ImagePool.numEffects++;
+        ImagePool.numEffects.increment();
 
         do {
             ImageData res = effect.filter(fctx, transform, rclip, prinfo, defaultInput);
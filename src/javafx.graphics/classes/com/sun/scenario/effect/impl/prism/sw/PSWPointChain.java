@@ -0,0 +1,345 @@
+/*
+ * Copyright (c) 2009, 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+
+package com.sun.scenario.effect.impl.prism.sw;
+
+import java.util.ArrayList;
+import com.sun.javafx.geom.BaseBounds;
+import com.sun.javafx.geom.Rectangle;
+import com.sun.javafx.geom.transform.BaseTransform;
+import com.sun.prism.paint.Color;
+import com.sun.scenario.effect.Blend;
+import com.sun.scenario.effect.Effect;
+import com.sun.scenario.effect.FilterContext;
+import com.sun.scenario.effect.Flood;
+import com.sun.scenario.effect.ImageData;
+
+/**
+ * Single pass filtering of runs of point-wise {@code Blend} effects with a
+ * solid {@code Flood} input (see {@link PSWRenderer#filterFused}).
+ *
+ * The planner walks down from the last {@code Blend} of the chain as long
+ * as one of its inputs is a pixel aligned {@code Flood} of a solid color
+ * and its mode is one of the Porter-Duff modes (SRC_OVER, SRC_IN, SRC_OUT,
+ * SRC_ATOP), ADD or one of the separable modes with a closed premultiplied
+ * form (MULTIPLY, SCREEN, DARKEN, LIGHTEN, DIFFERENCE, EXCLUSION). The modes
+ * that divide or select on unpremultiplied colors (OVERLAY, HARD_LIGHT,
+ * SOFT_LIGHT, COLOR_DODGE, COLOR_BURN) and the channel modes are left to the
+ * Blend peers. The other input of the deepest stage is filtered as
+ * usual, then every stage is applied to each of its pixels in one pass:
+ * neither the {@code Flood} images nor the intermediate results of the
+ * stages are allocated. Every stage computes the equation of its mode on
+ * the 8-bit premultiplied values like the Blend peers, so the result
+ * matches the unfused chain within one level per stage.
+ */
+final class PSWPointChain {
+
+    static final class Stage {
+        final Blend.Mode mode;
+        final float opacity;
+        final boolean floodOnTop;
+        final Rectangle floodBounds;
+        // premultiplied flood color:
+        final float fr, fg, fb, fa;
+
+        Stage(Blend.Mode mode, float opacity, boolean floodOnTop,
+              Color color, Rectangle floodBounds)
+        {
+            this.mode = mode;
+            this.opacity = opacity;
+            this.floodOnTop = floodOnTop;
+            this.floodBounds = floodBounds;
+            // same 8-bit premultiplied value as the Flood images filled by
+            // the SW pipeline (see SWPaint.setColor):
+            final int ia = (int) (255 * color.getAlpha());
+            this.fa = ia / 255f;
+            this.fr = div255((int) (255 * color.getRed()) * ia) / 255f;
+            this.fg = div255((int) (255 * color.getGreen()) * ia) / 255f;
+            this.fb = div255((int) (255 * color.getBlue()) * ia) / 255f;
+        }
+
+        private static int div255(int v) {
+            final int t = v + 128;
+            return (t + (t >> 8)) >> 8;
+        }
+    }
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private PSWPointChain() {
+    }
+
+    private static boolean isFusable(Blend.Mode mode) {
+        switch (mode) {
+            case SRC_OVER:
+            case SRC_IN:
+            case SRC_OUT:
+            case SRC_ATOP:
+            case ADD:
+            case MULTIPLY:
+            case SCREEN:
+            case DARKEN:
+            case LIGHTEN:
+            case DIFFERENCE:
+            case EXCLUSION:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Returns the device bounds of the given flood if it is a solid color
+     * covering whole pixels under the given transform, or null.
+     */
+    private static Rectangle getFloodBounds(Flood flood, BaseTransform transform) {
+        if (!(flood.getPaint() instanceof Color)) {
+            return null;
+        }
+        BaseBounds b = Effect.transformBounds(transform, flood.getFloodBounds());
+        Rectangle r = new Rectangle(b);
+        if (r.x != b.getMinX() || r.y != b.getMinY() ||
+            r.width != b.getWidth() || r.height != b.getHeight())
+        {
+            return null;
+        }
+        return r;
+    }
+
+    static ImageData filter(PSWRenderer renderer, FilterContext fctx,
+                            Blend blend, BaseTransform transform,
+                            Rectangle outputClip, Effect defaultInput)
+    {
+        if (!transform.isTranslateOrIdentity()) {
+            return null;
+        }
+        // plan the stages, from the last one to the deepest one:
+        ArrayList<Stage> stages = new ArrayList<>();
+        Effect source = blend;
+        while (source instanceof Blend) {
+            Blend b = (Blend) source;
+            if (!isFusable(b.getMode())) {
+                break;
+            }
+            Effect top = defaulted(b.getTopInput(), defaultInput);
+            Effect bot = defaulted(b.getBottomInput(), defaultInput);
+            boolean floodOnTop;
+            Flood flood;
+            if (top instanceof Flood) {
+                floodOnTop = true;
+                flood = (Flood) top;
+                source = bot;
+            } else if (bot instanceof Flood) {
+                floodOnTop = false;
+                flood = (Flood) bot;
+                source = top;
+            } else {
+                break;
+            }
+            Rectangle fb = getFloodBounds(flood, transform);
+            if (fb == null) {
+                break;
+            }
+            if (outputClip != null) {
+                fb.intersectWith(outputClip);
+            }
+            stages.add(new Stage(b.getMode(), b.getOpacity(), floodOnTop,
+                                 (Color) flood.getPaint(), fb));
+        }
+        if (stages.isEmpty()) {
+            return null;
+        }
+        // the planner stopped on the input of the deepest stage:
+        if (source == null) {
+            return null;
+        }
+        ImageData src = source.filter(fctx, transform, outputClip, null, defaultInput);
+        if (!src.validate(fctx)) {
+            src.unref();
+            return new ImageData(fctx, null, null);
+        }
+        if (!src.getTransform().isIdentity()) {
+            src = renderer.transform(fctx, src, src.getTransform(),
+                                     src.getUntransformedBounds(),
+                                     src.getTransformedBounds(null));
+        }
+
+        Rectangle srcBounds = src.getUntransformedBounds();
+        Rectangle dstBounds = new Rectangle(src.getTransformedBounds(outputClip));
+        for (Stage s : stages) {
+            dstBounds = Effect.combineBounds(dstBounds, s.floodBounds);
+        }
+
+        PSWDrawable srcImg = (PSWDrawable) src.getUntransformedImage();
+        PSWDrawable dstImg = renderer.getCompatibleImage(dstBounds.width, dstBounds.height);
+        if (dstImg == null) {
+            src.unref();
+            return new ImageData(fctx, null, null);
+        }
+        Stage[] chain = stages.toArray(new Stage[stages.size()]);
+        filterPixels(chain, srcImg.getPixelArray(), srcImg.getScanlineStride(), srcBounds,
+                     dstImg.getPixelArray(), dstImg.getScanlineStride(), dstBounds);
+        src.unref();
+        return new ImageData(fctx, dstImg, dstBounds);
+    }
+
+    /**
+     * Applies the stages (last stage first in the array) to the source
+     * pixels, transparent outside of srcBounds, into dstBounds.
+     */
+    static void filterPixels(Stage[] chain,
+                             int srcPixels[], int srcscan, Rectangle srcBounds,
+                             int dstPixels[], int dstscan, Rectangle dstBounds)
+    {
+        for (int dy = 0; dy < dstBounds.height; dy++) {
+            int y = dstBounds.y + dy;
+            int sy = y - srcBounds.y;
+            boolean srcRow = (sy >= 0 && sy < srcBounds.height);
+            int dstoff = dy * dstscan;
+            for (int dx = 0; dx < dstBounds.width; dx++) {
+                int x = dstBounds.x + dx;
+                int sx = x - srcBounds.x;
+                int pixel = (srcRow && sx >= 0 && sx < srcBounds.width)
+                    ? srcPixels[sy * srcscan + sx] : 0;
+                // apply the deepest stage first:
+                for (int i = chain.length - 1; i >= 0; i--) {
+                    pixel = blend(chain[i], pixel, x, y);
+                }
+                dstPixels[dstoff + dx] = pixel;
+            }
+        }
+    }
+
+    private static Effect defaulted(Effect input, Effect defaultInput) {
+        return (input == null) ? defaultInput : input;
+    }
+
+    private static int blend(Stage s, int pixel, int x, int y) {
+        float pa = ((pixel >>> 24)       ) / 255f;
+        float pr = ((pixel >>  16) & 0xff) / 255f;
+        float pg = ((pixel >>   8) & 0xff) / 255f;
+        float pb = ((pixel       ) & 0xff) / 255f;
+        float fa, fr, fg, fb;
+        if (s.floodBounds.contains(x, y)) {
+            fa = s.fa;
+            fr = s.fr;
+            fg = s.fg;
+            fb = s.fb;
+        } else {
+            fa = fr = fg = fb = 0f;
+        }
+        float ta, tr, tg, tb, ba, br, bg, bb;
+        if (s.floodOnTop) {
+            ta = fa; tr = fr; tg = fg; tb = fb;
+            ba = pa; br = pr; bg = pg; bb = pb;
+        } else {
+            ta = pa; tr = pr; tg = pg; tb = pb;
+            ba = fa; br = fr; bg = fg; bb = fb;
+        }
+        float op = s.opacity;
+        ta *= op; tr *= op; tg *= op; tb *= op;
+
+        float ra, rr, rg, rb;
+        switch (s.mode) {
+            case SRC_OVER:
+                ra = ta + ba * (1f - ta);
+                rr = tr + br * (1f - ta);
+                rg = tg + bg * (1f - ta);
+                rb = tb + bb * (1f - ta);
+                break;
+            case SRC_IN:
+                ra = ta * ba;
+                rr = tr * ba;
+                rg = tg * ba;
+                rb = tb * ba;
+                break;
+            case SRC_OUT:
+                ra = ta * (1f - ba);
+                rr = tr * (1f - ba);
+                rg = tg * (1f - ba);
+                rb = tb * (1f - ba);
+                break;
+            case SRC_ATOP:
+                ra = ba;
+                rr = tr * ba + br * (1f - ta);
+                rg = tg * ba + bg * (1f - ta);
+                rb = tb * ba + bb * (1f - ta);
+                break;
+            case MULTIPLY:
+                ra = ta + ba * (1f - ta);
+                rr = tr * br + tr * (1f - ba) + br * (1f - ta);
+                rg = tg * bg + tg * (1f - ba) + bg * (1f - ta);
+                rb = tb * bb + tb * (1f - ba) + bb * (1f - ta);
+                break;
+            case SCREEN:
+                ra = ta + ba * (1f - ta);
+                rr = tr + br - tr * br;
+                rg = tg + bg - tg * bg;
+                rb = tb + bb - tb * bb;
+                break;
+            case DARKEN:
+                ra = ta + ba * (1f - ta);
+                rr = Math.min(tr + br * (1f - ta), br + tr * (1f - ba));
+                rg = Math.min(tg + bg * (1f - ta), bg + tg * (1f - ba));
+                rb = Math.min(tb + bb * (1f - ta), bb + tb * (1f - ba));
+                break;
+            case LIGHTEN:
+                ra = ta + ba * (1f - ta);
+                rr = Math.max(tr + br * (1f - ta), br + tr * (1f - ba));
+                rg = Math.max(tg + bg * (1f - ta), bg + tg * (1f - ba));
+                rb = Math.max(tb + bb * (1f - ta), bb + tb * (1f - ba));
+                break;
+            case DIFFERENCE:
+                ra = ta + ba * (1f - ta);
+                rr = tr + br - 2f * Math.min(tr * ba, br * ta);
+                rg = tg + bg - 2f * Math.min(tg * ba, bg * ta);
+                rb = tb + bb - 2f * Math.min(tb * ba, bb * ta);
+                break;
+            case EXCLUSION:
+                ra = ta + ba * (1f - ta);
+                rr = tr + br - 2f * tr * br;
+                rg = tg + bg - 2f * tg * bg;
+                rb = tb + bb - 2f * tb * bb;
+                break;
+            case ADD:
+            default:
+                ra = Math.min(1f, ta + ba);
+                rr = Math.min(1f, tr + br);
+                rg = Math.min(1f, tg + bg);
+                rb = Math.min(1f, tb + bb);
+                break;
+        }
+        ra = (ra < 0f) ? 0f : ((ra > 1f) ? 1f : ra);
+        rr = (rr < 0f) ? 0f : ((rr > ra) ? ra : rr);
+        rg = (rg < 0f) ? 0f : ((rg > ra) ? ra : rg);
+        rb = (rb < 0f) ? 0f : ((rb > ra) ? ra : rb);
+        return ((int) (ra * 255f + 0.5f) << 24) |
+               ((int) (rr * 255f + 0.5f) << 16) |
+               ((int) (rg * 255f + 0.5f) <<  8) |
+               ((int) (rb * 255f + 0.5f)      );
+    }
+}
@@ -26,6 +26,8 @@
 package com.sun.scenario.effect.impl.prism.sw;
 
 import java.lang.reflect.Constructor;
+import java.security.AccessController;
+import java.security.PrivilegedAction;
 import com.sun.glass.ui.Screen;
 import com.sun.javafx.geom.Rectangle;
 import com.sun.javafx.geom.transform.BaseTransform;
@@ -37,6 +39,8 @@ import com.sun.prism.ResourceFactory;
 import com.sun.prism.Texture;
 import com.sun.prism.Texture.Usage;
 import com.sun.prism.Texture.WrapMode;
+import com.sun.scenario.effect.Blend;
+import com.sun.scenario.effect.Effect;
 import com.sun.scenario.effect.Effect.AccelType;
 import com.sun.scenario.effect.FilterContext;
 import com.sun.scenario.effect.Filterable;
@@ -52,6 +56,14 @@ import static com.sun.scenario.effect.impl.Renderer.RendererState.*;
 
 public class PSWRenderer extends PrRenderer {
 
+    /**
+     * Use the JSWVec peers when the SSE peers are not available
+     * (-Ddecora.sw.vec=false uses the plain JSW peers).
+     */
+    @SuppressWarnings("removal")
+    private static final boolean tryVec = AccessController.doPrivileged(
+            (PrivilegedAction<Boolean>) () -> !"false".equals(System.getProperty("decora.sw.vec")));
+
     private final Screen screen;
     private final ResourceFactory resourceFactory;
     private final RendererDelegate delegate;
@@ -134,6 +146,22 @@ public class PSWRenderer extends PrRenderer {
         return ret;
     }
 
+    /**
+     * Returns a {@code JSWVec} (Java/CPU with JIT vectorized loops) renderer
+     * for the given screen.
+     *
+     * @return a {@code JSWVec} (Java/CPU) renderer
+     */
+    private synchronized static PSWRenderer createJSWVecInstance(Screen screen) {
+        PSWRenderer ret = null;
+        try {
+            Class klass = Class.forName(rootPkg + ".impl.sw.java.JSWVecRendererDelegate");
+            RendererDelegate delegate = (RendererDelegate)klass.getDeclaredConstructor().newInstance();
+            ret = new PSWRenderer(screen, delegate);
+        } catch (Throwable e) {}
+        return ret;
+    }
+
     public static Renderer createRenderer(FilterContext fctx) {
         Object ref = fctx.getReferent();
         GraphicsPipeline pipe = GraphicsPipeline.getPipeline();
@@ -142,6 +170,9 @@ public class PSWRenderer extends PrRenderer {
         }
         Screen screen = (Screen)ref;
         Renderer renderer = createSSEInstance(screen);
+        if (renderer == null && tryVec) {
+            renderer = createJSWVecInstance(screen);
+        }
         if (renderer == null) {
             renderer = createJSWInstance(screen);
         }
@@ -356,6 +387,19 @@ public class PSWRenderer extends PrRenderer {
         return dst;
     }
 
+    @Override
+    public ImageData filterFused(FilterContext fctx, Effect effect,
+                                 BaseTransform transform,
+                                 Rectangle outputClip,
+                                 Effect defaultInput)
+    {
+        if (effect instanceof Blend) {
+            return PSWPointChain.filter(this, fctx, (Blend) effect, transform,
+                                        outputClip, defaultInput);
+        }
+        return null;
+    }
+
     @Override
     public ImageData transform(FilterContext fctx, ImageData original,
                                BaseTransform transform,
@@ -83,6 +83,13 @@ public class BoxRenderState extends LinearConvolveRenderState {
         getMaxSizeForKernelSize(MAX_KERNEL_SIZE, 2),
         getMaxSizeForKernelSize(MAX_KERNEL_SIZE, 3),
     };
+    // maximum pass sizes applied at full resolution by the constructor:
+    private static final int MAX_PYRAMID_BOX_SIZES[] = {
+        getMaxSizeForKernelSize(PYRAMID_KERNEL_SIZE, 0),
+        getMaxSizeForKernelSize(PYRAMID_KERNEL_SIZE, 1),
+        getMaxSizeForKernelSize(PYRAMID_KERNEL_SIZE, 2),
+        getMaxSizeForKernelSize(PYRAMID_KERNEL_SIZE, 3),
+    };
 
     private final boolean isShadow;
     private final int blurPasses;
@@ -206,7 +213,7 @@ public class BoxRenderState extends LinearConvolveRenderState {
         double txScaleY = Math.hypot(filtertx.getMxy(), filtertx.getMyy());
         float fSizeH = (float) (hsize * txScaleX);
         float fSizeV = (float) (vsize * txScaleY);
-        int maxPassSize = MAX_BOX_SIZES[blurPasses];
+        int maxPassSize = MAX_PYRAMID_BOX_SIZES[blurPasses];
         if (fSizeH > maxPassSize) {
             txScaleX = maxPassSize / hsize;
             fSizeH = maxPassSize;
@@ -39,6 +39,8 @@ import java.nio.FloatBuffer;
  */
 public class GaussianRenderState extends LinearConvolveRenderState {
     public static final float MAX_RADIUS = (MAX_KERNEL_SIZE - 1) / 2;
+    // maximum radius applied at full resolution by the 2D blurs:
+    private static final float MAX_PYRAMID_RADIUS = (PYRAMID_KERNEL_SIZE - 1) / 2;
 
     // General variables representing the convolve operation
     private boolean isShadow;
@@ -194,14 +196,14 @@ public class GaussianRenderState extends LinearConvolveRenderState {
             this.resulttx = BaseTransform.IDENTITY_TRANSFORM;
             this.samplevectors = new float[] { 1.0f, 0.0f, 0.0f, 1.0f, 0.0f, 0.0f };
         } else {
-            if (scaledRadiusX > MAX_RADIUS) {
-                scaledRadiusX = MAX_RADIUS;
-                txScaleX = MAX_RADIUS / xradius;
+            if (scaledRadiusX > MAX_PYRAMID_RADIUS) {
+                scaledRadiusX = MAX_PYRAMID_RADIUS;
+                txScaleX = MAX_PYRAMID_RADIUS / xradius;
                 scaled = true;
             }
-            if (scaledRadiusY > MAX_RADIUS) {
-                scaledRadiusY = MAX_RADIUS;
-                txScaleY = MAX_RADIUS / yradius;
+            if (scaledRadiusY > MAX_PYRAMID_RADIUS) {
+                scaledRadiusY = MAX_PYRAMID_RADIUS;
+                txScaleY = MAX_PYRAMID_RADIUS / yradius;
                 scaled = true;
             }
             this.inputRadiusX = scaledRadiusX;
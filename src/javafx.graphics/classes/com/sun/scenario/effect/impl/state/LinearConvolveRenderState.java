@@ -60,6 +60,35 @@ public abstract class LinearConvolveRenderState implements RenderState {
     public static final int MAX_COMPILED_KERNEL_SIZE = 128;
     public static final int MAX_KERNEL_SIZE;
 
+    /**
+     * The maximum radius (in pixels) of the Gaussian and box blurs and
+     * shadows applied at full resolution in the multi-resolution mode
+     * (enabled by -Ddecora.blur.pyramidRadius=<int>, 0 by default).
+     * Larger blurs are applied to inputs rendered at a smaller scale so that
+     * their device radius does not exceed this value, and their result is
+     * scaled back with linear filtering, so the cost stays roughly constant
+     * as the radius grows.
+     * For inputs rendered at the requested scale (such as the shapes of a
+     * node), measured along an axis on 8-bit edges, lines and noise, the
+     * 8-bit Gaussian result is within 5 levels (of 255) of the exact kernel
+     * with a radius of 8 and within 4 levels with 16 or 32, against 2 levels
+     * at full resolution; the results of up to 3 box passes of up to 127
+     * pixels are within 7 levels, like at full resolution.
+     * The bound does not hold for images, which are minified with linear
+     * filtering and alias their details at the smaller scale.
+     * When disabled, the inputs are only scaled down above MAX_KERNEL_SIZE.
+     */
+    public static final int PYRAMID_RADIUS;
+
+    /**
+     * The maximum kernel size applied at full resolution: MAX_KERNEL_SIZE or
+     * the kernel size of PYRAMID_RADIUS if the multi-resolution mode is
+     * enabled.
+     */
+    public static final int PYRAMID_KERNEL_SIZE;
+
+    private static final int MIN_PYRAMID_RADIUS = 4;
+
     static final float MIN_EFFECT_RADIUS = 1.0f / 256.0f;
 
     static final float[] BLACK_COMPONENTS =
@@ -81,6 +110,20 @@ public abstract class LinearConvolveRenderState implements RenderState {
             size = MAX_COMPILED_KERNEL_SIZE;
         }
         MAX_KERNEL_SIZE = size;
+
+        @SuppressWarnings("removal")
+        int radius = AccessController.doPrivileged(
+                (PrivilegedAction<Integer>) () -> Integer.getInteger(
+                        "decora.blur.pyramidRadius", 0));
+        if (radius > 0) {
+            radius = Math.max(MIN_PYRAMID_RADIUS,
+                              Math.min(radius, (MAX_KERNEL_SIZE - 1) / 2));
+            PYRAMID_RADIUS = radius;
+            PYRAMID_KERNEL_SIZE = (radius * 2) + 1;
+        } else {
+            PYRAMID_RADIUS = 0;
+            PYRAMID_KERNEL_SIZE = MAX_KERNEL_SIZE;
+        }
     }
 
     public enum PassType {
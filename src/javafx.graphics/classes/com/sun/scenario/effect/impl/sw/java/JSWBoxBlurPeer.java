@@ -117,36 +117,38 @@ public class JSWBoxBlurPeer extends JSWEffectPeer<BoxRenderState> {
     {
         int hsize = dstw - srcw + 1;
         int kscale = 0x7fffffff / (hsize * 255);
-        int srcoff = 0;
-        int dstoff = 0;
-        for (int y = 0; y < dsth; y++) {
-            int suma = 0;
-            int sumr = 0;
-            int sumg = 0;
-            int sumb = 0;
-            for (int x = 0; x < dstw; x++) {
-                int rgb;
-                // Un-accumulate the data for col-hsize location into the sums.
-                rgb = (x >= hsize) ? srcPixels[srcoff + x - hsize] : 0;
-                suma -= (rgb >>> 24);
-                sumr -= (rgb >>  16) & 0xff;
-                sumg -= (rgb >>   8) & 0xff;
-                sumb -= (rgb       ) & 0xff;
-                // Accumulate the data for this col location into the sums.
-                rgb = (x < srcw) ? srcPixels[srcoff + x] : 0;
-                suma += (rgb >>> 24);
-                sumr += (rgb >>  16) & 0xff;
-                sumg += (rgb >>   8) & 0xff;
-                sumb += (rgb       ) & 0xff;
-                dstPixels[dstoff + x] =
-                    (((suma * kscale) >> 23) << 24) +
-                    (((sumr * kscale) >> 23) << 16) +
-                    (((sumg * kscale) >> 23) <<  8) +
-                    (((sumb * kscale) >> 23)      );
+        filterLines(dsth, dstw, (start, end) -> {
+            int srcoff = start * srcscan;
+            int dstoff = start * dstscan;
+            for (int y = start; y < end; y++) {
+                int suma = 0;
+                int sumr = 0;
+                int sumg = 0;
+                int sumb = 0;
+                for (int x = 0; x < dstw; x++) {
+                    int rgb;
+                    // Un-accumulate the data for col-hsize location into the sums.
+                    rgb = (x >= hsize) ? srcPixels[srcoff + x - hsize] : 0;
+                    suma -= (rgb >>> 24);
+                    sumr -= (rgb >>  16) & 0xff;
+                    sumg -= (rgb >>   8) & 0xff;
+                    sumb -= (rgb       ) & 0xff;
+                    // Accumulate the data for this col location into the sums.
+                    rgb = (x < srcw) ? srcPixels[srcoff + x] : 0;
+                    suma += (rgb >>> 24);
+                    sumr += (rgb >>  16) & 0xff;
+                    sumg += (rgb >>   8) & 0xff;
+                    sumb += (rgb       ) & 0xff;
+                    dstPixels[dstoff + x] =
+                        (((suma * kscale) >> 23) << 24) +
+                        (((sumr * kscale) >> 23) << 16) +
+                        (((sumg * kscale) >> 23) <<  8) +
+                        (((sumb * kscale) >> 23)      );
+                }
+                srcoff += srcscan;
+                dstoff += dstscan;
             }
-            srcoff += srcscan;
-            dstoff += dstscan;
-        }
+        });
     }
 
     protected void filterVertical(int dstPixels[], int dstw, int dsth, int dstscan,
@@ -155,36 +157,38 @@ public class JSWBoxBlurPeer extends JSWEffectPeer<BoxRenderState> {
         int vsize = dsth - srch + 1;
         int kscale = 0x7fffffff / (vsize * 255);
         int voff = vsize * srcscan;
-        for (int x = 0; x < dstw; x++) {
-            int suma = 0;
-            int sumr = 0;
-            int sumg = 0;
-            int sumb = 0;
-            int srcoff = x;
-            int dstoff = x;
-            for (int y = 0; y < dsth; y++) {
-                int rgb;
-                // Un-accumulate the data for row-vsize location into the sums.
-                rgb = (srcoff >= voff) ? srcPixels[srcoff - voff] : 0;
-                suma -= (rgb >>> 24);
-                sumr -= (rgb >>  16) & 0xff;
-                sumg -= (rgb >>   8) & 0xff;
-                sumb -= (rgb       ) & 0xff;
-                // Accumulate the data for this row location into the sums.
-                rgb = (y < srch) ? srcPixels[srcoff] : 0;
-                suma += (rgb >>> 24);
-                sumr += (rgb >>  16) & 0xff;
-                sumg += (rgb >>   8) & 0xff;
-                sumb += (rgb       ) & 0xff;
-                dstPixels[dstoff] =
-                    (((suma * kscale) >> 23) << 24) +
-                    (((sumr * kscale) >> 23) << 16) +
-                    (((sumg * kscale) >> 23) <<  8) +
-                    (((sumb * kscale) >> 23)      );
-                srcoff += srcscan;
-                dstoff += dstscan;
+        filterLines(dstw, dsth, (start, end) -> {
+            for (int x = start; x < end; x++) {
+                int suma = 0;
+                int sumr = 0;
+                int sumg = 0;
+                int sumb = 0;
+                int srcoff = x;
+                int dstoff = x;
+                for (int y = 0; y < dsth; y++) {
+                    int rgb;
+                    // Un-accumulate the data for row-vsize location into the sums.
+                    rgb = (srcoff >= voff) ? srcPixels[srcoff - voff] : 0;
+                    suma -= (rgb >>> 24);
+                    sumr -= (rgb >>  16) & 0xff;
+                    sumg -= (rgb >>   8) & 0xff;
+                    sumb -= (rgb       ) & 0xff;
+                    // Accumulate the data for this row location into the sums.
+                    rgb = (y < srch) ? srcPixels[srcoff] : 0;
+                    suma += (rgb >>> 24);
+                    sumr += (rgb >>  16) & 0xff;
+                    sumg += (rgb >>   8) & 0xff;
+                    sumb += (rgb       ) & 0xff;
+                    dstPixels[dstoff] =
+                        (((suma * kscale) >> 23) << 24) +
+                        (((sumr * kscale) >> 23) << 16) +
+                        (((sumg * kscale) >> 23) <<  8) +
+                        (((sumb * kscale) >> 23)      );
+                    srcoff += srcscan;
+                    dstoff += dstscan;
+                }
             }
-        }
+        });
     }
 
     /*
@@ -148,31 +148,32 @@ public class JSWBoxShadowPeer extends JSWEffectPeer<BoxRenderState> {
     {
         int hsize = dstw - srcw + 1;
         // amax goes from hsize*255 to 255 as spread goes from 0 to 1
-        int amax = hsize * 255;
-        amax += (255 - amax) * spread;
+        int amax = (int) (hsize * 255 + (255 - hsize * 255) * spread);
         int kscale = 0x7fffffff / amax;
         int amin = (amax / 255);
-        int srcoff = 0;
-        int dstoff = 0;
-        for (int y = 0; y < dsth; y++) {
-            int suma = 0;
-            for (int x = 0; x < dstw; x++) {
-                int rgb;
-                // Un-accumulate the data for col-hsize location into the sums.
-                rgb = (x >= hsize) ? srcPixels[srcoff + x - hsize] : 0;
-                suma -= (rgb >>> 24);
-                // Accumulate the data for this col location into the sums.
-                rgb = (x < srcw) ? srcPixels[srcoff + x] : 0;
-                suma += (rgb >>> 24);
-                // Clamp, scale and convert the sum into a color.
-                dstPixels[dstoff + x] =
-                    ((suma < amin) ? 0
-                     : ((suma >= amax) ? 0xff000000
-                        : (((suma * kscale) >> 23) << 24)));
+        filterLines(dsth, dstw, (start, end) -> {
+            int srcoff = start * srcscan;
+            int dstoff = start * dstscan;
+            for (int y = start; y < end; y++) {
+                int suma = 0;
+                for (int x = 0; x < dstw; x++) {
+                    int rgb;
+                    // Un-accumulate the data for col-hsize location into the sums.
+                    rgb = (x >= hsize) ? srcPixels[srcoff + x - hsize] : 0;
+                    suma -= (rgb >>> 24);
+                    // Accumulate the data for this col location into the sums.
+                    rgb = (x < srcw) ? srcPixels[srcoff + x] : 0;
+                    suma += (rgb >>> 24);
+                    // Clamp, scale and convert the sum into a color.
+                    dstPixels[dstoff + x] =
+                        ((suma < amin) ? 0
+                         : ((suma >= amax) ? 0xff000000
+                            : (((suma * kscale) >> 23) << 24)));
+                }
+                srcoff += srcscan;
+                dstoff += dstscan;
             }
-            srcoff += srcscan;
-            dstoff += dstscan;
-        }
+        });
     }
 
     protected void filterVerticalBlack(int dstPixels[], int dstw, int dsth, int dstscan,
@@ -181,32 +182,33 @@ public class JSWBoxShadowPeer extends JSWEffectPeer<BoxRenderState> {
     {
         int vsize = dsth - srch + 1;
         // amax goes from hsize*255 to 255 as spread goes from 0 to 1
-        int amax = vsize * 255;
-        amax += (255 - amax) * spread;
+        int amax = (int) (vsize * 255 + (255 - vsize * 255) * spread);
         int kscale = 0x7fffffff / amax;
         int amin = (amax / 255);
         int voff = vsize * srcscan;
-        for (int x = 0; x < dstw; x++) {
-            int suma = 0;
-            int srcoff = x;
-            int dstoff = x;
-            for (int y = 0; y < dsth; y++) {
-                int rgb;
-                // Un-accumulate the data for row-vsize location into the sums.
-                rgb = (srcoff >= voff) ? srcPixels[srcoff - voff] : 0;
-                suma -= (rgb >>> 24);
-                // Accumulate the data for this row location into the sums.
-                rgb = (y < srch) ? srcPixels[srcoff] : 0;
-                suma += (rgb >>> 24);
-                // Clamp, scale and convert the sum into a color.
-                dstPixels[dstoff] =
-                    ((suma < amin) ? 0
-                     : ((suma >= amax) ? 0xff000000
-                        : (((suma * kscale) >> 23) << 24)));
-                srcoff += srcscan;
-                dstoff += dstscan;
+        filterLines(dstw, dsth, (start, end) -> {
+            for (int x = start; x < end; x++) {
+                int suma = 0;
+                int srcoff = x;
+                int dstoff = x;
+                for (int y = 0; y < dsth; y++) {
+                    int rgb;
+                    // Un-accumulate the data for row-vsize location into the sums.
+                    rgb = (srcoff >= voff) ? srcPixels[srcoff - voff] : 0;
+                    suma -= (rgb >>> 24);
+                    // Accumulate the data for this row location into the sums.
+                    rgb = (y < srch) ? srcPixels[srcoff] : 0;
+                    suma += (rgb >>> 24);
+                    // Clamp, scale and convert the sum into a color.
+                    dstPixels[dstoff] =
+                        ((suma < amin) ? 0
+                         : ((suma >= amax) ? 0xff000000
+                            : (((suma * kscale) >> 23) << 24)));
+                    srcoff += srcscan;
+                    dstoff += dstscan;
+                }
             }
-        }
+        });
     }
 
     protected void filterVertical(int dstPixels[], int dstw, int dsth, int dstscan,
@@ -215,13 +217,12 @@ public class JSWBoxShadowPeer extends JSWEffectPeer<BoxRenderState> {
     {
         int vsize = dsth - srch + 1;
         // amax goes from hsize*255 to 255 as spread goes from 0 to 1
-        int amax = vsize * 255;
-        amax += (255 - amax) * spread;
-        int kscalea = 0x7fffffff / amax;
-        int kscaler = (int) (kscalea * shadowColor[0]);
-        int kscaleg = (int) (kscalea * shadowColor[1]);
-        int kscaleb = (int) (kscalea * shadowColor[2]);
-        kscalea *= shadowColor[3];
+        int amax = (int) (vsize * 255 + (255 - vsize * 255) * spread);
+        int kscale = 0x7fffffff / amax;
+        int kscaler = (int) (kscale * shadowColor[0]);
+        int kscaleg = (int) (kscale * shadowColor[1]);
+        int kscaleb = (int) (kscale * shadowColor[2]);
+        int kscalea = (int) (kscale * shadowColor[3]);
         int amin = (amax / 255);
         int voff = vsize * srcscan;
         int shadowRGB =
@@ -229,30 +230,32 @@ public class JSWBoxShadowPeer extends JSWEffectPeer<BoxRenderState> {
             (((int) (shadowColor[1] * 255)) <<  8) |
             (((int) (shadowColor[2] * 255))      ) |
             (((int) (shadowColor[3] * 255)) << 24);
-        for (int x = 0; x < dstw; x++) {
-            int suma = 0;
-            int srcoff = x;
-            int dstoff = x;
-            for (int y = 0; y < dsth; y++) {
-                int rgb;
-                // Un-accumulate the data for row-vsize location into the sums.
-                rgb = (srcoff >= voff) ? srcPixels[srcoff - voff] : 0;
-                suma -= (rgb >>> 24);
-                // Accumulate the data for this row location into the sums.
-                rgb = (y < srch) ? srcPixels[srcoff] : 0;
-                suma += (rgb >>> 24);
-                // Clamp, scale and convert the sum into a color.
-                dstPixels[dstoff] =
-                    ((suma < amin) ? 0
-                     : ((suma >= amax) ? shadowRGB
-                        : ((((suma * kscalea) >> 23) << 24) |
-                           (((suma * kscaler) >> 23) << 16) |
-                           (((suma * kscaleg) >> 23) <<  8) |
-                           (((suma * kscaleb) >> 23)      ))));
-                srcoff += srcscan;
-                dstoff += dstscan;
+        filterLines(dstw, dsth, (start, end) -> {
+            for (int x = start; x < end; x++) {
+                int suma = 0;
+                int srcoff = x;
+                int dstoff = x;
+                for (int y = 0; y < dsth; y++) {
+                    int rgb;
+                    // Un-accumulate the data for row-vsize location into the sums.
+                    rgb = (srcoff >= voff) ? srcPixels[srcoff - voff] : 0;
+                    suma -= (rgb >>> 24);
+                    // Accumulate the data for this row location into the sums.
+                    rgb = (y < srch) ? srcPixels[srcoff] : 0;
+                    suma += (rgb >>> 24);
+                    // Clamp, scale and convert the sum into a color.
+                    dstPixels[dstoff] =
+                        ((suma < amin) ? 0
+                         : ((suma >= amax) ? shadowRGB
+                            : ((((suma * kscalea) >> 23) << 24) |
+                               (((suma * kscaler) >> 23) << 16) |
+                               (((suma * kscaleg) >> 23) <<  8) |
+                               (((suma * kscaleb) >> 23)      ))));
+                    srcoff += srcscan;
+                    dstoff += dstscan;
+                }
             }
-        }
+        });
     }
 
     /*
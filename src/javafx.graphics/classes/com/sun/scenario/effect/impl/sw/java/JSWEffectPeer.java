@@ -32,15 +32,63 @@ import com.sun.scenario.effect.impl.state.RenderState;
 
 public abstract class JSWEffectPeer<T extends RenderState> extends EffectPeer<T> {
 
+    private JSWFilterExecutor executor = JSWFilterExecutor.DEFAULT;
+
     protected JSWEffectPeer(FilterContext fctx, Renderer r, String uniqueName) {
         super(fctx, r, uniqueName);
     }
 
+    /**
+     * Sets the executor of the passes of this peer (tests).
+     */
+    void setExecutor(JSWFilterExecutor executor) {
+        this.executor = executor;
+    }
+
     protected final static int FVALS_A = 3;
     protected final static int FVALS_R = 0;
     protected final static int FVALS_G = 1;
     protected final static int FVALS_B = 2;
 
+    /**
+     * Filters the lines [start, end[ (rows or columns) of a pass; the
+     * lines of different ranges must write disjoint destination pixels.
+     */
+    protected interface LineFilter {
+        void filter(int start, int end);
+    }
+
+    /**
+     * Filters the lines [0, lines[ of a pass, split in ranges filtered
+     * concurrently when the pass is large (see JSWFilterExecutor).
+     *
+     * @param lines number of lines (rows or columns)
+     * @param length number of pixels per line
+     */
+    protected final void filterLines(int lines, int length, LineFilter filter) {
+        if (executor.isParallel(lines, length)) {
+            executor.filter(lines, filter);
+        } else {
+            filter.filter(0, lines);
+        }
+    }
+
+    /**
+     * Returns a scratch array of the current thread of at least the given
+     * length (its content is undefined).
+     */
+    protected static float[] getScratch(int length) {
+        return JSWFilterExecutor.getScratch(length);
+    }
+
+    /**
+     * Returns an int scratch array of the current thread of at least the
+     * given length (its content is undefined).
+     */
+    protected static int[] getIntScratch(int length) {
+        return JSWFilterExecutor.getIntScratch(length);
+    }
+
     protected final void laccum(int pixel, float mul, float fvals[]) {
         mul /= 255f;
         fvals[FVALS_R] += ((pixel >>  16) & 0xff) * mul;
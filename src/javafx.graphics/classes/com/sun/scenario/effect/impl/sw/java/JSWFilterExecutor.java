@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package com.sun.scenario.effect.impl.sw.java;
+
+import com.sun.javafx.util.ForkJoinExecutor;
+import java.security.AccessController;
+import java.security.PrivilegedAction;
+
+/**
+ * Parallel filtering of the passes of the Java SW effect peers
+ * (enabled by -Ddecora.sw.parallel=true).
+ *
+ * A pass (rows or columns of a blur or shadow) of at least
+ * decora.sw.parallel.minPixels pixels is split in ranges of lines filtered
+ * concurrently by a pool of decora.sw.parallel.threads workers. Every line
+ * is computed by the same code as the single-threaded peer, so the output is
+ * exactly the same, and the calling thread waits for all the ranges.
+ */
+final class JSWFilterExecutor {
+
+    static final boolean ENABLED;
+    private static final int THREADS;
+    private static final long MIN_PIXELS;
+
+    // minimum number of lines per range:
+    private static final int MIN_LINES = 16;
+    // max ranges per thread to balance the load:
+    private static final int RANGES_PER_THREAD = 2;
+
+    static {
+        @SuppressWarnings("removal")
+        final long[] settings = AccessController.doPrivileged(
+            (PrivilegedAction<long[]>) () -> new long[] {
+                Boolean.getBoolean("decora.sw.parallel") ? 1L : 0L,
+                Integer.getInteger("decora.sw.parallel.threads",
+                                   Runtime.getRuntime().availableProcessors()),
+                Long.getLong("decora.sw.parallel.minPixels", 64L * 1024L)
+            });
+        THREADS = (int) Math.max(1L, Math.min(settings[1], 256L));
+        MIN_PIXELS = Math.max(0L, settings[2]);
+        ENABLED = (settings[0] != 0L) && (THREADS > 1);
+    }
+
+    private static final ForkJoinExecutor EXECUTOR
+        = new ForkJoinExecutor("Decora SW Filter", THREADS);
+
+    // executors filtering the large passes sequentially or in parallel:
+    static final JSWFilterExecutor SERIAL = new JSWFilterExecutor(false);
+    static final JSWFilterExecutor PARALLEL = new JSWFilterExecutor(true);
+
+    // executor of the peers:
+    static final JSWFilterExecutor DEFAULT = ENABLED ? PARALLEL : SERIAL;
+
+    private static final ThreadLocal<float[]> SCRATCH =
+        ThreadLocal.withInitial(() -> new float[64]);
+    private static final ThreadLocal<int[]> INT_SCRATCH =
+        ThreadLocal.withInitial(() -> new int[64]);
+
+    private final boolean parallel;
+
+    private JSWFilterExecutor(boolean parallel) {
+        this.parallel = parallel;
+    }
+
+    /**
+     * Returns true if the given pass should be filtered in parallel
+     * @param lines number of lines (rows or columns)
+     * @param length number of pixels per line
+     */
+    boolean isParallel(int lines, int length) {
+        return parallel && (lines >= 2 * MIN_LINES)
+            && ((long) lines * length >= MIN_PIXELS);
+    }
+
+    /**
+     * Filters the lines [0, lines[ in ranges and waits for completion
+     */
+    void filter(int lines, JSWEffectPeer.LineFilter filter) {
+        EXECUTOR.invokeRanges(0, lines, MIN_LINES, THREADS * RANGES_PER_THREAD,
+                              filter::filter);
+    }
+
+    /**
+     * Returns the scratch array of the current thread (pooled per thread),
+     * of at least the given length and not cleared
+     */
+    static float[] getScratch(int length) {
+        float[] scratch = SCRATCH.get();
+        if (scratch.length < length) {
+            scratch = new float[length];
+            SCRATCH.set(scratch);
+        }
+        return scratch;
+    }
+
+    /**
+     * Returns the int scratch array of the current thread (pooled per
+     * thread), of at least the given length and not cleared
+     */
+    static int[] getIntScratch(int length) {
+        int[] scratch = INT_SCRATCH.get();
+        if (scratch.length < length) {
+            scratch = new int[length];
+            INT_SCRATCH.set(scratch);
+        }
+        return scratch;
+    }
+}
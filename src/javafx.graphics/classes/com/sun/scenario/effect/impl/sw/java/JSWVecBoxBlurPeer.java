@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package com.sun.scenario.effect.impl.sw.java;
+
+import java.util.Arrays;
+import com.sun.scenario.effect.FilterContext;
+import com.sun.scenario.effect.impl.Renderer;
+
+/**
+ * Box blur peer of the JSWVec renderer delegate: the vertical passes are
+ * computed row by row with a running sum per column (A, R, G, B planes)
+ * instead of walking down each column of the image. The inner loops are
+ * simple array loops that HotSpot vectorizes (SSE, AVX or NEON) and the
+ * rows are read sequentially; the integer results are the same as
+ * JSWBoxBlurPeer.
+ */
+public class JSWVecBoxBlurPeer extends JSWBoxBlurPeer {
+
+    public JSWVecBoxBlurPeer(FilterContext fctx, Renderer r, String uniqueName) {
+        super(fctx, r, uniqueName);
+    }
+
+    @Override
+    protected void filterVertical(int dstPixels[], int dstw, int dsth, int dstscan,
+                                  int srcPixels[], int srcw, int srch, int srcscan)
+    {
+        int vsize = dsth - srch + 1;
+        int kscale = 0x7fffffff / (vsize * 255);
+        filterLines(dstw, dsth, (start, end) -> {
+            int w = end - start;
+            int sums[] = getIntScratch(w * 4);
+            Arrays.fill(sums, 0, w * 4, 0);
+            int dstoff = start;
+            for (int y = 0; y < dsth; y++) {
+                if (y >= vsize) {
+                    // Un-accumulate the data for row y-vsize into the sums.
+                    subRow(sums, w, srcPixels, (y - vsize) * srcscan + start);
+                }
+                if (y < srch) {
+                    // Accumulate the data for row y into the sums.
+                    addRow(sums, w, srcPixels, y * srcscan + start);
+                }
+                for (int i = 0; i < w; i++) {
+                    dstPixels[dstoff + i] =
+                        (((sums[i]         * kscale) >> 23) << 24) +
+                        (((sums[i + w]     * kscale) >> 23) << 16) +
+                        (((sums[i + w * 2] * kscale) >> 23) <<  8) +
+                        (((sums[i + w * 3] * kscale) >> 23)      );
+                }
+                dstoff += dstscan;
+            }
+        });
+    }
+
+    private static void addRow(int sums[], int w, int srcPixels[], int srcoff) {
+        for (int i = 0; i < w; i++) {
+            sums[i] += srcPixels[srcoff + i] >>> 24;
+        }
+        for (int i = 0; i < w; i++) {
+            sums[i + w] += (srcPixels[srcoff + i] >> 16) & 0xff;
+        }
+        for (int i = 0; i < w; i++) {
+            sums[i + w * 2] += (srcPixels[srcoff + i] >> 8) & 0xff;
+        }
+        for (int i = 0; i < w; i++) {
+            sums[i + w * 3] += srcPixels[srcoff + i] & 0xff;
+        }
+    }
+
+    private static void subRow(int sums[], int w, int srcPixels[], int srcoff) {
+        for (int i = 0; i < w; i++) {
+            sums[i] -= srcPixels[srcoff + i] >>> 24;
+        }
+        for (int i = 0; i < w; i++) {
+            sums[i + w] -= (srcPixels[srcoff + i] >> 16) & 0xff;
+        }
+        for (int i = 0; i < w; i++) {
+            sums[i + w * 2] -= (srcPixels[srcoff + i] >> 8) & 0xff;
+        }
+        for (int i = 0; i < w; i++) {
+            sums[i + w * 3] -= srcPixels[srcoff + i] & 0xff;
+        }
+    }
+}
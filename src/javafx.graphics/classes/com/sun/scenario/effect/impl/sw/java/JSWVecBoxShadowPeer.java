@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package com.sun.scenario.effect.impl.sw.java;
+
+import java.util.Arrays;
+import com.sun.scenario.effect.FilterContext;
+import com.sun.scenario.effect.impl.Renderer;
+
+/**
+ * Box shadow peer of the JSWVec renderer delegate: the vertical passes are
+ * computed row by row with a running alpha sum per column (see
+ * JSWVecBoxBlurPeer); the results are the same as JSWBoxShadowPeer.
+ */
+public class JSWVecBoxShadowPeer extends JSWBoxShadowPeer {
+
+    public JSWVecBoxShadowPeer(FilterContext fctx, Renderer r, String uniqueName) {
+        super(fctx, r, uniqueName);
+    }
+
+    @Override
+    protected void filterVerticalBlack(int dstPixels[], int dstw, int dsth, int dstscan,
+                                       int srcPixels[], int srcw, int srch, int srcscan,
+                                       float spread)
+    {
+        int vsize = dsth - srch + 1;
+        // amax goes from vsize*255 to 255 as spread goes from 0 to 1
+        int amax = (int) (vsize * 255 + (255 - vsize * 255) * spread);
+        int kscale = 0x7fffffff / amax;
+        int amin = (amax / 255);
+        filterLines(dstw, dsth, (start, end) -> {
+            int w = end - start;
+            int sums[] = getIntScratch(w);
+            Arrays.fill(sums, 0, w, 0);
+            int dstoff = start;
+            for (int y = 0; y < dsth; y++) {
+                accumulateRow(sums, w, srcPixels, srcscan, start, y, vsize, srch);
+                for (int i = 0; i < w; i++) {
+                    int suma = sums[i];
+                    // Clamp, scale and convert the sum into a color.
+                    dstPixels[dstoff + i] =
+                        ((suma < amin) ? 0
+                         : ((suma >= amax) ? 0xff000000
+                            : (((suma * kscale) >> 23) << 24)));
+                }
+                dstoff += dstscan;
+            }
+        });
+    }
+
+    @Override
+    protected void filterVertical(int dstPixels[], int dstw, int dsth, int dstscan,
+                                  int srcPixels[], int srcw, int srch, int srcscan,
+                                  float spread, float shadowColor[])
+    {
+        int vsize = dsth - srch + 1;
+        // amax goes from vsize*255 to 255 as spread goes from 0 to 1
+        int amax = (int) (vsize * 255 + (255 - vsize * 255) * spread);
+        int kscale = 0x7fffffff / amax;
+        int kscaler = (int) (kscale * shadowColor[0]);
+        int kscaleg = (int) (kscale * shadowColor[1]);
+        int kscaleb = (int) (kscale * shadowColor[2]);
+        int kscalea = (int) (kscale * shadowColor[3]);
+        int amin = (amax / 255);
+        int shadowRGB =
+            (((int) (shadowColor[0] * 255)) << 16) |
+            (((int) (shadowColor[1] * 255)) <<  8) |
+            (((int) (shadowColor[2] * 255))      ) |
+            (((int) (shadowColor[3] * 255)) << 24);
+        filterLines(dstw, dsth, (start, end) -> {
+            int w = end - start;
+            int sums[] = getIntScratch(w);
+            Arrays.fill(sums, 0, w, 0);
+            int dstoff = start;
+            for (int y = 0; y < dsth; y++) {
+                accumulateRow(sums, w, srcPixels, srcscan, start, y, vsize, srch);
+                for (int i = 0; i < w; i++) {
+                    int suma = sums[i];
+                    // Clamp, scale and convert the sum into a color.
+                    dstPixels[dstoff + i] =
+                        ((suma < amin) ? 0
+                         : ((suma >= amax) ? shadowRGB
+                            : ((((suma * kscalea) >> 23) << 24) |
+                               (((suma * kscaler) >> 23) << 16) |
+                               (((suma * kscaleg) >> 23) <<  8) |
+                               (((suma * kscaleb) >> 23)      ))));
+                }
+                dstoff += dstscan;
+            }
+        });
+    }
+
+    /**
+     * Updates the alpha sums of the columns [x0, x0+w[ for the row y
+     */
+    private static void accumulateRow(int sums[], int w,
+                                      int srcPixels[], int srcscan,
+                                      int x0, int y, int vsize, int srch)
+    {
+        if (y >= vsize) {
+            // Un-accumulate the data for row y-vsize into the sums.
+            int srcoff = (y - vsize) * srcscan + x0;
+            for (int i = 0; i < w; i++) {
+                sums[i] -= srcPixels[srcoff + i] >>> 24;
+            }
+        }
+        if (y < srch) {
+            // Accumulate the data for row y into the sums.
+            int srcoff = y * srcscan + x0;
+            for (int i = 0; i < w; i++) {
+                sums[i] += srcPixels[srcoff + i] >>> 24;
+            }
+        }
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package com.sun.scenario.effect.impl.sw.java;
+
+import java.util.Arrays;
+import com.sun.scenario.effect.FilterContext;
+import com.sun.scenario.effect.impl.Renderer;
+
+/**
+ * Linear convolve peer of the JSWVec renderer delegate: the untransformed
+ * passes (unit steps along the destination rows and columns) are computed
+ * row by row, accumulating every kernel tap and bilinear corner over a whole
+ * row in float A, R, G, B planes with simple array loops that HotSpot
+ * vectorizes. The sums are accumulated in the same order as
+ * JSWLinearConvolvePeer, so the results are the same except for rounding
+ * differences of the sample positions (the fractional offsets of a tap are
+ * constant along a row instead of being accumulated pixel by pixel).
+ * Transformed passes use the JSW implementation.
+ */
+public class JSWVecLinearConvolvePeer extends JSWLinearConvolvePeer {
+
+    public JSWVecLinearConvolvePeer(FilterContext fctx, Renderer r, String uniqueName) {
+        super(fctx, r, uniqueName);
+    }
+
+    /**
+     * Returns true if the destination pixels step by one source pixel along
+     * both axes (the fractional sample offsets are constant)
+     */
+    static boolean isUnitStep(float dxcol, float dycol, float dxrow, float dyrow) {
+        return (dycol == 0f) && (dxrow == 0f)
+            && (Math.abs(dxcol - 1f) <= 4f * Math.ulp(1f))
+            && (Math.abs(dyrow - 1f) <= 4f * Math.ulp(1f));
+    }
+
+    @Override
+    protected void filterVector(int dstPixels[], int dstw, int dsth, int dstscan,
+                                int srcPixels[], int srcw, int srch, int srcscan,
+                                float weights[], int count,
+                                float srcx0, float srcy0,
+                                float offsetx, float offsety,
+                                float deltax, float deltay,
+                                float dxcol, float dycol, float dxrow, float dyrow)
+    {
+        if (!isUnitStep(dxcol, dycol, dxrow, dyrow)) {
+            super.filterVector(dstPixels, dstw, dsth, dstscan,
+                               srcPixels, srcw, srch, srcscan,
+                               weights, count, srcx0, srcy0,
+                               offsetx, offsety, deltax, deltay,
+                               dxcol, dycol, dxrow, dyrow);
+            return;
+        }
+        // srcxy0 point at UL corner, shift them to center of 1st dest pixel:
+        float srcxc = srcx0 + (dxrow + dxcol) * 0.5f;
+        float srcyc = srcy0 + (dyrow + dycol) * 0.5f;
+        filterLines(dsth, dstw, (start, end) -> {
+            float planes[] = getScratch(dstw * 4);
+            float srcrowy = srcyc;
+            for (int dy = 0; dy < start; dy++) {
+                srcrowy += dyrow;
+            }
+            int dstrow = start * dstscan;
+            for (int dy = start; dy < end; dy++) {
+                Arrays.fill(planes, 0, dstw * 4, 0f);
+                float sampx = srcxc + offsetx;
+                float sampy = srcrowy + offsety;
+                for (int i = 0; i < count; ++i) {
+                    // same sample as laccumsample() at the first pixel:
+                    float fpix_x = sampx + 0.5f;
+                    float fpix_y = sampy + 0.5f;
+                    int ipix_x = (int) Math.floor(fpix_x);
+                    int ipix_y = (int) Math.floor(fpix_y);
+                    fpix_x -= ipix_x;   // now fractx
+                    fpix_y -= ipix_y;   // now fracty
+                    float factor = weights[i] * 255f;
+                    float fract = fpix_x * fpix_y;
+                    // sample box from ipix_x-1,y-1 to ipix_x,y
+                    accumulate(planes, dstw, srcPixels, srcw, srch, srcscan,
+                               ipix_x, ipix_y, fract * factor);
+                    accumulate(planes, dstw, srcPixels, srcw, srch, srcscan,
+                               ipix_x - 1, ipix_y, (fpix_y - fract) * factor);
+                    accumulate(planes, dstw, srcPixels, srcw, srch, srcscan,
+                               ipix_x, ipix_y - 1, (fpix_x - fract) * factor);
+                    accumulate(planes, dstw, srcPixels, srcw, srch, srcscan,
+                               ipix_x - 1, ipix_y - 1, (1f - fpix_x - fpix_y + fract) * factor);
+                    sampx += deltax;
+                    sampy += deltay;
+                }
+                for (int dx = 0; dx < dstw; dx++) {
+                    float a = planes[dx];
+                    float r = planes[dx + dstw];
+                    float g = planes[dx + dstw * 2];
+                    float b = planes[dx + dstw * 3];
+                    dstPixels[dstrow + dx] =
+                        (((a < cmin) ? 0 : ((a > cmax) ? 255 : ((int) a))) << 24) +
+                        (((r < cmin) ? 0 : ((r > cmax) ? 255 : ((int) r))) << 16) +
+                        (((g < cmin) ? 0 : ((g > cmax) ? 255 : ((int) g))) <<  8) +
+                        (((b < cmin) ? 0 : ((b > cmax) ? 255 : ((int) b)))      );
+                }
+                srcrowy += dyrow;
+                dstrow += dstscan;
+            }
+        });
+    }
+
+    /**
+     * Accumulates the source row y, from the column x0 (first destination
+     * pixel), into the A, R, G, B planes (see laccum)
+     */
+    private static void accumulate(float planes[], int dstw,
+                                   int srcPixels[], int srcw, int srch, int srcscan,
+                                   int x0, int y, float mul)
+    {
+        if (y < 0 || y >= srch) {
+            return;
+        }
+        mul /= 255f;
+        int dxmin = Math.max(0, -x0);
+        int dxmax = Math.min(dstw, srcw - x0);
+        int srcoff = y * srcscan + x0;
+        for (int dx = dxmin; dx < dxmax; dx++) {
+            planes[dx] += (srcPixels[srcoff + dx] >>> 24) * mul;
+        }
+        for (int dx = dxmin; dx < dxmax; dx++) {
+            planes[dx + dstw] += ((srcPixels[srcoff + dx] >> 16) & 0xff) * mul;
+        }
+        for (int dx = dxmin; dx < dxmax; dx++) {
+            planes[dx + dstw * 2] += ((srcPixels[srcoff + dx] >> 8) & 0xff) * mul;
+        }
+        for (int dx = dxmin; dx < dxmax; dx++) {
+            planes[dx + dstw * 3] += (srcPixels[srcoff + dx] & 0xff) * mul;
+        }
+    }
+}
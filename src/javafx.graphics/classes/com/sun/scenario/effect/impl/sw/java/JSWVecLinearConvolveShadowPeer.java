@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package com.sun.scenario.effect.impl.sw.java;
+
+import java.util.Arrays;
+import com.sun.scenario.effect.FilterContext;
+import com.sun.scenario.effect.impl.Renderer;
+
+/**
+ * Linear convolve shadow peer of the JSWVec renderer delegate: the alpha
+ * sums of the untransformed passes are accumulated row by row (see
+ * JSWVecLinearConvolvePeer) in the same order as JSWLinearConvolveShadowPeer,
+ * so the results are the same except for rounding differences of the sample
+ * positions.
+ */
+public class JSWVecLinearConvolveShadowPeer extends JSWLinearConvolveShadowPeer {
+
+    public JSWVecLinearConvolveShadowPeer(FilterContext fctx, Renderer r, String uniqueName) {
+        super(fctx, r, uniqueName);
+    }
+
+    @Override
+    protected void filterVector(int dstPixels[], int dstw, int dsth, int dstscan,
+                                int srcPixels[], int srcw, int srch, int srcscan,
+                                float weights[], int count,
+                                float srcx0, float srcy0,
+                                float offsetx, float offsety,
+                                float deltax, float deltay,
+                                float dxcol, float dycol, float dxrow, float dyrow)
+    {
+        if (!JSWVecLinearConvolvePeer.isUnitStep(dxcol, dycol, dxrow, dyrow)) {
+            super.filterVector(dstPixels, dstw, dsth, dstscan,
+                               srcPixels, srcw, srch, srcscan,
+                               weights, count, srcx0, srcy0,
+                               offsetx, offsety, deltax, deltay,
+                               dxcol, dycol, dxrow, dyrow);
+            return;
+        }
+        float shadowColor[] = getShadowColor();
+
+        // srcxy0 point at UL corner, shift them to center of 1st dest pixel:
+        float srcxc = srcx0 + (dxrow + dxcol) * 0.5f;
+        float srcyc = srcy0 + (dyrow + dycol) * 0.5f;
+        filterLines(dsth, dstw, (start, end) -> {
+            float sums[] = getScratch(dstw);
+            float srcrowy = srcyc;
+            for (int dy = 0; dy < start; dy++) {
+                srcrowy += dyrow;
+            }
+            int dstrow = start * dstscan;
+            for (int dy = start; dy < end; dy++) {
+                Arrays.fill(sums, 0, dstw, 0f);
+                float sampx = srcxc + offsetx;
+                float sampy = srcrowy + offsety;
+                for (int i = 0; i < count; ++i) {
+                    if (sampy >= 0) {
+                        int iy = (int) sampy;
+                        if (iy < srch) {
+                            // nearest sample like the JSW peer (RT-27388):
+                            int ix0 = (int) Math.floor(sampx);
+                            int dxmin = Math.max(0, -ix0);
+                            int dxmax = Math.min(dstw, srcw - ix0);
+                            int srcoff = iy * srcscan + ix0;
+                            float weight = weights[i];
+                            for (int dx = dxmin; dx < dxmax; dx++) {
+                                sums[dx] += (srcPixels[srcoff + dx] >>> 24) * weight;
+                            }
+                        }
+                    }
+                    sampx += deltax;
+                    sampy += deltay;
+                }
+                for (int dx = 0; dx < dstw; dx++) {
+                    float sum = sums[dx];
+                    sum = (sum < 0f) ? 0f : ((sum > 255f) ? 255f : sum);
+                    dstPixels[dstrow + dx] = ((int) (shadowColor[0] * sum) << 16) |
+                                             ((int) (shadowColor[1] * sum) <<  8) |
+                                             ((int) (shadowColor[2] * sum)      ) |
+                                             ((int) (shadowColor[3] * sum) << 24);
+                }
+                srcrowy += dyrow;
+                dstrow += dstscan;
+            }
+        });
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package com.sun.scenario.effect.impl.sw.java;
+
+import com.sun.scenario.effect.impl.Renderer;
+
+/**
+ * Java renderer delegate used when the native SSE peers are not available
+ * (disabled by -Ddecora.sw.vec=false): the box blur, box shadow and linear
+ * convolve peers filter their passes row by row with loops vectorized by the
+ * JIT compiler on any architecture, the other peers are the JSW ones.
+ *
+ * The jdk.incubator.vector API needs JDK 16 or later while this module is
+ * compiled for JDK 14 (javac.source=14), so these peers only rely on the
+ * auto-vectorization of plain array loops by HotSpot (SSE/AVX, NEON).
+ */
+public class JSWVecRendererDelegate extends JSWRendererDelegate {
+
+    public JSWVecRendererDelegate() {
+    }
+
+    @Override
+    public String getPlatformPeerName(String name, int unrollCount) {
+        if ("BoxBlur".equals(name) || "BoxShadow".equals(name)
+            || "LinearConvolve".equals(name) || "LinearConvolveShadow".equals(name))
+        {
+            return Renderer.rootPkg + ".impl.sw.java.JSWVec" + name + "Peer";
+        }
+        return super.getPlatformPeerName(name, unrollCount);
+    }
+}
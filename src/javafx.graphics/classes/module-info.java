@@ -43,6 +43,8 @@ module javafx.graphics {
     requires java.desktop;
     requires java.xml;
     requires jdk.unsupported;
+    requires static java.management;
+    requires static jdk.jfr;
 
     requires transitive javafx.base;
 
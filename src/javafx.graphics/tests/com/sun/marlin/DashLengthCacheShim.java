@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package com.sun.marlin;
+
+import com.sun.javafx.util.LRUCache;
+
+public class DashLengthCacheShim {
+
+    // test instance, used by the contexts given to useCache():
+    private static LRUCache<DashLengthCache.Key, DashLengthCache.Table> cache;
+
+    /**
+     * Creates a new test cache (maxBytes > 0) or disables it
+     */
+    public static void setCacheSize(long maxBytes) {
+        cache = (maxBytes > 0L)
+            ? new LRUCache<>("DashLengthCache", maxBytes) : null;
+    }
+
+    /**
+     * Makes the given renderer context use the test cache
+     */
+    public static void useCache(RendererContext rdrCtx) {
+        DashLengthCache.setCache(rdrCtx, cache);
+    }
+
+    /**
+     * Makes the given renderer context use the shared cache again
+     */
+    public static void restoreCache(RendererContext rdrCtx) {
+        DashLengthCache.setCache(rdrCtx, DashLengthCache.CACHE);
+    }
+
+    public static long getHits() {
+        return cache.getHits();
+    }
+
+    public static long getMisses() {
+        return cache.getMisses();
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package com.sun.marlin;
+
+public class SharedArrayCacheShim {
+
+    private final SharedArrayCache cache;
+
+    /**
+     * @param name name of the cache, giving the array type (Byte, Int, Float
+     *             or Double)
+     */
+    public SharedArrayCacheShim(String name) {
+        cache = new SharedArrayCache(name);
+    }
+
+    public Object getArray(int bucket) {
+        return cache.getArray(bucket);
+    }
+
+    public void putArray(int bucket, Object array) {
+        cache.putArray(bucket, array);
+    }
+
+    public static int getArraySize(int bucket) {
+        return ArrayCacheConst.ARRAY_SIZES[bucket];
+    }
+
+    public static long getMaxBytes() {
+        return MarlinConst.SHARED_ARRAY_CACHE_SIZE;
+    }
+
+    /**
+     * Evicts the arrays of all the shared caches
+     */
+    public static void evictAll() {
+        while (SharedArrayCache.evictLarger(-1L)) {
+            // next array
+        }
+    }
+
+    public static long getUsedBytes() {
+        return SharedArrayCache.getUsedBytes();
+    }
+}
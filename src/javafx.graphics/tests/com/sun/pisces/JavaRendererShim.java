@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package com.sun.pisces;
+
+import java.nio.IntBuffer;
+
+public class JavaRendererShim {
+
+    private final JavaRenderer rdr;
+
+    public JavaRendererShim(int[] data, int width, int height, boolean tiled) {
+        rdr = new JavaRenderer(data, IntBuffer.wrap(data), width, height, tiled);
+    }
+
+    /**
+     * Return true if the Java renderer is enabled (Transform6 instances
+     * then need no native library)
+     */
+    public static boolean isEnabled() {
+        return JavaRenderer.ENABLED;
+    }
+
+    public void setColor(int red, int green, int blue, int alpha) {
+        rdr.setColor(red, green, blue, alpha);
+    }
+
+    public void setCompositeRule(int compositeRule) {
+        rdr.setCompositeRule(compositeRule);
+    }
+
+    public void setLinearGradient(int x0, int y0, int x1, int y1, int[] colors,
+                                  int cycleMethod, Transform6 gradientTransform)
+    {
+        rdr.setLinearGradient(x0, y0, x1, y1, colors, cycleMethod, gradientTransform);
+    }
+
+    public void setRadialGradient(int cx, int cy, int fx, int fy, int radius,
+                                  int[] colors, int cycleMethod,
+                                  Transform6 gradientTransform)
+    {
+        rdr.setRadialGradient(cx, cy, fx, fy, radius, colors, cycleMethod,
+                              gradientTransform);
+    }
+
+    public void setTexture(int[] data, int width, int height, int stride,
+                           Transform6 textureTransform, boolean repeat,
+                           boolean linearFiltering, boolean hasAlpha)
+    {
+        rdr.setTexture(data, width, height, stride, textureTransform, repeat,
+                       linearFiltering, hasAlpha);
+    }
+
+    public void setClip(int minX, int minY, int width, int height) {
+        rdr.setClip(minX, minY, width, height);
+    }
+
+    public void resetClip() {
+        rdr.resetClip();
+    }
+
+    public void clearRect(int x, int y, int w, int h) {
+        rdr.clearRect(x, y, w, h);
+    }
+
+    public void fillRect(int x, int y, int w, int h) {
+        rdr.fillRect(x, y, w, h);
+    }
+
+    public void emitAndClearAlphaRow(byte[] alphaMap, int[] alphaDeltas, int pix_y,
+                                     int pix_x_from, int pix_x_to, int pix_x_off)
+    {
+        rdr.emitAndClearAlphaRow(alphaMap, alphaDeltas, pix_y, pix_x_from,
+                                 pix_x_to, pix_x_off);
+    }
+
+    public void fillAlphaMask(byte[] mask, int x, int y, int w, int h,
+                              int offset, int stride)
+    {
+        rdr.fillAlphaMask(mask, x, y, w, h, offset, stride);
+    }
+
+    public void fillLCDAlphaMask(byte[] mask, int x, int y, int w, int h,
+                                 int offset, int stride)
+    {
+        rdr.fillLCDAlphaMask(mask, x, y, w, h, offset, stride);
+    }
+
+    public void drawImage(int imageMode, int[] data, int width, int height,
+                          int offset, int stride, Transform6 textureTransform,
+                          boolean repeat, boolean linearFiltering,
+                          int bboxX, int bboxY, int bboxW, int bboxH,
+                          int txMin, int tyMin, int txMax, int tyMax,
+                          boolean hasAlpha)
+    {
+        rdr.drawImage(imageMode, data, width, height, offset, stride,
+                      textureTransform, repeat, linearFiltering,
+                      bboxX, bboxY, bboxW, bboxH,
+                      RendererBase.IMAGE_FRAC_EDGE_KEEP, RendererBase.IMAGE_FRAC_EDGE_KEEP,
+                      RendererBase.IMAGE_FRAC_EDGE_KEEP, RendererBase.IMAGE_FRAC_EDGE_KEEP,
+                      txMin, tyMin, txMax, tyMax, hasAlpha);
+    }
+}
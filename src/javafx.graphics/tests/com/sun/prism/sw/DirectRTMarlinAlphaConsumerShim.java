@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package com.sun.prism.sw;
+
+import com.sun.javafx.geom.Rectangle;
+import com.sun.javafx.geom.Shape;
+import com.sun.javafx.geom.transform.BaseTransform;
+import com.sun.marlin.DMarlinRenderingEngine;
+import com.sun.marlin.MarlinRenderer;
+import com.sun.marlin.RendererContext;
+import com.sun.pisces.JavaSurface;
+import com.sun.pisces.PiscesRenderer;
+import com.sun.pisces.RendererBase;
+import com.sun.prism.BasicStroke;
+import com.sun.prism.impl.shape.DMarlinPrismUtils;
+
+public class DirectRTMarlinAlphaConsumerShim {
+
+    /**
+     * Renders the anti-aliased shape in the given INT_ARGB_PRE pixels with
+     * the given color as SWContext does for a render target.
+     *
+     * @param bandHeight number of rows of the bands or 0 to emit every row
+     */
+    public static void renderShape(int[] data, int width, int height,
+                                   int red, int green, int blue, int alpha,
+                                   Shape shape, BasicStroke stroke,
+                                   BaseTransform tx, int bandHeight)
+    {
+        final PiscesRenderer pr = new PiscesRenderer(
+                new JavaSurface(data, RendererBase.TYPE_INT_ARGB_PRE, width, height));
+        pr.setColor(red, green, blue, alpha);
+        final SWContext.DirectRTMarlinAlphaConsumer consumer =
+                new SWContext.DirectRTMarlinAlphaConsumer(bandHeight);
+        final RendererContext rdrCtx = DMarlinRenderingEngine.getRendererContext();
+        MarlinRenderer renderer = null;
+        try {
+            renderer = DMarlinPrismUtils.setupRenderer(rdrCtx, shape, stroke, tx,
+                    new Rectangle(0, 0, width, height), true);
+            final int x = renderer.getOutpixMinX();
+            final int y = renderer.getOutpixMinY();
+            final int w = renderer.getOutpixMaxX() - x;
+            final int h = renderer.getOutpixMaxY() - y;
+            if (w <= 0 || h <= 0) {
+                return;
+            }
+            consumer.initConsumer(x, y, w, h, pr, consumer.isBandingEnabled());
+            renderer.produceAlphas(consumer);
+            consumer.flush();
+        } finally {
+            if (renderer != null) {
+                renderer.dispose();
+            }
+            DMarlinRenderingEngine.returnRendererContext(rdrCtx);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package com.sun.prism.sw;
+
+import com.sun.prism.RTTexture;
+import com.sun.prism.ResourceFactory;
+import java.nio.IntBuffer;
+
+public class SWTexturePoolShim {
+
+    private final SWTexturePool pool;
+
+    /**
+     * Creates a texture pool with its own off-heap budget
+     */
+    public SWTexturePoolShim(long offHeapMaxSize, boolean offHeapMapped) {
+        pool = new SWTexturePool(offHeapMaxSize, offHeapMapped);
+    }
+
+    /**
+     * Creates a render target storing its pixels in an off-heap buffer
+     * of this pool or returns null if the pool rejects it
+     */
+    public RTTexture createOffHeapRTTexture(ResourceFactory factory, int width, int height) {
+        final IntBuffer offHeapData = pool.allocateOffHeap(width, height);
+        return (offHeapData != null)
+            ? new SWRTTexture((SWResourceFactory) factory, width, height, offHeapData)
+            : null;
+    }
+
+    public long offHeapUsed() {
+        return pool.offHeapUsed();
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package com.sun.scenario.effect.impl.prism.sw;
+
+import java.util.ArrayList;
+import com.sun.javafx.geom.Rectangle;
+import com.sun.prism.paint.Color;
+import com.sun.scenario.effect.Blend;
+
+/**
+ * Applies a chain of fused Blend and Flood stages to plain int[] images
+ * (INT_ARGB_PRE, no renderer needed).
+ */
+public class PSWPointChainShim {
+
+    // stages in application order (deepest first):
+    private final ArrayList<PSWPointChain.Stage> stages = new ArrayList<>();
+
+    public void addStage(Blend.Mode mode, float opacity, boolean floodOnTop,
+                         Color color, Rectangle floodBounds)
+    {
+        stages.add(new PSWPointChain.Stage(mode, opacity, floodOnTop, color,
+                                           new Rectangle(floodBounds)));
+    }
+
+    public void filter(int src[], int srcscan, Rectangle srcBounds,
+                       int dst[], int dstscan, Rectangle dstBounds)
+    {
+        // the chain starts with the last stage:
+        final PSWPointChain.Stage[] chain = new PSWPointChain.Stage[stages.size()];
+        for (int i = 0; i < chain.length; i++) {
+            chain[i] = stages.get(chain.length - 1 - i);
+        }
+        PSWPointChain.filterPixels(chain, src, srcscan, srcBounds, dst, dstscan, dstBounds);
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package com.sun.scenario.effect.impl.sw.java;
+
+import com.sun.scenario.effect.FilterContext;
+
+/**
+ * Calls the passes of the Java SW box and linear convolve peers on plain
+ * int[] images (INT_ARGB_PRE, no Renderer needed).
+ */
+public class JSWPeerShim {
+
+    private static final FilterContext FCTX = new FilterContext(new Object()) {};
+
+    private final JSWBoxBlurPeer boxBlur;
+    private final JSWBoxShadowPeer boxShadow;
+    private final JSWLinearConvolvePeer convolve;
+    private final JSWLinearConvolveShadowPeer convolveShadow;
+    private float[] shadowColor = {0f, 0f, 0f, 1f};
+
+    /**
+     * @param vec true to use the JSWVec peers
+     */
+    public JSWPeerShim(boolean vec) {
+        this(vec, JSWFilterExecutor.DEFAULT);
+    }
+
+    /**
+     * @param vec true to use the JSWVec peers
+     * @param parallel true to filter the large passes in parallel
+     */
+    public JSWPeerShim(boolean vec, boolean parallel) {
+        this(vec, parallel ? JSWFilterExecutor.PARALLEL : JSWFilterExecutor.SERIAL);
+    }
+
+    private JSWPeerShim(boolean vec, JSWFilterExecutor executor) {
+        boxBlur = vec ? new JSWVecBoxBlurPeer(FCTX, null, "BoxBlur")
+                      : new JSWBoxBlurPeer(FCTX, null, "BoxBlur");
+        boxShadow = vec ? new JSWVecBoxShadowPeer(FCTX, null, "BoxShadow")
+                        : new JSWBoxShadowPeer(FCTX, null, "BoxShadow");
+        convolve = vec ? new JSWVecLinearConvolvePeer(FCTX, null, "LinearConvolve")
+                       : new JSWLinearConvolvePeer(FCTX, null, "LinearConvolve");
+        convolveShadow = vec
+            ? new JSWVecLinearConvolveShadowPeer(FCTX, null, "LinearConvolveShadow") {
+                @Override
+                float[] getShadowColor() {
+                    return shadowColor;
+                }
+            }
+            : new JSWLinearConvolveShadowPeer(FCTX, null, "LinearConvolveShadow") {
+                @Override
+                float[] getShadowColor() {
+                    return shadowColor;
+                }
+            };
+        boxBlur.setExecutor(executor);
+        boxShadow.setExecutor(executor);
+        convolve.setExecutor(executor);
+        convolveShadow.setExecutor(executor);
+    }
+
+    public void boxBlurHorizontal(int dst[], int dstw, int dsth, int dstscan,
+                                  int src[], int srcw, int srch, int srcscan)
+    {
+        boxBlur.filterHorizontal(dst, dstw, dsth, dstscan, src, srcw, srch, srcscan);
+    }
+
+    public void boxBlurVertical(int dst[], int dstw, int dsth, int dstscan,
+                                int src[], int srcw, int srch, int srcscan)
+    {
+        boxBlur.filterVertical(dst, dstw, dsth, dstscan, src, srcw, srch, srcscan);
+    }
+
+    public void boxShadowHorizontalBlack(int dst[], int dstw, int dsth, int dstscan,
+                                         int src[], int srcw, int srch, int srcscan,
+                                         float spread)
+    {
+        boxShadow.filterHorizontalBlack(dst, dstw, dsth, dstscan,
+                                        src, srcw, srch, srcscan, spread);
+    }
+
+    public void boxShadowVerticalBlack(int dst[], int dstw, int dsth, int dstscan,
+                                       int src[], int srcw, int srch, int srcscan,
+                                       float spread)
+    {
+        boxShadow.filterVerticalBlack(dst, dstw, dsth, dstscan,
+                                      src, srcw, srch, srcscan, spread);
+    }
+
+    public void boxShadowVertical(int dst[], int dstw, int dsth, int dstscan,
+                                  int src[], int srcw, int srch, int srcscan,
+                                  float spread, float shadowColor[])
+    {
+        boxShadow.filterVertical(dst, dstw, dsth, dstscan,
+                                 src, srcw, srch, srcscan, spread, shadowColor);
+    }
+
+    public void convolveHV(int dst[], int dstcols, int dstrows, int dcolinc, int drowinc,
+                           int src[], int srccols, int srcrows, int scolinc, int srowinc,
+                           float weights[])
+    {
+        convolve.filterHV(dst, dstcols, dstrows, dcolinc, drowinc,
+                          src, srccols, srcrows, scolinc, srowinc, weights);
+    }
+
+    public void convolveVector(int dst[], int dstw, int dsth, int dstscan,
+                               int src[], int srcw, int srch, int srcscan,
+                               float weights[], int count,
+                               float srcx0, float srcy0,
+                               float offsetx, float offsety,
+                               float deltax, float deltay,
+                               float dxcol, float dycol, float dxrow, float dyrow)
+    {
+        convolve.filterVector(dst, dstw, dsth, dstscan, src, srcw, srch, srcscan,
+                              weights, count, srcx0, srcy0, offsetx, offsety,
+                              deltax, deltay, dxcol, dycol, dxrow, dyrow);
+    }
+
+    public void convolveShadowVector(int dst[], int dstw, int dsth, int dstscan,
+                                     int src[], int srcw, int srch, int srcscan,
+                                     float weights[], int count,
+                                     float srcx0, float srcy0,
+                                     float offsetx, float offsety,
+                                     float deltax, float deltay,
+                                     float dxcol, float dycol, float dxrow, float dyrow,
+                                     float color[])
+    {
+        shadowColor = color;
+        convolveShadow.filterVector(dst, dstw, dsth, dstscan, src, srcw, srch, srcscan,
+                                    weights, count, srcx0, srcy0, offsetx, offsety,
+                                    deltax, deltay, dxcol, dycol, dxrow, dyrow);
+    }
+}
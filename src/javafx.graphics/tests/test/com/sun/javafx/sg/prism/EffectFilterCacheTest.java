@@ -0,0 +1,294 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package test.com.sun.javafx.sg.prism;
+
+import com.sun.glass.ui.Screen;
+import com.sun.javafx.geom.RectBounds;
+import com.sun.javafx.geom.Rectangle;
+import com.sun.javafx.geom.transform.BaseTransform;
+import com.sun.javafx.sg.prism.EffectFilter;
+import com.sun.javafx.sg.prism.EffectFilterShim;
+import com.sun.javafx.sg.prism.NGGroup;
+import com.sun.prism.Graphics;
+import com.sun.prism.GraphicsPipeline;
+import com.sun.prism.RTTexture;
+import com.sun.prism.ResourceFactory;
+import com.sun.prism.Texture.WrapMode;
+import com.sun.prism.impl.PrismSettings;
+import com.sun.prism.paint.Color;
+import com.sun.scenario.effect.Effect;
+import com.sun.scenario.effect.FilterContext;
+import com.sun.scenario.effect.Flood;
+import com.sun.scenario.effect.ImageData;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Counts the filterings of an effect rendered several times through the
+ * EffectFilter of a node to check when the kept output is reused, filtered
+ * again or released. Only runs with -Dprism.effectcache.size=64k and a SW
+ * pipeline that needs no native code (-Dprism.order=sw -Dprism.pisces.java=true).
+ */
+public class EffectFilterCacheTest {
+
+    // the budget the tests are run with: 64k
+    private static final long MAX_BYTES = 64L * 1024L;
+    private static final int W = 200;
+    private static final int H = 200;
+    private static final int COLOR = 0xFF3366CC;
+
+    private static ResourceFactory factory;
+
+    private RTTexture rtt;
+    private final List<NGGroup> nodes = new ArrayList<>();
+
+    /**
+     * Flood counting its filterings.
+     */
+    private static class CountingFlood extends Flood {
+        int count;
+
+        CountingFlood(RectBounds bounds) {
+            super(new Color(0x33 / 255f, 0x66 / 255f, 0xCC / 255f, 1f), bounds);
+        }
+
+        @Override
+        public ImageData filter(FilterContext fctx, BaseTransform transform,
+                                Rectangle outputClip, Object renderHelper,
+                                Effect defaultInput)
+        {
+            count++;
+            return super.filter(fctx, transform, outputClip, renderHelper, defaultInput);
+        }
+    }
+
+    @BeforeClass
+    public static void setUpClass() {
+        assumeTrue(PrismSettings.effectCacheSize == MAX_BYTES);
+        GraphicsPipeline pipeline = GraphicsPipeline.getPipeline();
+        if (pipeline == null) {
+            pipeline = GraphicsPipeline.createPipeline();
+        }
+        assumeTrue(pipeline != null);
+        final Screen screen = new Screen(0L, 32, 0, 0, W, H, 0, 0, W, H,
+                                         0, 0, W, H, 96, 96, 1f, 1f, 1f, 1f);
+        factory = pipeline.getResourceFactory(screen);
+    }
+
+    @Before
+    public void setUp() {
+        rtt = factory.createRTTexture(W, H, WrapMode.CLAMP_TO_ZERO);
+        assertNotNull(rtt);
+        assertEquals(0L, EffectFilterShim.getUsedBytes());
+    }
+
+    @After
+    public void tearDown() {
+        // release the outputs kept by the test:
+        for (NGGroup node : nodes) {
+            node.setEffect(null);
+        }
+        nodes.clear();
+        rtt.dispose();
+    }
+
+    private NGGroup createNode(Effect effect) {
+        final NGGroup node = new NGGroup();
+        node.setEffect(effect);
+        nodes.add(node);
+        return node;
+    }
+
+    private void render(NGGroup node, BaseTransform tx, Rectangle clip) {
+        final Graphics g = rtt.createGraphics();
+        if (clip != null) {
+            g.setClipRect(clip);
+        }
+        g.setTransform(tx);
+        EffectFilterShim.render(node.getEffectFilter(), g);
+    }
+
+    private void render(NGGroup node, BaseTransform tx) {
+        render(node, tx, null);
+    }
+
+    private void render(NGGroup node) {
+        render(node, BaseTransform.IDENTITY_TRANSFORM);
+    }
+
+    private int getPixel(int x, int y) {
+        return rtt.getPixels()[y * rtt.getContentWidth() + x];
+    }
+
+    /**
+     * Renders the node until its output is kept.
+     */
+    private void renderKept(NGGroup node, CountingFlood flood, BaseTransform tx) {
+        // the first render only records the transform:
+        render(node, tx);
+        assertFalse(EffectFilterShim.hasOutput(node.getEffectFilter()));
+        final int count = flood.count;
+        render(node, tx);
+        assertEquals(count + 1, flood.count);
+        assertTrue(EffectFilterShim.hasOutput(node.getEffectFilter()));
+    }
+
+    @Test
+    public void testUnchangedReused() {
+        final CountingFlood flood = new CountingFlood(new RectBounds(10, 10, 70, 60));
+        final NGGroup node = createNode(flood);
+        renderKept(node, flood, BaseTransform.IDENTITY_TRANSFORM);
+        final int count = flood.count;
+
+        rtt.createGraphics().clear();
+        for (int i = 0; i < 3; i++) {
+            render(node);
+        }
+        assertEquals("the kept output must be reused", count, flood.count);
+        assertEquals(COLOR, getPixel(40, 30));
+        assertEquals(0, getPixel(80, 30));
+
+        // an integer translation reuses the output too, as long as the clip
+        // stays in the area of the render target it was filtered for:
+        rtt.createGraphics().clear();
+        render(node, BaseTransform.getTranslateInstance(20, 5),
+               new Rectangle(30, 30, 150, 150));
+        assertEquals(count, flood.count);
+        assertEquals(COLOR, getPixel(85, 60));
+        assertEquals(0, getPixel(95, 60));
+        assertEquals(0, getPixel(25, 60));
+    }
+
+    @Test
+    public void testEffectChangedFilteredAgain() {
+        final CountingFlood flood = new CountingFlood(new RectBounds(10, 10, 70, 60));
+        final NGGroup node = createNode(flood);
+        renderKept(node, flood, BaseTransform.IDENTITY_TRANSFORM);
+        assertTrue(EffectFilterShim.getUsedBytes() >= 4L * 60 * 50);
+
+        node.effectChanged();
+        assertFalse("the output must be released",
+                    EffectFilterShim.hasOutput(node.getEffectFilter()));
+        assertEquals(0L, EffectFilterShim.getUsedBytes());
+
+        // filtered again, and kept once the node did not change for a frame:
+        int count = flood.count;
+        render(node);
+        assertEquals("the changed effect must be filtered again", count + 1, flood.count);
+        assertFalse(EffectFilterShim.hasOutput(node.getEffectFilter()));
+        render(node);
+        assertEquals(count + 2, flood.count);
+        assertTrue(EffectFilterShim.hasOutput(node.getEffectFilter()));
+        count = flood.count;
+        render(node);
+        assertEquals(count, flood.count);
+    }
+
+    @Test
+    public void testScaleChangeFilteredAgain() {
+        final CountingFlood flood = new CountingFlood(new RectBounds(10, 10, 70, 60));
+        final NGGroup node = createNode(flood);
+        renderKept(node, flood, BaseTransform.IDENTITY_TRANSFORM);
+
+        final BaseTransform scale = BaseTransform.getScaleInstance(2, 2);
+        int count = flood.count;
+        render(node, scale);
+        assertEquals("a scaled render must filter again", count + 1, flood.count);
+        assertFalse(EffectFilterShim.hasOutput(node.getEffectFilter()));
+
+        count = flood.count;
+        render(node, scale);
+        render(node, scale);
+        assertEquals(count + 1, flood.count);
+        assertTrue(EffectFilterShim.hasOutput(node.getEffectFilter()));
+
+        // a fractional translation is a different sampling too:
+        count = flood.count;
+        render(node, BaseTransform.getScaleInstance(2, 2).deriveWithTranslation(0.25, 0));
+        assertEquals(count + 1, flood.count);
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEvicted() {
+        // each output takes 40000 bytes, so only one fits in the budget
+        final CountingFlood flood1 = new CountingFlood(new RectBounds(0, 0, 100, 100));
+        final CountingFlood flood2 = new CountingFlood(new RectBounds(100, 100, 200, 200));
+        final NGGroup node1 = createNode(flood1);
+        final NGGroup node2 = createNode(flood2);
+        renderKept(node1, flood1, BaseTransform.IDENTITY_TRANSFORM);
+        renderKept(node2, flood2, BaseTransform.IDENTITY_TRANSFORM);
+
+        assertFalse("the eldest output must be evicted",
+                    EffectFilterShim.hasOutput(node1.getEffectFilter()));
+        assertTrue(EffectFilterShim.hasOutput(node2.getEffectFilter()));
+        assertTrue(EffectFilterShim.getUsedBytes() <= MAX_BYTES);
+
+        int count = flood1.count;
+        render(node1);
+        assertEquals(count + 1, flood1.count);
+        assertTrue(EffectFilterShim.hasOutput(node1.getEffectFilter()));
+        assertFalse(EffectFilterShim.hasOutput(node2.getEffectFilter()));
+
+        // an output larger than the whole budget is not kept:
+        final CountingFlood flood3 = new CountingFlood(new RectBounds(0, 0, 200, 200));
+        final NGGroup node3 = createNode(flood3);
+        render(node3);
+        count = flood3.count;
+        render(node3);
+        render(node3);
+        assertEquals(count + 2, flood3.count);
+        assertFalse(EffectFilterShim.hasOutput(node3.getEffectFilter()));
+        assertTrue(EffectFilterShim.hasOutput(node1.getEffectFilter()));
+    }
+
+    @Test
+    public void testCollectedNodeReleased() throws InterruptedException {
+        final CountingFlood flood = new CountingFlood(new RectBounds(20, 20, 80, 80));
+        NGGroup node = createNode(flood);
+        renderKept(node, flood, BaseTransform.IDENTITY_TRANSFORM);
+        final long kept = EffectFilterShim.getUsedBytes();
+        assertTrue(kept >= 4L * 60 * 60);
+
+        nodes.clear();
+        node = null;
+        for (int i = 0; i < 50 && EffectFilterShim.getUsedBytes() == kept; i++) {
+            System.gc();
+            Thread.sleep(20);
+        }
+        assertEquals("the output of a collected node must be released",
+                     0L, EffectFilterShim.getUsedBytes());
+    }
+}
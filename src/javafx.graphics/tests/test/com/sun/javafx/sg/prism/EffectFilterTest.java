@@ -0,0 +1,281 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package test.com.sun.javafx.sg.prism;
+
+import com.sun.javafx.geom.BaseBounds;
+import com.sun.javafx.geom.DirtyRegionContainer;
+import com.sun.javafx.geom.DirtyRegionPool;
+import com.sun.javafx.geom.RectBounds;
+import com.sun.javafx.geom.Rectangle;
+import com.sun.javafx.geom.transform.BaseTransform;
+import com.sun.javafx.sg.prism.EffectFilterShim;
+import com.sun.scenario.effect.BoxBlur;
+import com.sun.scenario.effect.Effect;
+import com.sun.scenario.effect.FilterContext;
+import com.sun.scenario.effect.ImageData;
+import com.sun.scenario.effect.impl.sw.java.JSWPeerShim;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Compares a kept blur output updated by filtering again only the areas
+ * computed by EffectFilter from the dirty regions of the effect with the
+ * output of a full filtering of the changed input.
+ */
+public class EffectFilterTest {
+
+    private static final int W = 300;
+    private static final int H = 200;
+    private static final int KSIZE = 9;
+    private static final int PAD = KSIZE / 2;
+
+    // device space: the output was filtered under a translation of OX, OY
+    // and is rendered again after a move of DX, DY
+    private static final int OX = 30;
+    private static final int OY = 20;
+    private static final int DX = 3;
+    private static final int DY = 5;
+    private static final Rectangle CLIP = new Rectangle(0, 0, 280, 190);
+
+    private final JSWPeerShim peer = new JSWPeerShim(false);
+
+    /**
+     * Default input of the effect reporting the changed areas of the node.
+     */
+    private static class DirtyInput extends Effect {
+        private final List<RectBounds> changes;
+
+        DirtyInput(List<RectBounds> changes) {
+            this.changes = changes;
+        }
+
+        @Override
+        public ImageData filter(FilterContext fctx, BaseTransform transform,
+                                Rectangle outputClip, Object renderHelper,
+                                Effect defaultInput)
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public BaseBounds getBounds(BaseTransform transform, Effect defaultInput) {
+            return new RectBounds(0, 0, W, H);
+        }
+
+        @Override
+        public boolean reducesOpaquePixels() {
+            return false;
+        }
+
+        @Override
+        public AccelType getAccelType(FilterContext fctx) {
+            return null;
+        }
+
+        @Override
+        public DirtyRegionContainer getDirtyRegions(Effect defaultInput, DirtyRegionPool regionPool) {
+            final DirtyRegionContainer drc = regionPool.checkOut();
+            for (RectBounds r : changes) {
+                drc.addDirtyRegion(new RectBounds(r));
+            }
+            return drc;
+        }
+    }
+
+    private static int randomPixel(Random rnd) {
+        final int a = rnd.nextBoolean() ? 255 : rnd.nextInt(256);
+        final int r = rnd.nextInt(a + 1);
+        final int g = rnd.nextInt(a + 1);
+        final int b = rnd.nextInt(a + 1);
+        return (a << 24) | (r << 16) | (g << 8) | b;
+    }
+
+    /**
+     * Box blurs the w x h image: the result is (w + KSIZE - 1) x
+     * (h + KSIZE - 1) pixels, its origin is at -PAD, -PAD of the image.
+     */
+    private int[] blur(int[] src, int w, int h) {
+        final int dstw = w + KSIZE - 1;
+        final int dsth = h + KSIZE - 1;
+        final int[] tmp = new int[dstw * h];
+        peer.boxBlurHorizontal(tmp, dstw, h, dstw, src, w, h, w);
+        final int[] dst = new int[dstw * dsth];
+        peer.boxBlurVertical(dst, dstw, dsth, dstw, tmp, dstw, h, dstw);
+        return dst;
+    }
+
+    /**
+     * Filters the image only for the given area of the output (in local
+     * coordinates), as the effect does for an output clip: only the input
+     * pixels under the kernel footprint of the area are read.
+     */
+    private int[] blurArea(int[] img, Rectangle area) {
+        final int winx = area.x - PAD;
+        final int winy = area.y - PAD;
+        final int winw = area.width + KSIZE - 1;
+        final int winh = area.height + KSIZE - 1;
+        final int[] win = new int[winw * winh];
+        for (int y = 0; y < winh; y++) {
+            for (int x = 0; x < winw; x++) {
+                final int ix = winx + x;
+                final int iy = winy + y;
+                if (ix >= 0 && iy >= 0 && ix < W && iy < H) {
+                    win[y * winw + x] = img[iy * W + ix];
+                }
+            }
+        }
+        final int[] res = blur(win, winw, winh);
+        final int resw = winw + KSIZE - 1;
+        final int[] out = new int[area.width * area.height];
+        for (int y = 0; y < area.height; y++) {
+            System.arraycopy(res, (y + KSIZE - 1) * resw + KSIZE - 1,
+                             out, y * area.width, area.width);
+        }
+        return out;
+    }
+
+    private static List<RectBounds> getEffectDirtyRegions(Effect effect,
+                                                          List<RectBounds> changes)
+    {
+        final DirtyRegionPool pool = new DirtyRegionPool(6);
+        final DirtyRegionContainer drc =
+            effect.getDirtyRegions(new DirtyInput(changes), pool);
+        final List<RectBounds> regions = new ArrayList<>();
+        for (int i = 0; i < drc.size(); i++) {
+            regions.add(new RectBounds(drc.getDirtyRegion(i)));
+        }
+        pool.checkIn(drc);
+        return regions;
+    }
+
+    private static Rectangle outputBounds() {
+        return new Rectangle(OX - PAD, OY - PAD, W + KSIZE - 1, H + KSIZE - 1);
+    }
+
+    private void checkPartialRefilter(long seed) {
+        final Random rnd = new Random(seed);
+        final int[] img = new int[W * H];
+        for (int i = 0; i < img.length; i++) {
+            img[i] = randomPixel(rnd);
+        }
+        final int[] output = blur(img, W, H);
+
+        // small changes, some at the edges of the node or out of the clip:
+        final List<RectBounds> changes = new ArrayList<>();
+        for (int n = 1 + rnd.nextInt(4); n > 0; n--) {
+            final int cw = 1 + rnd.nextInt(20);
+            final int ch = 1 + rnd.nextInt(20);
+            final int cx = rnd.nextInt(W - cw + 1);
+            final int cy = rnd.nextInt(H - ch + 1);
+            for (int y = cy; y < cy + ch; y++) {
+                for (int x = cx; x < cx + cw; x++) {
+                    img[y * W + x] = randomPixel(rnd);
+                }
+            }
+            changes.add(new RectBounds(cx, cy, cx + cw, cy + ch));
+        }
+        final BoxBlur effect = new BoxBlur(KSIZE, KSIZE, 1);
+        final List<RectBounds> regions = getEffectDirtyRegions(effect, changes);
+
+        final Rectangle bounds = outputBounds();
+        final List<Rectangle> rects = EffectFilterShim.getRefilterRects(regions,
+                BaseTransform.getTranslateInstance(OX + DX, OY + DY), DX, DY,
+                CLIP, bounds);
+        assertNotNull("seed " + seed, rects);
+
+        final int outw = bounds.width;
+        for (Rectangle r : rects) {
+            assertTrue(CLIP.contains(r));
+            final Rectangle area = new Rectangle(r);
+            area.translate(-OX, -OY);
+            final int[] pixels = blurArea(img, area);
+            for (int y = 0; y < area.height; y++) {
+                System.arraycopy(pixels, y * area.width, output,
+                                 (r.y - bounds.y + y) * outw + r.x - bounds.x,
+                                 area.width);
+            }
+        }
+
+        final int[] expected = blur(img, W, H);
+        final Rectangle visible = new Rectangle(bounds);
+        visible.intersectWith(CLIP);
+        for (int y = visible.y; y < visible.y + visible.height; y++) {
+            for (int x = visible.x; x < visible.x + visible.width; x++) {
+                final int i = (y - bounds.y) * outw + x - bounds.x;
+                if (expected[i] != output[i]) {
+                    throw new AssertionError("seed " + seed + ": pixel differs at ("
+                            + x + ", " + y + "): expected "
+                            + Integer.toHexString(expected[i]) + " but was "
+                            + Integer.toHexString(output[i]));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testPartialRefilter() {
+        for (long seed = 0L; seed < 50L; seed++) {
+            checkPartialRefilter(seed);
+        }
+    }
+
+    @Test
+    public void testRegionsOutOfClip() {
+        final List<RectBounds> regions = new ArrayList<>();
+        regions.add(new RectBounds(W - 5, H - 5, W, H));
+        final List<Rectangle> rects = EffectFilterShim.getRefilterRects(regions,
+                BaseTransform.getTranslateInstance(OX + DX, OY + DY), DX, DY,
+                new Rectangle(0, 0, 100, 100), outputBounds());
+        assertNotNull(rects);
+        assertEquals(0, rects.size());
+    }
+
+    @Test
+    public void testOutputGrew() {
+        final List<RectBounds> regions = new ArrayList<>();
+        regions.add(new RectBounds(-20, 10, 10, 20));
+        assertNull(EffectFilterShim.getRefilterRects(regions,
+                BaseTransform.getTranslateInstance(OX + DX, OY + DY), DX, DY,
+                CLIP, outputBounds()));
+    }
+
+    @Test
+    public void testLargeRegions() {
+        final List<RectBounds> regions = new ArrayList<>();
+        regions.add(new RectBounds(0, 0, W, H / 2));
+        regions.add(new RectBounds(0, H / 2 + 1, W / 2, H));
+        assertNull(EffectFilterShim.getRefilterRects(regions,
+                BaseTransform.getTranslateInstance(OX + DX, OY + DY), DX, DY,
+                outputBounds(), outputBounds()));
+    }
+}
@@ -0,0 +1,212 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+
+package test.com.sun.marlin;
+
+import com.sun.javafx.geom.Path2D;
+import com.sun.javafx.geom.Rectangle;
+import com.sun.javafx.geom.transform.BaseTransform;
+import com.sun.marlin.DMarlinRenderingEngine;
+import com.sun.marlin.MarlinRenderer;
+import com.sun.marlin.MaskMarlinAlphaConsumer;
+import com.sun.marlin.RendererContext;
+import com.sun.prism.impl.shape.DMarlinPrismUtils;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Compares the alphas produced by ConvexPolygonRenderer (convex fast path)
+ * with the ones of the general Renderer for random polygons.
+ */
+public class ConvexPolygonRendererTest {
+
+    // contains all the polygons:
+    private static final Rectangle CLIP = new Rectangle(-300, -300, 900, 900);
+    // crossed by most polygons:
+    private static final Rectangle SMALL_CLIP = new Rectangle(50, 50, 100, 100);
+
+    private static Path2D createPolygon(Random rnd, int kind) {
+        final Path2D p2d = new Path2D(rnd.nextBoolean() ? Path2D.WIND_EVEN_ODD
+                                                        : Path2D.WIND_NON_ZERO);
+        final double cx = 200.0 * rnd.nextDouble();
+        final double cy = 200.0 * rnd.nextDouble();
+        final double rad = 0.3 + rnd.nextDouble() * (rnd.nextInt(7) == 0 ? 150.0 : 20.0);
+        final int n = 3 + rnd.nextInt(kind == 2 ? 20 : 10);
+
+        switch (kind) {
+            case 0:
+                // convex polygon (clockwise or counter-clockwise):
+                final double[] t = new double[n];
+                for (int i = 0; i < n; i++) {
+                    t[i] = 2.0 * Math.PI * rnd.nextDouble();
+                }
+                Arrays.sort(t);
+                final int dir = rnd.nextBoolean() ? 1 : -1;
+                for (int i = 0; i < n; i++) {
+                    final double a = dir * t[i];
+                    final float x = (float) (cx + rad * Math.cos(a));
+                    final float y = (float) (cy + rad * Math.sin(a));
+                    if (i == 0) {
+                        p2d.moveTo(x, y);
+                    } else {
+                        p2d.lineTo(x, y);
+                    }
+                }
+                break;
+            case 1:
+                // rectangle:
+                final float w = 50f * rnd.nextFloat();
+                final float h = 50f * rnd.nextFloat();
+                p2d.moveTo((float) cx, (float) cy);
+                p2d.lineTo((float) cx + w, (float) cy);
+                p2d.lineTo((float) cx + w, (float) cy + h);
+                p2d.lineTo((float) cx, (float) cy + h);
+                break;
+            default:
+                // random polygon (mostly rejected by the fast path):
+                for (int i = 0; i < n; i++) {
+                    final float x = (float) (cx + rad * rnd.nextGaussian());
+                    final float y = (float) (cy + rad * rnd.nextGaussian());
+                    if (i == 0) {
+                        p2d.moveTo(x, y);
+                    } else {
+                        p2d.lineTo(x, y);
+                    }
+                }
+        }
+        if (rnd.nextBoolean()) {
+            p2d.closePath();
+        }
+        return p2d;
+    }
+
+    private static byte[] produceAlphas(MarlinRenderer renderer, int[] bounds) {
+        final int x = renderer.getOutpixMinX();
+        final int y = renderer.getOutpixMinY();
+        final int w = renderer.getOutpixMaxX() - x;
+        final int h = renderer.getOutpixMaxY() - y;
+        if (w <= 0 || h <= 0) {
+            // empty mask (bounds left to 0):
+            return new byte[0];
+        }
+        bounds[0] = x;
+        bounds[1] = y;
+        bounds[2] = w;
+        bounds[3] = h;
+        final MaskMarlinAlphaConsumer consumer = new MaskMarlinAlphaConsumer(w * h);
+        consumer.setBoundsNoClone(x, y, w, h);
+        renderer.produceAlphas(consumer);
+
+        final ByteBuffer buf = consumer.getMaskData().getMaskBuffer();
+        final byte[] mask = new byte[w * h];
+        buf.get(0, mask);
+        return mask;
+    }
+
+    /**
+     * @return true if the convex fast path accepted the polygon
+     */
+    private static boolean checkSameAlphas(Path2D p2d, BaseTransform xform,
+                                           Rectangle clip)
+    {
+        final int[] fastBounds = new int[4];
+        final int[] refBounds = new int[4];
+        final byte[] fast;
+        final byte[] ref;
+
+        RendererContext rdrCtx = DMarlinRenderingEngine.getRendererContext();
+        try {
+            rdrCtx.clip.setBounds(clip);
+            final MarlinRenderer renderer = DMarlinPrismUtils.setupConvexRenderer(
+                    rdrCtx, p2d, null, xform, rdrCtx.clip, true);
+            if (renderer == null) {
+                return false;
+            }
+            try {
+                fast = produceAlphas(renderer, fastBounds);
+            } finally {
+                renderer.dispose();
+            }
+        } finally {
+            DMarlinRenderingEngine.returnRendererContext(rdrCtx);
+        }
+
+        rdrCtx = DMarlinRenderingEngine.getRendererContext();
+        try {
+            rdrCtx.clip.setBounds(clip);
+            final MarlinRenderer renderer = DMarlinPrismUtils.setupRenderer(
+                    rdrCtx, p2d, null, xform, rdrCtx.clip, true);
+            try {
+                ref = produceAlphas(renderer, refBounds);
+            } finally {
+                renderer.dispose();
+            }
+        } finally {
+            DMarlinRenderingEngine.returnRendererContext(rdrCtx);
+        }
+
+        assertArrayEquals("bounds", refBounds, fastBounds);
+        assertArrayEquals("alphas", ref, fast);
+        return true;
+    }
+
+    private static int[] checkRandomPolygons(long seed, Rectangle clip) {
+        final Random rnd = new Random(seed);
+        final int[] accepted = new int[3];
+        for (int s = 0; s < 5000; s++) {
+            final int kind = s % 3;
+            final Path2D p2d = createPolygon(rnd, kind);
+            final BaseTransform xform = rnd.nextBoolean()
+                    ? BaseTransform.getRotateInstance(6.0 * rnd.nextDouble(), 100.0, 100.0)
+                    : BaseTransform.IDENTITY_TRANSFORM;
+            if (checkSameAlphas(p2d, xform, clip)) {
+                accepted[kind]++;
+            }
+        }
+        return accepted;
+    }
+
+    @Test
+    public void testRandomPolygons() {
+        final int[] accepted = checkRandomPolygons(7L, CLIP);
+        // all convex polygons and rectangles take the fast path:
+        assertEquals(1667, accepted[0]);
+        assertEquals(1667, accepted[1]);
+    }
+
+    @Test
+    public void testRandomPolygonsClipped() {
+        final int[] accepted = checkRandomPolygons(8L, SMALL_CLIP);
+        assertTrue(accepted[0] > 0);
+        assertTrue(accepted[1] > 0);
+    }
+}
@@ -0,0 +1,209 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package test.com.sun.marlin;
+
+import com.sun.javafx.geom.Path2D;
+import com.sun.javafx.geom.Rectangle;
+import com.sun.javafx.geom.transform.BaseTransform;
+import com.sun.marlin.DMarlinRenderingEngine;
+import com.sun.marlin.DashLengthCacheShim;
+import com.sun.marlin.MarlinRenderer;
+import com.sun.marlin.MaskMarlinAlphaConsumer;
+import com.sun.marlin.RendererContext;
+import com.sun.prism.BasicStroke;
+import com.sun.prism.impl.shape.DMarlinPrismUtils;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Compares the dashed strokes rendered with the dash length tables (skipping
+ * the invisible leaves at once) with the ones of the plain Dasher.
+ */
+public class DashLengthCacheTest {
+
+    private static final Rectangle CLIP = new Rectangle(1000, 1000, 300, 300);
+
+    // the skipped lengths are summed in another order (rounding errors):
+    private static final int MAX_ALPHA_DIFF = 2;
+
+    @After
+    public void disableCache() {
+        DashLengthCacheShim.setCacheSize(0L);
+    }
+
+    private static Path2D createPath(long seed, int segments) {
+        final Random rnd = new Random(seed);
+        final Path2D p2d = new Path2D(Path2D.WIND_NON_ZERO, segments);
+        float x = 1150f;
+        float y = 1150f;
+        p2d.moveTo(x, y);
+        for (int i = 1; i < segments; i++) {
+            // wander around the clip:
+            final float nx = Math.max(0f, Math.min(2500f, x + 120f * (rnd.nextFloat() - 0.5f)));
+            final float ny = Math.max(0f, Math.min(2500f, y + 120f * (rnd.nextFloat() - 0.5f)));
+            switch (rnd.nextInt(8)) {
+            case 0:
+                p2d.quadTo(x + 50f * rnd.nextFloat(), y - 50f * rnd.nextFloat(), nx, ny);
+                break;
+            case 1:
+                p2d.curveTo(x - 50f * rnd.nextFloat(), y + 50f * rnd.nextFloat(),
+                            nx + 50f * rnd.nextFloat(), ny - 50f * rnd.nextFloat(),
+                            nx, ny);
+                break;
+            case 2:
+                if (rnd.nextInt(20) == 0) {
+                    p2d.closePath();
+                }
+                p2d.lineTo(nx, ny);
+                break;
+            case 3:
+                if (rnd.nextInt(20) == 0) {
+                    p2d.moveTo(nx, ny);
+                    break;
+                }
+                // fall through
+            default:
+                p2d.lineTo(nx, ny);
+            }
+            x = nx;
+            y = ny;
+        }
+        return p2d;
+    }
+
+    private static byte[] rasterize(Path2D p2d, BasicStroke stroke,
+                                    BaseTransform xform, int[] bounds)
+    {
+        final RendererContext rdrCtx = DMarlinRenderingEngine.getRendererContext();
+        MarlinRenderer renderer = null;
+        try {
+            DashLengthCacheShim.useCache(rdrCtx);
+            rdrCtx.clip.setBounds(CLIP);
+            renderer = DMarlinPrismUtils.setupRenderer(rdrCtx, p2d, stroke,
+                                                       xform, rdrCtx.clip, true);
+            final int x = renderer.getOutpixMinX();
+            final int y = renderer.getOutpixMinY();
+            final int w = renderer.getOutpixMaxX() - x;
+            final int h = renderer.getOutpixMaxY() - y;
+            bounds[0] = x;
+            bounds[1] = y;
+            bounds[2] = w;
+            bounds[3] = h;
+
+            final MaskMarlinAlphaConsumer consumer = new MaskMarlinAlphaConsumer(w * h);
+            consumer.setBoundsNoClone(x, y, w, h);
+            renderer.produceAlphas(consumer);
+            final ByteBuffer buf = consumer.getMaskData().getMaskBuffer();
+            final byte[] mask = new byte[w * h];
+            buf.get(0, mask);
+            return mask;
+        } finally {
+            if (renderer != null) {
+                renderer.dispose();
+            }
+            DashLengthCacheShim.restoreCache(rdrCtx);
+            DMarlinRenderingEngine.returnRendererContext(rdrCtx);
+        }
+    }
+
+    private static void checkSameAlphas(Path2D p2d, BasicStroke stroke,
+                                        BaseTransform xform)
+    {
+        final int[] refBounds = new int[4];
+        final int[] bounds = new int[4];
+        DashLengthCacheShim.setCacheSize(0L);
+        final byte[] ref = rasterize(p2d, stroke, xform, refBounds);
+
+        DashLengthCacheShim.setCacheSize(1L << 20);
+        final byte[] mask = rasterize(p2d, stroke, xform, bounds);
+        assertEquals("misses", 1L, DashLengthCacheShim.getMisses());
+
+        assertArrayEquals("bounds", refBounds, bounds);
+        assertEquals(ref.length, mask.length);
+        assertTrue("empty mask", ref.length > 0);
+        for (int i = 0; i < ref.length; i++) {
+            final int diff = Math.abs((ref[i] & 0xFF) - (mask[i] & 0xFF));
+            if (diff > MAX_ALPHA_DIFF) {
+                throw new AssertionError("alpha differs at (" + (i % refBounds[2])
+                        + ", " + (i / refBounds[2]) + "): expected " + (ref[i] & 0xFF)
+                        + " but was " + (mask[i] & 0xFF));
+            }
+        }
+    }
+
+    private static BasicStroke createDashedStroke(float phase) {
+        return new BasicStroke(2f, BasicStroke.CAP_BUTT, BasicStroke.JOIN_ROUND,
+                               10f, new float[] {7f, 4f, 1f, 4f}, phase);
+    }
+
+    @Test
+    public void testIdentity() {
+        final Path2D p2d = createPath(42L, 5000);
+        for (float phase = 0f; phase < 16f; phase += 2.5f) {
+            checkSameAlphas(p2d, createDashedStroke(phase),
+                            BaseTransform.IDENTITY_TRANSFORM);
+        }
+    }
+
+    @Test
+    public void testTranslatedAndScaled() {
+        final Path2D p2d = createPath(7L, 5000);
+        final BasicStroke stroke = createDashedStroke(3f);
+        checkSameAlphas(p2d, stroke,
+                        BaseTransform.getTranslateInstance(-123.25, 87.5));
+        checkSameAlphas(p2d, stroke,
+                        BaseTransform.getScaleInstance(1.5, 1.5));
+        checkSameAlphas(p2d, stroke,
+                        BaseTransform.getRotateInstance(0.4, 1150.0, 1150.0));
+    }
+
+    @Test
+    public void testTableReuse() {
+        final Path2D p2d = createPath(11L, 2000);
+        final int[] bounds = new int[4];
+        DashLengthCacheShim.setCacheSize(1L << 20);
+
+        rasterize(p2d, createDashedStroke(0f), BaseTransform.IDENTITY_TRANSFORM, bounds);
+        assertEquals(1L, DashLengthCacheShim.getMisses());
+
+        // the dash phase and the translation do not change the table:
+        rasterize(p2d, createDashedStroke(5f),
+                  BaseTransform.getTranslateInstance(40.0, -30.0), bounds);
+        assertEquals(1L, DashLengthCacheShim.getMisses());
+        assertEquals(1L, DashLengthCacheShim.getHits());
+
+        // but a path change does:
+        p2d.lineTo(1100f, 1100f);
+        rasterize(p2d, createDashedStroke(5f), BaseTransform.IDENTITY_TRANSFORM, bounds);
+        assertEquals(2L, DashLengthCacheShim.getMisses());
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package test.com.sun.marlin;
+
+import com.sun.javafx.geom.Path2D;
+import com.sun.javafx.geom.RectBounds;
+import com.sun.javafx.geom.Shape;
+import com.sun.javafx.geom.transform.BaseTransform;
+import com.sun.prism.BasicStroke;
+import com.sun.prism.impl.shape.DMarlinRasterizer;
+import com.sun.prism.impl.shape.MaskData;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * JMH benchmark driving the Marlin renderer (Renderer / RendererNoAA, Stroker,
+ * Dasher and TransformingPathConsumer2D) through
+ * {@code DMarlinRasterizer.getMaskData()} with a small corpus of shapes:
+ * <ul>
+ * <li>poly: large filled polygon (star with many spikes)</li>
+ * <li>hairline: many thin stroked lines</li>
+ * <li>dash: dashed stroked cubic curves</li>
+ * <li>clip: huge filled path mostly outside of the clip bounds</li>
+ * </ul>
+ *
+ * Run with the GC profiler ({@code -prof gc}) to get the allocation rate per
+ * rasterized shape ({@code gc.alloc.rate.norm}) in addition to the throughput.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@State(Scope.Thread)
+public class MarlinRasterizerBenchmark {
+
+    private static final int SIZE = 1024;
+
+    @Param({"poly", "hairline", "dash", "clip"})
+    public String shape;
+
+    @Param({"true", "false"})
+    public boolean antialiased;
+
+    private final DMarlinRasterizer rasterizer = new DMarlinRasterizer();
+
+    private Shape path;
+    private BasicStroke stroke;
+    private BaseTransform xform;
+    private RectBounds clipBounds;
+    private final RectBounds xformBounds = new RectBounds();
+
+    @Setup(Level.Trial)
+    public void setup() {
+        xform = BaseTransform.IDENTITY_TRANSFORM;
+        stroke = null;
+
+        switch (shape) {
+            case "poly":
+                path = createStar(SIZE / 2f, SIZE / 2f, SIZE / 2f - 1f, SIZE / 8f, 2000);
+                clipBounds = new RectBounds(0f, 0f, SIZE, SIZE);
+                break;
+            case "hairline":
+                path = createLines(SIZE, 500);
+                stroke = new BasicStroke(1.0f, BasicStroke.CAP_BUTT,
+                                         BasicStroke.JOIN_MITER, 10f);
+                clipBounds = new RectBounds(0f, 0f, SIZE, SIZE);
+                break;
+            case "dash":
+                path = createCurves(SIZE, 50);
+                stroke = new BasicStroke(4.0f, BasicStroke.CAP_ROUND,
+                                         BasicStroke.JOIN_ROUND, 10f,
+                                         new float[] {10f, 5f, 2f, 5f}, 0f);
+                clipBounds = new RectBounds(0f, 0f, SIZE, SIZE);
+                break;
+            case "clip":
+                // shape 100 times larger than the clip:
+                path = createStar(SIZE / 2f, SIZE / 2f, 100f * SIZE, 10f * SIZE, 2000);
+                clipBounds = new RectBounds(SIZE / 4f, SIZE / 4f,
+                                            3f * SIZE / 4f, 3f * SIZE / 4f);
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported shape: " + shape);
+        }
+    }
+
+    @Benchmark
+    public void getMaskData(final Blackhole bh) {
+        // getMaskData() uses xformBounds as the clip rectangle:
+        xformBounds.setBounds(clipBounds);
+
+        final MaskData mask = rasterizer.getMaskData(path, stroke, xformBounds,
+                                                     xform, true, antialiased);
+        bh.consume(mask.getWidth());
+        bh.consume(mask.getHeight());
+        bh.consume(mask.getMaskBuffer());
+    }
+
+    private static Path2D createStar(final float cx, final float cy,
+                                     final float outerRadius,
+                                     final float innerRadius,
+                                     final int spikes)
+    {
+        final Path2D p2d = new Path2D(Path2D.WIND_NON_ZERO, 4 * spikes);
+        final double step = Math.PI / spikes;
+
+        for (int i = 0; i < 2 * spikes; i++) {
+            final double r = ((i & 1) == 0) ? outerRadius : innerRadius;
+            final float x = (float) (cx + r * Math.cos(i * step));
+            final float y = (float) (cy + r * Math.sin(i * step));
+            if (i == 0) {
+                p2d.moveTo(x, y);
+            } else {
+                p2d.lineTo(x, y);
+            }
+        }
+        p2d.closePath();
+        return p2d;
+    }
+
+    private static Path2D createLines(final int size, final int count) {
+        final Path2D p2d = new Path2D(Path2D.WIND_NON_ZERO, 4 * count);
+        final float step = (float) size / count;
+
+        for (int i = 0; i < count; i++) {
+            final float v = 0.5f + i * step;
+            p2d.moveTo(0.5f, v);
+            p2d.lineTo(size - 0.5f, size - v);
+        }
+        return p2d;
+    }
+
+    private static Path2D createCurves(final int size, final int count) {
+        final Path2D p2d = new Path2D(Path2D.WIND_NON_ZERO, 8 * count);
+        final float step = (float) size / count;
+
+        for (int i = 0; i < count; i++) {
+            final float y = 2f + i * step;
+            p2d.moveTo(2f, y);
+            p2d.curveTo(size / 3f, y - 4f * step,
+                        2f * size / 3f, y + 4f * step,
+                        size - 2f, y);
+        }
+        return p2d;
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+
+package test.com.sun.marlin;
+
+import com.sun.marlin.MarlinConst;
+import com.sun.marlin.MaskMarlinAlphaConsumer;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Compares the rows produced by MaskMarlinAlphaConsumer with a reference
+ * running sum of the coverage deltas, with and without block flags.
+ */
+public class MaskMarlinAlphaConsumerTest {
+
+    private static final int X = 5;
+    private static final int Y = 7;
+    private static final int H = 4;
+
+    private static byte toAlpha(int coverage, int maxalpha) {
+        return (byte) ((coverage * 255 + (maxalpha >> 2)) / maxalpha);
+    }
+
+    private static void checkRandomRows(long seed, boolean blockFlags,
+                                        int maxGap)
+    {
+        final Random rnd = new Random(seed);
+        final int blkShift = MarlinConst.BLOCK_SIZE_LG;
+
+        for (int t = 0; t < 2000; t++) {
+            final int w = 1 + rnd.nextInt(400);
+            final int maxalpha = rnd.nextBoolean() ? MarlinConst.MAX_AA_ALPHA : 1;
+
+            final MaskMarlinAlphaConsumer consumer = new MaskMarlinAlphaConsumer(w * H);
+            consumer.setBoundsNoClone(X, Y, w, H);
+            consumer.setMaxAlpha(maxalpha);
+
+            final int[] deltas = new int[w + 2];
+            final int[] blkFlags = new int[((w + 2) >> blkShift) + 2];
+            final byte[] expected = new byte[w * H];
+
+            for (int row = 0; row < H; row++) {
+                final int from = rnd.nextInt(w);
+                final int to = from + rnd.nextInt(w + 1 - from);
+
+                // coverage deltas with gaps of at most maxGap pixels:
+                int cur = 0;
+                for (int i = from; i < to; i += 1 + rnd.nextInt(maxGap)) {
+                    final int v = rnd.nextInt(maxalpha + 1) - cur;
+                    cur += v;
+                    deltas[i] += v;
+                    blkFlags[i >> blkShift] = 1;
+                }
+                deltas[to] -= cur;
+                blkFlags[to >> blkShift] = 1;
+
+                int sum = 0;
+                for (int i = from; i < to; i++) {
+                    sum += deltas[i];
+                    expected[row * w + i] = toAlpha(sum, maxalpha);
+                }
+
+                if (blockFlags) {
+                    consumer.setAndClearRelativeAlphas(blkFlags, deltas, Y + row,
+                                                       X + from, X + to);
+                } else {
+                    consumer.setAndClearRelativeAlphas(deltas, Y + row,
+                                                       X + from, X + to);
+                    Arrays.fill(blkFlags, 0);
+                }
+                for (int i = 0; i < deltas.length; i++) {
+                    assertEquals("delta not cleared", 0, deltas[i]);
+                }
+            }
+
+            final ByteBuffer buf = consumer.getMaskData().getMaskBuffer();
+            for (int i = 0; i < expected.length; i++) {
+                if (expected[i] != buf.get(i)) {
+                    throw new AssertionError("alpha differs at (" + (i % w)
+                            + ", " + (i / w) + ") for width " + w
+                            + ": expected " + expected[i] + " but was " + buf.get(i));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testSparseDeltas() {
+        checkRandomRows(42L, false, 100);
+    }
+
+    @Test
+    public void testDenseDeltas() {
+        checkRandomRows(43L, false, 3);
+    }
+
+    @Test
+    public void testSparseDeltasBlockFlags() {
+        checkRandomRows(44L, true, 100);
+    }
+
+    @Test
+    public void testDenseDeltasBlockFlags() {
+        checkRandomRows(45L, true, 3);
+    }
+}
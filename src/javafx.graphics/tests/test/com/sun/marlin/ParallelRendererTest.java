@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package test.com.sun.marlin;
+
+import com.sun.javafx.geom.Path2D;
+import com.sun.javafx.geom.Rectangle;
+import com.sun.javafx.geom.transform.BaseTransform;
+import com.sun.marlin.DMarlinRenderingEngine;
+import com.sun.marlin.MarlinRenderer;
+import com.sun.marlin.MaskMarlinAlphaConsumer;
+import com.sun.marlin.ParallelRenderer;
+import com.sun.marlin.RendererContext;
+import com.sun.prism.BasicStroke;
+import com.sun.prism.impl.shape.DMarlinPrismUtils;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Compares the alphas produced in horizontal bands by ParallelRenderer with
+ * the ones of the sequential Renderer.produceAlphas() for the same shape.
+ */
+public class ParallelRendererTest {
+
+    private static final Rectangle CLIP = new Rectangle(0, 0, 1500, 1300);
+
+    private static Path2D createSpiky(long seed, int points) {
+        final Random rnd = new Random(seed);
+        final Path2D p2d = new Path2D(Path2D.WIND_NON_ZERO, 2 * points);
+        for (int i = 0; i < points; i++) {
+            final double r = ((i & 1) == 0) ? 550.0 : 100.0 + 300.0 * rnd.nextDouble();
+            final double t = i * 2.0 * Math.PI / points;
+            final float x = (float) (700.0 + r * Math.cos(t));
+            final float y = (float) (600.0 + r * Math.sin(t));
+            if (i == 0) {
+                p2d.moveTo(x, y);
+            } else {
+                p2d.lineTo(x, y);
+            }
+        }
+        p2d.closePath();
+        // overlapping curves crossing the band limits:
+        for (int i = 0; i < 200; i++) {
+            p2d.moveTo(1400f * rnd.nextFloat(), 1200f * rnd.nextFloat());
+            p2d.curveTo(1400f * rnd.nextFloat(), 1200f * rnd.nextFloat(),
+                        1400f * rnd.nextFloat(), 1200f * rnd.nextFloat(),
+                        1400f * rnd.nextFloat(), 1200f * rnd.nextFloat());
+        }
+        return p2d;
+    }
+
+    private static byte[] rasterize(Path2D p2d, BasicStroke stroke,
+                                    BaseTransform xform, boolean parallel,
+                                    int[] bounds)
+    {
+        final RendererContext rdrCtx = DMarlinRenderingEngine.getRendererContext();
+        MarlinRenderer renderer = null;
+        try {
+            rdrCtx.clip.setBounds(CLIP);
+            renderer = DMarlinPrismUtils.setupRenderer(rdrCtx, p2d, stroke,
+                                                       xform, rdrCtx.clip, true);
+            final int x = renderer.getOutpixMinX();
+            final int y = renderer.getOutpixMinY();
+            final int w = renderer.getOutpixMaxX() - x;
+            final int h = renderer.getOutpixMaxY() - y;
+            bounds[0] = x;
+            bounds[1] = y;
+            bounds[2] = w;
+            bounds[3] = h;
+
+            final MaskMarlinAlphaConsumer consumer = new MaskMarlinAlphaConsumer(w * h);
+            consumer.setBoundsNoClone(x, y, w, h);
+            if (parallel) {
+                assertTrue(ParallelRenderer.isEligible(renderer, 0L));
+                ParallelRenderer.produceAlphas(renderer, consumer);
+            } else {
+                renderer.produceAlphas(consumer);
+            }
+            final ByteBuffer buf = consumer.getMaskData().getMaskBuffer();
+            final byte[] mask = new byte[w * h];
+            buf.get(0, mask);
+            return mask;
+        } finally {
+            if (renderer != null) {
+                renderer.dispose();
+            }
+            DMarlinRenderingEngine.returnRendererContext(rdrCtx);
+        }
+    }
+
+    private static void checkSameAlphas(Path2D p2d, BasicStroke stroke,
+                                        BaseTransform xform)
+    {
+        final int[] seqBounds = new int[4];
+        final int[] parBounds = new int[4];
+        final byte[] seq = rasterize(p2d, stroke, xform, false, seqBounds);
+        final byte[] par = rasterize(p2d, stroke, xform, true, parBounds);
+
+        assertArrayEquals("bounds", seqBounds, parBounds);
+        assertEquals(seq.length, par.length);
+        for (int i = 0; i < seq.length; i++) {
+            if (seq[i] != par[i]) {
+                throw new AssertionError("alpha differs at (" + (i % seqBounds[2])
+                        + ", " + (i / seqBounds[2]) + "): expected " + seq[i]
+                        + " but was " + par[i]);
+            }
+        }
+    }
+
+    @Test
+    public void testFill() {
+        checkSameAlphas(createSpiky(42L, 20000), null,
+                        BaseTransform.IDENTITY_TRANSFORM);
+    }
+
+    @Test
+    public void testFillEvenOdd() {
+        final Path2D p2d = createSpiky(7L, 5000);
+        p2d.setWindingRule(Path2D.WIND_EVEN_ODD);
+        checkSameAlphas(p2d, null, BaseTransform.IDENTITY_TRANSFORM);
+    }
+
+    @Test
+    public void testFillRotated() {
+        checkSameAlphas(createSpiky(3L, 8000), null,
+                        BaseTransform.getRotateInstance(0.3, 700.0, 600.0));
+    }
+
+    @Test
+    public void testDashedStroke() {
+        final BasicStroke stroke = new BasicStroke(3f, BasicStroke.CAP_ROUND,
+                BasicStroke.JOIN_ROUND, 10f, new float[] {5f, 3f}, 0f);
+        checkSameAlphas(createSpiky(11L, 2000), stroke,
+                        BaseTransform.IDENTITY_TRANSFORM);
+    }
+}
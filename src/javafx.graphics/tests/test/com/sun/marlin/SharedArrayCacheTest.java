@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package test.com.sun.marlin;
+
+import com.sun.marlin.SharedArrayCacheShim;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Checks that the byte budget shared by the typed shared array caches
+ * evicts larger arrays of any type. Only runs with
+ * -Dprism.marlin.sharedArrayCache.size=256k.
+ */
+public class SharedArrayCacheTest {
+
+    private static final long MAX_BYTES = 256L * 1024L;
+
+    @BeforeClass
+    public static void setUpClass() {
+        assumeTrue(SharedArrayCacheShim.getMaxBytes() == MAX_BYTES);
+        // the bucket sizes the test relies on:
+        assertEquals(4096, SharedArrayCacheShim.getArraySize(0));
+        assertEquals(16384, SharedArrayCacheShim.getArraySize(1));
+    }
+
+    @Test
+    public void testEvictAcrossTypes() {
+        // arrays returned by the renderer contexts of other tests:
+        SharedArrayCacheShim.evictAll();
+        assertEquals(0L, SharedArrayCacheShim.getUsedBytes());
+        final SharedArrayCacheShim doubles = new SharedArrayCacheShim("DoubleArrayCache");
+        final SharedArrayCacheShim ints = new SharedArrayCacheShim("IntArrayCache");
+
+        // two 128k double arrays fill the budget:
+        final double[] d1 = new double[16384];
+        final double[] d2 = new double[16384];
+        doubles.putArray(1, d1);
+        doubles.putArray(1, d2);
+        assertEquals(MAX_BYTES, SharedArrayCacheShim.getUsedBytes());
+
+        // a 16k int array evicts one of them:
+        final int[] i0 = new int[4096];
+        ints.putArray(0, i0);
+        assertEquals(MAX_BYTES - 128L * 1024L + 16L * 1024L,
+                     SharedArrayCacheShim.getUsedBytes());
+
+        // a 64k int array fits in the budget:
+        final int[] i1 = new int[16384];
+        ints.putArray(1, i1);
+        assertEquals(MAX_BYTES - 48L * 1024L, SharedArrayCacheShim.getUsedBytes());
+
+        // a 128k double array does not evict the smaller int arrays:
+        doubles.putArray(1, new double[16384]);
+        assertEquals(MAX_BYTES - 48L * 1024L, SharedArrayCacheShim.getUsedBytes());
+
+        assertSame(i0, ints.getArray(0));
+        assertSame(i1, ints.getArray(1));
+        assertNotNull(doubles.getArray(1));
+        assertNull(doubles.getArray(1));
+        assertEquals(0L, SharedArrayCacheShim.getUsedBytes());
+    }
+}
@@ -0,0 +1,357 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package test.com.sun.pisces;
+
+import com.sun.pisces.GradientColorMap;
+import com.sun.pisces.JavaRendererShim;
+import com.sun.pisces.RendererBase;
+import com.sun.pisces.Transform6;
+import java.util.Arrays;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Checks the pixels composited by JavaRenderer for each paint type and
+ * composite rule against values computed by hand (premultiplied ARGB,
+ * rounded products of 8 bits components).
+ */
+public class JavaRendererTest {
+
+    private static final int WHITE = 0xFFFFFFFF;
+
+    private static int fix(double v) {
+        return (int) Math.round(v * 65536.0);
+    }
+
+    private static int[] createSurface(int w, int h, int argb) {
+        final int[] data = new int[w * h];
+        Arrays.fill(data, argb);
+        return data;
+    }
+
+    private static void assertPixel(int expected, int[] data, int w, int x, int y) {
+        final int actual = data[y * w + x];
+        if (expected != actual) {
+            throw new AssertionError("pixel (" + x + ", " + y + "): expected "
+                    + Integer.toHexString(expected) + " but was "
+                    + Integer.toHexString(actual));
+        }
+    }
+
+    // ramp whose blue component is the index, opaque:
+    private static int[] createIndexRamp() {
+        final int[] ramp = new int[256];
+        for (int i = 0; i < ramp.length; i++) {
+            ramp[i] = 0xFF000000 | i;
+        }
+        return ramp;
+    }
+
+    @Test
+    public void testSrcOverOpaqueColor() {
+        final int[] data = createSurface(20, 4, WHITE);
+        final JavaRendererShim r = new JavaRendererShim(data, 20, 4, false);
+        r.setColor(10, 20, 30, 255);
+        r.fillRect(fix(2), fix(1), fix(16), fix(2));
+        assertPixel(0xFF0A141E, data, 20, 2, 1);
+        // solid span (at least 16 pixels):
+        assertPixel(0xFF0A141E, data, 20, 17, 2);
+        assertPixel(WHITE, data, 20, 1, 1);
+        assertPixel(WHITE, data, 20, 18, 1);
+        assertPixel(WHITE, data, 20, 5, 0);
+        assertPixel(WHITE, data, 20, 5, 3);
+    }
+
+    @Test
+    public void testSrcOverTranslucentColor() {
+        final int[] data = createSurface(4, 1, WHITE);
+        final JavaRendererShim r = new JavaRendererShim(data, 4, 1, false);
+        // premultiplied (128, 128, 0, 0) + white * 127 / 255:
+        r.setColor(255, 0, 0, 128);
+        r.fillRect(fix(0), fix(0), fix(4), fix(1));
+        assertPixel(0xFFFF7F7F, data, 4, 0, 0);
+        assertPixel(0xFFFF7F7F, data, 4, 3, 0);
+    }
+
+    @Test
+    public void testSrcOverFractionalEdges() {
+        final int[] data = createSurface(8, 2, WHITE);
+        final JavaRendererShim r = new JavaRendererShim(data, 8, 2, false);
+        r.setColor(0, 0, 0, 255);
+        // column 2 half covered (coverage 128), row 1 a quarter (64):
+        r.fillRect(fix(2.5), fix(0), fix(3.5), fix(1.25));
+        // black * 128 + white * 127:
+        assertPixel(0xFF7F7F7F, data, 8, 2, 0);
+        assertPixel(0xFF000000, data, 8, 3, 0);
+        assertPixel(0xFF000000, data, 8, 5, 0);
+        assertPixel(WHITE, data, 8, 6, 0);
+        // black * 64 + white * 191:
+        assertPixel(0xFFBFBFBF, data, 8, 4, 1);
+        // 0.5 * 0.25 coverage is 32:
+        assertPixel(0xFFDFDFDF, data, 8, 2, 1);
+    }
+
+    @Test
+    public void testSrcRule() {
+        final int[] data = createSurface(8, 1, WHITE);
+        final JavaRendererShim r = new JavaRendererShim(data, 8, 1, false);
+        r.setCompositeRule(RendererBase.COMPOSITE_SRC);
+        r.setColor(255, 0, 0, 128);
+        r.fillRect(fix(0.5), fix(0), fix(4.5), fix(1));
+        // the destination is replaced by the premultiplied color:
+        assertPixel(0x80800000, data, 8, 1, 0);
+        assertPixel(0x80800000, data, 8, 4, 0);
+        // color * 128 + white * 127:
+        assertPixel(0xBFBF7F7F, data, 8, 0, 0);
+        assertPixel(WHITE, data, 8, 5, 0);
+    }
+
+    @Test
+    public void testClearRule() {
+        final int[] data = createSurface(8, 1, WHITE);
+        final JavaRendererShim r = new JavaRendererShim(data, 8, 1, false);
+        r.setCompositeRule(RendererBase.COMPOSITE_CLEAR);
+        r.setColor(255, 0, 0, 255);
+        r.fillRect(fix(0.5), fix(0), fix(4.5), fix(1));
+        assertPixel(0, data, 8, 1, 0);
+        assertPixel(0, data, 8, 4, 0);
+        // white * 127:
+        assertPixel(0x7F7F7F7F, data, 8, 0, 0);
+        assertPixel(WHITE, data, 8, 5, 0);
+    }
+
+    @Test
+    public void testClearRect() {
+        final int[] data = createSurface(8, 4, WHITE);
+        final JavaRendererShim r = new JavaRendererShim(data, 8, 4, false);
+        r.setColor(0, 255, 0, 51);
+        r.setClip(2, 0, 8, 2);
+        r.clearRect(0, 0, 4, 4);
+        // replaced by the premultiplied color within the clip:
+        assertPixel(0x33003300, data, 8, 2, 0);
+        assertPixel(0x33003300, data, 8, 3, 1);
+        assertPixel(WHITE, data, 8, 1, 0);
+        assertPixel(WHITE, data, 8, 3, 2);
+        assertPixel(WHITE, data, 8, 4, 0);
+    }
+
+    @Test
+    public void testAlphaMask() {
+        final int w = 40;
+        final int[] data = createSurface(w, 2, 0xFF000000);
+        final JavaRendererShim r = new JavaRendererShim(data, w, 2, false);
+        final byte[] mask = new byte[w];
+        // a solid run of 20 pixels between partial coverages:
+        Arrays.fill(mask, 10, 30, (byte) 0xFF);
+        mask[5] = (byte) 51;
+        mask[35] = (byte) 204;
+        r.setColor(255, 255, 255, 255);
+        r.fillAlphaMask(mask, 0, 1, w, 1, 0, w);
+        assertPixel(0xFF333333, data, w, 5, 1);
+        assertPixel(WHITE, data, w, 10, 1);
+        assertPixel(WHITE, data, w, 29, 1);
+        assertPixel(0xFFCCCCCC, data, w, 35, 1);
+        assertPixel(0xFF000000, data, w, 30, 1);
+        assertPixel(0xFF000000, data, w, 10, 0);
+    }
+
+    @Test
+    public void testAlphaRow() {
+        final int[] data = createSurface(10, 1, 0);
+        final JavaRendererShim r = new JavaRendererShim(data, 10, 1, false);
+        final byte[] alphaMap = new byte[256];
+        for (int i = 0; i < alphaMap.length; i++) {
+            alphaMap[i] = (byte) i;
+        }
+        // coverage 100 at x = 2, 255 for x in [3, 6[:
+        final int[] deltas = new int[11];
+        deltas[0] = 100;
+        deltas[1] = 155;
+        deltas[4] = -255;
+        r.setColor(0, 0, 255, 255);
+        r.emitAndClearAlphaRow(alphaMap, deltas, 0, 2, 8, 0);
+        assertPixel(0x64000064, data, 10, 2, 0);
+        assertPixel(0xFF0000FF, data, 10, 3, 0);
+        assertPixel(0xFF0000FF, data, 10, 5, 0);
+        assertPixel(0, data, 10, 6, 0);
+        assertEquals("deltas cleared", 0, Arrays.stream(deltas).filter(d -> d != 0).count());
+    }
+
+    @Test
+    public void testLinearGradient() {
+        assumeTrue(JavaRendererShim.isEnabled());
+        final int w = 300;
+        final int[] ramp = createIndexRamp();
+        final int[] cycles = {
+            GradientColorMap.CYCLE_NONE, GradientColorMap.CYCLE_REPEAT,
+            GradientColorMap.CYCLE_REFLECT
+        };
+        // pixel 260 is 4.5 / 256 after the end of the gradient:
+        final int[] beyond = {255, 4, 251};
+        for (int c = 0; c < cycles.length; c++) {
+            final int[] data = createSurface(w, 1, 0);
+            final JavaRendererShim r = new JavaRendererShim(data, w, 1, false);
+            // one ramp entry per pixel:
+            r.setLinearGradient(fix(0), fix(0), fix(256), fix(0), ramp, cycles[c],
+                                new Transform6());
+            r.fillRect(fix(0), fix(0), fix(w), fix(1));
+            assertPixel(0xFF000000, data, w, 0, 0);
+            assertPixel(0xFF000080, data, w, 128, 0);
+            assertPixel(0xFF0000FF, data, w, 255, 0);
+            assertPixel(0xFF000000 | beyond[c], data, w, 260, 0);
+        }
+    }
+
+    @Test
+    public void testLinearGradientTransformed() {
+        assumeTrue(JavaRendererShim.isEnabled());
+        final int[] data = createSurface(4, 300, 0);
+        final JavaRendererShim r = new JavaRendererShim(data, 4, 300, false);
+        // horizontal gradient rotated by 90 degrees (x' = -y, y' = x):
+        r.setLinearGradient(fix(0), fix(0), fix(256), fix(0), createIndexRamp(),
+                            GradientColorMap.CYCLE_NONE,
+                            new Transform6(0, fix(-1), fix(1), 0, 0, 0));
+        r.fillRect(fix(0), fix(0), fix(4), fix(300));
+        // paint space u = y:
+        assertPixel(0xFF000000, data, 4, 2, 0);
+        assertPixel(0xFF000040, data, 4, 1, 64);
+        assertPixel(0xFF0000FF, data, 4, 3, 280);
+    }
+
+    @Test
+    public void testRadialGradient() {
+        assumeTrue(JavaRendererShim.isEnabled());
+        final int w = 200;
+        final int[] data = createSurface(w, 100, 0);
+        final JavaRendererShim r = new JavaRendererShim(data, w, 100, false);
+        // focus at the center: the ramp index is 256 * distance / radius
+        r.setRadialGradient(fix(50), fix(50), fix(50), fix(50), fix(100),
+                            createIndexRamp(), GradientColorMap.CYCLE_NONE,
+                            new Transform6());
+        r.fillRect(fix(0), fix(0), fix(w), fix(100));
+        // (50.5, 50.5): distance 0.707, index 1.81
+        assertPixel(0xFF000001, data, w, 50, 50);
+        // (75.5, 50.5): distance 25.505, index 65.29
+        assertPixel(0xFF000041, data, w, 75, 50);
+        // (80.5, 90.5): distance 50.70, index 129.8
+        assertPixel(0xFF000081, data, w, 80, 90);
+        // (150.5, 50.5): beyond the radius
+        assertPixel(0xFF0000FF, data, w, 150, 50);
+    }
+
+    @Test
+    public void testTexturePaint() {
+        assumeTrue(JavaRendererShim.isEnabled());
+        final int[] tex = {0xFF000000, WHITE, 0x80800000, 0};
+        final int[] data = createSurface(6, 4, 0xFF0000FF);
+        final JavaRendererShim r = new JavaRendererShim(data, 6, 4, false);
+        r.setTexture(tex, 2, 2, 2, new Transform6(), true, false, true);
+        r.fillRect(fix(0), fix(0), fix(6), fix(4));
+        assertPixel(0xFF000000, data, 6, 0, 0);
+        assertPixel(WHITE, data, 6, 3, 2);
+        // red 50% over blue:
+        assertPixel(0xFF80007F, data, 6, 4, 1);
+        // transparent texel:
+        assertPixel(0xFF0000FF, data, 6, 5, 3);
+    }
+
+    @Test
+    public void testTexturePaintLinear() {
+        assumeTrue(JavaRendererShim.isEnabled());
+        final int[] tex = {0xFF000000, WHITE};
+        final int[] data = createSurface(4, 1, 0);
+        final JavaRendererShim r = new JavaRendererShim(data, 4, 1, false);
+        // scaled by 2, no alpha:
+        r.setTexture(tex, 2, 1, 2, new Transform6(fix(2), 0, 0, fix(2), 0, 0),
+                     false, true, false);
+        r.setCompositeRule(RendererBase.COMPOSITE_SRC);
+        r.fillRect(fix(0), fix(0), fix(4), fix(1));
+        // u = 0.25 and 0.75 (texel centers at 0.5 and 1.5): clamped
+        assertPixel(0xFF000000, data, 4, 0, 0);
+        // u = 0.75: black * 192 + white * 64 (>> 8)
+        assertPixel(0xFF3F3F3F, data, 4, 1, 0);
+        // u = 1.25: black * 64 + white * 192
+        assertPixel(0xFFBFBFBF, data, 4, 2, 0);
+        assertPixel(WHITE, data, 4, 3, 0);
+    }
+
+    @Test
+    public void testDrawImage() {
+        assumeTrue(JavaRendererShim.isEnabled());
+        final int[] img = {WHITE, 0xFF808080, 0x80808080, 0};
+        final int[] data = createSurface(4, 2, 0xFF000000);
+        final JavaRendererShim r = new JavaRendererShim(data, 4, 2, false);
+        r.drawImage(RendererBase.IMAGE_MODE_NORMAL, img, 4, 1, 0, 4, new Transform6(),
+                    false, false, fix(0), fix(0), fix(4), fix(1), 0, 0, 3, 0, true);
+        assertPixel(WHITE, data, 4, 0, 0);
+        assertPixel(0xFF808080, data, 4, 1, 0);
+        // 50% gray over black:
+        assertPixel(0xFF808080, data, 4, 2, 0);
+        assertPixel(0xFF000000, data, 4, 3, 0);
+
+        // multiplied by the paint color (128, 64, 255):
+        r.setColor(128, 64, 255, 255);
+        r.drawImage(RendererBase.IMAGE_MODE_MULTIPLY, img, 4, 1, 0, 4,
+                    new Transform6(fix(1), 0, 0, fix(1), 0, fix(1)),
+                    false, false, fix(0), fix(1), fix(4), fix(1), 0, 0, 3, 0, true);
+        assertPixel(0xFF8040FF, data, 4, 0, 1);
+        assertPixel(0xFF402080, data, 4, 1, 1);
+        // (0x80, 0x40, 0x20, 0x80) over black:
+        assertPixel(0xFF402080, data, 4, 2, 1);
+        assertPixel(0xFF000000, data, 4, 3, 1);
+    }
+
+    @Test
+    public void testLCDMask() {
+        final int[] data = createSurface(3, 1, WHITE);
+        final JavaRendererShim r = new JavaRendererShim(data, 3, 1, false);
+        final byte[] mask = {
+            (byte) 255, (byte) 128, 0,
+            0, 0, 0,
+            (byte) 255, (byte) 255, (byte) 255
+        };
+        r.setColor(255, 0, 0, 255);
+        r.fillLCDAlphaMask(mask, 0, 0, 9, 1, 0, 9);
+        // per sub-pixel: red 255 * 255, green 255 * 127, blue 255 * 255 (gamma 1)
+        assertPixel(0xFFFF7FFF, data, 3, 0, 0);
+        assertPixel(WHITE, data, 3, 1, 0);
+        assertPixel(0xFFFF0000, data, 3, 2, 0);
+    }
+
+    @Test
+    public void testLCDMaskSrcRule() {
+        final int[] data = createSurface(1, 1, WHITE);
+        final JavaRendererShim r = new JavaRendererShim(data, 1, 1, false);
+        final byte[] mask = {(byte) 255, (byte) 128, 0};
+        r.setColor(255, 0, 0, 255);
+        r.setCompositeRule(RendererBase.COMPOSITE_SRC);
+        r.fillLCDAlphaMask(mask, 0, 0, 3, 1, 0, 3);
+        // average coverage 127: red * 127 + white * 128
+        assertPixel(0xFFFF8080, data, 1, 0, 0);
+    }
+}
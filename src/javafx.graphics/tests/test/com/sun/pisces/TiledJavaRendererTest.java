@@ -0,0 +1,235 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package test.com.sun.pisces;
+
+import com.sun.pisces.GradientColorMap;
+import com.sun.pisces.JavaRendererShim;
+import com.sun.pisces.RendererBase;
+import com.sun.pisces.Transform6;
+import java.util.Random;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+import org.junit.Test;
+
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Compares the pixels rendered by a JavaRenderer splitting large primitives
+ * in row tiles (see TileExecutor) with the ones of the single-threaded
+ * renderer: they must be exactly the same.
+ */
+public class TiledJavaRendererTest {
+
+    // large enough to be tiled (prism.sw.tiles.minArea):
+    private static final int WIDTH = 700;
+    private static final int HEIGHT = 600;
+
+    private static final int MAX_ALPHA = 64;
+
+    private static int fix(double v) {
+        return (int) Math.round(v * 65536.0);
+    }
+
+    private static int[] createSurface(long seed) {
+        final Random rnd = new Random(seed);
+        final int[] data = new int[WIDTH * HEIGHT];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = premultiply(rnd.nextInt());
+        }
+        return data;
+    }
+
+    private static int premultiply(int argb) {
+        final int a = argb >>> 24;
+        final int r = ((argb >> 16) & 0xFF) * a / 255;
+        final int g = ((argb >> 8) & 0xFF) * a / 255;
+        final int b = (argb & 0xFF) * a / 255;
+        return (a << 24) | (r << 16) | (g << 8) | b;
+    }
+
+    private static byte[] createMask(Random rnd, int length) {
+        final byte[] mask = new byte[length];
+        rnd.nextBytes(mask);
+        // some empty and full runs:
+        for (int i = 0; i < length; i += 97) {
+            final byte v = (byte) (((i & 1) == 0) ? 0 : 0xFF);
+            for (int j = i; j < Math.min(length, i + 40); j++) {
+                mask[j] = v;
+            }
+        }
+        return mask;
+    }
+
+    private static void checkSamePixels(Consumer<JavaRendererShim> painter) {
+        final int[] ref = createSurface(42L);
+        final int[] tiled = createSurface(42L);
+        painter.accept(new JavaRendererShim(ref, WIDTH, HEIGHT, false));
+        painter.accept(new JavaRendererShim(tiled, WIDTH, HEIGHT, true));
+
+        for (int i = 0; i < ref.length; i++) {
+            if (ref[i] != tiled[i]) {
+                throw new AssertionError("pixel differs at (" + (i % WIDTH) + ", "
+                        + (i / WIDTH) + "): expected " + Integer.toHexString(ref[i])
+                        + " but was " + Integer.toHexString(tiled[i]));
+            }
+        }
+    }
+
+    @Test
+    public void testFillRect() {
+        checkSamePixels(r -> {
+            r.setColor(200, 100, 50, 180);
+            r.fillRect(fix(10.3), fix(20.7), fix(600.5), fix(500.25));
+            r.setClip(30, 40, 620, 510);
+            r.setColor(20, 220, 150, 255);
+            r.fillRect(fix(-5.5), fix(0.5), fix(800.0), fix(300.75));
+        });
+    }
+
+    @Test
+    public void testClearRect() {
+        checkSamePixels(r -> {
+            r.setColor(10, 20, 30, 40);
+            r.setCompositeRule(RendererBase.COMPOSITE_SRC);
+            r.clearRect(5, 7, 650, 560);
+            r.setCompositeRule(RendererBase.COMPOSITE_CLEAR);
+            r.setClip(100, 100, 400, 400);
+            r.fillRect(fix(50.5), fix(60.5), fix(500.0), fix(500.0));
+        });
+    }
+
+    @Test
+    public void testAlphaMasks() {
+        final Random rnd = new Random(7L);
+        final int w = 650;
+        final int h = 550;
+        final byte[] mask = createMask(rnd, w * h);
+        final byte[] lcdMask = createMask(rnd, 3 * w * h);
+        checkSamePixels(r -> {
+            r.setColor(250, 128, 0, 200);
+            r.fillAlphaMask(mask, 20, 30, w, h, 0, w);
+            r.setColor(0, 64, 255, 255);
+            r.setClip(10, 10, 600, 580);
+            r.fillLCDAlphaMask(lcdMask, 25, 15, 3 * w, h, 0, 3 * w);
+        });
+    }
+
+    @Test
+    public void testConcurrentAlphaRows() {
+        final byte[] alphaMap = new byte[MAX_ALPHA + 1];
+        for (int i = 0; i <= MAX_ALPHA; i++) {
+            alphaMap[i] = (byte) ((i * 255 + MAX_ALPHA / 2) / MAX_ALPHA);
+        }
+        final int from = 15;
+        final int to = 680;
+        final int n = to - from;
+        // coverage deltas of each row (ending at 0):
+        final Random rnd = new Random(11L);
+        final int[][] rows = new int[HEIGHT][n + 1];
+        for (int[] deltas : rows) {
+            int cur = 0;
+            for (int i = 0; i < n; i += 1 + rnd.nextInt(30)) {
+                final int v = rnd.nextInt(MAX_ALPHA + 1);
+                deltas[i] += v - cur;
+                cur = v;
+            }
+            deltas[n] -= cur;
+        }
+        final int[][] rows2 = new int[HEIGHT][];
+        for (int j = 0; j < HEIGHT; j++) {
+            rows2[j] = rows[j].clone();
+        }
+        final int[] ref = createSurface(3L);
+        final int[] par = createSurface(3L);
+
+        final JavaRendererShim seq = new JavaRendererShim(ref, WIDTH, HEIGHT, false);
+        seq.setColor(90, 180, 30, 230);
+        for (int j = 0; j < HEIGHT; j++) {
+            seq.emitAndClearAlphaRow(alphaMap, rows[j], j, from, to, 0);
+        }
+
+        // rows emitted concurrently as by the ParallelRenderer bands:
+        final JavaRendererShim tiled = new JavaRendererShim(par, WIDTH, HEIGHT, true);
+        tiled.setColor(90, 180, 30, 230);
+        IntStream.range(0, HEIGHT).parallel().forEach(j ->
+            tiled.emitAndClearAlphaRow(alphaMap, rows2[j], j, from, to, 0));
+
+        for (int i = 0; i < ref.length; i++) {
+            if (ref[i] != par[i]) {
+                throw new AssertionError("pixel differs at (" + (i % WIDTH) + ", "
+                        + (i / WIDTH) + ")");
+            }
+        }
+    }
+
+    private static int[] createRamp(long seed) {
+        final Random rnd = new Random(seed);
+        final int[] ramp = new int[256];
+        for (int i = 0; i < ramp.length; i++) {
+            ramp[i] = premultiply(rnd.nextInt());
+        }
+        return ramp;
+    }
+
+    @Test
+    public void testGradients() {
+        // Transform6 needs the native library unless the Java renderer is enabled:
+        assumeTrue(JavaRendererShim.isEnabled());
+        final int[] ramp = createRamp(5L);
+        final Transform6 rotate = new Transform6(fix(0.8), fix(-0.6), fix(0.6), fix(0.8),
+                                                 fix(40.0), fix(-20.0));
+        checkSamePixels(r -> {
+            r.setLinearGradient(fix(50.0), fix(60.0), fix(400.0), fix(300.0), ramp,
+                                GradientColorMap.CYCLE_REFLECT, rotate);
+            r.fillRect(fix(0.5), fix(10.25), fix(690.0), fix(580.0));
+            r.setRadialGradient(fix(350.0), fix(300.0), fix(300.0), fix(280.0),
+                                fix(120.0), ramp, GradientColorMap.CYCLE_REPEAT, rotate);
+            r.setClip(20, 20, 660, 560);
+            r.fillRect(fix(0.0), fix(0.0), fix(700.0), fix(600.0));
+        });
+    }
+
+    @Test
+    public void testImages() {
+        assumeTrue(JavaRendererShim.isEnabled());
+        final int iw = 120;
+        final int ih = 90;
+        final int[] image = createSurface(9L);
+        final Transform6 scale = new Transform6(fix(5.3), fix(0.4), fix(-0.3), fix(6.1),
+                                                fix(12.0), fix(8.0));
+        checkSamePixels(r -> {
+            r.setTexture(image, iw, ih, iw, scale, true, true, true);
+            r.fillRect(fix(3.5), fix(4.5), fix(680.0), fix(570.0));
+            r.drawImage(RendererBase.IMAGE_MODE_NORMAL, image, iw, ih, 0, iw, scale,
+                        false, true, fix(12.0), fix(8.0), fix(600.0), fix(540.0),
+                        0, 0, iw - 1, ih - 1, true);
+            r.setColor(255, 200, 100, 160);
+            r.drawImage(RendererBase.IMAGE_MODE_MULTIPLY, image, iw, ih, 0, iw, scale,
+                        false, false, fix(12.0), fix(8.0), fix(600.0), fix(540.0),
+                        0, 0, iw - 1, ih - 1, true);
+        });
+    }
+}
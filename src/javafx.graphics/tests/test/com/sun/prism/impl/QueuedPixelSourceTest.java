@@ -0,0 +1,217 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package test.com.sun.prism.impl;
+
+import com.sun.glass.ui.Pixels;
+import com.sun.prism.impl.QueuedPixelSource;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Simulates a producer painting frames with dirty rectangles and a consumer
+ * uploading them at its own pace, and compares the buffers updated with the
+ * stale and dirty regions given by QueuedPixelSource with full copies.
+ */
+public class QueuedPixelSourceTest {
+
+    private static final int W = 64;
+    private static final int H = 48;
+
+    static final class TestPixels extends Pixels {
+        TestPixels(int width, int height, IntBuffer pixels, float scalex, float scaley) {
+            super(width, height, pixels, scalex, scaley);
+        }
+
+        @Override
+        protected void _fillDirectByteBuffer(ByteBuffer bb) {
+        }
+
+        @Override
+        protected void _attachInt(long ptr, int w, int h, IntBuffer ints, int[] array, int offset) {
+        }
+
+        @Override
+        protected void _attachByte(long ptr, int w, int h, ByteBuffer bytes, byte[] array, int offset) {
+        }
+    }
+
+    static final class TestPixelSource extends QueuedPixelSource {
+        TestPixelSource() {
+            super(false);
+        }
+
+        @Override
+        protected Pixels createPixels(int w, int h, IntBuffer buffer, float scalex, float scaley) {
+            return new TestPixels(w, h, buffer, scalex, scaley);
+        }
+    }
+
+    private static int[] getContent(Pixels p) {
+        final IntBuffer buf = (IntBuffer) p.getBuffer();
+        final int[] content = new int[W * H];
+        buf.rewind();
+        buf.get(content);
+        buf.rewind();
+        return content;
+    }
+
+    /**
+     * Paints random rectangles into the frame and returns them
+     * (or null if the whole frame was repainted)
+     */
+    private static int[] paint(Random rnd, int[] frame) {
+        if (rnd.nextInt(10) == 0) {
+            for (int i = 0; i < frame.length; i++) {
+                frame[i] = rnd.nextInt();
+            }
+            return null;
+        }
+        final int n = rnd.nextInt(4);
+        final int[] rects = new int[4 * n];
+        for (int r = 0; r < n; r++) {
+            final int x = rnd.nextInt(W);
+            final int y = rnd.nextInt(H);
+            final int w = 1 + rnd.nextInt(W - x);
+            final int h = 1 + rnd.nextInt(H - y);
+            rects[4 * r] = x;
+            rects[4 * r + 1] = y;
+            rects[4 * r + 2] = w;
+            rects[4 * r + 3] = h;
+            final int color = rnd.nextInt();
+            for (int j = y; j < y + h; j++) {
+                Arrays.fill(frame, j * W + x, j * W + x + w, color);
+            }
+        }
+        return rects;
+    }
+
+    private static void run(long seed, int frames) {
+        final Random rnd = new Random(seed);
+        final TestPixelSource source = new TestPixelSource();
+
+        final int[] frame = new int[W * H];
+        // what the consumer shows (uploaded regions only):
+        final int[] screen = new int[W * H];
+        Pixels consuming = null;
+        int delivered = 0;
+
+        for (int f = 0; f < frames; f++) {
+            // producer:
+            final int[] dirty = paint(rnd, frame);
+            final Pixels p = source.getUnusedPixels(W, H, 1.0f, 1.0f);
+            assertTrue("pixels in use", p != consuming);
+            final int[] stale = source.getStaleRegions(p, dirty);
+            QueuedPixelSource.copyRegions(frame, (IntBuffer) p.getPixels(), W, H, stale);
+            assertArrayEquals("frame " + f + " copied", frame, getContent(p));
+            source.enqueuePixels(p, dirty);
+
+            // consumer (slower or faster than the producer):
+            switch (rnd.nextInt(5)) {
+            case 0:
+                // busy with the previous frame:
+                break;
+            case 1:
+                if (consuming == null) {
+                    source.skipLatestPixels();
+                }
+                break;
+            default:
+                if (consuming != null) {
+                    source.doneWithPixels(consuming);
+                    consuming = null;
+                    if (rnd.nextBoolean()) {
+                        // upload the next one later:
+                        break;
+                    }
+                }
+                consuming = source.getLatestPixels();
+                if (consuming != null) {
+                    delivered++;
+                    final int[] content = getContent(consuming);
+                    final int[] rects = source.getLatestDirtyRects();
+                    if (rects == null) {
+                        System.arraycopy(content, 0, screen, 0, screen.length);
+                    } else {
+                        for (int i = 0; i < rects.length; i += 4) {
+                            for (int y = rects[i + 1]; y < rects[i + 1] + rects[i + 3]; y++) {
+                                final int off = y * W + rects[i];
+                                System.arraycopy(content, off, screen, off, rects[i + 2]);
+                            }
+                        }
+                    }
+                    assertArrayEquals("frame " + f + " uploaded", content, screen);
+                    if (rnd.nextBoolean()) {
+                        source.doneWithPixels(consuming);
+                        consuming = null;
+                    }
+                }
+            }
+        }
+        assertTrue("no frame delivered", delivered > frames / 4);
+    }
+
+    private static void assertArrayEquals(String message, int[] expected, int[] actual) {
+        assertEquals(message, expected.length, actual.length);
+        for (int i = 0; i < expected.length; i++) {
+            if (expected[i] != actual[i]) {
+                throw new AssertionError(message + ": pixel differs at ("
+                        + (i % W) + ", " + (i / W) + ")");
+            }
+        }
+    }
+
+    @Test
+    public void testFramesWithDirtyRects() {
+        for (long seed = 1L; seed <= 20L; seed++) {
+            run(seed, 500);
+        }
+    }
+
+    @Test
+    public void testNewPixelsCopiedEntirely() {
+        final TestPixelSource source = new TestPixelSource();
+        final Pixels p = source.getUnusedPixels(W, H, 1.0f, 1.0f);
+        assertNotNull(p);
+        // a new buffer must be filled entirely:
+        assertEquals(null, source.getStaleRegions(p, new int[] {0, 0, 1, 1}));
+        source.enqueuePixels(p, new int[] {0, 0, 1, 1});
+        assertEquals(p, source.getLatestPixels());
+        assertEquals(1, source.getLatestDirtyRects().length / 4);
+        source.doneWithPixels(p);
+
+        // then only the dirty rectangles of the next frame:
+        final Pixels p2 = source.getUnusedPixels(W, H, 1.0f, 1.0f);
+        assertEquals(p, p2);
+        assertEquals(4, source.getStaleRegions(p2, new int[] {5, 6, 7, 8}).length);
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package test.com.sun.prism.impl.paint;
+
+import com.sun.javafx.geom.transform.BaseTransform;
+import com.sun.javafx.util.LRUCache;
+import com.sun.pisces.GradientColorMap;
+import com.sun.pisces.GradientColorMapShim;
+import com.sun.prism.impl.paint.GradientCache;
+import com.sun.prism.impl.paint.PaintUtil;
+import com.sun.prism.paint.Color;
+import com.sun.prism.paint.Gradient;
+import com.sun.prism.paint.LinearGradient;
+import com.sun.prism.paint.Stop;
+import java.util.Arrays;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Checks that equal gradients share their lookup tables through the
+ * GradientCache and that gradients differing only in their cycle method,
+ * a stop offset or the table kind do not.
+ * Requires -Dprism.gradientcache.size=1m.
+ */
+public class GradientCacheTest {
+
+    private static final int W = 32;
+    private static final int H = 8;
+
+    private static LRUCache<GradientCache.Key, Object> cache;
+
+    private long hits;
+    private long misses;
+
+    @BeforeClass
+    public static void setUpClass() {
+        cache = GradientCache.getInstance();
+        assumeTrue(cache != null);
+    }
+
+    @Before
+    public void setUp() {
+        hits = cache.getHits();
+        misses = cache.getMisses();
+    }
+
+    private void assertLookups(int expectedHits, int expectedMisses) {
+        assertEquals("hits", expectedHits, cache.getHits() - hits);
+        assertEquals("misses", expectedMisses, cache.getMisses() - misses);
+        hits = cache.getHits();
+        misses = cache.getMisses();
+    }
+
+    // premultiplied Pisces stops (15.16 fractions), new arrays for each call:
+    private static int[] piscesFractions(int mid) {
+        return new int[] { 0, mid, 0x10000 };
+    }
+
+    private static int[] piscesColors() {
+        return new int[] { 0xFF102030, 0x80402010, 0xFF00A0F0 };
+    }
+
+    @Test
+    public void testPiscesRampHit() {
+        final int[] ramp = GradientColorMapShim.getRamp(piscesFractions(0x5123),
+                piscesColors(), GradientColorMap.CYCLE_NONE);
+        assertLookups(0, 1);
+        assertSame(ramp, GradientColorMapShim.getRamp(piscesFractions(0x5123),
+                piscesColors(), GradientColorMap.CYCLE_NONE));
+        assertLookups(1, 0);
+    }
+
+    @Test
+    public void testPiscesRampCycleMethodMiss() {
+        final int[] ramp = GradientColorMapShim.getRamp(piscesFractions(0x6123),
+                piscesColors(), GradientColorMap.CYCLE_NONE);
+        assertLookups(0, 1);
+        assertNotSame(ramp, GradientColorMapShim.getRamp(piscesFractions(0x6123),
+                piscesColors(), GradientColorMap.CYCLE_REFLECT));
+        assertLookups(0, 1);
+    }
+
+    @Test
+    public void testPiscesRampStopOffsetMiss() {
+        final int[] ramp = GradientColorMapShim.getRamp(piscesFractions(0x7123),
+                piscesColors(), GradientColorMap.CYCLE_REPEAT);
+        assertLookups(0, 1);
+        final int[] other = GradientColorMapShim.getRamp(piscesFractions(0x7923),
+                piscesColors(), GradientColorMap.CYCLE_REPEAT);
+        assertLookups(0, 1);
+        assertNotSame(ramp, other);
+        assertFalse(Arrays.equals(ramp, other));
+    }
+
+    private static LinearGradient createGradient(float mid, int spreadMethod) {
+        return new LinearGradient(2f, 0f, 27f, 0f, null, false, spreadMethod,
+                Arrays.asList(new Stop(new Color(0.1f, 0.2f, 0.3f, 1f), 0f),
+                              new Stop(new Color(0.9f, 0.5f, 0.1f, 0.5f), mid),
+                              new Stop(new Color(0.0f, 0.6f, 0.9f, 1f), 1f)));
+    }
+
+    private static int[] fill(LinearGradient gradient) {
+        final int[] pixels = new int[W * H];
+        PaintUtil.fillImageWithGradient(pixels, gradient,
+                BaseTransform.IDENTITY_TRANSFORM, 0, 0, W, H, 0f, 0f, W, H);
+        return pixels;
+    }
+
+    @Test
+    public void testGradientContextHit() {
+        final int[] expected = fill(createGradient(0.31f, Gradient.PAD));
+        assertLookups(0, 1);
+        // equal gradient, new instances:
+        assertArrayEquals(expected, fill(createGradient(0.31f, Gradient.PAD)));
+        assertLookups(1, 0);
+    }
+
+    @Test
+    public void testGradientContextCycleMethodMiss() {
+        final int[] pad = fill(createGradient(0.41f, Gradient.PAD));
+        assertLookups(0, 1);
+        final int[] reflect = fill(createGradient(0.41f, Gradient.REFLECT));
+        assertLookups(0, 1);
+        fill(createGradient(0.41f, Gradient.REPEAT));
+        assertLookups(0, 1);
+        assertFalse(Arrays.equals(pad, reflect));
+    }
+
+    @Test
+    public void testGradientContextStopOffsetMiss() {
+        final int[] first = fill(createGradient(0.51f, Gradient.REPEAT));
+        assertLookups(0, 1);
+        final int[] second = fill(createGradient(0.52f, Gradient.REPEAT));
+        assertLookups(0, 1);
+        assertFalse(Arrays.equals(first, second));
+    }
+
+    @Test
+    public void testKindMiss() {
+        // Pisces ramps and MultipleGradientContext lookup data differ by
+        // their layout even for the same stop values:
+        final int[] fractions = piscesFractions(0x8000);
+        final int[] colors = piscesColors();
+        final GradientCache.Key ramp = new GradientCache.Key(GradientCache.PISCES_RAMP,
+                fractions, colors, GradientColorMap.CYCLE_NONE);
+        final GradientCache.Key data = new GradientCache.Key(GradientCache.GRADIENT_CONTEXT,
+                fractions, colors, GradientColorMap.CYCLE_NONE);
+        assertFalse(ramp.equals(data));
+        assertTrue(ramp.equals(new GradientCache.Key(GradientCache.PISCES_RAMP,
+                piscesFractions(0x8000), piscesColors(), GradientColorMap.CYCLE_NONE)));
+
+        GradientColorMapShim.getRamp(fractions, colors, GradientColorMap.CYCLE_NONE);
+        assertLookups(0, 1);
+        assertEquals(null, cache.get(data));
+        assertLookups(0, 1);
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package test.com.sun.prism.impl.shape;
+
+import com.sun.javafx.geom.Path2D;
+import com.sun.javafx.geom.RectBounds;
+import com.sun.javafx.geom.transform.BaseTransform;
+import com.sun.prism.BasicStroke;
+import com.sun.prism.impl.shape.DMarlinRasterizer;
+import com.sun.prism.impl.shape.MaskCacheShim;
+import com.sun.prism.impl.shape.MaskData;
+import java.nio.ByteBuffer;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks the keys of MaskCache and compares the cached masks with the ones
+ * rasterized by DMarlinRasterizer.
+ */
+public class MaskCacheTest {
+
+    private static final RectBounds CLIP = new RectBounds(0f, 0f, 1000f, 800f);
+
+    private static final BasicStroke STROKE = new BasicStroke(2f,
+            BasicStroke.CAP_SQUARE, BasicStroke.JOIN_MITER, 4f);
+
+    private MaskCacheShim cache;
+
+    @Before
+    public void setUp() {
+        cache = new MaskCacheShim(1L << 20, 64);
+    }
+
+    private static Path2D createMarker() {
+        final Path2D p2d = new Path2D();
+        p2d.moveTo(0f, 0f);
+        p2d.lineTo(10f, 3f);
+        p2d.lineTo(4f, 12f);
+        p2d.closePath();
+        return p2d;
+    }
+
+    private static MaskData rasterize(Path2D p2d, BasicStroke stroke,
+                                      RectBounds clip, BaseTransform xform)
+    {
+        final MaskData maskData = new DMarlinRasterizer().getMaskData(p2d,
+                stroke, clip, xform, true, true);
+        // copy the mask as the rasterizer reuses its buffer:
+        final int size = maskData.getWidth() * maskData.getHeight();
+        final byte[] pixels = new byte[size];
+        final ByteBuffer buf = maskData.getMaskBuffer().duplicate();
+        buf.rewind();
+        buf.get(pixels, 0, size);
+        return MaskData.create(pixels, maskData.getOriginX(), maskData.getOriginY(),
+                               maskData.getWidth(), maskData.getHeight());
+    }
+
+    private static void checkSameMask(MaskData expected, MaskData actual) {
+        assertEquals(expected.getOriginX(), actual.getOriginX());
+        assertEquals(expected.getOriginY(), actual.getOriginY());
+        assertEquals(expected.getWidth(), actual.getWidth());
+        assertEquals(expected.getHeight(), actual.getHeight());
+        assertEquals(expected.getMaskBuffer().rewind(), actual.getMaskBuffer().rewind());
+    }
+
+    @Test
+    public void testLargeClipAccepted() {
+        // the device clip is much larger than maxDim:
+        final Object key = cache.getKey(createMarker(), STROKE, CLIP,
+                BaseTransform.getTranslateInstance(100.0, 100.0), true);
+        assertNotNull(key);
+        assertFalse(MaskCacheShim.isClipped(key));
+    }
+
+    @Test
+    public void testLargeShapeRejected() {
+        final Path2D p2d = createMarker();
+        p2d.lineTo(200f, 20f);
+        assertNull(cache.getKey(p2d, null, CLIP,
+                BaseTransform.getTranslateInstance(100.0, 100.0), true));
+    }
+
+    @Test
+    public void testSameKeyAtIntegerOffsets() {
+        final Path2D p2d = createMarker();
+        final Object key1 = cache.getKey(p2d, STROKE, CLIP,
+                BaseTransform.getTranslateInstance(100.25, 100.5), true);
+        final Object key2 = cache.getKey(p2d, STROKE, CLIP,
+                BaseTransform.getTranslateInstance(517.25, 33.5), true);
+        assertEquals(key1, key2);
+
+        final Object key3 = cache.getKey(p2d, STROKE, CLIP,
+                BaseTransform.getTranslateInstance(517.0, 33.5), true);
+        assertNotEquals(key1, key3);
+    }
+
+    @Test
+    public void testClippedKey() {
+        final Path2D p2d = createMarker();
+        final Object key1 = cache.getKey(p2d, STROKE, CLIP,
+                BaseTransform.getTranslateInstance(-5.0, 100.0), true);
+        assertTrue(MaskCacheShim.isClipped(key1));
+        // same part of the clip covering the shape:
+        final Object key2 = cache.getKey(p2d, STROKE,
+                new RectBounds(0f, 50f, 500f, 800f),
+                BaseTransform.getTranslateInstance(-5.0, 100.0), true);
+        assertEquals(key1, key2);
+        // the shape crosses another edge of the clip:
+        final Object key3 = cache.getKey(p2d, STROKE, CLIP,
+                BaseTransform.getTranslateInstance(995.0, 100.0), true);
+        assertNotEquals(key1, key3);
+    }
+
+    @Test
+    public void testCachedMaskAtOffset() {
+        final Path2D p2d = createMarker();
+        final BaseTransform xform1 = BaseTransform.getTranslateInstance(100.25, 100.5);
+        final BaseTransform xform2 = BaseTransform.getTranslateInstance(517.25, 33.5);
+
+        final Object key1 = cache.getKey(p2d, STROKE, CLIP, xform1, true);
+        assertNull(cache.get(key1));
+        cache.put(key1, rasterize(p2d, STROKE, CLIP, xform1));
+
+        final Object key2 = cache.getKey(p2d, STROKE, CLIP, xform2, true);
+        final MaskData cached = cache.get(key2);
+        assertNotNull(cached);
+        assertEquals(1L, cache.getHits());
+        checkSameMask(rasterize(p2d, STROKE, CLIP, xform2), cached);
+    }
+
+    @Test
+    public void testCachedMaskNotAffectedByPathChanges() {
+        final Path2D p2d = createMarker();
+        final BaseTransform xform = BaseTransform.getTranslateInstance(10.0, 10.0);
+        final Object key = cache.getKey(p2d, null, CLIP, xform, true);
+        cache.put(key, rasterize(p2d, null, CLIP, xform));
+
+        p2d.lineTo(30f, 30f);
+        assertNull(cache.get(cache.getKey(p2d, null, CLIP, xform, true)));
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package test.com.sun.prism.sw;
+
+import com.sun.javafx.geom.Ellipse2D;
+import com.sun.javafx.geom.Path2D;
+import com.sun.javafx.geom.Shape;
+import com.sun.javafx.geom.transform.BaseTransform;
+import com.sun.prism.BasicStroke;
+import com.sun.prism.sw.DirectRTMarlinAlphaConsumerShim;
+import java.util.Random;
+import org.junit.Test;
+
+/**
+ * Compares the pixels of anti-aliased shapes composited by bands (alpha
+ * mask of the rows of a band, see prism.sw.bandHeight) with the ones
+ * composited one row at a time: they must be exactly the same.
+ */
+public class BandedAlphaConsumerTest {
+
+    private static final int WIDTH = 600;
+    private static final int HEIGHT = 500;
+
+    private static final int[] BAND_HEIGHTS = {1, 3, 16, 64, 256};
+
+    private static int[] createSurface(long seed) {
+        final Random rnd = new Random(seed);
+        final int[] data = new int[WIDTH * HEIGHT];
+        for (int i = 0; i < data.length; i++) {
+            final int a = rnd.nextInt(256);
+            final int r = rnd.nextInt(a + 1);
+            final int g = rnd.nextInt(a + 1);
+            final int b = rnd.nextInt(a + 1);
+            data[i] = (a << 24) | (r << 16) | (g << 8) | b;
+        }
+        return data;
+    }
+
+    private static Path2D createSpiky(long seed, int points) {
+        final Random rnd = new Random(seed);
+        final Path2D p2d = new Path2D(Path2D.WIND_NON_ZERO, 2 * points);
+        for (int i = 0; i < points; i++) {
+            final double r = ((i & 1) == 0) ? 240.0 : 40.0 + 150.0 * rnd.nextDouble();
+            final double t = i * 2.0 * Math.PI / points;
+            final float x = (float) (300.0 + r * Math.cos(t));
+            final float y = (float) (250.0 + r * Math.sin(t));
+            if (i == 0) {
+                p2d.moveTo(x, y);
+            } else {
+                p2d.lineTo(x, y);
+            }
+        }
+        p2d.closePath();
+        // curves partly out of the surface:
+        for (int i = 0; i < 20; i++) {
+            p2d.moveTo(700f * rnd.nextFloat() - 50f, 600f * rnd.nextFloat() - 50f);
+            p2d.curveTo(700f * rnd.nextFloat() - 50f, 600f * rnd.nextFloat() - 50f,
+                        700f * rnd.nextFloat() - 50f, 600f * rnd.nextFloat() - 50f,
+                        700f * rnd.nextFloat() - 50f, 600f * rnd.nextFloat() - 50f);
+        }
+        return p2d;
+    }
+
+    private static void checkSamePixels(Shape shape, BasicStroke stroke,
+                                        BaseTransform tx, int alpha)
+    {
+        final int[] expected = createSurface(1L);
+        DirectRTMarlinAlphaConsumerShim.renderShape(expected, WIDTH, HEIGHT,
+                30, 200, 90, alpha, shape, stroke, tx, 0);
+        for (int bandHeight : BAND_HEIGHTS) {
+            final int[] banded = createSurface(1L);
+            DirectRTMarlinAlphaConsumerShim.renderShape(banded, WIDTH, HEIGHT,
+                    30, 200, 90, alpha, shape, stroke, tx, bandHeight);
+            for (int i = 0; i < expected.length; i++) {
+                if (expected[i] != banded[i]) {
+                    throw new AssertionError("band height " + bandHeight
+                            + ": pixel differs at (" + (i % WIDTH) + ", " + (i / WIDTH)
+                            + "): expected " + Integer.toHexString(expected[i])
+                            + " but was " + Integer.toHexString(banded[i]));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testFill() {
+        checkSamePixels(createSpiky(42L, 400), null,
+                        BaseTransform.IDENTITY_TRANSFORM, 255);
+    }
+
+    @Test
+    public void testFillTranslucent() {
+        final Path2D p2d = createSpiky(7L, 1000);
+        p2d.setWindingRule(Path2D.WIND_EVEN_ODD);
+        checkSamePixels(p2d, null, BaseTransform.IDENTITY_TRANSFORM, 140);
+    }
+
+    @Test
+    public void testFillRotated() {
+        checkSamePixels(new Ellipse2D(50f, 80f, 480f, 300f), null,
+                        BaseTransform.getRotateInstance(0.4, 300.0, 250.0), 200);
+    }
+
+    @Test
+    public void testDashedStroke() {
+        final BasicStroke stroke = new BasicStroke(4f, BasicStroke.CAP_ROUND,
+                BasicStroke.JOIN_ROUND, 10f, new float[] {9f, 4f}, 0f);
+        checkSamePixels(createSpiky(11L, 100), stroke,
+                        BaseTransform.IDENTITY_TRANSFORM, 255);
+    }
+}
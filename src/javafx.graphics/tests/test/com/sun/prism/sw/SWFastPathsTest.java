@@ -0,0 +1,211 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package test.com.sun.prism.sw;
+
+import com.sun.javafx.geom.Rectangle;
+import com.sun.javafx.geom.transform.Affine2D;
+import com.sun.prism.CompositeMode;
+import com.sun.prism.Graphics;
+import com.sun.prism.Image;
+import com.sun.prism.RTTexture;
+import com.sun.prism.ResourceFactory;
+import com.sun.prism.Texture;
+import com.sun.prism.Texture.Usage;
+import com.sun.prism.Texture.WrapMode;
+import com.sun.prism.paint.Color;
+import com.sun.prism.sw.SWGraphicsShim;
+import com.sun.prism.sw.SWResourceFactoryShim;
+import java.util.function.Consumer;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+/**
+ * Checks that the direct fills and copies of SWGraphics (prism.sw.fastpaths)
+ * produce the same pixels as Pisces for pixel-aligned rects and images.
+ * Each scene is rendered twice, with the fast paths enabled and disabled,
+ * and the two render targets are compared.
+ */
+public class SWFastPathsTest {
+
+    private static final int W = 64;
+    private static final int H = 48;
+
+    private static final Color[] COLORS = {
+        Color.BLACK, Color.WHITE,
+        new Color(0.2f, 0.4f, 0.6f, 1f),
+        new Color(0.33f, 0.66f, 0.99f, 1f),
+        new Color(1f / 3f, 0.5f, 0.7f, 1f)
+    };
+
+    private static ResourceFactory factory;
+    private static Texture opaqueTex;
+    private static Texture argbTex;
+
+    @BeforeClass
+    public static void setUpClass() {
+        factory = SWResourceFactoryShim.create();
+
+        final int tw = 23, th = 17;
+        final byte[] rgb = new byte[tw * th * 3];
+        final int[] argbPre = new int[tw * th];
+        for (int i = 0; i < tw * th; i++) {
+            rgb[3 * i    ] = (byte) (i * 7);
+            rgb[3 * i + 1] = (byte) (i * 13);
+            rgb[3 * i + 2] = (byte) (i * 29);
+            // translucent premultiplied pixels:
+            final int a = (i * 11) & 0xFF;
+            argbPre[i] = (a << 24) | ((a * (i & 0xFF) / 255) << 16)
+                    | ((a * ((i * 3) & 0xFF) / 255) << 8) | (a / 2);
+        }
+        opaqueTex = factory.createTexture(Image.fromByteRgbData(rgb, tw, th),
+                Usage.DEFAULT, WrapMode.CLAMP_TO_EDGE);
+        argbTex = factory.createTexture(Image.fromIntArgbPreData(argbPre, tw, th),
+                Usage.DEFAULT, WrapMode.CLAMP_TO_EDGE);
+        assertNotNull(opaqueTex);
+        assertNotNull(argbTex);
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+        opaqueTex.dispose();
+        argbTex.dispose();
+    }
+
+    private static int[] render(boolean fastPaths, Consumer<Graphics> scene) {
+        final RTTexture rtt = factory.createRTTexture(W, H, WrapMode.CLAMP_TO_ZERO);
+        assertNotNull(rtt);
+        try {
+            final Graphics g = rtt.createGraphics();
+            SWGraphicsShim.setFastPaths(g, fastPaths);
+            // translucent background so that SRC and SRC_OVER differ:
+            g.clear(new Color(0.1f, 0.5f, 0.3f, 0.5f));
+            scene.accept(g);
+            g.sync();
+            final int[] pixels = new int[W * H];
+            System.arraycopy(rtt.getPixels(), 0, pixels, 0, W * H);
+            return pixels;
+        } finally {
+            rtt.dispose();
+        }
+    }
+
+    private static void assertSamePixels(String scene, Consumer<Graphics> paint) {
+        final int[] expected = render(false, paint);
+        final int[] actual = render(true, paint);
+        for (int i = 0; i < W * H; i++) {
+            if (expected[i] != actual[i]) {
+                assertEquals(scene + " at (" + (i % W) + ", " + (i / W) + ")",
+                        Integer.toHexString(expected[i]), Integer.toHexString(actual[i]));
+            }
+        }
+    }
+
+    @Test
+    public void testFillRect() {
+        for (Color c : COLORS) {
+            assertSamePixels("fillRect " + c, g -> {
+                g.setPaint(c);
+                g.fillRect(3, 5, 20, 11);
+                g.fillRect(0, 0, W, 1);
+                g.fillQuad(40, 30, 33, 22);
+            });
+        }
+    }
+
+    @Test
+    public void testFillRectTranslatedAndClipped() {
+        for (Color c : COLORS) {
+            assertSamePixels("translated fillRect " + c, g -> {
+                g.setPaint(c);
+                g.translate(7, -3);
+                g.fillRect(-10, 0, 30, 15);
+                g.setClipRect(new Rectangle(20, 10, 25, 20));
+                g.fillRect(10, 5, 50, 50);
+                // partly outside of the render target:
+                g.fillRect(W - 12, H - 4, 40, 40);
+            });
+        }
+    }
+
+    @Test
+    public void testFillRectSrc() {
+        for (Color c : COLORS) {
+            assertSamePixels("SRC fillRect " + c, g -> {
+                g.setCompositeMode(CompositeMode.SRC);
+                g.setPaint(c);
+                g.fillRect(12, 4, 31, 29);
+            });
+        }
+    }
+
+    @Test
+    public void testDrawOpaqueTexture() {
+        assertSamePixels("drawTexture", g -> {
+            g.drawTexture(opaqueTex, 2, 3, 25, 20);
+            g.translate(30, 20);
+            g.drawTexture(opaqueTex, 0, 0, 23, 17);
+        });
+    }
+
+    @Test
+    public void testDrawOpaqueTextureRegion() {
+        assertSamePixels("drawTexture region", g -> {
+            g.drawTexture(opaqueTex, 10, 10, 18, 15, 5, 4, 13, 9);
+            g.setClipRect(new Rectangle(40, 0, 15, 10));
+            g.drawTexture(opaqueTex, 35, -5, 58, 12, 0, 0, 23, 17);
+            g.setClipRect(null);
+            // partly outside of the render target:
+            g.drawTexture(opaqueTex, W - 7, H - 5, W + 16, H + 12, 0, 0, 23, 17);
+        });
+    }
+
+    @Test
+    public void testDrawTextureSrc() {
+        assertSamePixels("SRC drawTexture", g -> {
+            g.setCompositeMode(CompositeMode.SRC);
+            g.drawTexture(argbTex, 4, 6, 27, 23);
+            g.setTransform(new Affine2D(Affine2D.getTranslateInstance(30, 25)));
+            g.drawTexture(argbTex, 0, 0, 10, 10, 7, 3, 17, 13);
+        });
+    }
+
+    @Test
+    public void testSlowPathsUnchanged() {
+        // not pixel-aligned or not opaque: both renderings use Pisces
+        assertSamePixels("slow paths", g -> {
+            g.setPaint(COLORS[2]);
+            g.fillRect(3.5f, 5, 20, 11.25f);
+            g.drawTexture(argbTex, 30, 4, 53, 21);
+            g.drawTexture(opaqueTex, 0.5f, 25, 23.5f, 42);
+            g.setExtraAlpha(0.5f);
+            g.drawTexture(opaqueTex, 35, 25, 58, 42);
+        });
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package test.com.sun.prism.sw;
+
+import com.sun.pisces.JavaRendererShim;
+import com.sun.prism.Graphics;
+import com.sun.prism.Image;
+import com.sun.prism.RTTexture;
+import com.sun.prism.ResourceFactory;
+import com.sun.prism.Texture;
+import com.sun.prism.Texture.Usage;
+import com.sun.prism.Texture.WrapMode;
+import com.sun.prism.impl.Disposer;
+import com.sun.prism.paint.Color;
+import com.sun.prism.sw.SWResourceFactoryShim;
+import com.sun.prism.sw.SWTexturePoolShim;
+import java.nio.IntBuffer;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Checks the SW render targets storing their pixels in direct and
+ * memory-mapped buffers (prism.sw.offheap.*): their pixels must match the
+ * ones of a heap render target, allocations beyond the off-heap budget
+ * are rejected and the budget is released once the buffers are collected.
+ * Requires the Java Pisces renderer (-Dprism.pisces.java=true).
+ */
+public class SWOffHeapTextureTest {
+
+    private static final int W = 67;
+    private static final int H = 41;
+    private static final long SIZE = 4L * W * H;
+
+    private static ResourceFactory factory;
+    private static Texture image;
+
+    @BeforeClass
+    public static void setUpClass() {
+        // the native Pisces library does not support off-heap surfaces:
+        assumeTrue(JavaRendererShim.isEnabled());
+        factory = SWResourceFactoryShim.create();
+
+        final int tw = 19, th = 13;
+        final int[] argbPre = new int[tw * th];
+        for (int i = 0; i < tw * th; i++) {
+            final int a = (i * 11) & 0xFF;
+            argbPre[i] = (a << 24) | ((a * (i & 0xFF) / 255) << 16)
+                    | ((a * ((i * 5) & 0xFF) / 255) << 8) | (a / 3);
+        }
+        image = factory.createTexture(Image.fromIntArgbPreData(argbPre, tw, th),
+                Usage.DEFAULT, WrapMode.CLAMP_TO_EDGE);
+        assertNotNull(image);
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+        if (image != null) {
+            image.dispose();
+        }
+    }
+
+    private static void paint(RTTexture rtt) {
+        final Graphics g = rtt.createGraphics();
+        g.clear(new Color(0.1f, 0.5f, 0.3f, 0.5f));
+        g.setPaint(new Color(0.9f, 0.2f, 0.4f, 1f));
+        g.fillRect(3, 4, 30, 20);
+        g.setPaint(new Color(0.2f, 0.3f, 0.8f, 0.6f));
+        g.fillEllipse(20.5f, 10.25f, 40, 25);
+        g.drawTexture(image, 40, 2, 59, 15);
+        g.drawTexture(image, 5.5f, 25.5f, 43.5f, 38.5f, 0, 0, 19, 13);
+        g.sync();
+    }
+
+    private static int[] readPixels(RTTexture rtt) {
+        final IntBuffer pixels = IntBuffer.allocate(W * H);
+        assertEquals(true, rtt.readPixels(pixels));
+        return pixels.array();
+    }
+
+    private static int[] renderOnHeap() {
+        final RTTexture rtt = factory.createRTTexture(W, H, WrapMode.CLAMP_TO_ZERO);
+        assertNotNull(rtt);
+        try {
+            paint(rtt);
+            return readPixels(rtt);
+        } finally {
+            rtt.dispose();
+        }
+    }
+
+    private static void checkPixels(boolean mapped) {
+        final SWTexturePoolShim pool = new SWTexturePoolShim(SIZE, mapped);
+        final RTTexture rtt = pool.createOffHeapRTTexture(factory, W, H);
+        assertNotNull(rtt);
+        assertNull("off-heap pixels are not in an int[]", rtt.getPixels());
+        assertEquals(SIZE, pool.offHeapUsed());
+        paint(rtt);
+        assertArrayEquals(renderOnHeap(), readPixels(rtt));
+        rtt.dispose();
+    }
+
+    @Test
+    public void testDirectPixels() {
+        checkPixels(false);
+    }
+
+    @Test
+    public void testMappedPixels() {
+        checkPixels(true);
+    }
+
+    @Test
+    public void testMaxSizeRejected() {
+        final SWTexturePoolShim pool = new SWTexturePoolShim(2L * SIZE, false);
+        final RTTexture first = pool.createOffHeapRTTexture(factory, W, H);
+        final RTTexture second = pool.createOffHeapRTTexture(factory, W, H);
+        assertNotNull(first);
+        assertNotNull(second);
+        assertEquals(2L * SIZE, pool.offHeapUsed());
+
+        // beyond prism.sw.offheap.maxSize:
+        assertNull(pool.createOffHeapRTTexture(factory, W, H));
+        assertNull(pool.createOffHeapRTTexture(factory, 1, 1));
+        assertEquals(2L * SIZE, pool.offHeapUsed());
+        // beyond the int-indexed buffer limit (not allocated):
+        assertNull(new SWTexturePoolShim(Long.MAX_VALUE, false)
+                .createOffHeapRTTexture(factory, 1 << 16, 1 << 15));
+
+        first.dispose();
+        second.dispose();
+    }
+
+    @Test
+    public void testReleasedAfterDispose() throws InterruptedException {
+        final SWTexturePoolShim pool = new SWTexturePoolShim(SIZE, true);
+        RTTexture rtt = pool.createOffHeapRTTexture(factory, W, H);
+        assertNotNull(rtt);
+        paint(rtt);
+        assertNull(pool.createOffHeapRTTexture(factory, W, H));
+
+        rtt.dispose();
+        rtt = null;
+        // the budget is released once the buffer is collected:
+        for (int i = 0; i < 50 && pool.offHeapUsed() != 0L; i++) {
+            System.gc();
+            Thread.sleep(20);
+            Disposer.cleanUp();
+        }
+        assertEquals(0L, pool.offHeapUsed());
+
+        final RTTexture other = pool.createOffHeapRTTexture(factory, W, H);
+        assertNotNull(other);
+        assertEquals(SIZE, pool.offHeapUsed());
+        other.dispose();
+    }
+}
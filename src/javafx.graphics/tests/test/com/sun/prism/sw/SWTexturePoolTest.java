@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package test.com.sun.prism.sw;
+
+import com.sun.prism.RTTexture;
+import com.sun.prism.ResourceFactory;
+import com.sun.prism.Texture.WrapMode;
+import com.sun.prism.impl.PrismSettings;
+import com.sun.prism.sw.SWResourceFactoryShim;
+import com.sun.scenario.effect.impl.prism.sw.PSWDrawable;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Checks that the pixel buffers of the SW render targets used as effect
+ * intermediates are handed out again once disposed (prism.sw.recycle).
+ */
+public class SWTexturePoolTest {
+
+    private static ResourceFactory factory;
+
+    @BeforeClass
+    public static void setUpClass() {
+        assumeTrue(PrismSettings.swRecycleTextures);
+        factory = SWResourceFactoryShim.create();
+    }
+
+    private static RTTexture createRT(int w, int h) {
+        final RTTexture rtt = factory.createRTTexture(w, h, WrapMode.CLAMP_TO_ZERO);
+        assertNotNull(rtt);
+        return rtt;
+    }
+
+    @Test
+    public void testEffectIntermediateRecycled() {
+        // sizes not used by the other tests (buffers are recycled by length):
+        final PSWDrawable first = PSWDrawable.create(createRT(61, 47));
+        final int[] pixels = first.getPixelArray();
+        assertNotNull(pixels);
+        pixels[0] = 0xFF00FF00;
+        first.flush();
+
+        final PSWDrawable second = PSWDrawable.create(createRT(61, 47));
+        assertSame(pixels, second.getPixelArray());
+        assertEquals("recycled pixels must be cleared", 0, pixels[0]);
+        second.flush();
+    }
+
+    @Test
+    public void testKeptPixelsNotRecycled() {
+        final RTTexture snapshot = createRT(59, 43);
+        final int[] pixels = snapshot.getPixels();
+        assertNotNull(pixels);
+        pixels[0] = 0xFF0000FF;
+        snapshot.keepPixels();
+        snapshot.dispose();
+
+        final RTTexture other = createRT(59, 43);
+        assertNotSame(pixels, other.getPixels());
+        assertEquals(0xFF0000FF, pixels[0]);
+        other.dispose();
+    }
+}
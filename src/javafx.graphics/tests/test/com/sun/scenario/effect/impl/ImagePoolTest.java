@@ -0,0 +1,258 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package test.com.sun.scenario.effect.impl;
+
+import com.sun.javafx.geom.Rectangle;
+import com.sun.javafx.geom.transform.BaseTransform;
+import com.sun.scenario.effect.Effect.AccelType;
+import com.sun.scenario.effect.FilterContext;
+import com.sun.scenario.effect.Filterable;
+import com.sun.scenario.effect.ImageData;
+import com.sun.scenario.effect.impl.EffectPeer;
+import com.sun.scenario.effect.impl.ImagePool;
+import com.sun.scenario.effect.impl.PoolFilterable;
+import com.sun.scenario.effect.impl.Renderer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Compares the images checked out of the ImagePool size buckets with the
+ * choice of the former linear scan of all the unlocked images: the closest
+ * image of sufficient size, at most twice the requested area, and checks
+ * the statistics of the pools.
+ */
+public class ImagePoolTest {
+
+    private static final int QUANT = 32;
+
+    static final class TestImage implements PoolFilterable {
+        final int width;
+        final int height;
+        ImagePool pool;
+        boolean locked;
+
+        TestImage(int width, int height) {
+            this.width = width;
+            this.height = height;
+        }
+
+        @Override public void setImagePool(ImagePool pool) { this.pool = pool; }
+        @Override public ImagePool getImagePool() { return pool; }
+        @Override public Object getData() { return null; }
+        @Override public int getContentWidth() { return width; }
+        @Override public int getContentHeight() { return height; }
+        @Override public void setContentWidth(int contentW) { }
+        @Override public void setContentHeight(int contentH) { }
+        @Override public int getMaxContentWidth() { return width; }
+        @Override public int getMaxContentHeight() { return height; }
+        @Override public int getPhysicalWidth() { return width; }
+        @Override public int getPhysicalHeight() { return height; }
+        @Override public float getPixelScale() { return 1f; }
+        @Override public void flush() { }
+        @Override public void lock() { locked = true; }
+        @Override public void unlock() { locked = false; }
+        @Override public boolean isLost() { return false; }
+    }
+
+    static final class TestRenderer extends Renderer {
+        final List<TestImage> created = new ArrayList<>();
+
+        @Override public AccelType getAccelType() { return AccelType.NONE; }
+        @Override public int getCompatibleWidth(int w) { return w; }
+        @Override public int getCompatibleHeight(int h) { return h; }
+
+        @Override
+        public PoolFilterable createCompatibleImage(int w, int h) {
+            final TestImage img = new TestImage(w, h);
+            img.lock();
+            created.add(img);
+            return img;
+        }
+
+        @Override public void clearImage(Filterable image) { }
+        @Override public ImageData createImageData(FilterContext fctx, Filterable src) {
+            return null;
+        }
+        @Override public Filterable transform(FilterContext fctx, Filterable original,
+                                              BaseTransform transform,
+                                              Rectangle origBounds, Rectangle xformBounds) {
+            return null;
+        }
+        @Override public ImageData transform(FilterContext fctx, ImageData original,
+                                             BaseTransform transform,
+                                             Rectangle origBounds, Rectangle xformBounds) {
+            return null;
+        }
+        @Override public RendererState getRendererState() { return RendererState.OK; }
+        @Override protected EffectPeer createPeer(FilterContext fctx, String name,
+                                                  int unrollCount) {
+            return null;
+        }
+        @Override protected Renderer getBackupRenderer() { return this; }
+        @Override public boolean isImageDataCompatible(ImageData id) { return false; }
+    }
+
+    private static int quantize(int size) {
+        return ((Math.max(1, size) + QUANT - 1) / QUANT) * QUANT;
+    }
+
+    /**
+     * Returns the smallest size difference of the unlocked images matching
+     * the given quantized size or -1 (linear scan of the former ImagePool)
+     */
+    private static long referenceDiff(List<TestImage> unlocked, int w, int h) {
+        long mindiff = -1L;
+        for (TestImage img : unlocked) {
+            final int ew = img.getMaxContentWidth();
+            final int eh = img.getMaxContentHeight();
+            if (ew >= w && eh >= h && ((long) ew) * eh / 2 <= ((long) w) * h) {
+                final long diff = ((long) (ew - w)) * (eh - h);
+                if (mindiff < 0L || diff < mindiff) {
+                    mindiff = diff;
+                }
+            }
+        }
+        return mindiff;
+    }
+
+    @Test
+    public void testBucketSelection() {
+        for (long seed = 0L; seed < 20L; seed++) {
+            checkBucketSelection(seed);
+        }
+    }
+
+    private static long bytes(TestImage img) {
+        return 4L * img.width * img.height;
+    }
+
+    @Test
+    public void testStatistics() {
+        // no image is flushed without a budget:
+        assumeTrue(ImagePool.getMaxBytes() == 0L);
+        final Random rnd = new Random(1L);
+        final TestRenderer renderer = new TestRenderer();
+        final List<TestImage> locked = new ArrayList<>();
+        long lockedBytes = 0L;
+        long unlockedBytes = 0L;
+        int unlockedCount = 0;
+        ImagePool pool = null;
+
+        for (int i = 0; i < 1000; i++) {
+            if (!locked.isEmpty() && rnd.nextInt(3) == 0) {
+                final TestImage img = locked.remove(rnd.nextInt(locked.size()));
+                renderer.releaseCompatibleImage(img);
+                lockedBytes -= bytes(img);
+                unlockedBytes += bytes(img);
+                unlockedCount++;
+            } else {
+                final int w = 1 + rnd.nextInt(300);
+                final int h = 1 + rnd.nextInt(300);
+                final long accessed = ImagePool.getNumAccessed();
+                final long pixelsAccessed = ImagePool.getPixelsAccessed();
+                final long created = ImagePool.getNumCreated();
+                final long pixelsCreated = ImagePool.getPixelsCreated();
+                final long reused = ImagePool.getNumReused();
+                final int createdCount = renderer.created.size();
+
+                final TestImage img = (TestImage) renderer.getCompatibleImage(w, h);
+                locked.add(img);
+                pool = img.pool;
+                final long qpixels = ((long) quantize(w)) * quantize(h);
+                assertEquals(accessed + 1, ImagePool.getNumAccessed());
+                assertEquals(pixelsAccessed + qpixels, ImagePool.getPixelsAccessed());
+                if (renderer.created.size() > createdCount) {
+                    assertEquals(created + 1, ImagePool.getNumCreated());
+                    assertEquals(pixelsCreated + qpixels, ImagePool.getPixelsCreated());
+                    assertEquals(reused, ImagePool.getNumReused());
+                } else {
+                    assertEquals(created, ImagePool.getNumCreated());
+                    assertEquals(pixelsCreated, ImagePool.getPixelsCreated());
+                    assertEquals(reused + 1, ImagePool.getNumReused());
+                    unlockedBytes -= bytes(img);
+                    unlockedCount--;
+                }
+                lockedBytes += bytes(img);
+            }
+            assertNotNull(pool);
+            assertEquals(lockedBytes, pool.getLockedBytes());
+            assertEquals(unlockedBytes, pool.getUnlockedBytes());
+            assertEquals(lockedBytes + unlockedBytes, pool.getUsedBytes());
+            assertEquals(unlockedCount, pool.getUnlockedCount());
+        }
+    }
+
+    private static void checkBucketSelection(long seed) {
+        final Random rnd = new Random(seed);
+        final TestRenderer renderer = new TestRenderer();
+        final List<TestImage> unlocked = new ArrayList<>();
+        final List<TestImage> locked = new ArrayList<>();
+
+        for (int i = 0; i < 2000; i++) {
+            if (!locked.isEmpty() && rnd.nextInt(3) == 0) {
+                // release a random image:
+                final TestImage img = locked.remove(rnd.nextInt(locked.size()));
+                renderer.releaseCompatibleImage(img);
+                assertTrue(!img.locked);
+                unlocked.add(img);
+                continue;
+            }
+            final int w = 1 + rnd.nextInt(rnd.nextBoolean() ? 100 : 500);
+            final int h = 1 + rnd.nextInt(rnd.nextBoolean() ? 100 : 500);
+            final int qw = quantize(w);
+            final int qh = quantize(h);
+            final long expected = referenceDiff(unlocked, qw, qh);
+            final int createdCount = renderer.created.size();
+
+            final TestImage img = (TestImage) renderer.getCompatibleImage(w, h);
+            assertNotNull(img);
+            assertTrue(img.locked);
+            locked.add(img);
+
+            if (expected < 0L) {
+                // no pooled image of sufficient size: a new one is created
+                assertEquals(createdCount + 1, renderer.created.size());
+                assertSame(renderer.created.get(createdCount), img);
+                assertEquals(qw, img.width);
+                assertEquals(qh, img.height);
+            } else {
+                assertEquals(createdCount, renderer.created.size());
+                assertTrue("pooled image expected", unlocked.remove(img));
+                assertTrue(img.width >= qw && img.height >= qh);
+                assertEquals("size difference", expected,
+                             ((long) (img.width - qw)) * (img.height - qh));
+            }
+        }
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package test.com.sun.scenario.effect.impl.prism.sw;
+
+import com.sun.javafx.geom.Rectangle;
+import com.sun.prism.paint.Color;
+import com.sun.scenario.effect.Blend;
+import com.sun.scenario.effect.impl.prism.sw.PSWPointChainShim;
+import java.util.Random;
+import org.junit.Test;
+
+/**
+ * Compares the fused Blend chains of PSWPointChain with the unfused chain:
+ * every Blend stage composites its whole Flood image with the 8-bit result
+ * of the previous stage. The results may differ by one level per stage.
+ */
+public class PSWPointChainTest {
+
+    private static final Blend.Mode[] MODES = {
+        Blend.Mode.SRC_OVER, Blend.Mode.SRC_IN, Blend.Mode.SRC_OUT,
+        Blend.Mode.SRC_ATOP, Blend.Mode.ADD, Blend.Mode.MULTIPLY,
+        Blend.Mode.SCREEN, Blend.Mode.DARKEN, Blend.Mode.LIGHTEN,
+        Blend.Mode.DIFFERENCE, Blend.Mode.EXCLUSION
+    };
+
+    private static Rectangle randomRect(Random rnd) {
+        return new Rectangle(rnd.nextInt(60) - 10, rnd.nextInt(60) - 10,
+                             1 + rnd.nextInt(70), 1 + rnd.nextInt(70));
+    }
+
+    /**
+     * Reference blend of premultiplied 8-bit values (the top input is
+     * scaled by the opacity) as defined by Blend.Mode
+     */
+    private static int blend(Blend.Mode mode, float opacity, int top, int bot) {
+        final double[] t = new double[4];
+        final double[] b = new double[4];
+        for (int i = 0; i < 4; i++) {
+            t[i] = ((top >>> (24 - 8 * i)) & 0xff) / 255.0 * opacity;
+            b[i] = ((bot >>> (24 - 8 * i)) & 0xff) / 255.0;
+        }
+        // component 0 is alpha:
+        final double ta = t[0];
+        final double ba = b[0];
+        int res = 0;
+        for (int i = 0; i < 4; i++) {
+            double r;
+            switch (mode) {
+                case SRC_OVER:
+                    r = t[i] + b[i] * (1.0 - ta);
+                    break;
+                case SRC_IN:
+                    r = t[i] * ba;
+                    break;
+                case SRC_OUT:
+                    r = t[i] * (1.0 - ba);
+                    break;
+                case SRC_ATOP:
+                    r = (i == 0) ? ba : t[i] * ba + b[i] * (1.0 - ta);
+                    break;
+                case ADD:
+                    r = Math.min(1.0, t[i] + b[i]);
+                    break;
+                default:
+                    // separable modes: SRC_OVER alpha, premultiplied colors
+                    r = (i == 0) ? ta + ba * (1.0 - ta)
+                                 : separable(mode, t[i], ta, b[i], ba);
+                    break;
+            }
+            final int v = (int) Math.round(Math.max(0.0, Math.min(1.0, r)) * 255.0);
+            res |= v << (24 - 8 * i);
+        }
+        // clamp the color components to the alpha:
+        final int a = res >>> 24;
+        for (int shift = 0; shift < 24; shift += 8) {
+            if (((res >>> shift) & 0xff) > a) {
+                res = (res & ~(0xff << shift)) | (a << shift);
+            }
+        }
+        return res;
+    }
+
+    private static double separable(Blend.Mode mode, double tc, double ta,
+                                    double bc, double ba)
+    {
+        switch (mode) {
+            case MULTIPLY:
+                return tc * bc + tc * (1.0 - ba) + bc * (1.0 - ta);
+            case SCREEN:
+                return tc + bc - tc * bc;
+            case DARKEN:
+                return Math.min(tc + bc * (1.0 - ta), bc + tc * (1.0 - ba));
+            case LIGHTEN:
+                return Math.max(tc + bc * (1.0 - ta), bc + tc * (1.0 - ba));
+            case DIFFERENCE:
+                return tc + bc - 2.0 * Math.min(tc * ba, bc * ta);
+            case EXCLUSION:
+                return tc + bc - 2.0 * tc * bc;
+            default:
+                throw new IllegalArgumentException(mode.toString());
+        }
+    }
+
+    private static void checkChain(long seed) {
+        final Random rnd = new Random(seed);
+        final Rectangle srcBounds = randomRect(rnd);
+        final int[] src = new int[srcBounds.width * srcBounds.height];
+        for (int i = 0; i < src.length; i++) {
+            final int a = rnd.nextBoolean() ? 255 : rnd.nextInt(256);
+            src[i] = (a << 24) | (rnd.nextInt(a + 1) << 16)
+                   | (rnd.nextInt(a + 1) << 8) | rnd.nextInt(a + 1);
+        }
+
+        final int nStages = 1 + rnd.nextInt(4);
+        final Blend.Mode[] modes = new Blend.Mode[nStages];
+        final float[] opacities = new float[nStages];
+        final boolean[] floodOnTop = new boolean[nStages];
+        final int[] floods = new int[nStages];
+        final Rectangle[] floodBounds = new Rectangle[nStages];
+
+        final PSWPointChainShim chain = new PSWPointChainShim();
+        Rectangle dstBounds = new Rectangle(srcBounds);
+        for (int i = 0; i < nStages; i++) {
+            modes[i] = MODES[rnd.nextInt(MODES.length)];
+            opacities[i] = rnd.nextBoolean() ? 1f : rnd.nextFloat();
+            floodOnTop[i] = rnd.nextBoolean();
+            final Color color = new Color(rnd.nextFloat(), rnd.nextFloat(), rnd.nextFloat(),
+                                          rnd.nextBoolean() ? 1f : rnd.nextFloat());
+            floods[i] = color.getIntArgbPre();
+            floodBounds[i] = randomRect(rnd);
+            chain.addStage(modes[i], opacities[i], floodOnTop[i], color, floodBounds[i]);
+            dstBounds.add(floodBounds[i]);
+        }
+
+        final int[] dst = new int[dstBounds.width * dstBounds.height];
+        chain.filter(src, srcBounds.width, srcBounds, dst, dstBounds.width, dstBounds);
+
+        for (int dy = 0; dy < dstBounds.height; dy++) {
+            final int y = dstBounds.y + dy;
+            for (int dx = 0; dx < dstBounds.width; dx++) {
+                final int x = dstBounds.x + dx;
+                int expected = srcBounds.contains(x, y)
+                    ? src[(y - srcBounds.y) * srcBounds.width + (x - srcBounds.x)] : 0;
+                for (int i = 0; i < nStages; i++) {
+                    final int flood = floodBounds[i].contains(x, y) ? floods[i] : 0;
+                    expected = floodOnTop[i]
+                        ? blend(modes[i], opacities[i], flood, expected)
+                        : blend(modes[i], opacities[i], expected, flood);
+                }
+                final int actual = dst[dy * dstBounds.width + dx];
+                for (int shift = 0; shift < 32; shift += 8) {
+                    final int e = (expected >>> shift) & 0xff;
+                    final int a = (actual >>> shift) & 0xff;
+                    if (Math.abs(e - a) > nStages) {
+                        throw new AssertionError("seed " + seed + ": pixel (" + x + ", " + y
+                                + ") differs: expected 0x" + Integer.toHexString(expected)
+                                + " but was 0x" + Integer.toHexString(actual));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testFusedChains() {
+        for (long seed = 0L; seed < 500L; seed++) {
+            checkChain(seed);
+        }
+    }
+}
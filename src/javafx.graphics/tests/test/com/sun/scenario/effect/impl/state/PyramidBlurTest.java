@@ -0,0 +1,245 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package test.com.sun.scenario.effect.impl.state;
+
+import com.sun.glass.ui.Screen;
+import com.sun.javafx.geom.BaseBounds;
+import com.sun.javafx.geom.RectBounds;
+import com.sun.javafx.geom.Rectangle;
+import com.sun.javafx.geom.transform.BaseTransform;
+import com.sun.prism.Graphics;
+import com.sun.prism.GraphicsPipeline;
+import com.sun.prism.RTTexture;
+import com.sun.prism.ResourceFactory;
+import com.sun.prism.Texture.WrapMode;
+import com.sun.scenario.effect.BoxBlur;
+import com.sun.scenario.effect.Effect;
+import com.sun.scenario.effect.FilterContext;
+import com.sun.scenario.effect.GaussianBlur;
+import com.sun.scenario.effect.ImageData;
+import com.sun.scenario.effect.impl.prism.PrEffectHelper;
+import com.sun.scenario.effect.impl.prism.PrFilterContext;
+import com.sun.scenario.effect.impl.prism.sw.PSWDrawable;
+import com.sun.scenario.effect.impl.state.LinearConvolveRenderState;
+import java.util.Random;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Checks the quality bound documented on
+ * {@link LinearConvolveRenderState#PYRAMID_RADIUS}: large Gaussian and box
+ * blurs of inputs rendered at the scale requested by the multi-resolution
+ * mode are compared with the exact kernels applied at full resolution.
+ * Only runs with -Ddecora.blur.pyramidRadius=8, 16 or 32 and a SW pipeline
+ * that needs no native code (-Dprism.order=sw -Dprism.pisces.java=true).
+ */
+public class PyramidBlurTest {
+
+    private static final int W = 640;
+    private static final int H = 160;
+
+    private static ResourceFactory factory;
+    private static FilterContext fctx;
+
+    /**
+     * Columns of 8-bit alpha values, one per unit of user space along x and
+     * constant along y, rendered with exact area coverage at the scale of
+     * the requested transform like the shapes of a node.
+     */
+    private static class Columns extends Effect {
+        private final double[] alpha;
+
+        Columns(double[] alpha) {
+            this.alpha = alpha;
+        }
+
+        @Override
+        public BaseBounds getBounds(BaseTransform transform, Effect defaultInput) {
+            return transformBounds(transform, new RectBounds(0, 0, alpha.length, H));
+        }
+
+        @Override
+        public ImageData filter(FilterContext fctx, BaseTransform transform,
+                                Rectangle outputClip, Object renderHelper,
+                                Effect defaultInput)
+        {
+            // scale only, as requested by the blur states:
+            final double sx = transform.getMxx();
+            final Rectangle r = new Rectangle(getBounds(transform, null));
+            final PSWDrawable img = (PSWDrawable) getCompatibleImage(fctx, r.width, r.height);
+            final int[] pixels = img.getPixelArray();
+            final int scan = img.getScanlineStride();
+            for (int x = 0; x < r.width; x++) {
+                // device column [x, x + 1) covers user [x0, x1):
+                final double x0 = (r.x + x) / sx;
+                final double x1 = (r.x + x + 1) / sx;
+                double sum = 0.0;
+                for (int u = (int) Math.floor(x0); u < x1; u++) {
+                    if (u >= 0 && u < alpha.length) {
+                        sum += alpha[u] * (Math.min(x1, u + 1) - Math.max(x0, u));
+                    }
+                }
+                final int a = (int) Math.round(Math.min(1.0, sum * sx) * 255.0);
+                for (int y = 0; y < r.height; y++) {
+                    pixels[y * scan + x] = a << 24;
+                }
+            }
+            return new ImageData(fctx, img, r);
+        }
+
+        @Override
+        public AccelType getAccelType(FilterContext fctx) {
+            return AccelType.NONE;
+        }
+
+        @Override
+        public boolean reducesOpaquePixels() {
+            return false;
+        }
+    }
+
+    @BeforeClass
+    public static void setUpClass() {
+        final int radius = LinearConvolveRenderState.PYRAMID_RADIUS;
+        assumeTrue(radius == 8 || radius == 16 || radius == 32);
+        GraphicsPipeline pipeline = GraphicsPipeline.getPipeline();
+        if (pipeline == null) {
+            pipeline = GraphicsPipeline.createPipeline();
+        }
+        assumeTrue(pipeline != null);
+        final Screen screen = new Screen(0L, 32, 0, 0, W, H, 0, 0, W, H,
+                                         0, 0, W, H, 96, 96, 1f, 1f, 1f, 1f);
+        factory = pipeline.getResourceFactory(screen);
+        fctx = PrFilterContext.getInstance(screen);
+    }
+
+    /**
+     * Edges, lines of 1 to 3 units and 8-bit noise.
+     */
+    private static double[] createInput() {
+        final double[] alpha = new double[W];
+        for (int x = 60; x < 200; x++) {
+            alpha[x] = 1.0;
+        }
+        for (int x = 260; x < 263; x++) {
+            alpha[x] = 1.0;
+        }
+        alpha[300] = 1.0;
+        alpha[330] = 0.5;
+        final Random rnd = new Random(1);
+        for (int x = 400; x < 560; x++) {
+            alpha[x] = rnd.nextInt(256) / 255.0;
+        }
+        return alpha;
+    }
+
+    private static double[] convolve(double[] src, double[] kernel) {
+        final int r = kernel.length / 2;
+        final double[] dst = new double[src.length];
+        for (int x = 0; x < src.length; x++) {
+            double sum = 0.0;
+            for (int k = -r; k <= r; k++) {
+                if (x + k >= 0 && x + k < src.length) {
+                    sum += src[x + k] * kernel[k + r];
+                }
+            }
+            dst[x] = sum;
+        }
+        return dst;
+    }
+
+    private static double[] gaussianKernel(int radius) {
+        final double sigma = radius / 3.0;
+        final double[] kernel = new double[2 * radius + 1];
+        double total = 0.0;
+        for (int i = -radius; i <= radius; i++) {
+            kernel[i + radius] = Math.exp(-(i * i) / (2.0 * sigma * sigma));
+            total += kernel[i + radius];
+        }
+        for (int i = 0; i < kernel.length; i++) {
+            kernel[i] /= total;
+        }
+        return kernel;
+    }
+
+    private static double[] boxKernel(int size) {
+        final double[] kernel = new double[size];
+        for (int i = 0; i < size; i++) {
+            kernel[i] = 1.0 / size;
+        }
+        return kernel;
+    }
+
+    /**
+     * Renders the blur of the input and returns the largest difference, in
+     * levels of 255, of the alpha of its middle row with the exact values.
+     */
+    private static double getError(Effect blur, double[] exact) {
+        final RTTexture rtt = factory.createRTTexture(W, H, WrapMode.CLAMP_TO_ZERO);
+        assertNotNull(rtt);
+        final Graphics g = rtt.createGraphics();
+        PrEffectHelper.render(blur, g, 0, 0, null);
+        final int[] pixels = rtt.getPixels();
+        double max = 0.0;
+        for (int x = 0; x < W; x++) {
+            final int a = pixels[(H / 2) * rtt.getContentWidth() + x] >>> 24;
+            max = Math.max(max, Math.abs(a - exact[x] * 255.0));
+        }
+        rtt.dispose();
+        return max;
+    }
+
+    @Test
+    public void testGaussian() {
+        final double bound = (LinearConvolveRenderState.PYRAMID_RADIUS == 8) ? 5.0 : 4.0;
+        final double[] input = createInput();
+        for (int radius : new int[] {10, 20, 30, 40, 63}) {
+            final double[] exact = convolve(input, gaussianKernel(radius));
+            final double err = getError(new GaussianBlur(radius, new Columns(input)), exact);
+            assertTrue("radius " + radius + ": " + err + " levels", err <= bound);
+        }
+    }
+
+    @Test
+    public void testBox() {
+        final double[] input = createInput();
+        for (int passes = 1; passes <= 3; passes++) {
+            for (int size : new int[] {21, 41, 81, 127}) {
+                double[] exact = input;
+                for (int pass = 0; pass < passes; pass++) {
+                    exact = convolve(exact, boxKernel(size));
+                }
+                final BoxBlur blur = new BoxBlur(size, 1, passes, new Columns(input));
+                final double err = getError(blur, exact);
+                assertTrue(passes + " x " + size + ": " + err + " levels", err <= 7.0);
+            }
+        }
+    }
+}
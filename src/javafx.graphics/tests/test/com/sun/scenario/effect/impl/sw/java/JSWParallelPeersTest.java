@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package test.com.sun.scenario.effect.impl.sw.java;
+
+import com.sun.scenario.effect.impl.sw.java.JSWPeerShim;
+import java.util.Random;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+
+/**
+ * Compares the passes of the Java SW peers filtered in parallel ranges of
+ * lines (decora.sw.parallel) with the same passes filtered sequentially.
+ */
+public class JSWParallelPeersTest {
+
+    private static final int W = 400;
+    private static final int H = 300;
+    private static final int GROW = 8;
+
+    static int[] createImage(long seed, int w, int h) {
+        final Random rnd = new Random(seed);
+        final int[] img = new int[w * h];
+        for (int i = 0; i < img.length; i++) {
+            // transparent and opaque runs with random premultiplied pixels:
+            final int a = ((i / 37) % 5 == 0) ? 0 : (rnd.nextBoolean() ? 255 : rnd.nextInt(256));
+            final int r = (a == 0) ? 0 : rnd.nextInt(a + 1);
+            final int g = (a == 0) ? 0 : rnd.nextInt(a + 1);
+            final int b = (a == 0) ? 0 : rnd.nextInt(a + 1);
+            img[i] = (a << 24) | (r << 16) | (g << 8) | b;
+        }
+        return img;
+    }
+
+    static float[] createWeights(int count) {
+        final float[] weights = new float[count];
+        float sum = 0f;
+        for (int i = 0; i < count; i++) {
+            final float d = i - (count - 1) * 0.5f;
+            weights[i] = (float) Math.exp(-d * d / 8.0);
+            sum += weights[i];
+        }
+        for (int i = 0; i < count; i++) {
+            weights[i] /= sum;
+        }
+        return weights;
+    }
+
+    interface Pass {
+        void filter(JSWPeerShim peer, int[] dst);
+    }
+
+    private static void checkParallel(boolean vec, int dstLength, Pass pass) {
+        final int[] expected = new int[dstLength];
+        pass.filter(new JSWPeerShim(vec, false), expected);
+
+        final int[] actual = new int[dstLength];
+        pass.filter(new JSWPeerShim(vec, true), actual);
+
+        assertArrayEquals(expected, actual);
+    }
+
+    private static void checkBoxBlur(boolean vec) {
+        final int[] src = createImage(1L, W, H);
+        checkParallel(vec, (W + GROW) * H, (peer, dst) ->
+            peer.boxBlurHorizontal(dst, W + GROW, H, W + GROW, src, W, H, W));
+        checkParallel(vec, W * (H + GROW), (peer, dst) ->
+            peer.boxBlurVertical(dst, W, H + GROW, W, src, W, H, W));
+    }
+
+    private static void checkBoxShadow(boolean vec) {
+        final int[] src = createImage(2L, W, H);
+        final float[] color = {0.2f, 0.4f, 0.6f, 0.8f};
+        for (float spread : new float[] {0f, 0.35f}) {
+            checkParallel(vec, (W + GROW) * H, (peer, dst) ->
+                peer.boxShadowHorizontalBlack(dst, W + GROW, H, W + GROW,
+                                              src, W, H, W, spread));
+            checkParallel(vec, W * (H + GROW), (peer, dst) ->
+                peer.boxShadowVerticalBlack(dst, W, H + GROW, W,
+                                            src, W, H, W, spread));
+            checkParallel(vec, W * (H + GROW), (peer, dst) ->
+                peer.boxShadowVertical(dst, W, H + GROW, W,
+                                       src, W, H, W, spread, color));
+        }
+    }
+
+    @Test
+    public void testBoxBlur() {
+        checkBoxBlur(false);
+    }
+
+    @Test
+    public void testVecBoxBlur() {
+        checkBoxBlur(true);
+    }
+
+    @Test
+    public void testBoxShadow() {
+        checkBoxShadow(false);
+    }
+
+    @Test
+    public void testVecBoxShadow() {
+        checkBoxShadow(true);
+    }
+
+    @Test
+    public void testLinearConvolveHV() {
+        final int[] src = createImage(3L, W, H);
+        final int count = GROW + 1;
+        final float[] kernel = createWeights(count);
+        final float[] weights = new float[count * 2];
+        System.arraycopy(kernel, 0, weights, 0, count);
+        System.arraycopy(kernel, 0, weights, count, count);
+        final int dstw = W + GROW;
+        final int dsth = H + GROW;
+        // horizontal pass:
+        checkParallel(false, dstw * H, (peer, dst) ->
+            peer.convolveHV(dst, dstw, H, 1, dstw, src, W, H, 1, W, weights));
+        // vertical pass:
+        checkParallel(false, W * dsth, (peer, dst) ->
+            peer.convolveHV(dst, dsth, W, W, 1, src, H, W, W, 1, weights));
+    }
+
+    @Test
+    public void testLinearConvolveVector() {
+        final int[] src = createImage(4L, W, H);
+        final int count = GROW + 1;
+        final float[] weights = createWeights(count);
+        final int dstw = W + GROW;
+        final int dsth = H + GROW;
+        final float half = GROW * 0.5f;
+        // axis aligned horizontal pass (JSW and JSWVec peers):
+        for (boolean vec : new boolean[] {false, true}) {
+            checkParallel(vec, dstw * dsth, (peer, dst) ->
+                peer.convolveVector(dst, dstw, dsth, dstw, src, W, H, W,
+                                    weights, count, -half, -half, -half, 0f,
+                                    1f, 0f, 1f, 0f, 0f, 1f));
+        }
+        // rotated source (accumulated row positions):
+        final float cos = (float) Math.cos(0.3);
+        final float sin = (float) Math.sin(0.3);
+        checkParallel(false, dstw * dsth, (peer, dst) ->
+            peer.convolveVector(dst, dstw, dsth, dstw, src, W, H, W,
+                                weights, count, 40f, -60f, 0f, -half,
+                                0f, 1f, cos, sin, -sin, cos));
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package test.com.sun.scenario.effect.impl.sw.java;
+
+import com.sun.scenario.effect.impl.sw.java.JSWPeerShim;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static test.com.sun.scenario.effect.impl.sw.java.JSWParallelPeersTest.createImage;
+import static test.com.sun.scenario.effect.impl.sw.java.JSWParallelPeersTest.createWeights;
+
+/**
+ * Compares the passes of the JSWVec peers with the ones of the scalar JSW
+ * peers: the box blur and box shadow results must be the same, the linear
+ * convolve results may differ by one per component (sample positions).
+ */
+public class JSWVecPeersTest {
+
+    private static final int W = 173;
+    private static final int H = 131;
+    private static final int GROW = 8;
+    private static final int MAX_DIFF = 1;
+
+    private static final JSWPeerShim SCALAR = new JSWPeerShim(false);
+    private static final JSWPeerShim VEC = new JSWPeerShim(true);
+
+    interface Pass {
+        void filter(JSWPeerShim peer, int[] dst);
+    }
+
+    private static void checkSame(int dstLength, Pass pass) {
+        final int[] expected = new int[dstLength];
+        pass.filter(SCALAR, expected);
+        final int[] actual = new int[dstLength];
+        pass.filter(VEC, actual);
+        assertArrayEquals(expected, actual);
+    }
+
+    private static void checkClose(int dstLength, Pass pass) {
+        final int[] expected = new int[dstLength];
+        pass.filter(SCALAR, expected);
+        final int[] actual = new int[dstLength];
+        pass.filter(VEC, actual);
+        for (int i = 0; i < dstLength; i++) {
+            for (int shift = 0; shift < 32; shift += 8) {
+                final int e = (expected[i] >>> shift) & 0xff;
+                final int a = (actual[i] >>> shift) & 0xff;
+                if (Math.abs(e - a) > MAX_DIFF) {
+                    throw new AssertionError("pixel " + i + " differs: expected 0x"
+                            + Integer.toHexString(expected[i]) + " but was 0x"
+                            + Integer.toHexString(actual[i]));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testBoxBlur() {
+        final int[] src = createImage(5L, W, H);
+        for (int grow = 1; grow <= GROW; grow += 3) {
+            final int g = grow;
+            checkSame((W + g) * H, (peer, dst) ->
+                peer.boxBlurHorizontal(dst, W + g, H, W + g, src, W, H, W));
+            checkSame(W * (H + g), (peer, dst) ->
+                peer.boxBlurVertical(dst, W, H + g, W, src, W, H, W));
+        }
+    }
+
+    @Test
+    public void testBoxShadow() {
+        final int[] src = createImage(6L, W, H);
+        final float[] color = {0.1f, 0.5f, 0.3f, 0.9f};
+        for (float spread : new float[] {0f, 0.5f, 1f}) {
+            checkSame((W + GROW) * H, (peer, dst) ->
+                peer.boxShadowHorizontalBlack(dst, W + GROW, H, W + GROW,
+                                              src, W, H, W, spread));
+            checkSame(W * (H + GROW), (peer, dst) ->
+                peer.boxShadowVerticalBlack(dst, W, H + GROW, W,
+                                            src, W, H, W, spread));
+            checkSame(W * (H + GROW), (peer, dst) ->
+                peer.boxShadowVertical(dst, W, H + GROW, W,
+                                       src, W, H, W, spread, color));
+        }
+    }
+
+    private static void checkConvolve(float srcx0, float srcy0,
+                                      boolean horizontal, boolean shadow)
+    {
+        final int[] src = createImage(7L, W, H);
+        final int count = GROW + 1;
+        final float[] weights = createWeights(count);
+        final float[] color = {0.25f, 0.5f, 0.75f, 1f};
+        final int dstw = W + (horizontal ? GROW : 0);
+        final int dsth = H + (horizontal ? 0 : GROW);
+        final float half = GROW * 0.5f;
+        final float offsetx = horizontal ? -half : 0f;
+        final float offsety = horizontal ? 0f : -half;
+        final float deltax = horizontal ? 1f : 0f;
+        final float deltay = horizontal ? 0f : 1f;
+        checkClose(dstw * dsth, (peer, dst) -> {
+            if (shadow) {
+                peer.convolveShadowVector(dst, dstw, dsth, dstw, src, W, H, W,
+                                          weights, count, srcx0, srcy0,
+                                          offsetx, offsety, deltax, deltay,
+                                          1f, 0f, 0f, 1f, color);
+            } else {
+                peer.convolveVector(dst, dstw, dsth, dstw, src, W, H, W,
+                                    weights, count, srcx0, srcy0,
+                                    offsetx, offsety, deltax, deltay,
+                                    1f, 0f, 0f, 1f);
+            }
+        });
+    }
+
+    @Test
+    public void testLinearConvolve() {
+        for (boolean horizontal : new boolean[] {true, false}) {
+            checkConvolve(-GROW * 0.5f, 0f, horizontal, false);
+            checkConvolve(-3.3f, 1.7f, horizontal, false);
+            checkConvolve(0.1f, -5.6f, horizontal, false);
+        }
+    }
+
+    @Test
+    public void testLinearConvolveShadow() {
+        for (boolean horizontal : new boolean[] {true, false}) {
+            checkConvolve(-GROW * 0.5f, 0f, horizontal, true);
+            checkConvolve(-3.3f, 1.7f, horizontal, true);
+            checkConvolve(0.1f, -5.6f, horizontal, true);
+        }
+    }
+
+    @Test
+    public void testLinearConvolveRotated() {
+        // transformed passes use the JSW implementation:
+        final int[] src = createImage(8L, W, H);
+        final int count = GROW + 1;
+        final float[] weights = createWeights(count);
+        final float cos = (float) Math.cos(0.2);
+        final float sin = (float) Math.sin(0.2);
+        checkSame(W * H, (peer, dst) ->
+            peer.convolveVector(dst, W, H, W, src, W, H, W,
+                                weights, count, 20f, -15f, -4f, 0f,
+                                1f, 0f, cos, sin, -sin, cos));
+    }
+}